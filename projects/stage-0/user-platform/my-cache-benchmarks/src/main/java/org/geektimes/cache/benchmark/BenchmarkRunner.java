@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+/**
+ * The entry of benchmarks, which accepts all options of JMH, e.g. the filter of benchmarks. The results are
+ * exported as JSON into "jmh-result.json" unless "-rf" or "-rff" is specified, thus they could be compared
+ * across the releases.
+ * <p>
+ * The system property {@link #THREADS_PROPERTY_NAME "benchmark.threads"} sweeps the count of threads,
+ * e.g. "-Dbenchmark.threads=1,2,4,8", every count exports its own result file with the suffix "-t&lt;count&gt;".
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @since 1.0.0
+ */
+public class BenchmarkRunner {
+
+    public static final String THREADS_PROPERTY_NAME = "benchmark.threads";
+
+    public static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        ResultFormatType resultFormat = commandLineOptions.getResultFormat().orElse(ResultFormatType.JSON);
+        String resultFile = commandLineOptions.getResult().orElse(DEFAULT_RESULT_FILE);
+        String threads = System.getProperty(THREADS_PROPERTY_NAME);
+        if (threads == null) {
+            run(commandLineOptions, resultFormat, resultFile, -1);
+            return;
+        }
+        for (String count : threads.split(",")) {
+            run(commandLineOptions, resultFormat, withSuffix(resultFile, "-t" + count.trim()),
+                    Integer.parseInt(count.trim()));
+        }
+    }
+
+    private static void run(CommandLineOptions commandLineOptions, ResultFormatType resultFormat, String resultFile,
+                            int threads) throws RunnerException {
+        ChainedOptionsBuilder builder = new OptionsBuilder()
+                .parent(commandLineOptions)
+                .resultFormat(resultFormat)
+                .result(resultFile);
+        if (threads > 0) {
+            builder.threads(threads);
+        }
+        new Runner(builder.build()).run();
+    }
+
+    private static String withSuffix(String resultFile, String suffix) {
+        String name = new File(resultFile).getName();
+        int index = name.lastIndexOf('.');
+        int offset = resultFile.length() - name.length();
+        return index < 0 ? resultFile + suffix :
+                resultFile.substring(0, offset + index) + suffix + resultFile.substring(offset + index);
+    }
+}
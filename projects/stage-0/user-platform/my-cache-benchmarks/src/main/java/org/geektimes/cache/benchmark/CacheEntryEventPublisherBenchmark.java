@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache.benchmark;
+
+import org.geektimes.cache.event.CacheEntryEventPublisher;
+import org.geektimes.cache.event.GenericCacheEntryEvent;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.configuration.FactoryBuilder;
+import javax.cache.configuration.MutableCacheEntryListenerConfiguration;
+import javax.cache.configuration.MutableConfiguration;
+import javax.cache.event.CacheEntryCreatedListener;
+import javax.cache.event.CacheEntryEvent;
+import java.io.Serializable;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The fan-out of {@link CacheEntryEventPublisher} to the synchronous listeners
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheEntryEventPublisherBenchmark {
+
+    @Param({"1", "8", "64"})
+    public int listenerCount;
+
+    private CacheManager cacheManager;
+
+    private CacheEntryEventPublisher publisher;
+
+    private CacheEntryEvent<String, String> event;
+
+    @Setup
+    public void setup() {
+        cacheManager = Caching.getCachingProvider().getCacheManager(URI.create("in-memory://localhost/event"), null);
+        Cache<String, String> source = cacheManager.createCache("event", new MutableConfiguration<String, String>()
+                .setTypes(String.class, String.class));
+        publisher = new CacheEntryEventPublisher();
+        for (int i = 0; i < listenerCount; i++) {
+            publisher.registerCacheEntryListener(new MutableCacheEntryListenerConfiguration<>(
+                    FactoryBuilder.factoryOf(new ConsumingListener()), null, false, true));
+        }
+        event = GenericCacheEntryEvent.createdEvent(source, "key", "value");
+    }
+
+    @TearDown
+    public void tearDown() {
+        cacheManager.destroyCache("event");
+    }
+
+    @Benchmark
+    public void publish() {
+        publisher.publish(event);
+    }
+
+    public static class ConsumingListener implements CacheEntryCreatedListener<String, String>, Serializable {
+
+        @Override
+        public void onCreated(Iterable<CacheEntryEvent<? extends String, ? extends String>> events) {
+            for (CacheEntryEvent<? extends String, ? extends String> event : events) {
+                Blackhole.consumeCPU(event.getKey().length());
+            }
+        }
+    }
+}
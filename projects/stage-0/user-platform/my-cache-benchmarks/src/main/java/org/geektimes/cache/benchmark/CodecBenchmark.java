@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache.benchmark;
+
+import org.geektimes.cache.io.Codec;
+import org.geektimes.cache.io.CodecRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The throughput of the {@link Codec codecs} in {@link CodecRegistry}
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecBenchmark {
+
+    @Param({"compact", "java"})
+    public String codecName;
+
+    @Param({"long", "string", "object"})
+    public String valueType;
+
+    private Codec codec;
+
+    private Object value;
+
+    private byte[] bytes;
+
+    @Setup
+    public void setup() throws IOException {
+        codec = CodecRegistry.getInstance().getCodec(codecName);
+        switch (valueType) {
+            case "long":
+                value = 1234567890L;
+                break;
+            case "string":
+                value = "The quick brown fox jumps over the lazy dog";
+                break;
+            default:
+                value = new User(1L, "mercyblitz", "mercyblitz@gmail.com");
+        }
+        bytes = codec.serialize(value);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return codec.serialize(value);
+    }
+
+    @Benchmark
+    public Object deserialize() throws IOException {
+        return codec.deserialize(bytes);
+    }
+
+    public static class User implements Serializable {
+
+        private final long id;
+
+        private final String name;
+
+        private final String email;
+
+        public User(long id, String name, String email) {
+            this.id = id;
+            this.name = name;
+            this.email = email;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.configuration.MutableConfiguration;
+import javax.cache.spi.CachingProvider;
+import javax.cache.processor.EntryProcessor;
+import javax.cache.processor.MutableEntry;
+import java.net.URI;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The benchmark of the operations of the in-memory {@link Cache}, the count of threads is specified by the JMH
+ * option "-t" or swept by {@link BenchmarkRunner}.
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InMemoryCacheBenchmark {
+
+    static final int BATCH_SIZE = 16;
+
+    @Param({"10000"})
+    public int keyCount;
+
+    @Param({KeyDistribution.UNIFORM, KeyDistribution.ZIPFIAN})
+    public String distribution;
+
+    @Param({"0", "1000"})
+    public long maxEntries;
+
+    private CacheManager cacheManager;
+
+    private Cache<String, Long> cache;
+
+    private String[] keys;
+
+    private KeyDistribution keyDistribution;
+
+    @Setup
+    public void setup() {
+        CachingProvider cachingProvider = Caching.getCachingProvider();
+        Properties properties = new Properties();
+        properties.putAll(cachingProvider.getDefaultProperties());
+        properties.setProperty("javax.cache.Cache.max-entries", String.valueOf(maxEntries));
+        cacheManager = cachingProvider.getCacheManager(URI.create("in-memory://localhost/benchmark"),
+                null, properties);
+        cache = cacheManager.createCache("benchmark", new MutableConfiguration<String, Long>()
+                .setTypes(String.class, Long.class));
+        keys = new String[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = "key-" + i;
+            cache.put(keys[i], (long) i);
+        }
+        keyDistribution = KeyDistribution.of(distribution, keyCount);
+    }
+
+    @TearDown
+    public void tearDown() {
+        cacheManager.destroyCache("benchmark");
+    }
+
+    @Benchmark
+    public Long get() {
+        return cache.get(nextKey());
+    }
+
+    @Benchmark
+    public void put() {
+        cache.put(nextKey(), ThreadLocalRandom.current().nextLong());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public Map<String, Long> getAll() {
+        Set<String> batch = new LinkedHashSet<>(BATCH_SIZE);
+        while (batch.size() < BATCH_SIZE) {
+            batch.add(nextKey());
+        }
+        return cache.getAll(batch);
+    }
+
+    @Benchmark
+    public Long invoke() {
+        return cache.invoke(nextKey(), Increment.INSTANCE);
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(3)
+    public void readWriteGet(Blackhole blackhole) {
+        blackhole.consume(cache.get(nextKey()));
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(1)
+    public void readWritePut() {
+        cache.put(nextKey(), ThreadLocalRandom.current().nextLong());
+    }
+
+    private String nextKey() {
+        return keys[keyDistribution.nextIndex(ThreadLocalRandom.current())];
+    }
+
+    static class Increment implements EntryProcessor<String, Long, Long> {
+
+        static final Increment INSTANCE = new Increment();
+
+        @Override
+        public Long process(MutableEntry<String, Long> entry, Object... arguments) {
+            Long value = entry.exists() ? entry.getValue() + 1 : 0L;
+            entry.setValue(value);
+            return value;
+        }
+    }
+}
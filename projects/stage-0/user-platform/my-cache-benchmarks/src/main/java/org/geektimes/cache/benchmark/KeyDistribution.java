@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache.benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The distribution of key indexes in the range of [0, keyCount)
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @since 1.0.0
+ */
+public abstract class KeyDistribution {
+
+    public static final String UNIFORM = "uniform";
+
+    public static final String ZIPFIAN = "zipfian";
+
+    /**
+     * The skew of Zipfian distribution, which is as same as YCSB
+     */
+    public static final double ZIPFIAN_EXPONENT = 0.99d;
+
+    protected final int keyCount;
+
+    protected KeyDistribution(int keyCount) {
+        this.keyCount = keyCount;
+    }
+
+    public abstract int nextIndex(ThreadLocalRandom random);
+
+    public static KeyDistribution of(String name, int keyCount) {
+        switch (name) {
+            case UNIFORM:
+                return new Uniform(keyCount);
+            case ZIPFIAN:
+                return new Zipfian(keyCount, ZIPFIAN_EXPONENT);
+            default:
+                throw new IllegalArgumentException("Unknown key distribution : " + name);
+        }
+    }
+
+    static class Uniform extends KeyDistribution {
+
+        Uniform(int keyCount) {
+            super(keyCount);
+        }
+
+        @Override
+        public int nextIndex(ThreadLocalRandom random) {
+            return random.nextInt(keyCount);
+        }
+    }
+
+    /**
+     * The index <code>i</code> is chosen with the probability proportional to <code>1 / (i + 1)^s</code>, the
+     * cumulative probabilities are computed up-front, thus the sampling is a binary search.
+     */
+    static class Zipfian extends KeyDistribution {
+
+        private final double[] cumulativeProbabilities;
+
+        Zipfian(int keyCount, double exponent) {
+            super(keyCount);
+            this.cumulativeProbabilities = new double[keyCount];
+            double sum = 0;
+            for (int i = 0; i < keyCount; i++) {
+                sum += 1.0d / Math.pow(i + 1, exponent);
+                cumulativeProbabilities[i] = sum;
+            }
+            for (int i = 0; i < keyCount; i++) {
+                cumulativeProbabilities[i] /= sum;
+            }
+        }
+
+        @Override
+        public int nextIndex(ThreadLocalRandom random) {
+            int index = Arrays.binarySearch(cumulativeProbabilities, random.nextDouble());
+            return Math.min(index < 0 ? -index - 1 : index, keyCount - 1);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.configuration.FactoryBuilder;
+import javax.cache.configuration.MutableConfiguration;
+import javax.cache.integration.CacheLoader;
+import javax.cache.spi.CachingProvider;
+import java.io.Serializable;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The benchmark of the read-through miss storms : every key is requested {@link #stormSize} times in a row by
+ * the concurrent threads while it's absent, thus the concurrent loads of the same key could be coalesced,
+ * the size "1" is the baseline that every get misses a distinct key.
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @since 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class ReadThroughBenchmark {
+
+    @Param({"1", "64"})
+    public int stormSize;
+
+    @Param({"100"})
+    public long loadMicros;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private CacheManager cacheManager;
+
+    private Cache<Long, Long> cache;
+
+    @Setup
+    public void setup() {
+        CachingProvider cachingProvider = Caching.getCachingProvider();
+        Properties properties = new Properties();
+        properties.putAll(cachingProvider.getDefaultProperties());
+        properties.setProperty("javax.cache.Cache.max-entries", "10000");
+        cacheManager = cachingProvider.getCacheManager(URI.create("in-memory://localhost/read-through"),
+                null, properties);
+        cache = cacheManager.createCache("readThrough", new MutableConfiguration<Long, Long>()
+                .setTypes(Long.class, Long.class)
+                .setReadThrough(true)
+                .setCacheLoaderFactory(FactoryBuilder.factoryOf(new SlowLoader(TimeUnit.MICROSECONDS
+                        .toNanos(loadMicros)))));
+    }
+
+    @TearDown
+    public void tearDown() {
+        cacheManager.destroyCache("readThrough");
+    }
+
+    @Benchmark
+    public Long missStorm() {
+        return cache.get(sequence.getAndIncrement() / stormSize);
+    }
+
+    /**
+     * The {@link CacheLoader} simulates the latency of remote source
+     */
+    public static class SlowLoader implements CacheLoader<Long, Long>, Serializable {
+
+        private final long loadNanos;
+
+        public SlowLoader(long loadNanos) {
+            this.loadNanos = loadNanos;
+        }
+
+        @Override
+        public Long load(Long key) {
+            LockSupport.parkNanos(loadNanos);
+            return key;
+        }
+
+        @Override
+        public Map<Long, Long> loadAll(Iterable<? extends Long> keys) {
+            Map<Long, Long> values = new HashMap<>();
+            for (Long key : keys) {
+                values.put(key, load(key));
+            }
+            return values;
+        }
+    }
+}
@@ -16,11 +16,18 @@
  */
 package org.geektimes.cache;
 
+import org.geektimes.cache.configuration.CacheProperties;
+import org.geektimes.cache.event.CacheEntryEventListenerAdapter;
 import org.geektimes.cache.event.CacheEntryEventPublisher;
+import org.geektimes.cache.integration.ChunkedCompletionListener;
 import org.geektimes.cache.integration.CompositeFallbackStorage;
 import org.geektimes.cache.integration.FallbackStorage;
+import org.geektimes.cache.integration.WriteBehindCacheWriter;
+import org.geektimes.cache.io.Codec;
+import org.geektimes.cache.io.CodecRegistry;
 import org.geektimes.cache.management.CacheStatistics;
 import org.geektimes.cache.management.DummyCacheStatistics;
+import org.geektimes.cache.management.HotKeySampler;
 import org.geektimes.cache.management.SimpleCacheStatistics;
 import org.geektimes.cache.processor.MutableEntryAdapter;
 
@@ -34,25 +41,36 @@ import javax.cache.expiry.Duration;
 import javax.cache.expiry.EternalExpiryPolicy;
 import javax.cache.expiry.ExpiryPolicy;
 import javax.cache.integration.CacheLoader;
+import javax.cache.integration.CacheLoaderException;
 import javax.cache.integration.CacheWriter;
 import javax.cache.integration.CompletionListener;
 import javax.cache.processor.EntryProcessor;
 import javax.cache.processor.EntryProcessorException;
 import javax.cache.processor.EntryProcessorResult;
-import javax.cache.processor.MutableEntry;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Executor;
-import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.logging.Logger;
+import java.util.stream.StreamSupport;
 
+import static java.lang.String.format;
+import static java.util.Collections.emptyMap;
 import static org.geektimes.cache.ExpirableEntry.requireKeyNotNull;
 import static org.geektimes.cache.ExpirableEntry.requireValueNotNull;
 import static org.geektimes.cache.configuration.ConfigurationUtils.immutableConfiguration;
 import static org.geektimes.cache.configuration.ConfigurationUtils.mutableConfiguration;
+import static org.geektimes.cache.event.CacheEntryEventListenerAdapter.DEFAULT_BATCH_SIZE;
+import static org.geektimes.cache.event.CacheEntryEventListenerAdapter.DEFAULT_QUEUE_CAPACITY;
 import static org.geektimes.cache.event.GenericCacheEntryEvent.*;
+import static org.geektimes.cache.management.ManagementUtils.registerMBeanIfRequired;
 import static org.geektimes.cache.management.ManagementUtils.registerMBeansIfRequired;
+import static org.geektimes.cache.management.ManagementUtils.unregisterMBeanIfPresent;
 
 /**
  * The abstract non-thread-safe implementation of {@link Cache}
@@ -60,7 +78,155 @@ import static org.geektimes.cache.management.ManagementUtils.registerMBeansIfReq
  * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
  * @since 1.0
  */
-public abstract class AbstractCache<K, V> implements Cache<K, V> {
+public abstract class AbstractCache<K, V> implements Cache<K, V>, AsyncCache<K, V> {
+
+    /**
+     * The property name of {@link Codec} that is used by the {@link Cache} storing the serialized entries,
+     * the default is {@link CodecRegistry#DEFAULT_CODEC_NAME "compact"}
+     */
+    public static final String CODEC_PROPERTY_NAME = "codec";
+
+    /**
+     * The property name of the maximum time in milliseconds that a read-through load waits for the in-flight
+     * load of the same key, the non-positive value means no limit, the default is 0. It applies to the waiters only,
+     * the load of the leader that runs the {@link CacheLoader} is never interrupted, thus the loader should limit
+     * its own time, e.g. by the timeouts of its connections.
+     */
+    public static final String LOAD_TIMEOUT_PROPERTY_NAME = "load-timeout";
+
+    /**
+     * The property name of whether the failure of the in-flight load is propagated to the waiting loads of the
+     * same key, if <code>false</code>, the waiting loads will retry, the default is <code>true</code>
+     */
+    public static final String LOAD_FAILURE_PROPAGATION_PROPERTY_NAME = "load-failure-propagation";
+
+    /**
+     * The property name of the capacity of event queue per asynchronous listener, the default is
+     * {@link CacheEntryEventListenerAdapter#DEFAULT_QUEUE_CAPACITY 1024}
+     */
+    public static final String LISTENER_QUEUE_CAPACITY_PROPERTY_NAME = "listener-queue-capacity";
+
+    /**
+     * The property name of the maximum count of events that are delivered to the asynchronous listener at once,
+     * the default is {@link CacheEntryEventListenerAdapter#DEFAULT_BATCH_SIZE 64}
+     */
+    public static final String LISTENER_BATCH_SIZE_PROPERTY_NAME = "listener-batch-size";
+
+    /**
+     * The property name of whether the event is dropped and counted when the queue of asynchronous listener is
+     * full, if <code>false</code>, the mutation waits for the capacity at most
+     * {@link CacheEntryEventListenerAdapter#MAX_WAIT_MILLIS 1 second}, the default is <code>false</code>
+     */
+    public static final String LISTENER_DROP_ON_FULL_PROPERTY_NAME = "listener-drop-on-full";
+
+    /**
+     * The property name of the maximum count of keys that are loaded by {@link CacheLoader#loadAll(Iterable)} at once
+     * in {@link #loadAll(Set, boolean, CompletionListener)}, the default is {@link #DEFAULT_LOAD_ALL_CHUNK_SIZE 256}
+     */
+    public static final String LOAD_ALL_CHUNK_SIZE_PROPERTY_NAME = "load-all-chunk-size";
+
+    /**
+     * The property name of the maximum count of chunks that are loaded in parallel in
+     * {@link #loadAll(Set, boolean, CompletionListener)}, the default is the count of available processors
+     */
+    public static final String LOAD_ALL_PARALLELISM_PROPERTY_NAME = "load-all-parallelism";
+
+    /**
+     * The property name of the count of threads that are dedicated to {@link #loadAll(Set, boolean, CompletionListener)},
+     * the non-positive value means the chunks are loaded by the {@link #getExecutor() executor} of {@link Cache},
+     * the default is 0
+     */
+    public static final String LOADER_THREADS_PROPERTY_NAME = "loader-threads";
+
+    /**
+     * The property name of the count of threads that are dedicated to the asynchronous operations and
+     * {@link #invokeAll(Set, EntryProcessor, Object...)} of {@link Cache}, the non-positive value means
+     * {@link ForkJoinPool#commonPool()} is used, the default is 0
+     */
+    public static final String EXECUTOR_THREADS_PROPERTY_NAME = "executor-threads";
+
+    /**
+     * The property name of whether the {@link CacheWriter} is invoked asynchronously by {@link WriteBehindCacheWriter}
+     * if {@link #isWriteThrough() write-through}, the default is <code>false</code>
+     */
+    public static final String WRITE_BEHIND_PROPERTY_NAME = "write-behind";
+
+    /**
+     * The property name of the count of dirty keys that triggers the write-behind flush, the default is
+     * {@link WriteBehindCacheWriter#DEFAULT_BATCH_SIZE 100}
+     */
+    public static final String WRITE_BEHIND_BATCH_SIZE_PROPERTY_NAME = "write-behind-batch-size";
+
+    /**
+     * The property name of the interval in milliseconds between the write-behind flushes, the default is
+     * {@link WriteBehindCacheWriter#DEFAULT_FLUSH_INTERVAL 1000}
+     */
+    public static final String WRITE_BEHIND_INTERVAL_PROPERTY_NAME = "write-behind-interval";
+
+    /**
+     * The property name of the maximum retries of the write-behind key, the default is
+     * {@link WriteBehindCacheWriter#DEFAULT_MAX_RETRIES 3}
+     */
+    public static final String WRITE_BEHIND_MAX_RETRIES_PROPERTY_NAME = "write-behind-max-retries";
+
+    /**
+     * The property name of the fraction of expiry period, after which the read of an entry triggers the asynchronous
+     * reload by {@link CacheLoader} if {@link #isReadThrough() read-through}, the value must be in [0, 1), and 0
+     * disables the refresh-ahead, the default is 0
+     */
+    public static final String REFRESH_AHEAD_FACTOR_PROPERTY_NAME = "refresh-ahead-factor";
+
+    /**
+     * The property name of whether the accessed keys are sampled by {@link HotKeySampler}, the default is false
+     */
+    public static final String HOT_KEY_SAMPLING_PROPERTY_NAME = "hot-key-sampling";
+
+    /**
+     * The property name of the maximum count of hot keys
+     */
+    public static final String HOT_KEY_TOP_K_PROPERTY_NAME = "hot-key-top-k";
+
+    /**
+     * The property name of one of how many accesses is sampled
+     */
+    public static final String HOT_KEY_SAMPLE_INTERVAL_PROPERTY_NAME = "hot-key-sample-interval";
+
+    /**
+     * The property name of the duration of window of hot keys in seconds
+     */
+    public static final String HOT_KEY_WINDOW_PROPERTY_NAME = "hot-key-window";
+
+    /**
+     * The property name of whether the entries are written into the snapshot when the {@link CacheManager} is
+     * closing, and are restored when the {@link Cache} is created again, the default is false
+     *
+     * @see #isSnapshotSupported()
+     * @see AbstractCacheManager#SNAPSHOT_DIRECTORY_PROPERTY_NAME
+     */
+    public static final String SNAPSHOT_PROPERTY_NAME = "snapshot";
+
+    public static final int DEFAULT_HOT_KEY_TOP_K = 10;
+
+    public static final int DEFAULT_HOT_KEY_SAMPLE_INTERVAL = 16;
+
+    public static final long DEFAULT_HOT_KEY_WINDOW = 60;
+
+    /**
+     * The type of MBean of {@link HotKeySampler}
+     */
+    static final String HOT_KEYS_MBEAN_TYPE = "HotKeys";
+
+    public static final int DEFAULT_LOAD_ALL_CHUNK_SIZE = 256;
+
+    /**
+     * The count of striped locks of {@link #invoke(Object, EntryProcessor, Object...)}, must be the power of 2
+     */
+    static final int INVOKE_LOCK_STRIPES = 64;
+
+    /**
+     * The count of keys that are removed at once by {@link #removeAll()}
+     */
+    static final int REMOVE_ALL_BATCH_SIZE = 512;
 
     protected final Logger logger = Logger.getLogger(getClass().getName());
 
@@ -70,6 +236,8 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
 
     private final MutableConfiguration<K, V> configuration;
 
+    private final CacheProperties cacheProperties;
+
     private final ExpiryPolicy expiryPolicy;
 
     private final CacheLoader<K, V> cacheLoader;
@@ -84,21 +252,74 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
 
     private final Executor executor;
 
+    private final Executor loaderExecutor;
+
+    private final Codec codec;
+
+    /**
+     * The in-flight read-through loads by keys
+     */
+    private final ConcurrentMap<K, CompletableFuture<V>> loadingFutures = new ConcurrentHashMap<>();
+
+    /**
+     * The striped locks that serialize the {@link EntryProcessor EntryProcessors} and the synchronous single-key
+     * mutations of the same key
+     */
+    private final ReentrantLock[] invokeLocks = newLocks(INVOKE_LOCK_STRIPES);
+
+    private final long loadTimeout;
+
+    private final boolean loadFailurePropagation;
+
+    private final int loadAllChunkSize;
+
+    private final int loadAllParallelism;
+
+    private final double refreshAheadFactor;
+
+    /**
+     * <code>null</code> if the hot keys are not sampled
+     */
+    private final HotKeySampler<K> hotKeySampler;
+
+    /**
+     * The snapshot whose entries are not restored yet, <code>null</code> if absent or drained
+     */
+    private volatile CacheSnapshot<K, V> snapshot;
+
     private volatile boolean closed = false;
 
     protected AbstractCache(CacheManager cacheManager, String cacheName, Configuration<K, V> configuration) {
         this.cacheManager = cacheManager;
         this.cacheName = cacheName;
         this.configuration = mutableConfiguration(configuration);
+        this.cacheProperties = new CacheProperties(cacheName, cacheManager.getProperties());
         this.expiryPolicy = resolveExpiryPolicy(getConfiguration());
         this.defaultFallbackStorage = new CompositeFallbackStorage(getClassLoader());
         this.cacheLoader = resolveCacheLoader(getConfiguration(), getClassLoader());
         this.cacheWriter = resolveCacheWriter(getConfiguration(), getClassLoader());
-        this.entryEventPublisher = new CacheEntryEventPublisher();
         this.cacheStatistics = resolveCacheStatistic();
-        this.executor = ForkJoinPool.commonPool();
+        this.entryEventPublisher = new CacheEntryEventPublisher(
+                cacheProperties.getInt(LISTENER_QUEUE_CAPACITY_PROPERTY_NAME, DEFAULT_QUEUE_CAPACITY),
+                cacheProperties.getInt(LISTENER_BATCH_SIZE_PROPERTY_NAME, DEFAULT_BATCH_SIZE),
+                cacheProperties.getBoolean(LISTENER_DROP_ON_FULL_PROPERTY_NAME, false),
+                cacheStatistics::cacheEventDrops);
+        this.executor = resolveExecutor();
+        this.loaderExecutor = resolveLoaderExecutor();
+        this.codec = resolveCodec();
+        this.loadTimeout = cacheProperties.getLong(LOAD_TIMEOUT_PROPERTY_NAME, 0);
+        this.loadFailurePropagation = cacheProperties.getBoolean(LOAD_FAILURE_PROPAGATION_PROPERTY_NAME, true);
+        this.loadAllChunkSize = Math.max(1, cacheProperties.getInt(LOAD_ALL_CHUNK_SIZE_PROPERTY_NAME,
+                DEFAULT_LOAD_ALL_CHUNK_SIZE));
+        this.loadAllParallelism = Math.max(1, cacheProperties.getInt(LOAD_ALL_PARALLELISM_PROPERTY_NAME,
+                Runtime.getRuntime().availableProcessors()));
+        this.refreshAheadFactor = resolveRefreshAheadFactor();
+        this.hotKeySampler = resolveHotKeySampler();
         registerCacheEntryListenersFromConfiguration();
         registerMBeansIfRequired(this, cacheStatistics);
+        if (hotKeySampler != null) {
+            registerMBeanIfRequired(this, HOT_KEYS_MBEAN_TYPE, hotKeySampler);
+        }
     }
 
 
@@ -167,20 +388,13 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
     public V get(K key) {
         assertNotClosed();
         requireKeyNotNull(key);
+        sampleKey(key);
         ExpirableEntry<K, V> entry = null;
         V value = null;
-        long startTime = System.currentTimeMillis();
+        long startTime = System.nanoTime();
         try {
             entry = getEntry(key);
-            if (handleExpiryPolicyForAccess(entry)) {
-                return null;
-            }
-            // If cache missing and read-through enabled, try to load value by {@link CacheLoader}
-            if (entry == null && isReadThrough()) {
-                value = loadValue(key, true);
-            } else {
-                value = getValue(entry);
-            }
+            value = resolveValue(key, entry);
         } catch (Throwable e) {
             logger.severe(e.getMessage());
         } finally {
@@ -188,7 +402,7 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
                 cacheStatistics.cacheHits();
             }
             cacheStatistics.cacheGets();
-            cacheStatistics.cacheGetsTime(System.currentTimeMillis() - startTime);
+            cacheStatistics.cacheGetsTime(System.nanoTime() - startTime);
         }
 
         return value;
@@ -224,14 +438,64 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
      */
     @Override
     public Map<K, V> getAll(Set<? extends K> keys) {
+        assertNotClosed();
+        keys.forEach(ExpirableEntry::requireKeyNotNull);
+        keys.forEach(this::sampleKey);
+        long startTime = System.nanoTime();
+        Map<K, ExpirableEntry<K, V>> entries = emptyMap();
+        try {
+            entries = getEntries(keys);
+        } catch (Throwable e) {
+            logger.severe(e.getMessage());
+        }
+        Map<K, V> result = resolveValues(keys, entries);
+        cacheStatistics.cacheGetsTime(System.nanoTime() - startTime, keys.size());
+        return result;
+    }
+
+    private Map<K, V> resolveValues(Set<? extends K> keys, Map<K, ExpirableEntry<K, V>> entries) {
         // Keep the order of keys
         Map<K, V> result = new LinkedHashMap<>();
         for (K key : keys) {
-            result.put(key, get(key));
+            V value = null;
+            try {
+                value = resolveValue(key, entries.get(key));
+            } catch (Throwable e) {
+                logger.severe(e.getMessage());
+            } finally {
+                if (value != null) {
+                    result.put(key, value);
+                    cacheStatistics.cacheHits();
+                }
+                cacheStatistics.cacheGets();
+            }
         }
         return result;
     }
 
+    /**
+     * Resolve the value of the {@link Cache.Entry} that was got by the key
+     *
+     * @param key   the key
+     * @param entry the existed {@link ExpirableEntry}, may be <code>null</code>
+     * @return <code>null</code> if the entry is missing and can't be loaded, or it's expired
+     */
+    private V resolveValue(K key, ExpirableEntry<K, V> entry) {
+        // before the expiry is renewed by the access
+        boolean refreshAhead = isRefreshAheadDue(entry);
+        if (handleExpiryPolicyForAccess(entry)) {
+            return null;
+        }
+        // If cache missing and read-through enabled, try to load value by {@link CacheLoader}
+        if (entry == null && isReadThrough()) {
+            return loadValue(key, true);
+        }
+        if (refreshAhead) {
+            refreshAhead(key);
+        }
+        return getValue(entry);
+    }
+
     /**
      * Associates the specified value with the specified key in this cache,
      * returning an existing value if one existed.
@@ -273,10 +537,12 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
      */
     @Override
     public V getAndPut(K key, V value) {
-        Entry<K, V> oldEntry = getEntry(key);
-        V oldValue = getValue(oldEntry);
-        put(key, value);
-        return oldValue;
+        return withKeyLock(key, () -> {
+            Entry<K, V> oldEntry = getEntry(key);
+            V oldValue = getValue(oldEntry);
+            put(key, value);
+            return oldValue;
+        });
     }
 
     /**
@@ -320,10 +586,12 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
      */
     @Override
     public V getAndRemove(K key) {
-        Entry<K, V> oldEntry = getEntry(key);
-        V oldValue = getValue(oldEntry);
-        remove(key);
-        return oldValue;
+        return withKeyLock(key, () -> {
+            Entry<K, V> oldEntry = getEntry(key);
+            V oldValue = getValue(oldEntry);
+            remove(key);
+            return oldValue;
+        });
     }
 
     /**
@@ -370,12 +638,14 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
      */
     @Override
     public V getAndReplace(K key, V value) {
-        Entry<K, V> oldEntry = getEntry(key);
-        V oldValue = getValue(oldEntry);
-        if (oldValue != null) {
-            put(key, value);
-        }
-        return oldValue;
+        return withKeyLock(key, () -> {
+            Entry<K, V> oldEntry = getEntry(key);
+            V oldValue = getValue(oldEntry);
+            if (oldValue != null) {
+                put(key, value);
+            }
+            return oldValue;
+        });
     }
 
     /**
@@ -395,21 +665,18 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
      * Current method calls the methods of {@link ExpiryPolicy}:
      * <ul>
      *     <li>No {@link ExpiryPolicy#getExpiryForCreation}</li>
-     *     <li>Yes {@link ExpiryPolicy#getExpiryForAccess} (when an entry is visited by an iterator)</li>
+     *     <li>No {@link ExpiryPolicy#getExpiryForAccess} (the iteration does not extend the expiry)</li>
      *     <li>No {@link ExpiryPolicy#getExpiryForUpdate}</li>
      * </ul>
+     * The entries are resolved lazily from the {@link #keyIterator() iterator of keys}, thus the iteration is weakly
+     * consistent, the missing and expired entries are skipped.
      *
      * @throws IllegalStateException if the cache is {@link #isClosed()}
      */
     @Override
     public Iterator<Entry<K, V>> iterator() {
         assertNotClosed();
-        List<Entry<K, V>> entries = new LinkedList<>();
-        for (K key : keySet()) {
-            V value = get(key);
-            entries.add(ExpirableEntry.of(key, value));
-        }
-        return entries.iterator();
+        return new EntryIterator(keyIterator());
     }
 
     /**
@@ -431,33 +698,61 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
         if (!configuration.isReadThrough()) {
             // FIXME: The specification does not mention that
             // CompletionListener#onCompletion() method should be invoked or not.
-            completionListener.onCompletion();
+            if (completionListener != null) {
+                completionListener.onCompletion();
+            }
             return;
         }
 
-        // Asynchronously loads the specified entries into the cache using the configured
-        // CacheLoader for the given keys.
-        CompletableFuture.runAsync(() -> {
-            // Implementations may choose to load multiple keys from the provided Set in parallel.
-            // Iteration however must not occur in parallel, thus allow for non-thread-safe Sets to be used.
-            for (K key : keys) {
-                // If an entry for a key already exists in the Cache, a value will be loaded
-                // if and only if replaceExistingValues is true.
-                V value = loadValue(key, false);
-                if (replaceExistingValues) {
-                    replace(key, value);
-                } else {
-                    put(key, value);
-                }
+        // Iteration must not occur in parallel, thus allow for non-thread-safe Sets to be used.
+        List<Set<K>> chunks = partition(keys);
+        if (chunks.isEmpty()) {
+            if (completionListener != null) {
+                completionListener.onCompletion();
             }
-        }, executor).whenComplete((v, e) -> {
+            return;
+        }
+
+        // Implementations may choose to load multiple keys from the provided Set in parallel,
+        // the chunks are pulled by the bounded count of workers
+        AtomicInteger nextChunk = new AtomicInteger();
+        AtomicInteger completedChunks = new AtomicInteger();
+        List<Exception> failures = new CopyOnWriteArrayList<>();
+        int workers = Math.min(loadAllParallelism, chunks.size());
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[workers];
+        for (int i = 0; i < workers; i++) {
+            futures[i] = CompletableFuture.runAsync(() -> {
+                int index;
+                while ((index = nextChunk.getAndIncrement()) < chunks.size()) {
+                    Set<K> chunk = chunks.get(index);
+                    try {
+                        loadChunk(chunk, replaceExistingValues);
+                        if (completionListener instanceof ChunkedCompletionListener) {
+                            ((ChunkedCompletionListener) completionListener).onChunkCompletion(chunk,
+                                    completedChunks.incrementAndGet(), chunks.size());
+                        }
+                    } catch (Exception e) {
+                        failures.add(e);
+                        if (completionListener instanceof ChunkedCompletionListener) {
+                            ((ChunkedCompletionListener) completionListener).onChunkException(chunk, e,
+                                    completedChunks.incrementAndGet(), chunks.size());
+                        }
+                    }
+                }
+            }, loaderExecutor);
+        }
+
+        CompletableFuture.allOf(futures).whenComplete((v, e) -> {
             // the CompletionListener may be null
             if (completionListener != null) {
-                // completed exceptionally
-                if (e instanceof Exception && e.getCause() instanceof Exception) {
-                    completionListener.onException((Exception) e.getCause());
-                } else {
+                if (failures.isEmpty()) {
                     completionListener.onCompletion();
+                } else {
+                    Exception failure = failures.get(0);
+                    for (int i = 1; i < failures.size(); i++) {
+                        failure.addSuppressed(failures.get(i));
+                    }
+                    completionListener.onException(failure);
                 }
             }
         });
@@ -476,20 +771,24 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
     @Override
     public void put(K key, V value) {
         assertNotClosed();
-        Entry<K, V> entry = null;
-        long startTime = System.currentTimeMillis();
-        try {
-            if (!containsKey(key)) {
-                // Put the new Cache.Entry
-                entry = createAndPutEntry(key, value);
-            } else {
-                entry = updateEntry(key, value);
+        sampleKey(key);
+        withKeyLock(key, () -> {
+            Entry<K, V> entry = null;
+            long startTime = System.nanoTime();
+            try {
+                if (!containsKey(key)) {
+                    // Put the new Cache.Entry
+                    entry = createAndPutEntry(key, value);
+                } else {
+                    entry = updateEntry(key, value);
+                }
+            } finally {
+                writeEntryIfWriteThrough(entry);
+                cacheStatistics.cachePuts();
+                cacheStatistics.cachePutsTime(System.nanoTime() - startTime);
             }
-        } finally {
-            writeEntryIfWriteThrough(entry);
-            cacheStatistics.cachePuts();
-            cacheStatistics.cachePutsTime(System.currentTimeMillis() - startTime);
-        }
+            return null;
+        });
     }
 
     /**
@@ -504,8 +803,57 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
      */
     @Override
     public void putAll(Map<? extends K, ? extends V> map) {
-        for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
-            put(entry.getKey(), entry.getValue());
+        assertNotClosed();
+        map.forEach((key, value) -> {
+            requireKeyNotNull(key);
+            requireValueNotNull(value);
+        });
+        long startTime = System.nanoTime();
+        Map<K, ExpirableEntry<K, V>> oldEntries = getEntries(map.keySet());
+        List<ExpirableEntry<K, V>> entries = new ArrayList<>(map.size());
+        Map<K, V> oldValues = new HashMap<>();
+        for (Map.Entry<? extends K, ? extends V> e : map.entrySet()) {
+            K key = e.getKey();
+            V value = e.getValue();
+            ExpirableEntry<K, V> entry = oldEntries.get(key);
+            if (entry == null) {
+                entry = createEntry(key, value);
+                if (handleExpiryPolicyForCreation(entry)) {
+                    // The new Cache.Entry is already expired and will not be added to the Cache.
+                    continue;
+                }
+            } else {
+                oldValues.put(key, entry.getValue());
+                // Update the value
+                entry.setValue(value);
+            }
+            entries.add(entry);
+        }
+        try {
+            putEntries(entries);
+        } finally {
+            for (ExpirableEntry<K, V> entry : entries) {
+                K key = entry.getKey();
+                Entry<K, V> writtenEntry = entry;
+                if (entry.isRejected()) {
+                    if (oldValues.containsKey(key)) {
+                        publishEvictedEvent(key, oldValues.get(key));
+                    }
+                } else if (oldValues.containsKey(key)) {
+                    publishUpdatedEvent(key, oldValues.get(key), entry.getValue());
+                    if (handleExpiryPolicyForUpdate(entry)) {
+                        writtenEntry = null;
+                    }
+                } else {
+                    scheduleExpiry(entry);
+                    publishCreatedEvent(key, entry.getValue());
+                }
+                writeEntryIfWriteThrough(writtenEntry);
+            }
+            for (int i = 0; i < map.size(); i++) {
+                cacheStatistics.cachePuts();
+            }
+            cacheStatistics.cachePutsTime(System.nanoTime() - startTime);
         }
     }
 
@@ -521,12 +869,14 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
      */
     @Override
     public boolean putIfAbsent(K key, V value) {
-        if (!containsKey(key)) {
-            put(key, value);
-            return true;
-        } else {
-            return false;
-        }
+        return withKeyLock(key, () -> {
+            if (!containsKey(key)) {
+                put(key, value);
+                return true;
+            } else {
+                return false;
+            }
+        });
     }
 
     /**
@@ -543,20 +893,24 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
     public boolean remove(K key) {
         assertNotClosed();
         requireKeyNotNull(key);
-        boolean removed = false;
-        long startTime = System.currentTimeMillis();
-        try {
-            ExpirableEntry<K, V> oldEntry = removeEntry(key);
-            removed = oldEntry != null;
-            if (removed) {
-                publishRemovedEvent(key, oldEntry.getValue());
+        sampleKey(key);
+        return withKeyLock(key, () -> {
+            boolean removed = false;
+            long startTime = System.nanoTime();
+            try {
+                ExpirableEntry<K, V> oldEntry = removeEntry(key);
+                removed = oldEntry != null;
+                if (removed) {
+                    ExpiryReaper.cancel(oldEntry);
+                    publishRemovedEvent(key, oldEntry.getValue());
+                }
+            } finally {
+                deleteIfWriteThrough(key);
+                cacheStatistics.cacheRemovals();
+                cacheStatistics.cacheRemovesTime(System.nanoTime() - startTime);
             }
-        } finally {
-            deleteIfWriteThrough(key);
-            cacheStatistics.cacheRemovals();
-            cacheStatistics.cacheRemovesTime(System.currentTimeMillis() - startTime);
-        }
-        return removed;
+            return removed;
+        });
     }
 
     /**
@@ -571,12 +925,14 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
      */
     @Override
     public boolean remove(K key, V oldValue) {
-        if (containsKey(key) && Objects.equals(get(key), oldValue)) {
-            remove(key);
-            return true;
-        } else {
-            return false;
-        }
+        return withKeyLock(key, () -> {
+            if (containsKey(key) && Objects.equals(get(key), oldValue)) {
+                remove(key);
+                return true;
+            } else {
+                return false;
+            }
+        });
     }
 
     /**
@@ -591,7 +947,20 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
      */
     @Override
     public void removeAll() {
-        removeAll(keySet());
+        assertNotClosed();
+        // The keys are removed in batches, the batch is removed after being iterated
+        Iterator<K> keys = keyIterator();
+        Set<K> batch = new LinkedHashSet<>();
+        while (keys.hasNext()) {
+            batch.add(keys.next());
+            if (batch.size() == REMOVE_ALL_BATCH_SIZE) {
+                removeAll(batch);
+                batch = new LinkedHashSet<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            removeAll(batch);
+        }
     }
 
     /**
@@ -606,8 +975,24 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
      */
     @Override
     public void removeAll(Set<? extends K> keys) {
-        for (K key : keys) {
-            remove(key);
+        assertNotClosed();
+        keys.forEach(ExpirableEntry::requireKeyNotNull);
+        long startTime = System.nanoTime();
+        try {
+            Map<K, ExpirableEntry<K, V>> oldEntries = removeEntries(keys);
+            for (K key : keys) {
+                ExpirableEntry<K, V> oldEntry = oldEntries.get(key);
+                if (oldEntry != null) {
+                    ExpiryReaper.cancel(oldEntry);
+                    publishRemovedEvent(key, oldEntry.getValue());
+                }
+            }
+        } finally {
+            for (K key : keys) {
+                deleteIfWriteThrough(key);
+                cacheStatistics.cacheRemovals();
+            }
+            cacheStatistics.cacheRemovesTime(System.nanoTime() - startTime);
         }
     }
 
@@ -626,11 +1011,20 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
      *     <li>Yes {@link ExpiryPolicy#getExpiryForUpdate} (when setValue was called and the entry already existed
      *     before entry processor was called)</li>
      * </ul>
+     * The {@link EntryProcessor} works on the snapshot of entry under the striped lock of key, the lock is also
+     * taken by the synchronous single-key mutations, e.g. {@link #put(Object, Object)}, {@link #remove(Object)} and
+     * {@link #replace(Object, Object, Object)}, thus the invocation is atomic to them in current JVM, the mutation
+     * is applied to the store once it completes. The lock is not taken by the asynchronous and bulk mutations, e.g.
+     * {@link #putAsync(Object, Object)} and {@link #putAll(Map)}, nor shared with other JVMs, thus the entry of
+     * remote store, e.g. Redis, may still be overwritten by them concurrently.
      */
     @Override
     public <T> T invoke(K key, EntryProcessor<K, V, T> entryProcessor, Object... arguments) throws EntryProcessorException {
-        MutableEntry<K, V> mutableEntry = MutableEntryAdapter.of(key, this);
-        return entryProcessor.process(mutableEntry, arguments);
+        assertNotClosed();
+        requireKeyNotNull(key);
+        Objects.requireNonNull(entryProcessor, "The entryProcessor must not be null.");
+        sampleKey(key);
+        return withKeyLock(key, () -> doInvoke(key, entryProcessor, arguments));
     }
 
     /**
@@ -648,13 +1042,43 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
      *     <li>Yes {@link ExpiryPolicy#getExpiryForUpdate} (when setValue was called and the entry already existed
      *     before entry processor was called)</li>
      * </ul>
+     * The {@link EntryProcessor} is executed eagerly, the keys of different lock stripes are processed in parallel by
+     * the {@link #getExecutor() executor}.
      */
     @Override
     public <T> Map<K, EntryProcessorResult<T>> invokeAll(Set<? extends K> keys, EntryProcessor<K, V, T> entryProcessor, Object... arguments) {
+        assertNotClosed();
+        Objects.requireNonNull(entryProcessor, "The entryProcessor must not be null.");
+        // The keys are grouped by the stripes, the groups are processed in parallel
+        Map<Integer, List<K>> stripedKeys = new LinkedHashMap<>();
+        for (K key : keys) {
+            requireKeyNotNull(key);
+            stripedKeys.computeIfAbsent(stripe(key), i -> new ArrayList<>()).add(key);
+        }
+        Map<K, EntryProcessorResult<T>> results = new ConcurrentHashMap<>();
+        List<CompletableFuture<Void>> futures = new ArrayList<>(stripedKeys.size());
+        Runnable inCallerThread = null;
+        for (Map.Entry<Integer, List<K>> entry : stripedKeys.entrySet()) {
+            Runnable task = () -> invokeAll(invokeLocks[entry.getKey()], entry.getValue(), entryProcessor, arguments,
+                    results);
+            if (inCallerThread == null) {
+                inCallerThread = task;
+            } else {
+                futures.add(CompletableFuture.runAsync(task, executor));
+            }
+        }
+        if (inCallerThread != null) {
+            inCallerThread.run();
+        }
+        futures.forEach(CompletableFuture::join);
+
         // "resultMap" keeps the order of keys
         Map<K, EntryProcessorResult<T>> resultMap = new LinkedHashMap<>();
         for (K key : keys) {
-            resultMap.put(key, () -> invoke(key, entryProcessor, arguments));
+            EntryProcessorResult<T> result = results.get(key);
+            if (result != null) {
+                resultMap.put(key, result);
+            }
         }
         return resultMap;
     }
@@ -671,12 +1095,14 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
      */
     @Override
     public boolean replace(K key, V value) {
-        if (containsKey(key)) {
-            put(key, value);
-            return true;
-        } else {
-            return false;
-        }
+        return withKeyLock(key, () -> {
+            if (containsKey(key)) {
+                put(key, value);
+                return true;
+            } else {
+                return false;
+            }
+        });
     }
 
     /**
@@ -692,12 +1118,14 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
     @Override
     public boolean replace(K key, V oldValue, V newValue) {
         requireValueNotNull(oldValue);
-        if (containsKey(key) && Objects.equals(get(key), oldValue)) {
-            put(key, newValue);
-            return true;
-        } else {
-            return false;
-        }
+        return withKeyLock(key, () -> {
+            if (containsKey(key) && Objects.equals(get(key), oldValue)) {
+                put(key, newValue);
+                return true;
+            } else {
+                return false;
+            }
+        });
     }
 
     @Override
@@ -726,31 +1154,180 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
         entryEventPublisher.deregisterCacheEntryListener(cacheEntryListenerConfiguration);
     }
 
+
+    // Operations of AsyncCache
+
     @Override
-    public <T> T unwrap(Class<T> clazz) {
-        return getCacheManager().unwrap(clazz);
+    public CompletableFuture<V> getAsync(K key) {
+        assertNotClosed();
+        requireKeyNotNull(key);
+        sampleKey(key);
+        long startTime = System.nanoTime();
+        return getEntryAsync(key).handle((entry, error) -> {
+            V value = null;
+            try {
+                if (error != null) {
+                    throw error;
+                }
+                value = resolveValue(key, entry);
+            } catch (Throwable e) {
+                logger.severe(e.getMessage());
+            } finally {
+                if (value != null) {
+                    cacheStatistics.cacheHits();
+                }
+                cacheStatistics.cacheGets();
+                cacheStatistics.cacheGetsTime(System.nanoTime() - startTime);
+            }
+            return value;
+        });
     }
 
     @Override
-    public final String getName() {
-        return cacheName;
+    public CompletableFuture<Map<K, V>> getAllAsync(Set<? extends K> keys) {
+        assertNotClosed();
+        keys.forEach(ExpirableEntry::requireKeyNotNull);
+        keys.forEach(this::sampleKey);
+        long startTime = System.nanoTime();
+        return getEntriesAsync(keys).handle((entries, error) -> {
+            if (error != null) {
+                logger.severe(error.getMessage());
+            }
+            Map<K, V> result = resolveValues(keys, error == null ? entries : emptyMap());
+            cacheStatistics.cacheGetsTime(System.nanoTime() - startTime, keys.size());
+            return result;
+        });
     }
 
     @Override
-    public final CacheManager getCacheManager() {
-        return cacheManager;
+    public CompletableFuture<Void> putAsync(K key, V value) {
+        assertNotClosed();
+        requireKeyNotNull(key);
+        requireValueNotNull(value);
+        sampleKey(key);
+        long startTime = System.nanoTime();
+        return getEntryAsync(key).thenCompose(oldEntry -> {
+            if (oldEntry == null) {
+                // Put the new Cache.Entry
+                ExpirableEntry<K, V> newEntry = createEntry(key, value);
+                if (handleExpiryPolicyForCreation(newEntry)) {
+                    // The new Cache.Entry is already expired and will not be added to the Cache.
+                    return CompletableFuture.<Entry<K, V>>completedFuture(null);
+                }
+                return putEntryAsync(newEntry).thenApply(v -> {
+                    if (!newEntry.isRejected()) {
+                        scheduleExpiry(newEntry);
+                        publishCreatedEvent(key, value);
+                    }
+                    return newEntry;
+                });
+            }
+            V oldValue = oldEntry.getValue();
+            // Update the value
+            oldEntry.setValue(value);
+            return putEntryAsync(oldEntry).thenApply(v -> {
+                if (oldEntry.isRejected()) {
+                    publishEvictedEvent(key, oldValue);
+                    return oldEntry;
+                }
+                publishUpdatedEvent(key, oldValue, value);
+                return handleExpiryPolicyForUpdate(oldEntry) ? null : oldEntry;
+            });
+        }).handle((entry, error) -> {
+            writeEntryIfWriteThrough(entry);
+            cacheStatistics.cachePuts();
+            cacheStatistics.cachePutsTime(System.nanoTime() - startTime);
+            if (error != null) {
+                throw completionException(error);
+            }
+            return null;
+        });
     }
 
     @Override
-    public final void close() {
-
-        // Closing a Cache signals to the CacheManager that produced or owns the Cache
-        // that it should no longer be managed.
-
+    public CompletableFuture<Boolean> removeAsync(K key) {
+        assertNotClosed();
+        requireKeyNotNull(key);
+        sampleKey(key);
+        long startTime = System.nanoTime();
+        return removeEntryAsync(key).handle((oldEntry, error) -> {
+            try {
+                if (error != null) {
+                    throw completionException(error);
+                }
+                if (oldEntry != null) {
+                    ExpiryReaper.cancel(oldEntry);
+                    publishRemovedEvent(key, oldEntry.getValue());
+                }
+                return oldEntry != null;
+            } finally {
+                deleteIfWriteThrough(key);
+                cacheStatistics.cacheRemovals();
+                cacheStatistics.cacheRemovesTime(System.nanoTime() - startTime);
+            }
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The {@link EntryProcessor} is executed by the {@link #getExecutor() executor} if the store supports the
+     * asynchronous I/O, otherwise, in the caller thread.
+     */
+    @Override
+    public <T> CompletableFuture<T> invokeAsync(K key, EntryProcessor<K, V, T> entryProcessor, Object... arguments) {
+        assertNotClosed();
+        if (isAsyncSupported()) {
+            return CompletableFuture.supplyAsync(() -> invoke(key, entryProcessor, arguments), executor);
+        }
+        return completedFuture(() -> invoke(key, entryProcessor, arguments));
+    }
+
+    /**
+     * Unwraps this {@link Cache} to the provider-specific implementation, e.g {@link AsyncCache}.
+     */
+    @Override
+    public <T> T unwrap(Class<T> clazz) {
+        if (clazz.isInstance(this)) {
+            return clazz.cast(this);
+        }
+        return getCacheManager().unwrap(clazz);
+    }
+
+    @Override
+    public final String getName() {
+        return cacheName;
+    }
+
+    @Override
+    public final CacheManager getCacheManager() {
+        return cacheManager;
+    }
+
+    @Override
+    public final void close() {
+
+        // Closing a Cache signals to the CacheManager that produced or owns the Cache
+        // that it should no longer be managed.
+
         if (isClosed()) {
             return;
         }
         doClose();
+        if (hotKeySampler != null) {
+            unregisterMBeanIfPresent(this, HOT_KEYS_MBEAN_TYPE);
+        }
+        if (cacheWriter instanceof WriteBehindCacheWriter) {
+            ((WriteBehindCacheWriter<K, V>) cacheWriter).close();
+        }
+        // the pending writes of fallback storages are committed once the last cache of class loader is closed
+        defaultFallbackStorage.close();
+        if (loaderExecutor instanceof ExecutorService) {
+            ((ExecutorService) loaderExecutor).shutdown();
+        }
+        if (executor instanceof ExecutorService) {
+            ((ExecutorService) executor).shutdown();
+        }
 
         //  At this point in time the CacheManager:
 
@@ -787,6 +1364,68 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
         return configuration.isStatisticsEnabled();
     }
 
+    /**
+     * Get the extended properties of current {@link Cache}
+     *
+     * @return non-null
+     */
+    protected final CacheProperties getCacheProperties() {
+        return this.cacheProperties;
+    }
+
+    /**
+     * Get the {@link Executor} of the asynchronous operations of current {@link Cache}
+     *
+     * @return non-null
+     */
+    protected final Executor getExecutor() {
+        return this.executor;
+    }
+
+    /**
+     * Get the {@link Codec} of current {@link Cache}
+     *
+     * @return non-null
+     */
+    protected final Codec getCodec() {
+        return this.codec;
+    }
+
+    /**
+     * Serialize the key or value by the {@link #getCodec() codec}
+     *
+     * @param source the key or value
+     * @return the bytes
+     * @throws CacheException if failed to serialize
+     */
+    protected final byte[] serialize(Object source) throws CacheException {
+        try {
+            return codec.serialize(source);
+        } catch (IOException e) {
+            throw new CacheException(e);
+        }
+    }
+
+    /**
+     * Deserialize the key or value by the {@link #getCodec() codec}
+     *
+     * @param bytes the bytes
+     * @return the key or value
+     * @throws CacheException if failed to deserialize
+     */
+    protected final <T> T deserialize(byte[] bytes) throws CacheException {
+        try {
+            return (T) codec.deserialize(bytes);
+        } catch (IOException e) {
+            throw new CacheException(e);
+        }
+    }
+
+    private Codec resolveCodec() {
+        CodecRegistry codecRegistry = CodecRegistry.getInstance(getClassLoader());
+        return codecRegistry.getCodec(cacheProperties.getProperty(CODEC_PROPERTY_NAME, CodecRegistry.DEFAULT_CODEC_NAME));
+    }
+
     private CacheStatistics resolveCacheStatistic() {
         return isStatisticsEnabled() ?
                 new SimpleCacheStatistics() : DummyCacheStatistics.INSTANCE;
@@ -803,6 +1442,11 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
         }
 
         putEntry(newEntry);
+        if (newEntry.isRejected()) {
+            // The new Cache.Entry is written through, but it's never present in the Cache.
+            return newEntry;
+        }
+        scheduleExpiry(newEntry);
         publishCreatedEvent(key, value);
 
         return newEntry;
@@ -821,6 +1465,11 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
         oldEntry.setValue(value);
         // Rewrite oldEntry
         putEntry(oldEntry);
+        if (oldEntry.isRejected()) {
+            // The old value is evicted instead of being updated
+            publishEvictedEvent(key, oldValue);
+            return oldEntry;
+        }
         publishUpdatedEvent(key, oldValue, value);
 
         if (handleExpiryPolicyForUpdate(oldEntry)) {
@@ -856,6 +1505,24 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
      */
     protected abstract ExpirableEntry<K, V> getEntry(K key) throws CacheException, ClassCastException;
 
+    /**
+     * Get the {@link Cache.Entry} by the specified key without touching it, e.g. the iteration and the snapshot
+     * should not promote the entries in the eviction policy. The default implementation is {@link #getEntry(Object)},
+     * the subclass whose {@link #getEntry(Object)} records the access should override this method.
+     *
+     * @param key the key of {@link Entry}
+     * @return the existed {@link Cache.Entry} associated with the given key
+     * @throws CacheException     if there is a problem fetching the value
+     * @throws ClassCastException if the implementation is configured to perform
+     *                            runtime-type-checking, and the key or value
+     *                            types are incompatible with those that have been
+     *                            configured for the {@link Cache}
+     * @see #getEntry(Object)
+     */
+    protected ExpirableEntry<K, V> peekEntry(K key) throws CacheException, ClassCastException {
+        return getEntry(key);
+    }
+
     /**
      * Put the specified {@link javax.cache.Cache.Entry} into cache.
      *
@@ -881,6 +1548,150 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
      */
     protected abstract ExpirableEntry<K, V> removeEntry(K key) throws CacheException, ClassCastException;
 
+    /**
+     * Get the {@link Cache.Entry entries} by the specified keys in bulk, the subclass that stores the entries
+     * remotely should override this method to fetch them in one round trip.
+     *
+     * @param keys the keys of {@link Entry}
+     * @return the non-null {@link Map} of the existed {@link Cache.Entry entries}, the missing keys are absent
+     * @throws CacheException     if there is a problem fetching the values
+     * @throws ClassCastException if the implementation is configured to perform
+     *                            runtime-type-checking, and the key or value
+     *                            types are incompatible with those that have been
+     *                            configured for the {@link Cache}
+     * @see #getEntry(Object)
+     */
+    protected Map<K, ExpirableEntry<K, V>> getEntries(Collection<? extends K> keys) throws CacheException,
+            ClassCastException {
+        Map<K, ExpirableEntry<K, V>> entries = new HashMap<>();
+        for (K key : keys) {
+            ExpirableEntry<K, V> entry = getEntry(key);
+            if (entry != null) {
+                entries.put(key, entry);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Put the specified {@link Cache.Entry entries} into cache in bulk, the subclass that stores the entries
+     * remotely should override this method to store them in one round trip.
+     *
+     * @param entries the {@link ExpirableEntry entries}
+     * @throws CacheException     if there is a problem doing the put
+     * @throws ClassCastException if the implementation is configured to perform
+     *                            runtime-type-checking, and the key or value
+     *                            types are incompatible with those that have been
+     *                            configured for the {@link Cache}
+     * @see #putEntry(ExpirableEntry)
+     */
+    protected void putEntries(Collection<ExpirableEntry<K, V>> entries) throws CacheException, ClassCastException {
+        for (ExpirableEntry<K, V> entry : entries) {
+            putEntry(entry);
+        }
+    }
+
+    /**
+     * Remove the {@link Cache.Entry entries} by the specified keys in bulk, the subclass that stores the entries
+     * remotely should override this method to remove them in one round trip.
+     *
+     * @param keys the keys of {@link Entry}
+     * @return the non-null {@link Map} of the removed {@link Cache.Entry entries}
+     * @throws CacheException     if there is a problem doing the remove
+     * @throws ClassCastException if the implementation is configured to perform
+     *                            runtime-type-checking, and the key or value
+     *                            types are incompatible with those that have been
+     *                            configured for the {@link Cache}
+     * @see #removeEntry(Object)
+     */
+    protected Map<K, ExpirableEntry<K, V>> removeEntries(Collection<? extends K> keys) throws CacheException,
+            ClassCastException {
+        Map<K, ExpirableEntry<K, V>> entries = new HashMap<>();
+        for (K key : keys) {
+            ExpirableEntry<K, V> entry = removeEntry(key);
+            if (entry != null) {
+                entries.put(key, entry);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Whether the store supports the asynchronous I/O or not, if <code>true</code>, the subclass must override
+     * the asynchronous methods of store, e.g. {@link #getEntryAsync(Object)}.
+     *
+     * @return <code>false</code> as default
+     */
+    protected boolean isAsyncSupported() {
+        return false;
+    }
+
+    /**
+     * Get the {@link Cache.Entry} by the specified key asynchronously, the returned future must not be completed
+     * in the I/O thread that the synchronous operations of store would block, because the dependent actions
+     * may invoke them.
+     *
+     * @param key the key of {@link Entry}
+     * @return the future of the existed {@link Cache.Entry}, which is completed immediately as default
+     * @see #getEntry(Object)
+     */
+    protected CompletableFuture<ExpirableEntry<K, V>> getEntryAsync(K key) {
+        return completedFuture(() -> getEntry(key));
+    }
+
+    /**
+     * Get the {@link Cache.Entry entries} by the specified keys asynchronously
+     *
+     * @param keys the keys of {@link Entry}
+     * @return the future of the existed {@link Cache.Entry entries}, which is completed immediately as default
+     * @see #getEntries(Collection)
+     * @see #getEntryAsync(Object)
+     */
+    protected CompletableFuture<Map<K, ExpirableEntry<K, V>>> getEntriesAsync(Collection<? extends K> keys) {
+        return completedFuture(() -> getEntries(keys));
+    }
+
+    /**
+     * Put the specified {@link Cache.Entry} into cache asynchronously
+     *
+     * @param entry {@link ExpirableEntry}
+     * @return the future, which is completed immediately as default
+     * @see #putEntry(ExpirableEntry)
+     * @see #getEntryAsync(Object)
+     */
+    protected CompletableFuture<Void> putEntryAsync(ExpirableEntry<K, V> entry) {
+        return completedFuture(() -> {
+            putEntry(entry);
+            return null;
+        });
+    }
+
+    /**
+     * Remove the {@link Cache.Entry} by the specified key asynchronously
+     *
+     * @param key the key of {@link Entry}
+     * @return the future of the removed {@link Cache.Entry}, which is completed immediately as default
+     * @see #removeEntry(Object)
+     * @see #getEntryAsync(Object)
+     */
+    protected CompletableFuture<ExpirableEntry<K, V>> removeEntryAsync(K key) {
+        return completedFuture(() -> removeEntry(key));
+    }
+
+    private static CompletionException completionException(Throwable error) {
+        return error instanceof CompletionException ? (CompletionException) error : new CompletionException(error);
+    }
+
+    private static <T> CompletableFuture<T> completedFuture(Supplier<T> supplier) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            future.complete(supplier.get());
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
     /**
      * Clear all {@link Cache.Entry enties} from cache.
      *
@@ -895,6 +1706,242 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
      */
     protected abstract Set<K> keySet();
 
+    /**
+     * Get the lazy {@link Iterator} of keys of {@link Cache.Entry} in the {@link Cache}, the {@link Iterator} should be
+     * weakly consistent, the keys may be fetched on demand, the subclass should override this method if the keys
+     * could be iterated without being copied.
+     *
+     * @return the non-null read-only {@link Iterator}
+     */
+    protected Iterator<K> keyIterator() {
+        return keySet().iterator();
+    }
+
+    /**
+     * Get the lazy {@link Iterator} of keys of the specified {@link Cache}, e.g. the tier of a composite cache, the
+     * keys are iterated without the values if it's an {@link AbstractCache}.
+     *
+     * @param cache the {@link Cache}
+     * @return the non-null read-only {@link Iterator}
+     */
+    protected static <K, V> Iterator<K> keyIterator(Cache<K, V> cache) {
+        if (cache instanceof AbstractCache) {
+            return ((AbstractCache<K, V>) cache).keyIterator();
+        }
+        Iterator<Entry<K, V>> entries = cache.iterator();
+        return new Iterator<K>() {
+
+            @Override
+            public boolean hasNext() {
+                return entries.hasNext();
+            }
+
+            @Override
+            public K next() {
+                return entries.next().getKey();
+            }
+        };
+    }
+
+    // Operations of CacheSnapshot
+
+    /**
+     * Whether the entries could be written into the snapshot when the {@link CacheManager} is closing, and be
+     * restored when the {@link Cache} is created again. The subclass that stores the entries in memory should
+     * override this method, and consult the snapshot in its operations of store :
+     * <ul>
+     *     <li>{@link #containsSnapshotEntry(Object)} if the key is absent in the store</li>
+     *     <li>{@link #takeSnapshotEntry(Object)} if the entry is absent in the store, the taken entry should be
+     *     put into the store unless the key is associated with another entry meanwhile</li>
+     *     <li>{@link #discardSnapshotEntry(Object)} before the entry is put into the store</li>
+     *     <li>{@link #restoreSnapshot(Consumer)} before the keys are iterated</li>
+     *     <li>{@link #clearSnapshot()} when the store is cleared</li>
+     * </ul>
+     *
+     * @return <code>false</code> as default
+     */
+    protected boolean isSnapshotSupported() {
+        return false;
+    }
+
+    protected final boolean containsSnapshotEntry(K key) {
+        CacheSnapshot<K, V> snapshot = this.snapshot;
+        return snapshot != null && snapshot.contains(key);
+    }
+
+    /**
+     * Take the entry of key from the snapshot, the entry is scheduled for expiry if required
+     *
+     * @param key the key
+     * @return <code>null</code> if the entry is absent, expired or taken already
+     */
+    protected final ExpirableEntry<K, V> takeSnapshotEntry(K key) {
+        CacheSnapshot<K, V> snapshot = this.snapshot;
+        if (snapshot == null) {
+            return null;
+        }
+        ExpirableEntry<K, V> entry = snapshot.take(key);
+        if (snapshot.isEmpty()) {
+            // release the mapped snapshot
+            this.snapshot = null;
+        }
+        if (entry != null) {
+            scheduleExpiry(entry);
+        }
+        return entry;
+    }
+
+    protected final void discardSnapshotEntry(K key) {
+        CacheSnapshot<K, V> snapshot = this.snapshot;
+        if (snapshot != null) {
+            snapshot.discard(key);
+        }
+    }
+
+    /**
+     * Restore all remaining entries of the snapshot
+     *
+     * @param restorer the restorer that puts the entry into the store unless the key is associated with another
+     *                 entry
+     */
+    protected final void restoreSnapshot(Consumer<ExpirableEntry<K, V>> restorer) {
+        CacheSnapshot<K, V> snapshot = this.snapshot;
+        if (snapshot != null) {
+            snapshot.drain(entry -> {
+                scheduleExpiry(entry);
+                restorer.accept(entry);
+            });
+            this.snapshot = null;
+        }
+    }
+
+    protected final void clearSnapshot() {
+        CacheSnapshot<K, V> snapshot = this.snapshot;
+        if (snapshot != null) {
+            snapshot.clear();
+            this.snapshot = null;
+        }
+    }
+
+    final boolean isSnapshotEnabled() {
+        return isSnapshotSupported() && cacheProperties.getBoolean(SNAPSHOT_PROPERTY_NAME, false);
+    }
+
+    /**
+     * Open the snapshot that was written by {@link #writeSnapshot(Path, KeyValueTypePair)}, its entries are
+     * restored on demand
+     */
+    final void openSnapshot(Path file, KeyValueTypePair typePair) {
+        this.snapshot = CacheSnapshot.open(file, typePair, codec, getClassLoader());
+    }
+
+    /**
+     * Write the unexpired entries into the snapshot, including the ones that are not restored yet
+     *
+     * @return the count of written entries
+     */
+    final int writeSnapshot(Path file, KeyValueTypePair typePair) throws IOException {
+        Iterator<ExpirableEntry<K, V>> entries = StreamSupport.stream(
+                        Spliterators.spliteratorUnknownSize(keyIterator(), Spliterator.NONNULL), false)
+                .map(this::peekEntry)
+                .filter(Objects::nonNull)
+                .iterator();
+        return CacheSnapshot.write(file, typePair, codec, entries);
+    }
+
+    /**
+     * The lazy {@link Iterator} of {@link Cache.Entry} that resolves the entry when the key is iterated, the missing
+     * and expired entries are skipped, the read-through and the expiry for access are not applied, the entries are
+     * resolved by {@link #peekEntry(Object)} without touching them.
+     */
+    private class EntryIterator implements Iterator<Entry<K, V>> {
+
+        private final Iterator<K> keys;
+
+        private Entry<K, V> nextEntry;
+
+        private K lastKey;
+
+        private EntryIterator(Iterator<K> keys) {
+            this.keys = keys;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (nextEntry == null && keys.hasNext()) {
+                K key = keys.next();
+                ExpirableEntry<K, V> entry = peekEntry(key);
+                if (entry != null && !entry.isExpired()) {
+                    nextEntry = ExpirableEntry.of(key, entry.getValue());
+                    cacheStatistics.cacheHits();
+                    cacheStatistics.cacheGets();
+                }
+            }
+            return nextEntry != null;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Entry<K, V> entry = nextEntry;
+            nextEntry = null;
+            lastKey = entry.getKey();
+            return entry;
+        }
+
+        @Override
+        public void remove() {
+            if (lastKey == null) {
+                throw new IllegalStateException();
+            }
+            AbstractCache.this.remove(lastKey);
+            lastKey = null;
+        }
+    }
+
+    /**
+     * The subclass should invoke this method after the {@link Cache.Entry} was evicted by the store itself,
+     * e.g. the capacity is exceeded. The eviction will be counted and published as an event, thus the lock of
+     * store should be released before this method is invoked.
+     *
+     * @param entry the evicted {@link ExpirableEntry}
+     */
+    protected final void onEntryEvicted(ExpirableEntry<K, V> entry) {
+        ExpiryReaper.cancel(entry);
+        publishEvictedEvent(entry.getKey(), entry.getValue());
+        cacheStatistics.cacheEvictions();
+    }
+
+    /**
+     * Notify that the {@link ExpirableEntry} being put was evicted by itself, e.g. it's heavier than the bound of
+     * store, the store must invoke this method rather than {@link #onEntryEvicted(ExpirableEntry)}, thus the caller
+     * publishes no creation or update of the entry that is absent.
+     *
+     * @param entry the {@link ExpirableEntry} being put
+     */
+    protected final void onEntryRejected(ExpirableEntry<K, V> entry) {
+        entry.setRejected(true);
+        ExpiryReaper.cancel(entry);
+        cacheStatistics.cacheEvictions();
+    }
+
+    /**
+     * Write the renewed timestamp of the existed {@link ExpirableEntry} back to the store, which is invoked after
+     * its expiry was extended by the access or the update. The stores that keep the entries by reference need not
+     * do anything, the subclass whose {@link #getEntry(Object)} returns the copies should override this method.
+     *
+     * @param entry the {@link ExpirableEntry} whose timestamp was renewed
+     * @throws CacheException     if there is a problem doing the touch
+     * @throws ClassCastException if the implementation is configured to perform
+     *                            runtime-type-checking, and the key or value
+     *                            types are incompatible with those that have been
+     *                            configured for the {@link Cache}
+     */
+    protected void touchEntry(ExpirableEntry<K, V> entry) throws CacheException, ClassCastException {
+    }
+
 
     // Operations of CacheLoader and CacheWriter
 
@@ -933,19 +1980,337 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
             cacheWriter = this.defaultFallbackStorage;
         }
 
+        if (configuration.isWriteThrough() && cacheProperties.getBoolean(WRITE_BEHIND_PROPERTY_NAME, false)) {
+            // the failed writes are kept by the default FallbackStorage
+            CacheWriter<K, V> fallback = cacheWriter == this.defaultFallbackStorage ? null :
+                    this.defaultFallbackStorage;
+            cacheWriter = new WriteBehindCacheWriter<>(cacheWriter, fallback,
+                    cacheProperties.getInt(WRITE_BEHIND_BATCH_SIZE_PROPERTY_NAME, WriteBehindCacheWriter.DEFAULT_BATCH_SIZE),
+                    cacheProperties.getLong(WRITE_BEHIND_INTERVAL_PROPERTY_NAME, WriteBehindCacheWriter.DEFAULT_FLUSH_INTERVAL),
+                    cacheProperties.getInt(WRITE_BEHIND_MAX_RETRIES_PROPERTY_NAME, WriteBehindCacheWriter.DEFAULT_MAX_RETRIES));
+        }
+
         return cacheWriter;
     }
 
     private V loadValue(K key) {
-        return getCacheLoader().load(key);
+        long startTime = System.nanoTime();
+        try {
+            return getCacheLoader().load(key);
+        } finally {
+            cacheStatistics.cacheLoadsTime(System.nanoTime() - startTime);
+        }
     }
 
+    /**
+     * Load the value by {@link CacheLoader}, the concurrent loads of the same key are coalesced into
+     * the single in-flight load, the others wait for its result.
+     * <p>
+     * The leader of load stores its value under the striped lock of key, thus the thread holding a striped lock,
+     * e.g. the one running an {@link EntryProcessor}, loads the value by itself rather than waiting for the
+     * in-flight load, otherwise both of them would wait for each other.
+     */
     private V loadValue(K key, boolean storedEntry) {
-        V value = loadValue(key);
-        if (storedEntry && value != null) {
-            put(key, value);
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> loadingFuture = loadingFutures.putIfAbsent(key, future);
+        if (loadingFuture != null) {
+            if (holdsKeyLock()) {
+                V value = loadValue(key);
+                if (storedEntry && value != null) {
+                    put(key, value);
+                }
+                return value;
+            }
+            cacheStatistics.cacheLoadWaits();
+            return awaitLoadedValue(key, storedEntry, loadingFuture);
+        }
+        try {
+            V value = loadValue(key);
+            if (storedEntry && value != null) {
+                put(key, value);
+            }
+            future.complete(value);
+            return value;
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loadingFutures.remove(key, future);
+        }
+    }
+
+    private <T> void invokeAll(Lock lock, List<K> keys, EntryProcessor<K, V, T> entryProcessor, Object[] arguments,
+                               Map<K, EntryProcessorResult<T>> results) {
+        lock.lock();
+        try {
+            for (K key : keys) {
+                try {
+                    T result = doInvoke(key, entryProcessor, arguments);
+                    // No mappings will be returned for EntryProcessors that return a null value for a key
+                    if (result != null) {
+                        results.put(key, () -> result);
+                    }
+                } catch (EntryProcessorException e) {
+                    results.put(key, () -> {
+                        throw e;
+                    });
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Process the snapshot of entry, then apply the mutation once, the caller must hold the lock of key.
+     */
+    private <T> T doInvoke(K key, EntryProcessor<K, V, T> entryProcessor, Object[] arguments)
+            throws EntryProcessorException {
+        ExpirableEntry<K, V> entry = getEntry(key);
+        V value = entry == null || entry.isExpired() ? null : entry.getValue();
+        MutableEntryAdapter<K, V> mutableEntry = MutableEntryAdapter.of(key, value,
+                isReadThrough() ? () -> loadValue(key, false) : null, this);
+        T result;
+        try {
+            result = entryProcessor.process(mutableEntry, arguments);
+        } catch (EntryProcessorException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new EntryProcessorException(e);
+        }
+        switch (mutableEntry.getOperation()) {
+            case LOAD:
+            case CREATE:
+            case UPDATE:
+                put(key, mutableEntry.getCurrentValue());
+                break;
+            case REMOVE:
+                remove(key);
+                break;
+            case ACCESS:
+                handleExpiryPolicyForAccess(entry);
+                break;
+            default:
+                break;
+        }
+        return result;
+    }
+
+    /**
+     * Perform the action under the striped lock of key, the lock is reentrant, thus the mutations of the same key
+     * are allowed in the action.
+     */
+    private <R> R withKeyLock(K key, Supplier<R> action) {
+        requireKeyNotNull(key);
+        Lock lock = invokeLocks[stripe(key)];
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean holdsKeyLock() {
+        for (ReentrantLock lock : invokeLocks) {
+            if (lock.isHeldByCurrentThread()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int stripe(Object key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (INVOKE_LOCK_STRIPES - 1);
+    }
+
+    private static ReentrantLock[] newLocks(int size) {
+        ReentrantLock[] locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        return locks;
+    }
+
+    private boolean isRefreshAheadDue(ExpirableEntry<K, V> entry) {
+        return refreshAheadFactor > 0 && entry != null && isReadThrough() && !entry.isExpired()
+                && entry.isRefreshAheadDue(refreshAheadFactor);
+    }
+
+    /**
+     * Reload the value by {@link CacheLoader} asynchronously, the reload shares the in-flight load of the key,
+     * thus only one load per key is in flight.
+     */
+    private void refreshAhead(K key) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        if (loadingFutures.putIfAbsent(key, future) != null) {
+            return;
+        }
+        cacheStatistics.cacheRefreshes();
+        try {
+            loaderExecutor.execute(() -> {
+                try {
+                    V value = loadValue(key);
+                    if (value != null && !isClosed()) {
+                        put(key, value);
+                    }
+                    future.complete(value);
+                } catch (Throwable e) {
+                    logger.warning(format("The refresh-ahead of key[%s] is failed : %s", key, e));
+                    future.completeExceptionally(e);
+                } finally {
+                    loadingFutures.remove(key, future);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            loadingFutures.remove(key, future);
+            future.completeExceptionally(e);
+        }
+    }
+
+    private double resolveRefreshAheadFactor() {
+        double factor = cacheProperties.getDouble(REFRESH_AHEAD_FACTOR_PROPERTY_NAME, 0);
+        if (factor < 0 || factor >= 1) {
+            throw new IllegalArgumentException(format("The property[%s] must be in [0, 1) : %s",
+                    REFRESH_AHEAD_FACTOR_PROPERTY_NAME, factor));
+        }
+        return factor;
+    }
+
+    private HotKeySampler<K> resolveHotKeySampler() {
+        if (!cacheProperties.getBoolean(HOT_KEY_SAMPLING_PROPERTY_NAME, false)) {
+            return null;
+        }
+        return new HotKeySampler<>(cacheProperties.getInt(HOT_KEY_TOP_K_PROPERTY_NAME, DEFAULT_HOT_KEY_TOP_K),
+                cacheProperties.getInt(HOT_KEY_SAMPLE_INTERVAL_PROPERTY_NAME, DEFAULT_HOT_KEY_SAMPLE_INTERVAL),
+                cacheProperties.getLong(HOT_KEY_WINDOW_PROPERTY_NAME, DEFAULT_HOT_KEY_WINDOW), TimeUnit.SECONDS);
+    }
+
+    private void sampleKey(K key) {
+        // the null key is rejected by the operation itself
+        if (hotKeySampler != null && key != null) {
+            hotKeySampler.record(key);
+        }
+    }
+
+    /**
+     * @return the {@link HotKeySampler} if the property {@link #HOT_KEY_SAMPLING_PROPERTY_NAME} is enabled,
+     * otherwise <code>null</code>
+     */
+    protected final HotKeySampler<K> getHotKeySampler() {
+        return hotKeySampler;
+    }
+
+    private List<Set<K>> partition(Set<? extends K> keys) {
+        List<Set<K>> chunks = new ArrayList<>();
+        Set<K> chunk = new LinkedHashSet<>();
+        for (K key : keys) {
+            requireKeyNotNull(key);
+            chunk.add(key);
+            if (chunk.size() == loadAllChunkSize) {
+                chunks.add(chunk);
+                chunk = new LinkedHashSet<>();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    /**
+     * Load the chunk of keys by {@link CacheLoader#loadAll(Iterable)} at once, the keys are loaded one by one
+     * if the {@link CacheLoader} does not support the bulk load (returns <code>null</code>).
+     * If an entry for a key already exists in the Cache, the key will be skipped unless replaceExistingValues is true,
+     * the absent keys are always loaded.
+     */
+    private void loadChunk(Set<K> keys, boolean replaceExistingValues) {
+        // the keys are reported to ChunkedCompletionListener as they are, thus filtered into another Set
+        Set<K> chunk = keys;
+        if (!replaceExistingValues) {
+            chunk = new LinkedHashSet<>();
+            for (K key : keys) {
+                if (!containsKey(key)) {
+                    chunk.add(key);
+                }
+            }
+            if (chunk.isEmpty()) {
+                return;
+            }
+        }
+        Map<K, V> values;
+        long startTime = System.nanoTime();
+        try {
+            values = getCacheLoader().loadAll(chunk);
+        } finally {
+            cacheStatistics.cacheLoadsTime(System.nanoTime() - startTime);
+        }
+        if (values == null) {
+            values = new LinkedHashMap<>();
+            for (K key : chunk) {
+                values.put(key, loadValue(key, false));
+            }
+        }
+        values.forEach((key, value) -> {
+            // the CacheLoader may not find the value
+            if (key == null || value == null) {
+                return;
+            }
+            if (replaceExistingValues) {
+                put(key, value);
+            } else {
+                // the entry may be put concurrently after the filtering
+                putIfAbsent(key, value);
+            }
+        });
+    }
+
+    private Executor resolveExecutor() {
+        int threads = cacheProperties.getInt(EXECUTOR_THREADS_PROPERTY_NAME, 0);
+        if (threads < 1) {
+            return ForkJoinPool.commonPool();
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, format("Cache-%s-%d", cacheName, threadNumber.incrementAndGet()));
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private Executor resolveLoaderExecutor() {
+        int threads = cacheProperties.getInt(LOADER_THREADS_PROPERTY_NAME, 0);
+        if (threads < 1) {
+            return executor;
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, format("CacheLoader-%s-%d", cacheName,
+                    threadNumber.incrementAndGet()));
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private V awaitLoadedValue(K key, boolean storedEntry, CompletableFuture<V> loadingFuture) {
+        try {
+            return loadTimeout > 0 ? loadingFuture.get(loadTimeout, TimeUnit.MILLISECONDS) : loadingFuture.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CacheLoaderException(e);
+        } catch (TimeoutException e) {
+            throw new CacheLoaderException(format("The load of key[%s] is timeout after %d ms", key, loadTimeout), e);
+        } catch (ExecutionException e) {
+            if (!loadFailurePropagation) {
+                return loadValue(key, storedEntry);
+            }
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new CacheLoaderException(cause);
         }
-        return value;
     }
 
     private void writeEntryIfWriteThrough(Entry<K, V> entry) {
@@ -983,6 +2348,10 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
         entryEventPublisher.publish(removedEvent(this, key, oldValue));
     }
 
+    private void publishEvictedEvent(K key, V oldValue) {
+        entryEventPublisher.publish(evictedEvent(this, key, oldValue));
+    }
+
     // Operations of ExpiryPolicy and Duration
 
     private boolean handleExpiryPolicyForCreation(ExpirableEntry<K, V> newEntry) {
@@ -1026,9 +2395,16 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
             if (duration.isZero()) {
                 expired = true;
             } else {
-                long timestamp = duration.getAdjustedTime(System.currentTimeMillis());
+                long currentTime = System.currentTimeMillis();
+                long timestamp = duration.getAdjustedTime(currentTime);
                 // Update the timestamp
                 entry.setTimestamp(timestamp);
+                entry.setStartTimestamp(currentTime);
+                if (removedExpiredEntry) {
+                    // The existed Cache.Entry should be persisted and rescheduled
+                    touchEntry(entry);
+                    scheduleExpiry(entry);
+                }
             }
         }
 
@@ -1037,13 +2413,73 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
             K key = entry.getKey();
             V value = entry.getValue();
             removeEntry(key);
+            ExpiryReaper.cancel(entry);
             publishExpiredEvent(key, value);
-            cacheStatistics.cacheEvictions();
+            cacheStatistics.cacheExpiries();
         }
 
         return expired;
     }
 
+    /**
+     * Whether the expired {@link Cache.Entry entries} could be removed actively by the expiry reaper of
+     * {@link AbstractCacheManager} or not, the entries of current cache may be removed in another thread if
+     * <code>true</code>, thus the store must be thread-safe.
+     * <p>
+     * The subclass that stores the entries in memory should override this method, the remote stores
+     * should rely on their own expiry mechanism.
+     *
+     * @return <code>false</code> as default
+     * @see #removeExpiredEntry(ExpirableEntry)
+     */
+    protected boolean isActiveExpirySupported() {
+        return false;
+    }
+
+    /**
+     * Remove the specified expired {@link ExpirableEntry} if it's still associated with its key, the subclass
+     * should override this method if the check and the removal could be done atomically.
+     *
+     * @param entry the expired {@link ExpirableEntry}
+     * @return <code>true</code> if removed
+     */
+    protected boolean removeExpiredEntry(ExpirableEntry<K, V> entry) {
+        K key = entry.getKey();
+        if (getEntry(key) == entry) {
+            removeEntry(key);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Remove the due entries that were scheduled by the expiry reaper in batch
+     *
+     * @param entries the due entries
+     */
+    final void reapExpiredEntries(List<ExpirableEntry<K, V>> entries) {
+        if (isClosed()) {
+            return;
+        }
+        List<CacheEntryEvent<? extends K, ? extends V>> events = new ArrayList<>(entries.size());
+        for (ExpirableEntry<K, V> entry : entries) {
+            if (!entry.isExpired()) {
+                // The expiry was extended
+                scheduleExpiry(entry);
+            } else if (removeExpiredEntry(entry)) {
+                events.add(expiredEvent(this, entry.getKey(), entry.getValue()));
+                cacheStatistics.cacheExpiries();
+            }
+        }
+        entryEventPublisher.publish(events);
+    }
+
+    private void scheduleExpiry(ExpirableEntry<K, V> entry) {
+        if (isActiveExpirySupported() && cacheManager instanceof AbstractCacheManager) {
+            ((AbstractCacheManager) cacheManager).getExpiryReaper().schedule(this, entry);
+        }
+    }
+
     protected final Duration getExpiryForCreation() {
         return getDuration(expiryPolicy::getExpiryForCreation);
     }
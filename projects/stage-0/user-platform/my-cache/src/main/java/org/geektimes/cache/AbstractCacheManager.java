@@ -22,7 +22,11 @@ import javax.cache.CacheManager;
 import javax.cache.configuration.Configuration;
 import javax.cache.configuration.MutableConfiguration;
 import javax.cache.spi.CachingProvider;
+import java.io.UnsupportedEncodingException;
 import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.ConcurrentHashMap;
@@ -43,6 +47,20 @@ import static java.util.Objects.requireNonNull;
  */
 public abstract class AbstractCacheManager implements CacheManager {
 
+    /**
+     * The property name of the tick duration in milliseconds of {@link ExpiryReaper}
+     */
+    public static final String EXPIRY_TICK_DURATION_PROPERTY_NAME = "javax.cache.CacheManager.expiry.tick-duration";
+
+    public static final long DEFAULT_EXPIRY_TICK_DURATION = 100L;
+
+    /**
+     * The property name of the directory of snapshots of the caches that enable the property
+     * {@link AbstractCache#SNAPSHOT_PROPERTY_NAME}, the snapshots of {@link CacheManager} are stored in its
+     * sub-directory named by the encoded URI, the default is "${java.io.tmpdir}/my-cache-snapshots"
+     */
+    public static final String SNAPSHOT_DIRECTORY_PROPERTY_NAME = "javax.cache.CacheManager.snapshot.directory";
+
     private static final Consumer<Cache> CLEAR_CACHE_OPERATION = Cache::clear;
 
     private static final Consumer<Cache> CLOSE_CACHE_OPERATION = Cache::close;
@@ -59,6 +77,8 @@ public abstract class AbstractCacheManager implements CacheManager {
 
     private volatile boolean closed;
 
+    private volatile ExpiryReaper expiryReaper;
+
     private ConcurrentMap<String, Map<KeyValueTypePair, Cache>> cacheRepository = new ConcurrentHashMap<>();
 
     public AbstractCacheManager(CachingProvider cachingProvider, URI uri, ClassLoader classLoader, Properties properties) {
@@ -118,7 +138,7 @@ public abstract class AbstractCacheManager implements CacheManager {
         Map<KeyValueTypePair, Cache> cacheMap = cacheRepository.computeIfAbsent(cacheName, n -> new ConcurrentHashMap<>());
 
         return cacheMap.computeIfAbsent(new KeyValueTypePair(configuration.getKeyType(), configuration.getValueType()),
-                key -> created ? doCreateCache(cacheName, configuration) : null);
+                key -> created ? openSnapshotIfRequired(cacheName, key, doCreateCache(cacheName, configuration)) : null);
     }
 
     protected abstract <K, V, C extends Configuration<K, V>> Cache doCreateCache(String cacheName, C configuration);
@@ -165,10 +185,15 @@ public abstract class AbstractCacheManager implements CacheManager {
             logger.warning("The CacheManager has been closed, current close operation will be ignored!");
             return;
         }
+        cacheRepository.forEach((cacheName, cacheMap) ->
+                cacheMap.forEach((typePair, cache) -> writeSnapshotIfRequired(cacheName, typePair, cache)));
         for (Map<KeyValueTypePair, Cache> cacheMap : cacheRepository.values()) {
             iterateCaches(cacheMap.values(), CLOSE_CACHE_OPERATION);
         }
         doClose();
+        if (expiryReaper != null) {
+            expiryReaper.shutdown();
+        }
         this.closed = true;
     }
 
@@ -191,6 +216,61 @@ public abstract class AbstractCacheManager implements CacheManager {
         }
     }
 
+    private Cache openSnapshotIfRequired(String cacheName, KeyValueTypePair typePair, Cache cache) {
+        if (cache instanceof AbstractCache && ((AbstractCache) cache).isSnapshotEnabled()) {
+            ((AbstractCache) cache).openSnapshot(getSnapshotFile(cacheName), typePair);
+        }
+        return cache;
+    }
+
+    private void writeSnapshotIfRequired(String cacheName, KeyValueTypePair typePair, Cache cache) {
+        if (cache instanceof AbstractCache && ((AbstractCache) cache).isSnapshotEnabled() && !cache.isClosed()) {
+            Path snapshotFile = getSnapshotFile(cacheName);
+            try {
+                int count = ((AbstractCache) cache).writeSnapshot(snapshotFile, typePair);
+                logger.info(format("The snapshot[%s] of %d entries was written", snapshotFile, count));
+            } catch (Throwable e) {
+                // just log, the other caches should be closed
+                logger.warning(format("The snapshot[%s] can't be written : %s", snapshotFile, e.getMessage()));
+            }
+        }
+    }
+
+    private Path getSnapshotFile(String cacheName) {
+        String directory = properties.getProperty(SNAPSHOT_DIRECTORY_PROPERTY_NAME,
+                Paths.get(System.getProperty("java.io.tmpdir"), "my-cache-snapshots").toString());
+        return Paths.get(directory.trim(), encode(uri.toASCIIString()), encode(cacheName) + ".snapshot");
+    }
+
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Get the shared {@link ExpiryReaper} of caches, it will be created at the first time.
+     *
+     * @return non-null
+     */
+    final ExpiryReaper getExpiryReaper() {
+        ExpiryReaper reaper = this.expiryReaper;
+        if (reaper == null) {
+            synchronized (this) {
+                reaper = this.expiryReaper;
+                if (reaper == null) {
+                    String tickDuration = properties.getProperty(EXPIRY_TICK_DURATION_PROPERTY_NAME);
+                    reaper = new ExpiryReaper(tickDuration == null ? DEFAULT_EXPIRY_TICK_DURATION :
+                            Long.parseLong(tickDuration.trim()));
+                    this.expiryReaper = reaper;
+                }
+            }
+        }
+        return reaper;
+    }
+
     @Override
     public boolean isClosed() {
         return this.closed;
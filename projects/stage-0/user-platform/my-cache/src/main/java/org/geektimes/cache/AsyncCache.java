@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache;
+
+import javax.cache.Cache;
+import javax.cache.processor.EntryProcessor;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The non-blocking view of {@link Cache}, which could be obtained by {@link Cache#unwrap(Class)}. The semantics of
+ * every operation, including the statistics, the expiry and the events, are same as the synchronous one, the
+ * futures of the stores in memory are completed immediately in the caller thread.
+ *
+ * @param <K> the type of key
+ * @param <V> the type of value
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see Cache
+ * @since 1.0.0
+ */
+public interface AsyncCache<K, V> {
+
+    /**
+     * @see Cache#get(Object)
+     */
+    CompletableFuture<V> getAsync(K key);
+
+    /**
+     * @see Cache#getAll(Set)
+     */
+    CompletableFuture<Map<K, V>> getAllAsync(Set<? extends K> keys);
+
+    /**
+     * @see Cache#put(Object, Object)
+     */
+    CompletableFuture<Void> putAsync(K key, V value);
+
+    /**
+     * @see Cache#remove(Object)
+     */
+    CompletableFuture<Boolean> removeAsync(K key);
+
+    /**
+     * @see Cache#invoke(Object, EntryProcessor, Object...)
+     */
+    <T> CompletableFuture<T> invokeAsync(K key, EntryProcessor<K, V, T> entryProcessor, Object... arguments);
+}
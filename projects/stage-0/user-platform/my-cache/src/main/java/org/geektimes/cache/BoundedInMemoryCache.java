@@ -0,0 +1,497 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache;
+
+import org.geektimes.cache.configuration.CacheProperties;
+import org.geektimes.cache.eviction.EntrySizeEstimator;
+import org.geektimes.cache.eviction.EvictionPolicy;
+import org.geektimes.cache.eviction.Weigher;
+
+import javax.cache.Cache;
+import javax.cache.CacheException;
+import javax.cache.CacheManager;
+import javax.cache.configuration.Configuration;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.lang.String.format;
+import static java.util.Collections.unmodifiableSet;
+import static org.geektimes.cache.management.ManagementUtils.registerMBeanIfRequired;
+import static org.geektimes.cache.management.ManagementUtils.unregisterMBeanIfPresent;
+
+/**
+ * In Memory thread-safe {@link Cache} whose entries are stored in the lock-striped segments, the count or the total
+ * weight of entries could be bounded by the {@link EvictionPolicy}.
+ * The expired entries are removed actively even if they are never read again.
+ * <p>
+ * The {@link CacheProperties properties} :
+ * <ul>
+ *     <li>{@link #MAX_ENTRIES_PROPERTY_NAME "max-entries"} : the maximum count of entries, non-positive value means
+ *     unbounded, default is unbounded</li>
+ *     <li>{@link #EVICTION_POLICY_PROPERTY_NAME "eviction-policy"} : {@link EvictionPolicy#TINY_LFU "tiny-lfu"}
+ *     (default) or {@link EvictionPolicy#LRU "lru"}</li>
+ *     <li>{@link #CONCURRENCY_LEVEL_PROPERTY_NAME "concurrency-level"} : the count of segments, default is 16</li>
+ *     <li>{@link #MAX_WEIGHT_PROPERTY_NAME "max-weight"} : the maximum total weight of entries, e.g. bytes,
+ *     non-positive value means unbounded, default is unbounded. The weight is bounded per segment, thus an entry
+ *     heavier than the share of segment is evicted immediately. If the count of entries is unbounded, the entries
+ *     are evicted by {@link EvictionPolicy#LRU "lru"}, since the policy of frequency is sized by the count</li>
+ *     <li>{@link #WEIGHER_PROPERTY_NAME "weigher"} : the class name of {@link Weigher}, default is
+ *     {@link EntrySizeEstimator} that estimates the size in bytes</li>
+ * </ul>
+ * The count and the weight of entries are exposed by {@link BoundedInMemoryCacheMXBean} if the management is enabled.
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see EvictionPolicy
+ * @since 1.0.0
+ */
+public class BoundedInMemoryCache<K, V> extends AbstractCache<K, V> implements BoundedInMemoryCacheMXBean {
+
+    public static final String MAX_ENTRIES_PROPERTY_NAME = "max-entries";
+
+    public static final String EVICTION_POLICY_PROPERTY_NAME = "eviction-policy";
+
+    public static final String CONCURRENCY_LEVEL_PROPERTY_NAME = "concurrency-level";
+
+    public static final String MAX_WEIGHT_PROPERTY_NAME = "max-weight";
+
+    public static final String WEIGHER_PROPERTY_NAME = "weigher";
+
+    public static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    /**
+     * The type of {@link BoundedInMemoryCacheMXBean}
+     */
+    public static final String MBEAN_TYPE = "BoundedInMemoryCache";
+
+    private final long maxEntries;
+
+    private final long maxWeight;
+
+    /**
+     * <code>null</code> if the weight is unbounded
+     */
+    private final Weigher<? super K, ? super V> weigher;
+
+    private final Segment<K, V>[] segments;
+
+    private final int segmentMask;
+
+    private final LongAdder evictionCount = new LongAdder();
+
+    public BoundedInMemoryCache(CacheManager cacheManager, String cacheName, Configuration<K, V> configuration) {
+        super(cacheManager, cacheName, configuration);
+        CacheProperties properties = getCacheProperties();
+        this.maxEntries = properties.getLong(MAX_ENTRIES_PROPERTY_NAME, 0L);
+        this.maxWeight = properties.getLong(MAX_WEIGHT_PROPERTY_NAME, 0L);
+        this.weigher = maxWeight > 0 ? resolveWeigher(properties) : null;
+        String policyName = properties.getProperty(EVICTION_POLICY_PROPERTY_NAME, EvictionPolicy.TINY_LFU);
+        int concurrencyLevel = properties.getInt(CONCURRENCY_LEVEL_PROPERTY_NAME, DEFAULT_CONCURRENCY_LEVEL);
+        this.segments = createSegments(maxEntries, maxWeight, policyName, concurrencyLevel);
+        this.segmentMask = segments.length - 1;
+        registerMBeanIfRequired(this, MBEAN_TYPE, this);
+    }
+
+    private static <K, V> Segment<K, V>[] createSegments(long maxEntries, long maxWeight, String policyName,
+                                                         int concurrencyLevel) {
+        long bound = maxEntries > 0 ? Math.min(maxEntries, concurrencyLevel) : concurrencyLevel;
+        int count = 1;
+        while (count << 1 <= bound && count < (1 << 16)) {
+            count <<= 1;
+        }
+        Segment<K, V>[] segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            EvictionPolicy<K> policy = null;
+            if (maxEntries > 0) {
+                // distribute the remainder into the leading segments
+                long capacity = maxEntries / count + (i < maxEntries % count ? 1 : 0);
+                policy = EvictionPolicy.of(policyName, (int) Math.min(capacity, Integer.MAX_VALUE));
+            } else if (maxWeight > 0) {
+                policy = EvictionPolicy.of(EvictionPolicy.LRU, Integer.MAX_VALUE);
+            }
+            long segmentMaxWeight = maxWeight > 0 ? maxWeight / count + (i < maxWeight % count ? 1 : 0) : 0;
+            segments[i] = new Segment<>(policy, segmentMaxWeight);
+        }
+        return segments;
+    }
+
+    private Weigher<? super K, ? super V> resolveWeigher(CacheProperties properties) {
+        String className = properties.getProperty(WEIGHER_PROPERTY_NAME);
+        if (className == null) {
+            return new EntrySizeEstimator(getCodec());
+        }
+        try {
+            Class<?> weigherClass = getClassLoader().loadClass(className);
+            if (!Weigher.class.isAssignableFrom(weigherClass)) {
+                throw new ClassCastException(format("The class[%s] must implement %s", className,
+                        Weigher.class.getName()));
+            }
+            return (Weigher<? super K, ? super V>) weigherClass.getConstructor().newInstance();
+        } catch (Throwable e) {
+            throw new CacheException(e);
+        }
+    }
+
+    @Override
+    protected boolean containsEntry(K key) throws CacheException, ClassCastException {
+        Segment<K, V> segment = segmentFor(key);
+        segment.lock.lock();
+        try {
+            if (segment.entries.containsKey(key)) {
+                return true;
+            }
+        } finally {
+            segment.lock.unlock();
+        }
+        return containsSnapshotEntry(key);
+    }
+
+    @Override
+    protected ExpirableEntry<K, V> getEntry(K key) throws CacheException, ClassCastException {
+        return getEntry(key, true);
+    }
+
+    /**
+     * The entry is not recorded as an access in the eviction policy, the entry restored from the snapshot is still
+     * inserted into the store.
+     */
+    @Override
+    protected ExpirableEntry<K, V> peekEntry(K key) throws CacheException, ClassCastException {
+        return getEntry(key, false);
+    }
+
+    /**
+     * @param key    the key
+     * @param access if <code>true</code>, the access of entry is recorded by the eviction policy
+     */
+    private ExpirableEntry<K, V> getEntry(K key, boolean access) {
+        Segment<K, V> segment = segmentFor(key);
+        segment.lock.lock();
+        try {
+            ExpirableEntry<K, V> entry = segment.entries.get(key);
+            if (access && entry != null && segment.policy != null) {
+                segment.policy.onAccess(key);
+            }
+            if (entry != null) {
+                return entry;
+            }
+        } finally {
+            segment.lock.unlock();
+        }
+        ExpirableEntry<K, V> restoredEntry = takeSnapshotEntry(key);
+        if (restoredEntry == null) {
+            return null;
+        }
+        ExpirableEntry<K, V> existedEntry = putEntry(restoredEntry, true);
+        return existedEntry == null ? restoredEntry : existedEntry;
+    }
+
+    @Override
+    protected void putEntry(ExpirableEntry<K, V> entry) throws CacheException, ClassCastException {
+        discardSnapshotEntry(entry.getKey());
+        putEntry(entry, false);
+    }
+
+    /**
+     * @param entry        the entry
+     * @param onlyIfAbsent if <code>true</code>, the existed entry of key is not replaced
+     * @return the existed entry if <code>onlyIfAbsent</code>, otherwise <code>null</code>
+     */
+    private ExpirableEntry<K, V> putEntry(ExpirableEntry<K, V> entry, boolean onlyIfAbsent) {
+        K key = entry.getKey();
+        // the weight is calculated outside the lock
+        long weight = weigh(entry);
+        Segment<K, V> segment = segmentFor(key);
+        List<ExpirableEntry<K, V>> evictedEntries = new LinkedList<>();
+        segment.lock.lock();
+        try {
+            if (onlyIfAbsent) {
+                ExpirableEntry<K, V> existedEntry = segment.entries.get(key);
+                if (existedEntry != null) {
+                    return existedEntry;
+                }
+            }
+            ExpirableEntry<K, V> oldEntry = segment.entries.put(key, entry);
+            segment.updateWeight(key, weight);
+            if (segment.policy != null) {
+                if (oldEntry == null) {
+                    K victim = segment.policy.onInsert(key);
+                    if (victim != null) {
+                        evictedEntries.add(segment.remove(victim));
+                    }
+                } else {
+                    segment.policy.onAccess(key);
+                }
+                // evict until the weight is not exceeded, the inserted entry may be evicted itself
+                while (segment.isOverweight()) {
+                    K victim = segment.policy.evict();
+                    if (victim == null) {
+                        break;
+                    }
+                    evictedEntries.add(segment.remove(victim));
+                }
+            }
+        } finally {
+            segment.lock.unlock();
+        }
+        for (ExpirableEntry<K, V> evictedEntry : evictedEntries) {
+            if (evictedEntry == null) {
+                continue;
+            }
+            evictionCount.increment();
+            if (evictedEntry == entry) {
+                // the caller publishes nothing of the entry that is never present
+                onEntryRejected(entry);
+            } else {
+                onEntryEvicted(evictedEntry);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    protected ExpirableEntry<K, V> removeEntry(K key) throws CacheException, ClassCastException {
+        Segment<K, V> segment = segmentFor(key);
+        segment.lock.lock();
+        try {
+            ExpirableEntry<K, V> oldEntry = segment.remove(key);
+            if (oldEntry != null && segment.policy != null) {
+                segment.policy.onRemove(key);
+            }
+            if (oldEntry != null) {
+                return oldEntry;
+            }
+        } finally {
+            segment.lock.unlock();
+        }
+        return takeSnapshotEntry(key);
+    }
+
+    @Override
+    protected boolean isActiveExpirySupported() {
+        return true;
+    }
+
+    @Override
+    protected boolean removeExpiredEntry(ExpirableEntry<K, V> entry) {
+        K key = entry.getKey();
+        Segment<K, V> segment = segmentFor(key);
+        segment.lock.lock();
+        try {
+            if (segment.entries.get(key) != entry) {
+                // replaced or removed
+                return false;
+            }
+            segment.remove(key);
+            if (segment.policy != null) {
+                segment.policy.onRemove(key);
+            }
+            return true;
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    @Override
+    protected void clearEntries() throws CacheException {
+        clearSnapshot();
+        for (Segment<K, V> segment : segments) {
+            segment.lock.lock();
+            try {
+                segment.entries.clear();
+                segment.clearWeights();
+                if (segment.policy != null) {
+                    segment.policy.clear();
+                }
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    protected Set<K> keySet() {
+        restoreSnapshot(this::restoreEntry);
+        Set<K> keys = new HashSet<>();
+        for (Segment<K, V> segment : segments) {
+            segment.lock.lock();
+            try {
+                keys.addAll(segment.entries.keySet());
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return unmodifiableSet(keys);
+    }
+
+    /**
+     * The keys are copied segment by segment on demand, thus the segment is locked shortly
+     */
+    @Override
+    protected Iterator<K> keyIterator() {
+        restoreSnapshot(this::restoreEntry);
+        return Arrays.stream(segments).flatMap(segment -> {
+            segment.lock.lock();
+            try {
+                return new ArrayList<>(segment.entries.keySet()).stream();
+            } finally {
+                segment.lock.unlock();
+            }
+        }).iterator();
+    }
+
+    /**
+     * @return the count of entries in current cache
+     */
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            segment.lock.lock();
+            try {
+                size += segment.entries.size();
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public long getEntryCount() {
+        return size();
+    }
+
+    @Override
+    public long getMaxEntries() {
+        return maxEntries;
+    }
+
+    @Override
+    public long getWeightedSize() {
+        long weightedSize = 0;
+        for (Segment<K, V> segment : segments) {
+            segment.lock.lock();
+            try {
+                weightedSize += segment.weightedSize;
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return weightedSize;
+    }
+
+    @Override
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    @Override
+    protected boolean isSnapshotSupported() {
+        return true;
+    }
+
+    private void restoreEntry(ExpirableEntry<K, V> entry) {
+        putEntry(entry, true);
+    }
+
+    @Override
+    protected void doClose() {
+        unregisterMBeanIfPresent(this, MBEAN_TYPE);
+    }
+
+    private long weigh(ExpirableEntry<K, V> entry) {
+        if (weigher == null) {
+            return 0;
+        }
+        long weight = weigher.weigh(entry.getKey(), entry.getValue());
+        if (weight < 0) {
+            throw new CacheException(format("The weight of key[%s] must not be negative : %d", entry.getKey(),
+                    weight));
+        }
+        return weight;
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return segments[(hash ^ (hash >>> 8)) & segmentMask];
+    }
+
+    private static class Segment<K, V> {
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private final Map<K, ExpirableEntry<K, V>> entries = new HashMap<>();
+
+        /**
+         * <code>null</code> if unbounded
+         */
+        private final EvictionPolicy<K> policy;
+
+        /**
+         * non-positive if the weight is unbounded
+         */
+        private final long maxWeight;
+
+        /**
+         * The weights of entries, <code>null</code> if the weight is unbounded
+         */
+        private final Map<K, Long> weights;
+
+        private long weightedSize;
+
+        private Segment(EvictionPolicy<K> policy, long maxWeight) {
+            this.policy = policy;
+            this.maxWeight = maxWeight;
+            this.weights = maxWeight > 0 ? new HashMap<>() : null;
+        }
+
+        private void updateWeight(K key, long weight) {
+            if (weights != null) {
+                Long oldWeight = weights.put(key, weight);
+                weightedSize += weight - (oldWeight == null ? 0 : oldWeight);
+            }
+        }
+
+        private boolean isOverweight() {
+            return weights != null && weightedSize > maxWeight;
+        }
+
+        private ExpirableEntry<K, V> remove(K key) {
+            ExpirableEntry<K, V> entry = entries.remove(key);
+            if (weights != null) {
+                Long weight = weights.remove(key);
+                if (weight != null) {
+                    weightedSize -= weight;
+                }
+            }
+            return entry;
+        }
+
+        private void clearWeights() {
+            if (weights != null) {
+                weights.clear();
+                weightedSize = 0;
+            }
+        }
+    }
+}
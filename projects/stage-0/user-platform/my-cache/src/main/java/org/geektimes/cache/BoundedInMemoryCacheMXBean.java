@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache;
+
+/**
+ * The MXBean of {@link BoundedInMemoryCache} exposes the count and the weight of entries
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @since 1.0.0
+ */
+public interface BoundedInMemoryCacheMXBean {
+
+    long getEntryCount();
+
+    /**
+     * @return the maximum count of entries, non-positive if unbounded
+     */
+    long getMaxEntries();
+
+    /**
+     * @return the total weight of entries, 0 if the cache is not bounded by the weight
+     */
+    long getWeightedSize();
+
+    /**
+     * @return the maximum total weight of entries, non-positive if unbounded
+     */
+    long getMaxWeight();
+
+    /**
+     * @return the count of entries that were evicted because the count or the weight was exceeded
+     */
+    long getEvictionCount();
+}
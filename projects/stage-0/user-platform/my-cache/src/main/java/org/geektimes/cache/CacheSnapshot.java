@@ -0,0 +1,302 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache;
+
+import org.geektimes.cache.io.Codec;
+
+import javax.cache.Cache;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import static java.lang.String.format;
+
+/**
+ * The snapshot of the entries of {@link Cache} on the disk, which is written when the {@link AbstractCacheManager}
+ * is closing, and is memory-mapped when the {@link Cache} is created again. Only the keys are deserialized when
+ * the snapshot is opened, the value of entry is deserialized when its key is {@link #take(Object) taken}.
+ * <p>
+ * The layout of snapshot :
+ * <pre>
+ * header  : magic(int) version(byte) key-type(string) value-type(string) codec(string)
+ * records : [key-length(int) key(bytes) value-length(int) value(bytes) expiry-timestamp(long)]* -1(int)
+ * trailer : CRC32 of header and records(long)
+ * </pre>
+ * The string is encoded as length(int) and UTF-8 bytes, the expiry timestamp is the wall-clock time, thus the
+ * remaining TTL of entry is kept across the restarts. The snapshot is rejected if the checksum, the
+ * {@link KeyValueTypePair types} or the {@link Codec} are mismatched.
+ *
+ * @param <K> the type of key
+ * @param <V> the type of value
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @since 1.0.0
+ */
+class CacheSnapshot<K, V> {
+
+    static final int MAGIC = 0x4d43534e;
+
+    static final byte VERSION = 1;
+
+    private static final int END_OF_RECORDS = -1;
+
+    private static final Logger logger = Logger.getLogger(CacheSnapshot.class.getName());
+
+    private final MappedByteBuffer buffer;
+
+    private final Codec codec;
+
+    /**
+     * The positions of values by keys, the restored or discarded keys are removed
+     */
+    private final Map<K, Integer> valuePositions;
+
+    private CacheSnapshot(MappedByteBuffer buffer, Codec codec, Map<K, Integer> valuePositions) {
+        this.buffer = buffer;
+        this.codec = codec;
+        this.valuePositions = valuePositions;
+    }
+
+    /**
+     * Writes the snapshot, the existed one is replaced atomically
+     *
+     * @param file     the file of snapshot
+     * @param typePair the types of key and value
+     * @param codec    the {@link Codec} of key and value
+     * @param entries  the entries, the expired ones are skipped
+     * @return the count of written entries
+     * @throws IOException if failed to write
+     */
+    static int write(Path file, KeyValueTypePair typePair, Codec codec,
+                     Iterator<? extends ExpirableEntry<?, ?>> entries) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        int count = 0;
+        try (CheckedOutputStream checkedStream = new CheckedOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(tempFile)), new CRC32());
+             DataOutputStream output = new DataOutputStream(checkedStream)) {
+            output.writeInt(MAGIC);
+            output.writeByte(VERSION);
+            writeString(output, typePair.getKeyType().getName());
+            writeString(output, typePair.getValueType().getName());
+            writeString(output, codec.getName());
+            long now = System.currentTimeMillis();
+            while (entries.hasNext()) {
+                ExpirableEntry<?, ?> entry = entries.next();
+                if (entry.getTimestamp() <= now) {
+                    continue;
+                }
+                byte[] key;
+                byte[] value;
+                try {
+                    key = codec.serialize(entry.getKey());
+                    value = codec.serialize(entry.getValue());
+                } catch (IOException e) {
+                    logger.warning(format("The entry[key : %s] can't be written into the snapshot : %s",
+                            entry.getKey(), e.getMessage()));
+                    continue;
+                }
+                writeBytes(output, key);
+                writeBytes(output, value);
+                output.writeLong(entry.getTimestamp());
+                count++;
+            }
+            output.writeInt(END_OF_RECORDS);
+            output.flush();
+            output.writeLong(checkedStream.getChecksum().getValue());
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return count;
+    }
+
+    /**
+     * Opens the snapshot, the file is deleted after it's mapped, thus the snapshot is restored once
+     *
+     * @param file        the file of snapshot
+     * @param typePair    the expected types of key and value
+     * @param codec       the expected {@link Codec} of key and value
+     * @param classLoader the {@link ClassLoader} to resolve the types
+     * @return <code>null</code> if the snapshot is absent or rejected
+     */
+    static <K, V> CacheSnapshot<K, V> open(Path file, KeyValueTypePair typePair, Codec codec,
+                                           ClassLoader classLoader) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            MappedByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(file)) {
+                long size = channel.size();
+                if (size > Integer.MAX_VALUE) {
+                    throw new IOException("The snapshot is too large : " + size);
+                }
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+            Map<K, Integer> valuePositions = readIndex(buffer, typePair, codec, classLoader);
+            return new CacheSnapshot<>(buffer, codec, valuePositions);
+        } catch (Exception e) {
+            logger.warning(format("The snapshot[%s] is rejected : %s", file, e.getMessage()));
+            return null;
+        } finally {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                logger.warning(format("The snapshot[%s] can't be deleted : %s", file, e.getMessage()));
+            }
+        }
+    }
+
+    /**
+     * Takes the entry of key from the snapshot, the subsequent takes of the same key return <code>null</code>
+     *
+     * @param key the key
+     * @return <code>null</code> if the key is absent, or the entry is expired or can't be deserialized
+     */
+    ExpirableEntry<K, V> take(K key) {
+        Integer position = valuePositions.remove(key);
+        if (position == null) {
+            return null;
+        }
+        ByteBuffer recordBuffer = buffer.duplicate();
+        recordBuffer.position(position);
+        byte[] value = readBytes(recordBuffer);
+        long timestamp = recordBuffer.getLong();
+        if (timestamp <= System.currentTimeMillis()) {
+            return null;
+        }
+        try {
+            ExpirableEntry<K, V> entry = ExpirableEntry.of(key, (V) codec.deserialize(value));
+            entry.setTimestamp(timestamp);
+            return entry;
+        } catch (Exception e) {
+            logger.warning(format("The entry[key : %s] can't be restored from the snapshot : %s", key,
+                    e.getMessage()));
+            return null;
+        }
+    }
+
+    boolean contains(K key) {
+        return valuePositions.containsKey(key);
+    }
+
+    void discard(K key) {
+        valuePositions.remove(key);
+    }
+
+    void clear() {
+        valuePositions.clear();
+    }
+
+    boolean isEmpty() {
+        return valuePositions.isEmpty();
+    }
+
+    /**
+     * Takes all remaining entries
+     *
+     * @param consumer the consumer of entries
+     */
+    void drain(Consumer<ExpirableEntry<K, V>> consumer) {
+        for (K key : valuePositions.keySet()) {
+            ExpirableEntry<K, V> entry = take(key);
+            if (entry != null) {
+                consumer.accept(entry);
+            }
+        }
+    }
+
+    private static <K> Map<K, Integer> readIndex(ByteBuffer buffer, KeyValueTypePair typePair, Codec codec,
+                                                 ClassLoader classLoader) throws Exception {
+        int checksumPosition = buffer.limit() - Long.BYTES;
+        if (checksumPosition < Integer.BYTES + 1) {
+            throw new IOException("The snapshot is truncated");
+        }
+        CRC32 crc32 = new CRC32();
+        ByteBuffer content = buffer.duplicate();
+        content.limit(checksumPosition);
+        crc32.update(content);
+        if (crc32.getValue() != buffer.getLong(checksumPosition)) {
+            throw new IOException("The checksum is mismatched");
+        }
+        ByteBuffer input = buffer.duplicate();
+        input.limit(checksumPosition);
+        if (input.getInt() != MAGIC || input.get() != VERSION) {
+            throw new IOException("The format is unknown");
+        }
+        KeyValueTypePair snapshotTypePair = new KeyValueTypePair(
+                classLoader.loadClass(readString(input)), classLoader.loadClass(readString(input)));
+        if (!typePair.equals(snapshotTypePair)) {
+            throw new IOException(format("The types[key : %s , value : %s] are mismatched",
+                    snapshotTypePair.getKeyType().getName(), snapshotTypePair.getValueType().getName()));
+        }
+        String codecName = readString(input);
+        if (!codec.getName().equals(codecName)) {
+            throw new IOException(format("The codec[%s] is mismatched", codecName));
+        }
+        Map<K, Integer> valuePositions = new ConcurrentHashMap<>();
+        long now = System.currentTimeMillis();
+        int keyLength;
+        while ((keyLength = input.getInt()) != END_OF_RECORDS) {
+            byte[] keyBytes = new byte[keyLength];
+            input.get(keyBytes);
+            int valuePosition = input.position();
+            input.position(valuePosition + Integer.BYTES + input.getInt(valuePosition));
+            long timestamp = input.getLong();
+            if (timestamp > now) {
+                K key = (K) codec.deserialize(keyBytes);
+                if (!typePair.getKeyType().isInstance(key)) {
+                    throw new IOException(format("The key[%s] is not an instance of %s", key,
+                            typePair.getKeyType().getName()));
+                }
+                valuePositions.put(key, valuePosition);
+            }
+        }
+        return valuePositions;
+    }
+
+    private static void writeBytes(DataOutputStream output, byte[] bytes) throws IOException {
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        writeBytes(output, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] readBytes(ByteBuffer input) {
+        byte[] bytes = new byte[input.getInt()];
+        input.get(bytes);
+        return bytes;
+    }
+
+    private static String readString(ByteBuffer input) {
+        return new String(readBytes(input), StandardCharsets.UTF_8);
+    }
+}
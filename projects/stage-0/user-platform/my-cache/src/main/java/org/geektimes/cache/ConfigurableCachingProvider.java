@@ -142,12 +142,15 @@ public class ConfigurableCachingProvider implements CachingProvider {
 
     @Override
     public void close(URI uri, ClassLoader classLoader) {
-        for (CacheManager cacheManager : cacheManagersRepository.values()) {
+        // the closed CacheManager is removed, thus the next one is created on demand
+        cacheManagersRepository.values().removeIf(cacheManager -> {
             if (Objects.equals(cacheManager.getURI(), uri)
-                    && Objects.equals(cacheManager.getClassLoader(), cacheManager)) {
+                    && Objects.equals(cacheManager.getClassLoader(), classLoader)) {
                 cacheManager.close();
+                return true;
             }
-        }
+            return false;
+        });
     }
 
     @Override
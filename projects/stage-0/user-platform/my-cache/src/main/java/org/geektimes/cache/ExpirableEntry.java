@@ -16,9 +16,13 @@
  */
 package org.geektimes.cache;
 
+import org.geektimes.cache.expiry.HierarchicalTimingWheel.Timeout;
+
 import javax.cache.Cache;
 import java.io.Serializable;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.UnaryOperator;
 
 import static java.util.Objects.requireNonNull;
 
@@ -32,12 +36,30 @@ import static java.util.Objects.requireNonNull;
  */
 public class ExpirableEntry<K, V> implements Cache.Entry<K, V>, Serializable {
 
+    private static final AtomicReferenceFieldUpdater<ExpirableEntry, Timeout> EXPIRY_TIMEOUT_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(ExpirableEntry.class, Timeout.class, "expiryTimeout");
+
     private final K key;
 
     private V value;
 
     private long timestamp;
 
+    /**
+     * The time when the current expiry period starts, 0 if it's unknown
+     */
+    private transient long startTimestamp;
+
+    /**
+     * The pending expiry of {@link ExpiryReaper}, it's not a part of entry state
+     */
+    private transient volatile Timeout<?> expiryTimeout;
+
+    /**
+     * Whether the entry was rejected by the store when it was put, e.g. it was evicted by itself
+     */
+    private transient volatile boolean rejected;
+
     private ExpirableEntry(K key, V value) throws NullPointerException {
         requireKeyNotNull(key);
         this.key = key;
@@ -68,6 +90,36 @@ public class ExpirableEntry<K, V> implements Cache.Entry<K, V>, Serializable {
         this.timestamp = timestamp;
     }
 
+    public long getStartTimestamp() {
+        return startTimestamp;
+    }
+
+    public void setStartTimestamp(long startTimestamp) {
+        this.startTimestamp = startTimestamp;
+    }
+
+    public boolean isRejected() {
+        return rejected;
+    }
+
+    void setRejected(boolean rejected) {
+        this.rejected = rejected;
+    }
+
+    /**
+     * Whether the specified fraction of the current expiry period has passed
+     *
+     * @param factor the fraction of the expiry period, (0, 1)
+     * @return <code>false</code> if the entry is eternal, or the start of expiry period is unknown
+     */
+    public boolean isRefreshAheadDue(double factor) {
+        if (isEternal() || startTimestamp <= 0) {
+            return false;
+        }
+        long refreshTimestamp = startTimestamp + (long) ((timestamp - startTimestamp) * factor);
+        return System.currentTimeMillis() >= refreshTimestamp;
+    }
+
     public boolean isExpired() {
         return System.currentTimeMillis() >= getTimestamp();
     }
@@ -76,6 +128,36 @@ public class ExpirableEntry<K, V> implements Cache.Entry<K, V>, Serializable {
         return Long.MAX_VALUE == getTimestamp();
     }
 
+    Timeout<?> getExpiryTimeout() {
+        return expiryTimeout;
+    }
+
+    /**
+     * Compute the pending expiry atomically, the replaced one is cancelled, and the computed one that lost the race
+     * is cancelled before being recomputed, thus at most one expiry of entry is pending in the wheel.
+     *
+     * @param function the function computes the new expiry from the current one, it may be applied more than once
+     * @return the computed expiry
+     */
+    Timeout<?> computeExpiryTimeout(UnaryOperator<Timeout<?>> function) {
+        for (; ; ) {
+            Timeout<?> current = expiryTimeout;
+            Timeout<?> computed = function.apply(current);
+            if (computed == current) {
+                return current;
+            }
+            if (EXPIRY_TIMEOUT_UPDATER.compareAndSet(this, current, computed)) {
+                if (current != null) {
+                    current.cancel();
+                }
+                return computed;
+            }
+            if (computed != null) {
+                computed.cancel();
+            }
+        }
+    }
+
     @Override
     public <T> T unwrap(Class<T> clazz) {
         T value = null;
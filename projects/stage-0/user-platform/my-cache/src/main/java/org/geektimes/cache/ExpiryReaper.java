@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache;
+
+import org.geektimes.cache.expiry.HierarchicalTimingWheel;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * The reaper removes the expired {@link ExpirableEntry entries} of all caches that are managed by one
+ * {@link AbstractCacheManager} actively, the deadlines of entries are tracked by the {@link HierarchicalTimingWheel},
+ * which is advanced by a daemon thread per tick.
+ * <p>
+ * The due entries are handed over to their caches in batch, the entry whose expiry was extended after it was
+ * scheduled will be rescheduled, and the entry that was replaced or removed will be ignored.
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see AbstractCache#isActiveExpirySupported()
+ * @see HierarchicalTimingWheel
+ * @since 1.0.0
+ */
+class ExpiryReaper {
+
+    private static final AtomicInteger threadCounter = new AtomicInteger();
+
+    private final Logger logger = Logger.getLogger(getClass().getName());
+
+    private final HierarchicalTimingWheel<Expiration> timingWheel;
+
+    private final ScheduledExecutorService scheduler;
+
+    ExpiryReaper(long tickDuration) {
+        this.timingWheel = new HierarchicalTimingWheel<>(tickDuration, System.currentTimeMillis());
+        this.scheduler = newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cache-expiry-reaper-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::tick, tickDuration, tickDuration, MILLISECONDS);
+    }
+
+    /**
+     * Schedule the expiry of the specified entry, the pending expiry will be reused if it's not later than
+     * the timestamp of entry.
+     *
+     * @param cache the {@link AbstractCache} that the entry belongs to
+     * @param entry {@link ExpirableEntry}
+     */
+    <K, V> void schedule(AbstractCache<K, V> cache, ExpirableEntry<K, V> entry) {
+        entry.computeExpiryTimeout(timeout -> {
+            if (timeout != null && timeout.isPending()
+                    && !entry.isEternal() && timeout.getDeadline() <= entry.getTimestamp()) {
+                // It will be rescheduled when it's due
+                return timeout;
+            }
+            return entry.isEternal() ? null : timingWheel.schedule(new Expiration(cache, entry), entry.getTimestamp());
+        });
+    }
+
+    /**
+     * Cancel the pending expiry of the specified entry if present
+     *
+     * @param entry {@link ExpirableEntry}
+     */
+    static void cancel(ExpirableEntry<?, ?> entry) {
+        entry.computeExpiryTimeout(timeout -> null);
+    }
+
+    /**
+     * @return the count of pending expiries
+     */
+    int size() {
+        return timingWheel.size();
+    }
+
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private void tick() {
+        try {
+            List<Expiration> expirations = timingWheel.advance(System.currentTimeMillis());
+            if (expirations.isEmpty()) {
+                return;
+            }
+            Map<AbstractCache, List<ExpirableEntry>> cachedEntries = new IdentityHashMap<>();
+            for (Expiration expiration : expirations) {
+                cachedEntries.computeIfAbsent(expiration.cache, c -> new ArrayList<>()).add(expiration.entry);
+            }
+            cachedEntries.forEach(AbstractCache::reapExpiredEntries);
+        } catch (Throwable e) {
+            // keep the scheduler alive
+            logger.log(Level.WARNING, "Failed to reap the expired entries", e);
+        }
+    }
+
+    private static class Expiration {
+
+        private final AbstractCache cache;
+
+        private final ExpirableEntry entry;
+
+        private Expiration(AbstractCache cache, ExpirableEntry entry) {
+            this.cache = cache;
+            this.entry = entry;
+        }
+    }
+}
@@ -21,54 +21,68 @@ import javax.cache.Cache;
 import javax.cache.CacheException;
 import javax.cache.CacheManager;
 import javax.cache.configuration.Configuration;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
- * In Memory no-thread-safe {@link Cache}
+ * In Memory {@link Cache}, the {@link #keySet() keys} are the weakly consistent view of the store
  *
  * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
  * @since 1.0
  */
 public class InMemoryCache<K, V> extends AbstractCache<K, V> {
 
-    private final Map<K, ExpirableEntry<K, V>> cache;
+    private final ConcurrentMap<K, ExpirableEntry<K, V>> cache;
 
     public InMemoryCache(CacheManager cacheManager, String cacheName, Configuration<K, V> configuration) {
         super(cacheManager, cacheName, configuration);
-        this.cache = new HashMap<>();
+        this.cache = new ConcurrentHashMap<>();
     }
 
     @Override
     protected boolean containsEntry(K key) throws CacheException, ClassCastException {
-        return cache.containsKey(key);
+        return cache.containsKey(key) || containsSnapshotEntry(key);
     }
 
     @Override
     protected ExpirableEntry<K, V> getEntry(K key) throws CacheException, ClassCastException {
-        return cache.get(key);
+        ExpirableEntry<K, V> entry = cache.get(key);
+        if (entry == null && (entry = takeSnapshotEntry(key)) != null) {
+            ExpirableEntry<K, V> existedEntry = cache.putIfAbsent(key, entry);
+            entry = existedEntry == null ? entry : existedEntry;
+        }
+        return entry;
     }
 
     @Override
     protected Set<K> keySet() {
+        restoreSnapshot(entry -> cache.putIfAbsent(entry.getKey(), entry));
         return cache.keySet();
     }
 
     @Override
     protected void putEntry(ExpirableEntry<K, V> entry) throws CacheException, ClassCastException {
         K key = entry.getKey();
+        discardSnapshotEntry(key);
         cache.put(key, entry);
     }
 
     @Override
     protected ExpirableEntry<K, V> removeEntry(K key) throws CacheException, ClassCastException {
-        return cache.remove(key);
+        ExpirableEntry<K, V> oldEntry = cache.remove(key);
+        return oldEntry == null ? takeSnapshotEntry(key) : oldEntry;
     }
 
     @Override
     protected void clearEntries() throws CacheException {
+        clearSnapshot();
         cache.clear();
     }
 
+    @Override
+    protected boolean isSnapshotSupported() {
+        return true;
+    }
+
 }
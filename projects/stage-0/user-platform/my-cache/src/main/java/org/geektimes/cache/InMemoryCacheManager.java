@@ -24,7 +24,7 @@ import java.net.URI;
 import java.util.Properties;
 
 /**
- * "in-memory" scheme {@link CacheManager}
+ * "in-memory" scheme {@link CacheManager}, the {@link Cache caches} are created as {@link BoundedInMemoryCache}
  *
  * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
  * @since 1.0
@@ -37,6 +37,6 @@ public class InMemoryCacheManager extends AbstractCacheManager {
 
     @Override
     protected <K, V, C extends Configuration<K, V>> Cache doCreateCache(String cacheName, C configuration) {
-        return new InMemoryCache<K, V>(this, cacheName, configuration);
+        return new BoundedInMemoryCache<K, V>(this, cacheName, configuration);
     }
 }
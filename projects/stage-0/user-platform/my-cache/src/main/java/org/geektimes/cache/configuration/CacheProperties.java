@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache.configuration;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import java.util.Properties;
+
+/**
+ * The extended properties of {@link Cache} that are not defined by JSR-107, which are resolved from
+ * {@link CacheManager#getProperties()}. The property of the specified {@link Cache} takes precedence over
+ * the global one, e.g:
+ * <pre>
+ * javax.cache.Cache.${cacheName}.max-entries=1000
+ * javax.cache.Cache.max-entries=10000
+ * </pre>
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @since 1.0.0
+ */
+public class CacheProperties {
+
+    /**
+     * The prefix of property name for {@link Cache}
+     */
+    public static final String PROPERTY_NAME_PREFIX = "javax.cache.Cache.";
+
+    private final String cacheName;
+
+    private final Properties properties;
+
+    public CacheProperties(String cacheName, Properties properties) {
+        this.cacheName = cacheName;
+        this.properties = properties == null ? new Properties() : properties;
+    }
+
+    /**
+     * Get the property value of current {@link Cache}
+     *
+     * @param name the name of property without the prefix
+     * @return <code>null</code> if absent
+     */
+    public String getProperty(String name) {
+        String value = properties.getProperty(PROPERTY_NAME_PREFIX + cacheName + "." + name);
+        if (value == null) {
+            value = properties.getProperty(PROPERTY_NAME_PREFIX + name);
+        }
+        return value == null ? null : value.trim();
+    }
+
+    public String getProperty(String name, String defaultValue) {
+        String value = getProperty(name);
+        return value == null || value.isEmpty() ? defaultValue : value;
+    }
+
+    public int getInt(String name, int defaultValue) {
+        String value = getProperty(name, null);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    public long getLong(String name, long defaultValue) {
+        String value = getProperty(name, null);
+        return value == null ? defaultValue : Long.parseLong(value);
+    }
+
+    public double getDouble(String name, double defaultValue) {
+        String value = getProperty(name, null);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+
+    public boolean getBoolean(String name, boolean defaultValue) {
+        String value = getProperty(name, null);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+
+    public String getCacheName() {
+        return cacheName;
+    }
+
+    public static CacheProperties of(Cache<?, ?> cache) {
+        return new CacheProperties(cache.getName(), cache.getCacheManager().getProperties());
+    }
+}
@@ -19,21 +19,39 @@ package org.geektimes.cache.event;
 import javax.cache.configuration.CacheEntryListenerConfiguration;
 import javax.cache.configuration.Factory;
 import javax.cache.event.*;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executor;
-import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
 
-import static java.util.Arrays.asList;
-import static java.util.Collections.singleton;
+import static java.lang.invoke.MethodType.methodType;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.Collections.singletonList;
 import static java.util.Collections.unmodifiableMap;
 
 /**
- * The adapter of {@link ConditionalCacheEntryEventListener} based on {@link CacheEntryListenerConfiguration}
+ * The adapter of {@link ConditionalCacheEntryEventListener} based on {@link CacheEntryListenerConfiguration}.
+ * <p>
+ * The handle methods of listener, e.g. {@link CacheEntryCreatedListener#onCreated(Iterable)}, are bound once as
+ * {@link MethodHandle MethodHandles}. The events are delivered in the order of publishing, the consecutive events
+ * of the same {@link EventType} are delivered by one invocation :
+ * <ul>
+ *     <li>The synchronous listener is invoked in the thread that publishes the events</li>
+ *     <li>The asynchronous listener has its own bounded queue that is drained in batches by at most one task at
+ *     a time, thus the events of the same key are never reordered. When the queue is full, the publisher waits
+ *     for the capacity at most {@link #MAX_WAIT_MILLIS}, or the event is dropped and counted immediately if
+ *     {@link #isDropOnFull() dropOnFull}. The event is also dropped and counted if the wait times out.</li>
+ * </ul>
+ * The queues are drained by the dedicated daemon threads rather than
+ * {@link java.util.concurrent.ForkJoinPool#commonPool()}, because the publishers may run in the common pool, e.g.
+ * the asynchronous operations of cache, thus the waiting publishers would otherwise starve the drain tasks.
  *
  * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
  * @see CacheEntryListenerConfiguration
@@ -41,12 +59,44 @@ import static java.util.Collections.unmodifiableMap;
  */
 public class CacheEntryEventListenerAdapter<K, V> implements ConditionalCacheEntryEventListener<K, V> {
 
-    private static List<Object> eventTypesAndHandleMethodNames = asList(
-            EventType.CREATED, "onCreated",
-            EventType.UPDATED, "onUpdated",
-            EventType.EXPIRED, "onExpired",
-            EventType.REMOVED, "onRemoved"
-    );
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    public static final int DEFAULT_BATCH_SIZE = 64;
+
+    /**
+     * The maximum count of batches that are drained by one task, then the task is resubmitted in order to share
+     * the {@link Executor} with other listeners.
+     */
+    private static final int MAX_BATCHES_PER_DRAIN = 16;
+
+    /**
+     * The maximum time in milliseconds that the publisher waits for the capacity of queue.
+     */
+    public static final long MAX_WAIT_MILLIS = 1000;
+
+    private static final AtomicInteger threadCounter = new AtomicInteger();
+
+    /**
+     * At most one drain task per listener, thus the count of threads is bounded by the count of listeners.
+     */
+    private static final ExecutorService drainExecutor = newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "cache-event-dispatcher-" + threadCounter.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final Map<EventType, Class<?>> eventTypeListenerTypes = new EnumMap<>(EventType.class);
+
+    private static final Map<EventType, MethodHandle> eventTypeHandleMethods = new EnumMap<>(EventType.class);
+
+    static {
+        bindHandleMethod(EventType.CREATED, CacheEntryCreatedListener.class, "onCreated");
+        bindHandleMethod(EventType.UPDATED, CacheEntryUpdatedListener.class, "onUpdated");
+        bindHandleMethod(EventType.EXPIRED, CacheEntryExpiredListener.class, "onExpired");
+        bindHandleMethod(EventType.REMOVED, CacheEntryRemovedListener.class, "onRemoved");
+    }
+
+    private final Logger logger = Logger.getLogger(getClass().getName());
 
     private final CacheEntryListenerConfiguration<K, V> configuration;
 
@@ -54,16 +104,48 @@ public class CacheEntryEventListenerAdapter<K, V> implements ConditionalCacheEnt
 
     private final CacheEntryListener<? super K, ? super V> cacheEntryListener;
 
-    private final Map<EventType, Method> eventTypeMethods;
+    private final Map<EventType, MethodHandle> eventTypeHandlers;
 
     private final Executor executor;
 
+    private final int batchSize;
+
+    private final boolean dropOnFull;
+
+    private final Runnable dropCounter;
+
+    private final Queue<PendingEvent<K, V>> queue = new ConcurrentLinkedQueue<>();
+
+    private final Semaphore queuePermits;
+
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    private volatile Thread drainingThread;
+
     public CacheEntryEventListenerAdapter(CacheEntryListenerConfiguration<K, V> configuration) {
+        this(configuration, DEFAULT_QUEUE_CAPACITY, DEFAULT_BATCH_SIZE, false, () -> {
+        });
+    }
+
+    /**
+     * @param configuration the {@link CacheEntryListenerConfiguration}
+     * @param queueCapacity the capacity of queue for the asynchronous listener
+     * @param batchSize     the maximum count of events that are drained from the queue at once
+     * @param dropOnFull    the event is dropped if the queue is full, or the publisher waits at most
+     *                      {@link #MAX_WAIT_MILLIS}
+     * @param dropCounter   the callback on the event is dropped
+     */
+    public CacheEntryEventListenerAdapter(CacheEntryListenerConfiguration<K, V> configuration, int queueCapacity,
+                                          int batchSize, boolean dropOnFull, Runnable dropCounter) {
         this.configuration = configuration;
         this.cacheEntryEventFilter = getCacheEntryEventFilter(configuration);
         this.cacheEntryListener = configuration.getCacheEntryListenerFactory().create();
-        this.eventTypeMethods = determineEventTypeMethods(cacheEntryListener);
+        this.eventTypeHandlers = bindEventTypeHandlers(cacheEntryListener);
         this.executor = getExecutor(configuration);
+        this.batchSize = Math.max(1, batchSize);
+        this.dropOnFull = dropOnFull;
+        this.dropCounter = dropCounter;
+        this.queuePermits = new Semaphore(Math.max(1, queueCapacity));
     }
 
     @Override
@@ -80,23 +162,34 @@ public class CacheEntryEventListenerAdapter<K, V> implements ConditionalCacheEnt
         if (!supports(event)) {
             return;
         }
+        if (isSynchronous()) {
+            deliver(singletonList(event));
+        } else {
+            enqueue(event);
+        }
+    }
 
-        EventType eventType = event.getEventType();
-        Method handleMethod = eventTypeMethods.get(eventType);
-
-        executor.execute(() -> {
-            try {
-                handleMethod.invoke(cacheEntryListener, singleton(event));
-            } catch (IllegalAccessException | InvocationTargetException e) {
-                throw new CacheEntryListenerException(e);
+    @Override
+    public void onEvents(Iterable<CacheEntryEvent<? extends K, ? extends V>> events) {
+        List<CacheEntryEvent<? extends K, ? extends V>> supportedEvents = new ArrayList<>();
+        for (CacheEntryEvent<? extends K, ? extends V> event : events) {
+            if (supports(event)) {
+                supportedEvents.add(event);
             }
-        });
-
+        }
+        if (supportedEvents.isEmpty()) {
+            return;
+        }
+        if (isSynchronous()) {
+            deliver(supportedEvents);
+        } else {
+            supportedEvents.forEach(this::enqueue);
+        }
     }
 
     @Override
     public Set<EventType> getSupportedEventTypes() {
-        return eventTypeMethods.keySet();
+        return eventTypeHandlers.keySet();
     }
 
     @Override
@@ -104,6 +197,25 @@ public class CacheEntryEventListenerAdapter<K, V> implements ConditionalCacheEnt
         return executor;
     }
 
+    public CacheEntryListenerConfiguration<K, V> getConfiguration() {
+        return configuration;
+    }
+
+    public boolean isSynchronous() {
+        return configuration.isSynchronous();
+    }
+
+    public boolean isDropOnFull() {
+        return dropOnFull;
+    }
+
+    /**
+     * @return the count of events that are waiting for the asynchronous delivery
+     */
+    public int getPendingEvents() {
+        return queue.size();
+    }
+
     @Override
     public int hashCode() {
         return configuration.hashCode();
@@ -118,6 +230,105 @@ public class CacheEntryEventListenerAdapter<K, V> implements ConditionalCacheEnt
         return this.configuration.equals(another.configuration);
     }
 
+    private void enqueue(CacheEntryEvent<? extends K, ? extends V> event) {
+        boolean permitted;
+        if (Thread.currentThread() == drainingThread) {
+            // The listener publishes the events by itself, waiting for the capacity would be a deadlock
+            permitted = queuePermits.tryAcquire();
+        } else if (dropOnFull) {
+            if (!queuePermits.tryAcquire()) {
+                dropCounter.run();
+                return;
+            }
+            permitted = true;
+        } else {
+            try {
+                permitted = queuePermits.tryAcquire(MAX_WAIT_MILLIS, MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                permitted = false;
+            }
+            if (!permitted) {
+                logger.warning(String.format("The event queue of listener[%s] is full, the event is dropped",
+                        cacheEntryListener));
+                dropCounter.run();
+                return;
+            }
+        }
+        queue.add(new PendingEvent<>(event, permitted));
+        scheduleDrain();
+    }
+
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        drainingThread = Thread.currentThread();
+        try {
+            for (int i = 0; i < MAX_BATCHES_PER_DRAIN; i++) {
+                List<CacheEntryEvent<? extends K, ? extends V>> batch = pollBatch();
+                if (batch.isEmpty()) {
+                    break;
+                }
+                try {
+                    deliver(batch);
+                } catch (Throwable e) {
+                    logger.severe(String.format("The listener[%s] failed to handle the events, caused by : %s",
+                            cacheEntryListener, e.getMessage()));
+                }
+            }
+        } finally {
+            drainingThread = null;
+            draining.set(false);
+        }
+        if (!queue.isEmpty()) {
+            scheduleDrain();
+        }
+    }
+
+    private List<CacheEntryEvent<? extends K, ? extends V>> pollBatch() {
+        List<CacheEntryEvent<? extends K, ? extends V>> batch = new ArrayList<>();
+        int permits = 0;
+        PendingEvent<K, V> pendingEvent;
+        while (batch.size() < batchSize && (pendingEvent = queue.poll()) != null) {
+            batch.add(pendingEvent.event);
+            if (pendingEvent.permitted) {
+                permits++;
+            }
+        }
+        if (permits > 0) {
+            queuePermits.release(permits);
+        }
+        return batch;
+    }
+
+    /**
+     * Deliver the events in order, the consecutive events of the same type are delivered at once.
+     */
+    private void deliver(List<CacheEntryEvent<? extends K, ? extends V>> events) {
+        int start = 0;
+        for (int i = 1; i <= events.size(); i++) {
+            EventType eventType = events.get(start).getEventType();
+            if (i == events.size() || events.get(i).getEventType() != eventType) {
+                invoke(eventTypeHandlers.get(eventType), events.subList(start, i));
+                start = i;
+            }
+        }
+    }
+
+    private void invoke(MethodHandle handler, Iterable<CacheEntryEvent<? extends K, ? extends V>> events) {
+        try {
+            handler.invokeExact((Iterable) events);
+        } catch (CacheEntryListenerException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new CacheEntryListenerException(e);
+        }
+    }
+
     private CacheEntryEventFilter<? super K, ? super V> getCacheEntryEventFilter(CacheEntryListenerConfiguration<K, V> configuration) {
         Factory<CacheEntryEventFilter<? super K, ? super V>> factory = configuration.getCacheEntryEventFilterFactory();
         CacheEntryEventFilter<? super K, ? super V> filter = null;
@@ -134,31 +345,53 @@ public class CacheEntryEventListenerAdapter<K, V> implements ConditionalCacheEnt
         return filter;
     }
 
-    private Map<EventType, Method> determineEventTypeMethods(CacheEntryListener<? super K, ? super V> cacheEntryListener) {
-        Map<EventType, Method> eventTypeMethods = new HashMap<>(EventType.values().length);
-        Class<?> cacheEntryListenerClass = cacheEntryListener.getClass();
-        for (int i = 0; i < eventTypesAndHandleMethodNames.size(); ) {
-            EventType eventType = (EventType) eventTypesAndHandleMethodNames.get(i++);
-            String handleMethodName = (String) eventTypesAndHandleMethodNames.get(i++);
-            try {
-                Method handleMethod = cacheEntryListenerClass.getMethod(handleMethodName, Iterable.class);
-                if (handleMethod != null) {
-                    eventTypeMethods.put(eventType, handleMethod);
-                }
-            } catch (NoSuchMethodException ignored) {
+    private Map<EventType, MethodHandle> bindEventTypeHandlers(CacheEntryListener<? super K, ? super V> cacheEntryListener) {
+        Map<EventType, MethodHandle> eventTypeHandlers = new EnumMap<>(EventType.class);
+        eventTypeHandleMethods.forEach((eventType, handleMethod) -> {
+            if (eventTypeListenerTypes.get(eventType).isInstance(cacheEntryListener)) {
+                eventTypeHandlers.put(eventType, handleMethod.bindTo(cacheEntryListener));
             }
-
-        }
-        return unmodifiableMap(eventTypeMethods);
+        });
+        return unmodifiableMap(eventTypeHandlers);
     }
-    
+
     private Executor getExecutor(CacheEntryListenerConfiguration<K, V> configuration) {
         Executor executor = null;
         if (configuration.isSynchronous()) {
             executor = Runnable::run;
         } else {
-            executor = ForkJoinPool.commonPool();
+            executor = drainExecutor;
         }
         return executor;
     }
+
+    /**
+     * The handle methods are looked up from the public listener interfaces, thus the implementation classes
+     * are not required to be public.
+     */
+    private static void bindHandleMethod(EventType eventType, Class<?> listenerType, String handleMethodName) {
+        try {
+            MethodHandle handleMethod = MethodHandles.publicLookup().findVirtual(listenerType, handleMethodName,
+                    methodType(void.class, Iterable.class));
+            eventTypeListenerTypes.put(eventType, listenerType);
+            eventTypeHandleMethods.put(eventType, handleMethod);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class PendingEvent<K, V> {
+
+        private final CacheEntryEvent<? extends K, ? extends V> event;
+
+        /**
+         * Whether the event has taken a permit of queue
+         */
+        private final boolean permitted;
+
+        private PendingEvent(CacheEntryEvent<? extends K, ? extends V> event, boolean permitted) {
+            this.event = event;
+            this.permitted = permitted;
+        }
+    }
 }
@@ -18,32 +18,79 @@ package org.geektimes.cache.event;
 
 import javax.cache.configuration.CacheEntryListenerConfiguration;
 import javax.cache.event.CacheEntryEvent;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.geektimes.cache.event.CacheEntryEventListenerAdapter.DEFAULT_BATCH_SIZE;
+import static org.geektimes.cache.event.CacheEntryEventListenerAdapter.DEFAULT_QUEUE_CAPACITY;
 
 /**
- * The Publisher of {@link javax.cache.event.CacheEntryEvent}
+ * The Publisher of {@link javax.cache.event.CacheEntryEvent}, the listeners are kept in the copy-on-write list
+ * because they are iterated on every mutation and rarely changed.
  *
  * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see CacheEntryEventListenerAdapter
  * @since 1.0
  */
 public class CacheEntryEventPublisher {
 
-    private List<ConditionalCacheEntryEventListener> listeners = new LinkedList<>();
+    private final List<ConditionalCacheEntryEventListener> listeners = new CopyOnWriteArrayList<>();
+
+    private final int queueCapacity;
+
+    private final int batchSize;
+
+    private final boolean dropOnFull;
+
+    private final Runnable dropCounter;
+
+    public CacheEntryEventPublisher() {
+        this(DEFAULT_QUEUE_CAPACITY, DEFAULT_BATCH_SIZE, false, () -> {
+        });
+    }
+
+    /**
+     * @param queueCapacity the capacity of queue per asynchronous listener
+     * @param batchSize     the maximum count of events that are delivered to the asynchronous listener at once
+     * @param dropOnFull    the event is dropped if the queue is full, or the publisher waits
+     * @param dropCounter   the callback on the event is dropped
+     * @see CacheEntryEventListenerAdapter
+     */
+    public CacheEntryEventPublisher(int queueCapacity, int batchSize, boolean dropOnFull, Runnable dropCounter) {
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+        this.dropOnFull = dropOnFull;
+        this.dropCounter = dropCounter;
+    }
 
     public void registerCacheEntryListener(CacheEntryListenerConfiguration configuration) {
-        CacheEntryEventListenerAdapter listenerAdapter = new CacheEntryEventListenerAdapter(configuration);
-        listeners.add(listenerAdapter);
+        listeners.add(new CacheEntryEventListenerAdapter(configuration, queueCapacity, batchSize, dropOnFull,
+                dropCounter));
     }
 
     public void deregisterCacheEntryListener(CacheEntryListenerConfiguration configuration) {
-        CacheEntryEventListenerAdapter listenerAdapter = new CacheEntryEventListenerAdapter(configuration);
-        listeners.remove(listenerAdapter);
+        listeners.removeIf(listener -> listener instanceof CacheEntryEventListenerAdapter &&
+                ((CacheEntryEventListenerAdapter) listener).getConfiguration().equals(configuration));
     }
 
     public <K, V> void publish(CacheEntryEvent<? extends K, ? extends V> event) {
-        listeners.forEach(listener -> listener.onEvent(event));
+        for (ConditionalCacheEntryEventListener listener : listeners) {
+            listener.onEvent(event);
+        }
     }
 
-
+    /**
+     * Publish the batch of {@link CacheEntryEvent events}, the consecutive events of the same type will be notified
+     * to the listeners at once rather than once per event.
+     *
+     * @param events the batch of {@link CacheEntryEvent events}
+     */
+    public <K, V> void publish(Iterable<CacheEntryEvent<? extends K, ? extends V>> events) {
+        if (!events.iterator().hasNext()) {
+            return;
+        }
+        for (ConditionalCacheEntryEventListener listener : listeners) {
+            listener.onEvents(events);
+        }
+    }
 }
@@ -108,6 +108,14 @@ public class GenericCacheEntryEvent<K, V> extends CacheEntryEvent<K, V> {
         return of(source, EventType.REMOVED, key, oldValue, oldValue);
     }
 
+    /**
+     * JSR-107 does not define the eviction event type, thus the evicted {@link javax.cache.Cache.Entry} is
+     * notified as {@link EventType#REMOVED}.
+     */
+    public static <K, V> CacheEntryEvent<K, V> evictedEvent(Cache source, K key, V oldValue) {
+        return removedEvent(source, key, oldValue);
+    }
+
     public static <K, V> CacheEntryEvent<K, V> of(Cache source, EventType eventType, K key, V oldValue, V value) {
         return new GenericCacheEntryEvent<>(source, eventType, key, oldValue, value);
     }
@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache.eviction;
+
+import org.geektimes.cache.io.Codec;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * The default {@link Weigher} estimates the retained size of entry in bytes on the 64-bit JVM with the compressed
+ * references, the sizes of common types (the strings, the boxed primitives, the arrays, the collections and the maps)
+ * are calculated by their layouts, the others are approximated by their serialized sizes of {@link Codec}.
+ * <p>
+ * The serialized size is measured per instance, since the instances of the same class may differ in size by orders
+ * of magnitude, the constants of enums are shared and weigh nothing. If the object can't be serialized,
+ * {@link #DEFAULT_OBJECT_SIZE} is used, and its class is not serialized again. The weighing serializes the value on
+ * every put, the cheaper or more accurate weights could be calculated by the user-supplied {@link Weigher}.
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @since 1.0.0
+ */
+public class EntrySizeEstimator implements Weigher<Object, Object> {
+
+    /**
+     * The overhead of entry in the store, including the entry itself, the node of hash table and the node of
+     * {@link EvictionPolicy}
+     */
+    public static final int ENTRY_OVERHEAD = 112;
+
+    static final int OBJECT_HEADER = 12;
+
+    static final int ARRAY_HEADER = 16;
+
+    static final int REFERENCE = 4;
+
+    /**
+     * The overhead of element in the collections and the maps, e.g the reference and the node
+     */
+    static final int ELEMENT_OVERHEAD = 32;
+
+    /**
+     * The maximum depth of the nested collections and maps that are calculated by their layouts
+     */
+    static final int MAX_DEPTH = 2;
+
+    /**
+     * The estimated size of the object that can't be serialized
+     */
+    public static final int DEFAULT_OBJECT_SIZE = 64;
+
+    private final Logger logger = Logger.getLogger(getClass().getName());
+
+    private final Codec codec;
+
+    /**
+     * The classes whose instances can't be serialized
+     */
+    private final Set<Class<?>> unserializableClasses = ConcurrentHashMap.newKeySet();
+
+    public EntrySizeEstimator(Codec codec) {
+        this.codec = codec;
+    }
+
+    @Override
+    public long weigh(Object key, Object value) {
+        return ENTRY_OVERHEAD + estimate(key) + estimate(value);
+    }
+
+    /**
+     * Estimate the retained size of object in bytes
+     *
+     * @param object the object, may be <code>null</code>
+     * @return non-negative
+     */
+    public long estimate(Object object) {
+        return estimate(object, 0);
+    }
+
+    private long estimate(Object object, int depth) {
+        if (object == null) {
+            return 0;
+        }
+        if (object instanceof String) {
+            // the byte array of compact string is latin1 or UTF-16
+            return align(OBJECT_HEADER + REFERENCE + 8) + align(ARRAY_HEADER + 2L * ((String) object).length());
+        }
+        if (object instanceof Long || object instanceof Double) {
+            return align(OBJECT_HEADER + 8);
+        }
+        if (object instanceof Number || object instanceof Boolean || object instanceof Character) {
+            return align(OBJECT_HEADER + 4);
+        }
+        if (object instanceof byte[]) {
+            return align(ARRAY_HEADER + ((byte[]) object).length);
+        }
+        if (object instanceof char[]) {
+            return align(ARRAY_HEADER + 2L * ((char[]) object).length);
+        }
+        if (object instanceof int[]) {
+            return align(ARRAY_HEADER + 4L * ((int[]) object).length);
+        }
+        if (object instanceof long[]) {
+            return align(ARRAY_HEADER + 8L * ((long[]) object).length);
+        }
+        if (object instanceof Enum) {
+            return 0;
+        }
+        if (depth < MAX_DEPTH) {
+            if (object instanceof Collection) {
+                long size = align(OBJECT_HEADER + 4 * REFERENCE);
+                for (Object element : (Collection<?>) object) {
+                    size += ELEMENT_OVERHEAD + estimate(element, depth + 1);
+                }
+                return size;
+            }
+            if (object instanceof Map) {
+                long size = align(OBJECT_HEADER + 4 * REFERENCE);
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) object).entrySet()) {
+                    size += ELEMENT_OVERHEAD + estimate(entry.getKey(), depth + 1) +
+                            estimate(entry.getValue(), depth + 1);
+                }
+                return size;
+            }
+        }
+        return align(OBJECT_HEADER + serializedSize(object));
+    }
+
+    private long serializedSize(Object object) {
+        Class<?> type = object.getClass();
+        if (unserializableClasses.contains(type)) {
+            return DEFAULT_OBJECT_SIZE;
+        }
+        try {
+            return codec.serialize(object).length;
+        } catch (IOException | RuntimeException e) {
+            unserializableClasses.add(type);
+            logger.warning(String.format("The object of %s can't be serialized, its size is estimated as %d bytes : %s",
+                    object.getClass().getName(), DEFAULT_OBJECT_SIZE, e.getMessage()));
+            return DEFAULT_OBJECT_SIZE;
+        }
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+}
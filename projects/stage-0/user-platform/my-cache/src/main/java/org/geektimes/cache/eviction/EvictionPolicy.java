@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache.eviction;
+
+/**
+ * The policy decides which key should be evicted when the capacity of the store is exceeded.
+ * <p>
+ * The implementation is not required to be thread-safe, the caller must guard it by a lock.
+ *
+ * @param <K> the type of key
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @since 1.0.0
+ */
+public interface EvictionPolicy<K> {
+
+    /**
+     * The name of Least Recently Used policy
+     */
+    String LRU = "lru";
+
+    /**
+     * The name of Window TinyLFU policy
+     */
+    String TINY_LFU = "tiny-lfu";
+
+    /**
+     * Record the access of an existed key.
+     *
+     * @param key the accessed key
+     */
+    void onAccess(K key);
+
+    /**
+     * Record the insertion of a new key.
+     *
+     * @param key the inserted key
+     * @return the key should be evicted if the capacity is exceeded, it may be the inserted key itself
+     * when it's rejected by the admission, or <code>null</code> if nothing should be evicted
+     */
+    K onInsert(K key);
+
+    /**
+     * Select and remove the victim regardless of the capacity, when the store is bounded by the other measure,
+     * e.g. the weight.
+     *
+     * @return the key should be evicted, or <code>null</code> if no key is recorded
+     */
+    K evict();
+
+    /**
+     * Record the removal of an existed key.
+     *
+     * @param key the removed key
+     */
+    void onRemove(K key);
+
+    /**
+     * Clear all the records.
+     */
+    void clear();
+
+    /**
+     * Create an instance of {@link EvictionPolicy} by the name
+     *
+     * @param name     the name of policy, {@link #TINY_LFU} or {@link #LRU}
+     * @param capacity the maximum count of keys
+     * @param <K>      the type of key
+     * @return non-null
+     * @throws IllegalArgumentException if the name is unknown
+     */
+    static <K> EvictionPolicy<K> of(String name, int capacity) throws IllegalArgumentException {
+        if (TINY_LFU.equalsIgnoreCase(name)) {
+            return new TinyLfuEvictionPolicy<>(capacity);
+        } else if (LRU.equalsIgnoreCase(name)) {
+            return new LruEvictionPolicy<>(capacity);
+        }
+        throw new IllegalArgumentException("Unknown eviction policy : " + name);
+    }
+}
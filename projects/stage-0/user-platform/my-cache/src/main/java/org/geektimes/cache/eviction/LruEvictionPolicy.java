@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache.eviction;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+
+/**
+ * Least Recently Used {@link EvictionPolicy}
+ *
+ * @param <K> the type of key
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @since 1.0.0
+ */
+public class LruEvictionPolicy<K> implements EvictionPolicy<K> {
+
+    private final int capacity;
+
+    /**
+     * The head is the least recently used key
+     */
+    private final LinkedHashSet<K> keys = new LinkedHashSet<>();
+
+    public LruEvictionPolicy(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity must be positive!");
+        }
+        this.capacity = capacity;
+    }
+
+    @Override
+    public void onAccess(K key) {
+        if (keys.remove(key)) {
+            keys.add(key);
+        }
+    }
+
+    @Override
+    public K onInsert(K key) {
+        keys.add(key);
+        return keys.size() > capacity ? pollFirst(keys) : null;
+    }
+
+    @Override
+    public K evict() {
+        return pollFirst(keys);
+    }
+
+    @Override
+    public void onRemove(K key) {
+        keys.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        keys.clear();
+    }
+
+    static <K> K pollFirst(LinkedHashSet<K> keys) {
+        Iterator<K> iterator = keys.iterator();
+        if (!iterator.hasNext()) {
+            return null;
+        }
+        K key = iterator.next();
+        iterator.remove();
+        return key;
+    }
+
+    static <K> K peekFirst(LinkedHashSet<K> keys) {
+        Iterator<K> iterator = keys.iterator();
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache.eviction;
+
+import java.util.LinkedHashSet;
+
+import static org.geektimes.cache.eviction.LruEvictionPolicy.peekFirst;
+import static org.geektimes.cache.eviction.LruEvictionPolicy.pollFirst;
+
+/**
+ * Window TinyLFU {@link EvictionPolicy}.
+ * <p>
+ * The new keys are admitted into a small LRU window (1% of capacity), the keys evicted from the window
+ * become the candidates of the main space that is a Segmented LRU (20% probation and 80% protected).
+ * When the main space is full, the candidate will replace the victim (the least recently used key of probation)
+ * only if its frequency estimated by the {@link FrequencySketch} is higher.
+ *
+ * @param <K> the type of key
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see FrequencySketch
+ * @since 1.0.0
+ */
+public class TinyLfuEvictionPolicy<K> implements EvictionPolicy<K> {
+
+    private final int windowCapacity;
+
+    private final int mainCapacity;
+
+    private final int protectedCapacity;
+
+    private final LinkedHashSet<K> window = new LinkedHashSet<>();
+
+    private final LinkedHashSet<K> probation = new LinkedHashSet<>();
+
+    private final LinkedHashSet<K> protectedKeys = new LinkedHashSet<>();
+
+    private final FrequencySketch<K> sketch;
+
+    public TinyLfuEvictionPolicy(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity must be positive!");
+        }
+        this.windowCapacity = Math.max(1, capacity / 100);
+        this.mainCapacity = capacity - windowCapacity;
+        this.protectedCapacity = (int) (mainCapacity * 0.8);
+        this.sketch = new FrequencySketch<>(capacity);
+    }
+
+    @Override
+    public void onAccess(K key) {
+        sketch.increment(key);
+        if (window.remove(key)) {
+            window.add(key);
+        } else if (probation.remove(key)) {
+            // promote
+            protectedKeys.add(key);
+            if (protectedKeys.size() > protectedCapacity) {
+                // demote
+                probation.add(pollFirst(protectedKeys));
+            }
+        } else if (protectedKeys.remove(key)) {
+            protectedKeys.add(key);
+        }
+    }
+
+    @Override
+    public K onInsert(K key) {
+        sketch.increment(key);
+        window.add(key);
+        if (window.size() <= windowCapacity) {
+            return null;
+        }
+
+        K candidate = pollFirst(window);
+        if (mainCapacity < 1) {
+            return candidate;
+        }
+        probation.add(candidate);
+        if (probation.size() + protectedKeys.size() <= mainCapacity) {
+            return null;
+        }
+
+        K victim = peekFirst(probation);
+        LinkedHashSet<K> victimKeys = probation;
+        if (candidate.equals(victim)) {
+            victim = peekFirst(protectedKeys);
+            victimKeys = protectedKeys;
+        }
+
+        if (victim != null && sketch.frequency(candidate) > sketch.frequency(victim)) {
+            victimKeys.remove(victim);
+            return victim;
+        }
+        probation.remove(candidate);
+        return candidate;
+    }
+
+    /**
+     * The victim is selected from the probation, the window and the protected in order
+     */
+    @Override
+    public K evict() {
+        K victim = pollFirst(probation);
+        if (victim == null) {
+            victim = pollFirst(window);
+        }
+        if (victim == null) {
+            victim = pollFirst(protectedKeys);
+        }
+        return victim;
+    }
+
+    @Override
+    public void onRemove(K key) {
+        if (!window.remove(key) && !probation.remove(key)) {
+            protectedKeys.remove(key);
+        }
+    }
+
+    @Override
+    public void clear() {
+        window.clear();
+        probation.clear();
+        protectedKeys.clear();
+        sketch.clear();
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache.eviction;
+
+/**
+ * The SPI that calculates the weight of entry, the in-memory caches could be bounded by the total weight, e.g the
+ * estimated size in bytes. The implementation class is specified by the property
+ * "javax.cache.Cache.[cacheName.]weigher" and must have a public no-argument constructor.
+ *
+ * @param <K> the type of key
+ * @param <V> the type of value
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see EntrySizeEstimator
+ * @since 1.0.0
+ */
+@FunctionalInterface
+public interface Weigher<K, V> {
+
+    /**
+     * Calculate the weight of entry, the weight must not be changed while the entry is stored.
+     *
+     * @param key   the key
+     * @param value the value
+     * @return the non-negative weight
+     */
+    long weigh(K key, V value);
+}
@@ -0,0 +1,282 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache.expiry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The hierarchical timing wheel tracks the deadlines of timeouts in {@link #LEVELS} levels of
+ * {@link #WHEEL_SIZE} buckets, the bucket of level <code>n</code> spans <code>64<sup>n</sup></code> ticks.
+ * <p>
+ * Scheduling and cancelling a {@link Timeout} cost O(1), each tick only visits one bucket of the lowest level
+ * and cascades one bucket of the higher levels when the lower level wraps around, thus the cost of a tick
+ * is proportional to the count of due timeouts rather than the count of all timeouts.
+ * <p>
+ * The timeouts that exceed the span of the highest level are parked in its farthest bucket and cascaded again
+ * until they are due.
+ *
+ * @param <T> the type of payload
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @since 1.0.0
+ */
+public class HierarchicalTimingWheel<T> {
+
+    static final int WHEEL_BITS = 6;
+
+    public static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+
+    public static final int LEVELS = 4;
+
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    private static final long MAX_SPAN = 1L << (WHEEL_BITS * LEVELS);
+
+    private final long tickDuration;
+
+    private final long startTime;
+
+    private final Bucket<T>[][] buckets;
+
+    private long currentTick;
+
+    private int size;
+
+    /**
+     * @param tickDuration the duration of tick in milliseconds
+     * @param startTime    the start time in milliseconds
+     */
+    public HierarchicalTimingWheel(long tickDuration, long startTime) {
+        if (tickDuration < 1) {
+            throw new IllegalArgumentException("The tick duration must be positive!");
+        }
+        this.tickDuration = tickDuration;
+        this.startTime = startTime;
+        this.buckets = new Bucket[LEVELS][WHEEL_SIZE];
+        for (int level = 0; level < LEVELS; level++) {
+            for (int i = 0; i < WHEEL_SIZE; i++) {
+                buckets[level][i] = new Bucket<>();
+            }
+        }
+    }
+
+    /**
+     * Schedule a {@link Timeout} with the payload
+     *
+     * @param payload  the payload
+     * @param deadline the deadline in milliseconds, the past deadline will be due at the next tick
+     * @return the {@link Timeout}
+     */
+    public synchronized Timeout<T> schedule(T payload, long deadline) {
+        // round up, thus the timeout will never be due before its deadline
+        long expirationTick = Math.max(divideCeiling(deadline - startTime, tickDuration), currentTick + 1);
+        Timeout<T> timeout = new Timeout<>(this, payload, deadline, expirationTick);
+        add(timeout);
+        size++;
+        return timeout;
+    }
+
+    /**
+     * Advance the wheel to the specified time.
+     *
+     * @param now the current time in milliseconds
+     * @return the payloads of due timeouts
+     */
+    public synchronized List<T> advance(long now) {
+        long targetTick = (now - startTime) / tickDuration;
+        List<T> payloads = new ArrayList<>();
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade(1);
+            Bucket<T> bucket = buckets[0][(int) (currentTick & WHEEL_MASK)];
+            for (Timeout<T> timeout = bucket.poll(); timeout != null; timeout = bucket.poll()) {
+                if (timeout.expirationTick > currentTick) {
+                    add(timeout);
+                } else {
+                    timeout.state = Timeout.EXPIRED;
+                    size--;
+                    payloads.add(timeout.payload);
+                }
+            }
+        }
+        return payloads;
+    }
+
+    /**
+     * @return the count of pending timeouts
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    public long getTickDuration() {
+        return tickDuration;
+    }
+
+    private void cascade(int level) {
+        if (level >= LEVELS) {
+            return;
+        }
+        int shift = WHEEL_BITS * level;
+        if ((currentTick & ((1L << shift) - 1)) != 0) {
+            // the lower level does not wrap around
+            return;
+        }
+        // the higher levels should be cascaded first
+        cascade(level + 1);
+        Bucket<T> bucket = buckets[level][(int) ((currentTick >>> shift) & WHEEL_MASK)];
+        for (Timeout<T> timeout = bucket.poll(); timeout != null; timeout = bucket.poll()) {
+            add(timeout);
+        }
+    }
+
+    private void add(Timeout<T> timeout) {
+        long expirationTick = timeout.expirationTick;
+        long delta = expirationTick - currentTick;
+        if (delta >= MAX_SPAN) {
+            // park it in the farthest bucket of the highest level
+            expirationTick = currentTick + MAX_SPAN - 1;
+            delta = MAX_SPAN - 1;
+        }
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= (1L << (WHEEL_BITS * (level + 1)))) {
+            level++;
+        }
+        int index = (int) ((expirationTick >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+        buckets[level][index].add(timeout);
+    }
+
+    private synchronized boolean cancel(Timeout<T> timeout) {
+        if (timeout.state != Timeout.PENDING) {
+            return false;
+        }
+        timeout.state = Timeout.CANCELLED;
+        if (timeout.bucket != null) {
+            timeout.bucket.remove(timeout);
+        }
+        size--;
+        return true;
+    }
+
+    private static long divideCeiling(long dividend, long divisor) {
+        return dividend <= 0 ? 0 : (dividend + divisor - 1) / divisor;
+    }
+
+    /**
+     * The handle of scheduled payload
+     *
+     * @param <T> the type of payload
+     */
+    public static class Timeout<T> {
+
+        private static final int PENDING = 0;
+
+        private static final int CANCELLED = 1;
+
+        private static final int EXPIRED = 2;
+
+        private final HierarchicalTimingWheel<T> wheel;
+
+        private final T payload;
+
+        private final long deadline;
+
+        private final long expirationTick;
+
+        private volatile int state = PENDING;
+
+        private Bucket<T> bucket;
+
+        private Timeout<T> previous;
+
+        private Timeout<T> next;
+
+        private Timeout(HierarchicalTimingWheel<T> wheel, T payload, long deadline, long expirationTick) {
+            this.wheel = wheel;
+            this.payload = payload;
+            this.deadline = deadline;
+            this.expirationTick = expirationTick;
+        }
+
+        public T getPayload() {
+            return payload;
+        }
+
+        public long getDeadline() {
+            return deadline;
+        }
+
+        public boolean isPending() {
+            return state == PENDING;
+        }
+
+        /**
+         * Cancel current timeout
+         *
+         * @return <code>true</code> if it's cancelled, or <code>false</code> if it's already expired or cancelled
+         */
+        public boolean cancel() {
+            return wheel.cancel(this);
+        }
+    }
+
+    /**
+     * The doubly-linked list of {@link Timeout timeouts}
+     */
+    private static class Bucket<T> {
+
+        private Timeout<T> head;
+
+        private Timeout<T> tail;
+
+        void add(Timeout<T> timeout) {
+            timeout.bucket = this;
+            timeout.previous = tail;
+            timeout.next = null;
+            if (tail == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+        }
+
+        void remove(Timeout<T> timeout) {
+            if (timeout.previous == null) {
+                head = timeout.next;
+            } else {
+                timeout.previous.next = timeout.next;
+            }
+            if (timeout.next == null) {
+                tail = timeout.previous;
+            } else {
+                timeout.next.previous = timeout.previous;
+            }
+            timeout.bucket = null;
+            timeout.previous = null;
+            timeout.next = null;
+        }
+
+        Timeout<T> poll() {
+            Timeout<T> timeout = head;
+            if (timeout != null) {
+                remove(timeout);
+            }
+            return timeout;
+        }
+    }
+}
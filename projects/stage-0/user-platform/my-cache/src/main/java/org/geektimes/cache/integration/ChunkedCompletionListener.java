@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache.integration;
+
+import javax.cache.Cache;
+import javax.cache.integration.CompletionListener;
+import java.util.Set;
+
+/**
+ * The {@link CompletionListener} that is notified of the progress of {@link Cache#loadAll(Set, boolean,
+ * CompletionListener)}, the keys are loaded in chunks, every chunk is notified once it is completed or failed,
+ * then {@link #onCompletion()} is invoked if all chunks are completed, otherwise {@link #onException(Exception)}
+ * with the first failure, the others are {@link Throwable#getSuppressed() suppressed}.
+ * <p>
+ * The chunks are loaded in parallel, thus the methods may be invoked concurrently.
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see CompletionListener
+ * @since 1.0.0
+ */
+public interface ChunkedCompletionListener extends CompletionListener {
+
+    /**
+     * Notified when the chunk of keys is loaded into the {@link Cache}
+     *
+     * @param keys            the keys of chunk
+     * @param completedChunks the count of chunks that are completed or failed so far
+     * @param totalChunks     the total count of chunks
+     */
+    default void onChunkCompletion(Set<?> keys, int completedChunks, int totalChunks) {
+    }
+
+    /**
+     * Notified when the chunk of keys is failed to load
+     *
+     * @param keys            the keys of chunk
+     * @param e               the failure
+     * @param completedChunks the count of chunks that are completed or failed so far
+     * @param totalChunks     the total count of chunks
+     */
+    default void onChunkException(Set<?> keys, Exception e, int completedChunks, int totalChunks) {
+    }
+}
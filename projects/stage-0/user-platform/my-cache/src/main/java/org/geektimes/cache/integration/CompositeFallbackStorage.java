@@ -19,36 +19,60 @@ package org.geektimes.cache.integration;
 import javax.cache.Cache;
 import javax.cache.integration.CacheLoaderException;
 import javax.cache.integration.CacheWriterException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.ServiceLoader;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.StreamSupport.stream;
 
 /**
  * Composite multiple {@link FallbackStorage}s that instantiated by {@link ServiceLoader Java SPI}.
+ * <p>
+ * The {@link FallbackStorage}s are shared by the instances of the same {@link ClassLoader}, they are closed once
+ * all of the instances are {@link #close() closed}, e.g. all caches of the {@link ClassLoader} are closed, and are
+ * instantiated again by the next instance.
  *
  * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
  * @since 1.0
  */
 public class CompositeFallbackStorage extends AbstractFallbackStorage<Object, Object> {
 
-    private static final ConcurrentMap<ClassLoader, List<FallbackStorage>> fallbackStoragesCache =
-            new ConcurrentHashMap<>();
+    private static final Map<ClassLoader, SharedFallbackStorages> fallbackStoragesCache = new HashMap<>();
+
+    private final ClassLoader classLoader;
 
     private final List<FallbackStorage> fallbackStorages;
 
+    private final AtomicBoolean closed = new AtomicBoolean();
+
     public CompositeFallbackStorage(ClassLoader classLoader) {
         super(Integer.MIN_VALUE);
-        this.fallbackStorages = fallbackStoragesCache.computeIfAbsent(classLoader, this::loadFallbackStorages);
+        this.classLoader = classLoader;
+        this.fallbackStorages = acquireFallbackStorages(classLoader);
     }
 
-    private List<FallbackStorage> loadFallbackStorages(ClassLoader classLoader) {
-        return stream(ServiceLoader.load(FallbackStorage.class, classLoader).spliterator(), false)
-                .sorted(PRIORITY_COMPARATOR)
-                .collect(toList());
+    private static List<FallbackStorage> acquireFallbackStorages(ClassLoader classLoader) {
+        synchronized (fallbackStoragesCache) {
+            SharedFallbackStorages sharedFallbackStorages = fallbackStoragesCache.computeIfAbsent(classLoader,
+                    SharedFallbackStorages::new);
+            sharedFallbackStorages.references++;
+            return sharedFallbackStorages.fallbackStorages;
+        }
+    }
+
+    private static void releaseFallbackStorages(ClassLoader classLoader) {
+        SharedFallbackStorages sharedFallbackStorages;
+        synchronized (fallbackStoragesCache) {
+            sharedFallbackStorages = fallbackStoragesCache.get(classLoader);
+            if (sharedFallbackStorages == null || --sharedFallbackStorages.references > 0) {
+                return;
+            }
+            fallbackStoragesCache.remove(classLoader);
+        }
+        sharedFallbackStorages.fallbackStorages.forEach(FallbackStorage::close);
     }
 
     public CompositeFallbackStorage() {
@@ -81,4 +105,27 @@ public class CompositeFallbackStorage extends AbstractFallbackStorage<Object, Ob
     public void destroy() {
         fallbackStorages.forEach(FallbackStorage::destroy);
     }
+
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            releaseFallbackStorages(classLoader);
+        }
+    }
+
+    /**
+     * The {@link FallbackStorage}s of {@link ClassLoader} and the count of instances that use them
+     */
+    private static class SharedFallbackStorages {
+
+        private final List<FallbackStorage> fallbackStorages;
+
+        private int references;
+
+        private SharedFallbackStorages(ClassLoader classLoader) {
+            this.fallbackStorages = stream(ServiceLoader.load(FallbackStorage.class, classLoader).spliterator(), false)
+                    .sorted(PRIORITY_COMPARATOR)
+                    .collect(toList());
+        }
+    }
 }
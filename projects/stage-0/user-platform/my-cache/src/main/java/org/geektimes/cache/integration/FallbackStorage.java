@@ -42,11 +42,17 @@ public interface FallbackStorage<K, V> extends CacheLoader<K, V>, CacheWriter<K,
      */
     void destroy();
 
+    /**
+     * Release the resources of storage, e.g. commit the pending writes, the storage is not used after being closed
+     */
+    default void close() {
+    }
+
     class PriorityComparator implements Comparator<FallbackStorage> {
 
         @Override
         public int compare(FallbackStorage o1, FallbackStorage o2) {
-            return Integer.compare(o2.getPriority(), o1.getPriority());
+            return Integer.compare(o1.getPriority(), o2.getPriority());
         }
     }
 }
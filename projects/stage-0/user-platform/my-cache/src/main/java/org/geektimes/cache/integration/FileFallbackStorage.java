@@ -16,16 +16,21 @@
  */
 package org.geektimes.cache.integration;
 
+import org.geektimes.cache.io.Codec;
+import org.geektimes.cache.io.CodecRegistry;
+
 import javax.cache.Cache;
 import javax.cache.integration.CacheLoaderException;
 import javax.cache.integration.CacheWriterException;
-import java.io.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.logging.Logger;
 
 import static java.lang.String.format;
 
 /**
- * File-based {@link FallbackStorage}
+ * File-based {@link FallbackStorage}, the values are serialized by the default {@link Codec} of {@link CodecRegistry}
  *
  * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
  * @since 1.0
@@ -36,8 +41,11 @@ public class FileFallbackStorage extends AbstractFallbackStorage<Object, Object>
 
     private final Logger logger = Logger.getLogger(getClass().getName());
 
+    private final Codec codec;
+
     public FileFallbackStorage() {
         super(Integer.MAX_VALUE);
+        this.codec = CodecRegistry.getInstance(getClass().getClassLoader()).getDefaultCodec();
         makeCacheFallbackDirectory();
     }
 
@@ -54,10 +62,9 @@ public class FileFallbackStorage extends AbstractFallbackStorage<Object, Object>
             return null;
         }
         Object value = null;
-        try (FileInputStream inputStream = new FileInputStream(storageFile);
-             ObjectInputStream objectInputStream = new ObjectInputStream(inputStream)) {
-            value = objectInputStream.readObject();
-        } catch (IOException | ClassNotFoundException e) {
+        try {
+            value = codec.deserialize(Files.readAllBytes(storageFile.toPath()));
+        } catch (IOException e) {
             logger.severe(format("The deserialization of value[%s] is failed, caused by :%s",
                     value, e.getMessage()));
         }
@@ -74,10 +81,8 @@ public class FileFallbackStorage extends AbstractFallbackStorage<Object, Object>
                     "thus the entry will not be stored.", storageFile.getAbsolutePath()));
             return;
         }
-        try (FileOutputStream outputStream = new FileOutputStream(storageFile);
-             ObjectOutputStream objectOutputStream = new ObjectOutputStream(outputStream);
-        ) {
-            objectOutputStream.writeObject(value);
+        try {
+            Files.write(storageFile.toPath(), codec.serialize(value));
         } catch (IOException e) {
             logger.severe(format("The serialization of value[%s] is failed, caused by :%s", value, e.getMessage()));
         }
@@ -0,0 +1,667 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache.integration;
+
+import org.geektimes.cache.io.Codec;
+import org.geektimes.cache.io.CodecRegistry;
+
+import javax.cache.Cache;
+import javax.cache.integration.CacheLoaderException;
+import javax.cache.integration.CacheWriterException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+import static java.lang.String.format;
+import static java.nio.file.StandardOpenOption.*;
+import static java.util.Collections.singleton;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * The {@link FallbackStorage} based on the append-only log, the records are appended into the memory-mapped
+ * segment files, and are located by the in-memory offset index that is rebuilt from the segments on startup.
+ * <ul>
+ *     <li>The record layout : payload length(int), checksum(int), type(byte), key length(int), key, value</li>
+ *     <li>The writes are committed as a group, the active segment is forced to the disk when
+ *     {@link #COMMIT_BATCH_SIZE} records are pending, or periodically in the background</li>
+ *     <li>The sealed segments whose garbage ratio reaches {@link #COMPACTION_THRESHOLD} are compacted in the
+ *     background, their live records are moved into the active segment, the tombstones are moved only if the
+ *     older segments still have the records of their keys</li>
+ * </ul>
+ * The segments are kept in the directory of the system property {@link #DIRECTORY_PROPERTY_NAME}, the default is
+ * "${java.io.tmpdir}/my-cache-fallback-log", the directory and the first segment are created on the first write.
+ * The keys and values are serialized by the default {@link Codec} of {@link CodecRegistry}.
+ * <p>
+ * The directory is owned by one storage at a time through the exclusive {@link FileLock} of the file
+ * "${directory}.lock", which is held until {@link #close()}. The default directory is shared by the JVMs of the host
+ * and the class loaders of the JVM, thus the next free directory "${directory}-${n}" is used if it's owned by
+ * another storage, whose segments are recovered by the next owner of that directory. The storage of the
+ * specified directory fails if the directory is owned.
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @since 1.0.0
+ */
+public class LogFallbackStorage extends AbstractFallbackStorage<Object, Object> {
+
+    public static final int PRIORITY = 0;
+
+    /**
+     * The name of system property of the directory of segments
+     */
+    public static final String DIRECTORY_PROPERTY_NAME = "javax.cache.integration.fallback-log.directory";
+
+    public static final int DEFAULT_SEGMENT_SIZE = 4 * 1024 * 1024;
+
+    static final int COMMIT_BATCH_SIZE = 128;
+
+    static final long COMMIT_INTERVAL = 100;
+
+    static final long COMPACTION_INTERVAL = 30 * 1000;
+
+    static final double COMPACTION_THRESHOLD = 0.5d;
+
+    private static final String SEGMENT_FILE_SUFFIX = ".log";
+
+    private static final String LOCK_FILE_SUFFIX = ".lock";
+
+    /**
+     * The max count of the candidates of the default directory
+     */
+    private static final int MAX_DIRECTORIES = 64;
+
+    /**
+     * The length of payload and the checksum
+     */
+    private static final int PREFIX_SIZE = 8;
+
+    /**
+     * The type and the length of key
+     */
+    private static final int PAYLOAD_HEADER_SIZE = 5;
+
+    private static final byte PUT = 1;
+
+    private static final byte DELETE = 2;
+
+    private static final ScheduledExecutorService scheduler = newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "LogFallbackStorage");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Logger logger = Logger.getLogger(getClass().getName());
+
+    private final File directory;
+
+    /**
+     * The lock of directory, which is released once its channel is closed
+     */
+    private final FileLock directoryLock;
+
+    private final int segmentSize;
+
+    private final Codec codec;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final ConcurrentMap<ByteBuffer, Location> index = new ConcurrentHashMap<>();
+
+    private final NavigableMap<Long, Segment> segments = new TreeMap<>();
+
+    private final List<ScheduledFuture<?>> scheduledTasks = new ArrayList<>(2);
+
+    /**
+     * The segment that the records are appended to, <code>null</code> until the first write
+     */
+    private Segment activeSegment;
+
+    private int uncommittedRecords;
+
+    private long nextSegmentId;
+
+    private volatile boolean closed;
+
+    public LogFallbackStorage() {
+        this(lockDefaultDirectory(), DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * @param directory   the directory of segments
+     * @param segmentSize the size of segment in bytes
+     * @throws IllegalStateException if the directory is owned by another storage
+     */
+    public LogFallbackStorage(File directory, int segmentSize) throws IllegalStateException {
+        this(lockDirectory(directory), segmentSize);
+    }
+
+    private LogFallbackStorage(Map.Entry<File, FileLock> lockedDirectory, int segmentSize) {
+        super(PRIORITY);
+        this.directory = lockedDirectory.getKey();
+        this.directoryLock = lockedDirectory.getValue();
+        this.segmentSize = segmentSize;
+        this.codec = CodecRegistry.getInstance(getClass().getClassLoader()).getDefaultCodec();
+        recover();
+        scheduledTasks.add(scheduler.scheduleWithFixedDelay(this::commit, COMMIT_INTERVAL, COMMIT_INTERVAL,
+                MILLISECONDS));
+        scheduledTasks.add(scheduler.scheduleWithFixedDelay(this::compact, COMPACTION_INTERVAL,
+                COMPACTION_INTERVAL, MILLISECONDS));
+    }
+
+    @Override
+    public Object load(Object key) throws CacheLoaderException {
+        byte[] keyBytes = serialize(key);
+        if (keyBytes == null) {
+            return null;
+        }
+        byte[] valueBytes;
+        lock.readLock().lock();
+        try {
+            Location location = index.get(ByteBuffer.wrap(keyBytes));
+            if (location == null) {
+                return null;
+            }
+            valueBytes = location.segment.read(location.valueOffset(), location.valueLength());
+        } finally {
+            lock.readLock().unlock();
+        }
+        try {
+            return codec.deserialize(valueBytes);
+        } catch (IOException e) {
+            logger.severe(format("The deserialization of value[key:%s] is failed, caused by :%s",
+                    key, e.getMessage()));
+            return null;
+        }
+    }
+
+    @Override
+    public void write(Cache.Entry<?, ?> entry) throws CacheWriterException {
+        writeAll(singleton((Cache.Entry) entry));
+    }
+
+    @Override
+    public void writeAll(Collection<Cache.Entry<?, ?>> entries) throws CacheWriterException {
+        List<Record> records = new ArrayList<>(entries.size());
+        for (Cache.Entry<?, ?> entry : entries) {
+            byte[] keyBytes = serialize(entry.getKey());
+            if (keyBytes == null) {
+                continue;
+            }
+            if (entry.getValue() == null) {
+                records.add(new Record(DELETE, keyBytes, new byte[0]));
+                continue;
+            }
+            byte[] valueBytes = serialize(entry.getValue());
+            if (valueBytes != null) {
+                records.add(new Record(PUT, keyBytes, valueBytes));
+            }
+        }
+        append(records);
+    }
+
+    @Override
+    public void delete(Object key) throws CacheWriterException {
+        deleteAll(singleton(key));
+    }
+
+    @Override
+    public void deleteAll(Collection<?> keys) throws CacheWriterException {
+        List<Record> records = new ArrayList<>(keys.size());
+        for (Object key : keys) {
+            byte[] keyBytes = serialize(key);
+            if (keyBytes != null) {
+                records.add(new Record(DELETE, keyBytes, new byte[0]));
+            }
+        }
+        append(records);
+    }
+
+    @Override
+    public void destroy() {
+        lock.writeLock().lock();
+        try {
+            index.clear();
+            segments.values().forEach(segment -> segment.file.delete());
+            segments.clear();
+            uncommittedRecords = 0;
+            // the ids of segments keep increasing, the next segment is created on the next write
+            if (activeSegment != null) {
+                nextSegmentId = activeSegment.id + 1;
+                activeSegment = null;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Commit the pending records, stop the background tasks and release the directory.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        scheduledTasks.forEach(task -> task.cancel(false));
+        commit();
+        try {
+            directoryLock.channel().close();
+        } catch (IOException e) {
+            logger.warning(format("The lock of directory[path:%s] can't be released, caused by :%s",
+                    directory.getAbsolutePath(), e.getMessage()));
+        }
+    }
+
+    /**
+     * Force the active segment to the disk if any record is pending.
+     */
+    void commit() {
+        lock.writeLock().lock();
+        try {
+            if (uncommittedRecords > 0) {
+                activeSegment.buffer.force();
+                uncommittedRecords = 0;
+            }
+        } catch (Throwable e) {
+            logger.severe(format("The commit of segment[path:%s] is failed, caused by :%s",
+                    activeSegment.file.getAbsolutePath(), e.getMessage()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Compact the sealed segments whose garbage ratio reaches {@link #COMPACTION_THRESHOLD}.
+     */
+    void compact() {
+        lock.writeLock().lock();
+        try {
+            for (Segment segment : new ArrayList<>(segments.values())) {
+                if (segment != activeSegment && segment.getGarbageRatio() >= COMPACTION_THRESHOLD) {
+                    compact(segment);
+                }
+            }
+        } catch (Throwable e) {
+            logger.severe(format("The compaction of directory[path:%s] is failed, caused by :%s",
+                    directory.getAbsolutePath(), e.getMessage()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    File getDirectory() {
+        return directory;
+    }
+
+    int getSegmentCount() {
+        lock.readLock().lock();
+        try {
+            return segments.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void compact(Segment segment) {
+        // the tombstones are kept while the older segments may still have the deleted keys
+        boolean keepTombstones = segments.firstKey() < segment.id;
+        List<Record> records = new ArrayList<>();
+        List<Record> tombstones = new ArrayList<>();
+        segment.scan((position, record) -> {
+            Location location = index.get(ByteBuffer.wrap(record.key));
+            if (record.type == PUT && location != null && location.segment == segment
+                    && location.position == position) {
+                records.add(record);
+            } else if (record.type == DELETE && location == null && keepTombstones) {
+                tombstones.add(record);
+            }
+        });
+        if (!tombstones.isEmpty()) {
+            // the tombstone whose key has no record in the older segments is garbage
+            Set<ByteBuffer> olderKeys = new HashSet<>();
+            for (Segment olderSegment : segments.headMap(segment.id, false).values()) {
+                olderSegment.scan((position, record) -> olderKeys.add(ByteBuffer.wrap(record.key)));
+            }
+            for (Record tombstone : tombstones) {
+                if (olderKeys.contains(ByteBuffer.wrap(tombstone.key))) {
+                    records.add(tombstone);
+                }
+            }
+        }
+        doAppend(records);
+        if (activeSegment != null) {
+            activeSegment.buffer.force();
+        }
+        uncommittedRecords = 0;
+        segments.remove(segment.id);
+        if (!segment.file.delete()) {
+            logger.warning(format("The compacted segment[path:%s] can't be deleted!",
+                    segment.file.getAbsolutePath()));
+        }
+    }
+
+    private void append(List<Record> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            // the key that is absent does not need the tombstone
+            records.removeIf(record -> record.type == DELETE && !index.containsKey(ByteBuffer.wrap(record.key)));
+            if (records.isEmpty()) {
+                return;
+            }
+            doAppend(records);
+            uncommittedRecords += records.size();
+            if (uncommittedRecords >= COMMIT_BATCH_SIZE) {
+                activeSegment.buffer.force();
+                uncommittedRecords = 0;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void doAppend(List<Record> records) {
+        for (Record record : records) {
+            int recordLength = record.length();
+            if (activeSegment == null) {
+                makeDirectory();
+                activeSegment = createSegment(nextSegmentId, Math.max(segmentSize, recordLength));
+            } else if (activeSegment.getRemaining() < recordLength) {
+                activeSegment.buffer.force();
+                activeSegment = createSegment(activeSegment.id + 1, Math.max(segmentSize, recordLength));
+            }
+            int position = activeSegment.writePosition;
+            activeSegment.write(record);
+            apply(activeSegment, position, record);
+        }
+    }
+
+    private void apply(Segment segment, int position, Record record) {
+        Location oldLocation;
+        ByteBuffer key = ByteBuffer.wrap(record.key);
+        if (record.type == PUT) {
+            Location location = new Location(segment, position, record.key.length, record.value.length);
+            oldLocation = index.put(key, location);
+            segment.liveBytes += location.length();
+        } else {
+            oldLocation = index.remove(key);
+        }
+        if (oldLocation != null) {
+            oldLocation.segment.liveBytes -= oldLocation.length();
+        }
+    }
+
+    /**
+     * Rebuild the index from the segments, the torn record at the tail of segment is discarded.
+     */
+    private static Map.Entry<File, FileLock> lockDirectory(File directory) {
+        FileLock lock = tryLock(directory);
+        if (lock == null) {
+            throw new IllegalStateException(format("The directory[path:%s] is owned by another storage",
+                    directory.getAbsolutePath()));
+        }
+        return new AbstractMap.SimpleImmutableEntry<>(directory, lock);
+    }
+
+    private static Map.Entry<File, FileLock> lockDefaultDirectory() {
+        File defaultDirectory = new File(System.getProperty(DIRECTORY_PROPERTY_NAME,
+                new File(System.getProperty("java.io.tmpdir"), "my-cache-fallback-log").getPath()));
+        File directory = defaultDirectory;
+        for (int i = 1; i <= MAX_DIRECTORIES; i++) {
+            FileLock lock = tryLock(directory);
+            if (lock != null) {
+                return new AbstractMap.SimpleImmutableEntry<>(directory, lock);
+            }
+            directory = new File(defaultDirectory.getPath() + "-" + i);
+        }
+        throw new IllegalStateException(format("The directories[path:%s-*] are all owned by other storages",
+                defaultDirectory.getAbsolutePath()));
+    }
+
+    /**
+     * @return <code>null</code> if the directory is owned by another storage of any JVM
+     */
+    private static FileLock tryLock(File directory) {
+        File lockFile = new File(directory.getAbsolutePath() + LOCK_FILE_SUFFIX);
+        lockFile.getParentFile().mkdirs();
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(lockFile.toPath(), CREATE, WRITE);
+            FileLock lock = channel.tryLock();
+            if (lock != null) {
+                return lock;
+            }
+        } catch (OverlappingFileLockException e) {
+            // owned by another storage of current JVM
+        } catch (IOException e) {
+            throw new IllegalStateException(format("The lock file[path:%s] can't be opened",
+                    lockFile.getAbsolutePath()), e);
+        }
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+        return null;
+    }
+
+    private void recover() {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(SEGMENT_FILE_SUFFIX));
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                long id;
+                try {
+                    id = Long.parseLong(name.substring(0, name.length() - SEGMENT_FILE_SUFFIX.length()));
+                } catch (NumberFormatException e) {
+                    logger.warning(format("The file[path:%s] is not a segment, it will be ignored.",
+                            file.getAbsolutePath()));
+                    continue;
+                }
+                segments.put(id, openSegment(id, file, (int) Math.max(file.length(), segmentSize)));
+            }
+        }
+        for (Segment segment : segments.values()) {
+            segment.writePosition = segment.scan((position, record) -> apply(segment, position, record));
+        }
+        if (!segments.isEmpty()) {
+            activeSegment = segments.lastEntry().getValue();
+        }
+    }
+
+    private Segment createSegment(long id, int capacity) {
+        Segment segment = openSegment(id, new File(directory, format("%020d%s", id, SEGMENT_FILE_SUFFIX)),
+                capacity);
+        segments.put(id, segment);
+        return segment;
+    }
+
+    private Segment openSegment(long id, File file, int capacity) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), CREATE, READ, WRITE)) {
+            return new Segment(id, file, channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity));
+        } catch (IOException e) {
+            throw new CacheWriterException(format("The segment[path:%s] can't be mapped!",
+                    file.getAbsolutePath()), e);
+        }
+    }
+
+    private byte[] serialize(Object object) {
+        try {
+            return codec.serialize(object);
+        } catch (IOException e) {
+            logger.severe(format("The serialization of [%s] is failed, caused by :%s", object, e.getMessage()));
+            return null;
+        }
+    }
+
+    private void makeDirectory() {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new RuntimeException(format("The fallback directory[path:%s] can't be created!",
+                    directory.getAbsolutePath()));
+        }
+    }
+
+    private static int checksum(byte type, byte[] key, byte[] value) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(type);
+        crc32.update(key, 0, key.length);
+        crc32.update(value, 0, value.length);
+        return (int) crc32.getValue();
+    }
+
+    private static class Record {
+
+        private final byte type;
+
+        private final byte[] key;
+
+        private final byte[] value;
+
+        private Record(byte type, byte[] key, byte[] value) {
+            this.type = type;
+            this.key = key;
+            this.value = value;
+        }
+
+        private int length() {
+            return PREFIX_SIZE + PAYLOAD_HEADER_SIZE + key.length + value.length;
+        }
+    }
+
+    private interface RecordVisitor {
+
+        void visit(int position, Record record);
+    }
+
+    private static class Segment {
+
+        private final long id;
+
+        private final File file;
+
+        private final MappedByteBuffer buffer;
+
+        private int writePosition;
+
+        private int liveBytes;
+
+        private Segment(long id, File file, MappedByteBuffer buffer) {
+            this.id = id;
+            this.file = file;
+            this.buffer = buffer;
+        }
+
+        private int getRemaining() {
+            return buffer.capacity() - writePosition;
+        }
+
+        private double getGarbageRatio() {
+            return writePosition == 0 ? 0d : 1d - (double) liveBytes / writePosition;
+        }
+
+        private void write(Record record) {
+            ByteBuffer target = buffer.duplicate();
+            target.position(writePosition);
+            target.putInt(PAYLOAD_HEADER_SIZE + record.key.length + record.value.length)
+                    .putInt(checksum(record.type, record.key, record.value))
+                    .put(record.type)
+                    .putInt(record.key.length)
+                    .put(record.key)
+                    .put(record.value);
+            writePosition = target.position();
+        }
+
+        private byte[] read(int offset, int length) {
+            byte[] bytes = new byte[length];
+            ByteBuffer source = buffer.duplicate();
+            source.position(offset);
+            source.get(bytes);
+            return bytes;
+        }
+
+        /**
+         * @return the position after the last valid record
+         */
+        private int scan(RecordVisitor visitor) {
+            int position = 0;
+            int capacity = buffer.capacity();
+            while (position + PREFIX_SIZE + PAYLOAD_HEADER_SIZE <= capacity) {
+                int payloadLength = buffer.getInt(position);
+                int keyLength = buffer.getInt(position + PREFIX_SIZE + 1);
+                if (payloadLength < PAYLOAD_HEADER_SIZE || position + PREFIX_SIZE + payloadLength > capacity
+                        || keyLength < 0 || keyLength > payloadLength - PAYLOAD_HEADER_SIZE) {
+                    break;
+                }
+                byte type = buffer.get(position + PREFIX_SIZE);
+                int keyOffset = position + PREFIX_SIZE + PAYLOAD_HEADER_SIZE;
+                byte[] key = read(keyOffset, keyLength);
+                byte[] value = read(keyOffset + keyLength, payloadLength - PAYLOAD_HEADER_SIZE - keyLength);
+                if ((type != PUT && type != DELETE) || buffer.getInt(position + 4) != checksum(type, key, value)) {
+                    break;
+                }
+                visitor.visit(position, new Record(type, key, value));
+                position += PREFIX_SIZE + payloadLength;
+            }
+            return position;
+        }
+    }
+
+    private static class Location {
+
+        private final Segment segment;
+
+        private final int position;
+
+        private final int keyLength;
+
+        private final int valueLength;
+
+        private Location(Segment segment, int position, int keyLength, int valueLength) {
+            this.segment = segment;
+            this.position = position;
+            this.keyLength = keyLength;
+            this.valueLength = valueLength;
+        }
+
+        private int valueOffset() {
+            return position + PREFIX_SIZE + PAYLOAD_HEADER_SIZE + keyLength;
+        }
+
+        private int valueLength() {
+            return valueLength;
+        }
+
+        private int length() {
+            return PREFIX_SIZE + PAYLOAD_HEADER_SIZE + keyLength + valueLength;
+        }
+    }
+}
@@ -0,0 +1,307 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache.integration;
+
+import org.geektimes.cache.ExpirableEntry;
+
+import javax.cache.Cache;
+import javax.cache.integration.CacheWriter;
+import javax.cache.integration.CacheWriterException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+import static java.lang.String.format;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * The write-behind {@link CacheWriter} that queues the dirty keys and writes them into the delegate
+ * {@link CacheWriter} asynchronously :
+ * <ul>
+ *     <li>The repeated writes and deletes of the same key are coalesced, only the latest one is flushed</li>
+ *     <li>The dirty keys are flushed by {@link CacheWriter#writeAll(Collection)} and
+ *     {@link CacheWriter#deleteAll(Collection)} in batches, when the count of dirty keys reaches the batch size or
+ *     the flush interval elapses</li>
+ *     <li>The failed keys are retried by the following flushes until the maximum retries are exhausted, then they
+ *     are written into the fallback {@link CacheWriter} if present, otherwise discarded</li>
+ *     <li>{@link #close()} flushes the dirty keys synchronously</li>
+ * </ul>
+ *
+ * @param <K> the type of key
+ * @param <V> the type of value
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see CacheWriter
+ * @since 1.0.0
+ */
+public class WriteBehindCacheWriter<K, V> implements CacheWriter<K, V>, AutoCloseable {
+
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    public static final long DEFAULT_FLUSH_INTERVAL = 1000;
+
+    public static final int DEFAULT_MAX_RETRIES = 3;
+
+    private static final ScheduledExecutorService scheduler = newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "WriteBehindCacheWriter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Logger logger = Logger.getLogger(getClass().getName());
+
+    private final CacheWriter<K, V> delegate;
+
+    private final CacheWriter<K, V> fallback;
+
+    private final int batchSize;
+
+    private final int maxRetries;
+
+    /**
+     * The latest pending operations by keys
+     */
+    private final ConcurrentMap<K, PendingWrite<K, V>> pendingWrites = new ConcurrentHashMap<>();
+
+    /**
+     * The flushes are serialized, thus the older operation of a key never overwrites the newer one
+     */
+    private final Lock flushLock = new ReentrantLock();
+
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    private final ScheduledFuture<?> flushFuture;
+
+    private volatile boolean closed;
+
+    public WriteBehindCacheWriter(CacheWriter<K, V> delegate) {
+        this(delegate, null, DEFAULT_BATCH_SIZE, DEFAULT_FLUSH_INTERVAL, DEFAULT_MAX_RETRIES);
+    }
+
+    /**
+     * @param delegate      the delegate {@link CacheWriter}
+     * @param fallback      the {@link CacheWriter} that the keys failed after retries are written into,
+     *                      may be <code>null</code>
+     * @param batchSize     the count of dirty keys that triggers the flush
+     * @param flushInterval the interval in milliseconds between the flushes
+     * @param maxRetries    the maximum retries of a key
+     */
+    public WriteBehindCacheWriter(CacheWriter<K, V> delegate, CacheWriter<K, V> fallback, int batchSize,
+                                  long flushInterval, int maxRetries) {
+        this.delegate = delegate;
+        this.fallback = fallback;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxRetries = Math.max(0, maxRetries);
+        long interval = Math.max(1, flushInterval);
+        this.flushFuture = scheduler.scheduleWithFixedDelay(this::flushQuietly, interval, interval, MILLISECONDS);
+    }
+
+    @Override
+    public void write(Cache.Entry<? extends K, ? extends V> entry) throws CacheWriterException {
+        enqueue(new PendingWrite<>(entry.getKey(), ExpirableEntry.<K, V>of(entry.getKey(), entry.getValue())));
+    }
+
+    @Override
+    public void writeAll(Collection<Cache.Entry<? extends K, ? extends V>> entries) throws CacheWriterException {
+        for (Iterator<Cache.Entry<? extends K, ? extends V>> iterator = entries.iterator(); iterator.hasNext(); ) {
+            write(iterator.next());
+            // the entries are removed once they are written
+            iterator.remove();
+        }
+    }
+
+    @Override
+    public void delete(Object key) throws CacheWriterException {
+        K k = (K) key;
+        enqueue(new PendingWrite<>(k, null));
+    }
+
+    @Override
+    public void deleteAll(Collection<?> keys) throws CacheWriterException {
+        for (Iterator<?> iterator = keys.iterator(); iterator.hasNext(); ) {
+            delete(iterator.next());
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Flush the dirty keys into the delegate {@link CacheWriter} in the caller thread
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            List<PendingWrite<K, V>> batch = new ArrayList<>(batchSize);
+            for (K key : pendingWrites.keySet()) {
+                PendingWrite<K, V> pendingWrite = pendingWrites.remove(key);
+                if (pendingWrite == null) {
+                    continue;
+                }
+                batch.add(pendingWrite);
+                if (batch.size() == batchSize) {
+                    flush(batch);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Get the count of dirty keys
+     *
+     * @return non-negative
+     */
+    public int getPendingWrites() {
+        return pendingWrites.size();
+    }
+
+    /**
+     * Flush the dirty keys and stop the scheduled flushes, the dirty keys that can't be written after retries are
+     * written into the fallback {@link CacheWriter}.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        flushFuture.cancel(false);
+        for (int i = 0; i <= maxRetries && !pendingWrites.isEmpty(); i++) {
+            flush();
+        }
+        flushLock.lock();
+        try {
+            List<PendingWrite<K, V>> remaining = new ArrayList<>(pendingWrites.values());
+            pendingWrites.clear();
+            remaining.forEach(this::giveUp);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void enqueue(PendingWrite<K, V> pendingWrite) {
+        if (closed) {
+            // write through after closed
+            pendingWrite.writeTo(delegate);
+            return;
+        }
+        pendingWrites.put(pendingWrite.key, pendingWrite);
+        if (pendingWrites.size() >= batchSize && flushScheduled.compareAndSet(false, true)) {
+            scheduler.execute(() -> {
+                flushScheduled.set(false);
+                flushQuietly();
+            });
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Throwable e) {
+            logger.warning(format("The write-behind flush is failed : %s", e));
+        }
+    }
+
+    private void flush(List<PendingWrite<K, V>> batch) {
+        Map<Cache.Entry<? extends K, ? extends V>, PendingWrite<K, V>> writes = new LinkedHashMap<>();
+        Map<Object, PendingWrite<K, V>> deletes = new LinkedHashMap<>();
+        for (PendingWrite<K, V> pendingWrite : batch) {
+            if (pendingWrite.entry == null) {
+                deletes.put(pendingWrite.key, pendingWrite);
+            } else {
+                writes.put(pendingWrite.entry, pendingWrite);
+            }
+        }
+        if (!writes.isEmpty()) {
+            // the CacheWriter removes the written entries from the collection, the rest are failed
+            Collection<Cache.Entry<? extends K, ? extends V>> entries = new ArrayList<>(writes.keySet());
+            try {
+                delegate.writeAll(entries);
+            } catch (Exception e) {
+                entries.forEach(entry -> retry(writes.get(entry), e));
+            }
+        }
+        if (!deletes.isEmpty()) {
+            Collection<Object> keys = new ArrayList<>(deletes.keySet());
+            try {
+                delegate.deleteAll(keys);
+            } catch (Exception e) {
+                keys.forEach(key -> retry(deletes.get(key), e));
+            }
+        }
+    }
+
+    private void retry(PendingWrite<K, V> pendingWrite, Exception e) {
+        if (pendingWrite == null) {
+            return;
+        }
+        if (pendingWrite.attempts++ < maxRetries) {
+            // the newer operation of the same key wins
+            pendingWrites.putIfAbsent(pendingWrite.key, pendingWrite);
+        } else {
+            logger.warning(format("The write-behind of key[%s] is failed after %d retries : %s",
+                    pendingWrite.key, maxRetries, e));
+            giveUp(pendingWrite);
+        }
+    }
+
+    private void giveUp(PendingWrite<K, V> pendingWrite) {
+        if (fallback == null) {
+            return;
+        }
+        try {
+            pendingWrite.writeTo(fallback);
+        } catch (Exception e) {
+            logger.warning(format("The key[%s] can't be written into the fallback : %s", pendingWrite.key, e));
+        }
+    }
+
+    /**
+     * The pending write, or delete if the entry is <code>null</code>
+     */
+    private static class PendingWrite<K, V> {
+
+        private final K key;
+
+        private final Cache.Entry<K, V> entry;
+
+        private int attempts;
+
+        private PendingWrite(K key, Cache.Entry<K, V> entry) {
+            this.key = key;
+            this.entry = entry;
+        }
+
+        private void writeTo(CacheWriter<K, V> writer) {
+            if (entry == null) {
+                writer.delete(key);
+            } else {
+                writer.write(entry);
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache.io;
+
+/**
+ * The named pair of {@link Serializer} and {@link Deserializer}, which is registered into {@link CodecRegistry}.
+ * The implementation must be thread-safe, the <code>null</code> value must be supported.
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see CodecRegistry
+ * @since 1.0.0
+ */
+public interface Codec extends Serializer<Object>, Deserializer<Object> {
+
+    /**
+     * @return the unique name of codec
+     */
+    String getName();
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache.io;
+
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static java.util.Collections.unmodifiableSet;
+
+/**
+ * The registry of {@link Codec codecs} per {@link ClassLoader}, the built-in codecs are
+ * {@link CompactBinaryCodec "compact"} (default, which reads the data of "java" as well) and
+ * {@link JavaSerializationCodec "java"}, the extended codecs
+ * are loaded by {@link ServiceLoader} and could replace the built-in ones with the same names.
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see Codec
+ * @since 1.0.0
+ */
+public class CodecRegistry {
+
+    public static final String DEFAULT_CODEC_NAME = CompactBinaryCodec.NAME;
+
+    private static final ConcurrentMap<ClassLoader, CodecRegistry> registries = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Codec> codecs = new ConcurrentHashMap<>();
+
+    public CodecRegistry(ClassLoader classLoader) {
+        register(new CompactBinaryCodec());
+        register(new JavaSerializationCodec());
+        for (Codec codec : ServiceLoader.load(Codec.class, classLoader)) {
+            register(codec);
+        }
+    }
+
+    /**
+     * @return the {@link CodecRegistry} of the {@link ClassLoader} that loads current class
+     */
+    public static CodecRegistry getInstance() {
+        return getInstance(CodecRegistry.class.getClassLoader());
+    }
+
+    public static CodecRegistry getInstance(ClassLoader classLoader) {
+        ClassLoader actualClassLoader = classLoader == null ? CodecRegistry.class.getClassLoader() : classLoader;
+        return registries.computeIfAbsent(actualClassLoader, CodecRegistry::new);
+    }
+
+    /**
+     * Register the {@link Codec}, the existed one with the same name will be replaced.
+     *
+     * @param codec {@link Codec}
+     */
+    public void register(Codec codec) {
+        codecs.put(codec.getName(), codec);
+    }
+
+    /**
+     * @param name the name of {@link Codec}
+     * @return non-null
+     * @throws IllegalArgumentException if not found
+     */
+    public Codec getCodec(String name) throws IllegalArgumentException {
+        Codec codec = codecs.get(name);
+        if (codec == null) {
+            throw new IllegalArgumentException("The codec[name:" + name + "] is not found, the available names : "
+                    + codecs.keySet());
+        }
+        return codec;
+    }
+
+    public Codec getDefaultCodec() {
+        return getCodec(DEFAULT_CODEC_NAME);
+    }
+
+    public Set<String> getCodecNames() {
+        return unmodifiableSet(codecs.keySet());
+    }
+}
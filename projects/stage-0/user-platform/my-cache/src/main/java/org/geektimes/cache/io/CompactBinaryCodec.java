@@ -0,0 +1,412 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectStreamConstants;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * The compact binary {@link Codec}, every value starts with a one-byte type tag :
+ * <ul>
+ *     <li>The primitive wrappers, {@link String} and <code>byte[]</code> are written directly, the integral numbers
+ *     and the lengths are written as the zigzag variable-length integers</li>
+ *     <li>The types that were {@link #register(int, Class, Serializer, Deserializer) registered} are written as
+ *     their class ids followed by the bytes of their own {@link Serializer}</li>
+ *     <li>Other types fall back to the {@link JavaSerializationCodec Java Serialization}</li>
+ * </ul>
+ * The bytes that start with the magic of Java Serialization stream, which were written by the
+ * {@link JavaSerializationCodec} before this codec became the default, are read by the Java Serialization, thus the
+ * existed data in the remote or persisted stores is still readable. No type tag collides with the magic.
+ * The output buffer is pooled per thread, thus only the result array is allocated for each serialization.
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @since 1.0.0
+ */
+public class CompactBinaryCodec implements Codec {
+
+    public static final String NAME = "compact";
+
+    static final byte NULL = 0;
+
+    static final byte STRING = 1;
+
+    static final byte INT = 2;
+
+    static final byte LONG = 3;
+
+    static final byte TRUE = 4;
+
+    static final byte FALSE = 5;
+
+    static final byte BYTE = 6;
+
+    static final byte SHORT = 7;
+
+    static final byte CHAR = 8;
+
+    static final byte FLOAT = 9;
+
+    static final byte DOUBLE = 10;
+
+    static final byte BYTES = 11;
+
+    static final byte REGISTERED = 12;
+
+    static final byte FALLBACK = 13;
+
+    private static final int INITIAL_BUFFER_SIZE = 256;
+
+    /**
+     * The larger buffer will not be kept in the pool
+     */
+    private static final int MAX_POOLED_BUFFER_SIZE = 64 * 1024;
+
+    private static final ThreadLocal<Output> pooledOutput = ThreadLocal.withInitial(Output::new);
+
+    private final ConcurrentMap<Class<?>, Registration> registrationsByClass = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<Integer, Registration> registrationsById = new ConcurrentHashMap<>();
+
+    private final Codec fallbackCodec;
+
+    private final Codec javaSerializationCodec = new JavaSerializationCodec();
+
+    public CompactBinaryCodec() {
+        this(new JavaSerializationCodec());
+    }
+
+    public CompactBinaryCodec(Codec fallbackCodec) {
+        this.fallbackCodec = fallbackCodec;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * Register the {@link Serializer} and {@link Deserializer} of the specified type by the class id, the same
+     * registration must be done on both sides of the serialization.
+     *
+     * @param classId      the non-negative unique id of type
+     * @param type         the exact type of values
+     * @param serializer   {@link Serializer}
+     * @param deserializer {@link Deserializer}
+     * @return current instance
+     * @throws IllegalArgumentException if the class id is negative, or the class id or the type was registered
+     */
+    public <T> CompactBinaryCodec register(int classId, Class<T> type, Serializer<? super T> serializer,
+                                           Deserializer<? extends T> deserializer) throws IllegalArgumentException {
+        if (classId < 0) {
+            throw new IllegalArgumentException("The class id must not be negative!");
+        }
+        Registration registration = new Registration(classId, (Serializer<Object>) serializer, deserializer);
+        if (registrationsById.putIfAbsent(classId, registration) != null) {
+            throw new IllegalArgumentException("The class id[" + classId + "] has been registered!");
+        }
+        if (registrationsByClass.putIfAbsent(type, registration) != null) {
+            registrationsById.remove(classId);
+            throw new IllegalArgumentException("The type[" + type.getName() + "] has been registered!");
+        }
+        return this;
+    }
+
+    @Override
+    public byte[] serialize(Object source) throws IOException {
+        Output output = pooledOutput.get();
+        if (output.inUse) {
+            // reentrant serialization from the registered Serializer
+            output = new Output();
+        }
+        output.inUse = true;
+        try {
+            output.position = 0;
+            write(output, source);
+            return Arrays.copyOf(output.buffer, output.position);
+        } finally {
+            output.inUse = false;
+            if (output.buffer.length > MAX_POOLED_BUFFER_SIZE) {
+                output.buffer = new byte[INITIAL_BUFFER_SIZE];
+            }
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws IOException {
+        if (bytes == null) {
+            return null;
+        }
+        if (isJavaSerializationStream(bytes)) {
+            return javaSerializationCodec.deserialize(bytes);
+        }
+        Input input = new Input(bytes);
+        byte tag = input.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case STRING:
+                return input.readString();
+            case INT:
+                return decodeZigZag((int) input.readVarLong());
+            case LONG:
+                return decodeZigZag(input.readVarLong());
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            case BYTE:
+                return input.readByte();
+            case SHORT:
+                return (short) decodeZigZag((int) input.readVarLong());
+            case CHAR:
+                return (char) input.readVarLong();
+            case FLOAT:
+                return Float.intBitsToFloat((int) input.readFixed(4));
+            case DOUBLE:
+                return Double.longBitsToDouble(input.readFixed(8));
+            case BYTES:
+                return input.readBytes((int) input.readVarLong());
+            case REGISTERED:
+                int classId = (int) input.readVarLong();
+                Registration registration = registrationsById.get(classId);
+                if (registration == null) {
+                    throw new IOException("The class id[" + classId + "] is not registered!");
+                }
+                return registration.deserializer.deserialize(input.readBytes((int) input.readVarLong()));
+            case FALLBACK:
+                return fallbackCodec.deserialize(input.readBytes(bytes.length - input.position));
+            default:
+                throw new IOException("Unknown type tag : " + tag);
+        }
+    }
+
+    private static boolean isJavaSerializationStream(byte[] bytes) {
+        return bytes.length >= 2
+                && bytes[0] == (byte) (ObjectStreamConstants.STREAM_MAGIC >>> 8)
+                && bytes[1] == (byte) ObjectStreamConstants.STREAM_MAGIC;
+    }
+
+    private void write(Output output, Object source) throws IOException {
+        if (source == null) {
+            output.writeByte(NULL);
+            return;
+        }
+        Class<?> type = source.getClass();
+        if (type == String.class) {
+            output.writeByte(STRING);
+            output.writeString((String) source);
+        } else if (type == Integer.class) {
+            output.writeByte(INT);
+            output.writeVarLong(encodeZigZag((Integer) source) & 0xFFFFFFFFL);
+        } else if (type == Long.class) {
+            output.writeByte(LONG);
+            output.writeVarLong(encodeZigZag((Long) source));
+        } else if (type == Boolean.class) {
+            output.writeByte((Boolean) source ? TRUE : FALSE);
+        } else if (type == Byte.class) {
+            output.writeByte(BYTE);
+            output.writeByte((Byte) source);
+        } else if (type == Short.class) {
+            output.writeByte(SHORT);
+            output.writeVarLong(encodeZigZag((Short) source) & 0xFFFFFFFFL);
+        } else if (type == Character.class) {
+            output.writeByte(CHAR);
+            output.writeVarLong((Character) source);
+        } else if (type == Float.class) {
+            output.writeByte(FLOAT);
+            output.writeFixed(Float.floatToIntBits((Float) source), 4);
+        } else if (type == Double.class) {
+            output.writeByte(DOUBLE);
+            output.writeFixed(Double.doubleToLongBits((Double) source), 8);
+        } else if (type == byte[].class) {
+            byte[] bytes = (byte[]) source;
+            output.writeByte(BYTES);
+            output.writeVarLong(bytes.length);
+            output.writeBytes(bytes);
+        } else {
+            Registration registration = registrationsByClass.get(type);
+            if (registration != null) {
+                byte[] bytes = registration.serializer.serialize(source);
+                output.writeByte(REGISTERED);
+                output.writeVarLong(registration.classId);
+                output.writeVarLong(bytes.length);
+                output.writeBytes(bytes);
+            } else {
+                output.writeByte(FALLBACK);
+                output.writeBytes(fallbackCodec.serialize(source));
+            }
+        }
+    }
+
+    private static int encodeZigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static long encodeZigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static int decodeZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long decodeZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static class Registration {
+
+        private final int classId;
+
+        private final Serializer<Object> serializer;
+
+        private final Deserializer<?> deserializer;
+
+        private Registration(int classId, Serializer<Object> serializer, Deserializer<?> deserializer) {
+            this.classId = classId;
+            this.serializer = serializer;
+            this.deserializer = deserializer;
+        }
+    }
+
+    private static class Output {
+
+        private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+
+        private int position;
+
+        private boolean inUse;
+
+        private void ensureCapacity(int length) {
+            int required = position + length;
+            if (required > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(required, buffer.length << 1));
+            }
+        }
+
+        private void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[position++] = (byte) value;
+        }
+
+        private void writeBytes(byte[] bytes) {
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        private void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        private void writeFixed(long value, int length) {
+            ensureCapacity(length);
+            for (int i = length - 1; i >= 0; i--) {
+                buffer[position++] = (byte) (value >>> (i << 3));
+            }
+        }
+
+        private void writeString(String value) {
+            int length = value.length();
+            boolean ascii = true;
+            for (int i = 0; i < length && ascii; i++) {
+                ascii = value.charAt(i) < 0x80;
+            }
+            if (ascii) {
+                // fast path : one byte per char
+                writeVarLong(length);
+                ensureCapacity(length);
+                for (int i = 0; i < length; i++) {
+                    buffer[position++] = (byte) value.charAt(i);
+                }
+            } else {
+                byte[] bytes = value.getBytes(UTF_8);
+                writeVarLong(bytes.length);
+                writeBytes(bytes);
+            }
+        }
+    }
+
+    private static class Input {
+
+        private final byte[] bytes;
+
+        private int position;
+
+        private Input(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        private void require(int length) throws EOFException {
+            if (length < 0 || position + length > bytes.length) {
+                throw new EOFException();
+            }
+        }
+
+        private byte readByte() throws EOFException {
+            require(1);
+            return bytes[position++];
+        }
+
+        private byte[] readBytes(int length) throws EOFException {
+            require(length);
+            byte[] result = Arrays.copyOfRange(bytes, position, position + length);
+            position += length;
+            return result;
+        }
+
+        private long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed variable-length integer");
+        }
+
+        private long readFixed(int length) throws EOFException {
+            require(length);
+            long value = 0;
+            for (int i = 0; i < length; i++) {
+                value = (value << 8) | (bytes[position++] & 0xFF);
+            }
+            return value;
+        }
+
+        private String readString() throws IOException {
+            int length = (int) readVarLong();
+            require(length);
+            String value = new String(bytes, position, length, UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
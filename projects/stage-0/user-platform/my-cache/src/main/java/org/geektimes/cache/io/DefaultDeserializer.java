@@ -16,8 +16,6 @@
  */
 package org.geektimes.cache.io;
 
-import javax.cache.CacheException;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.Serializable;
@@ -28,25 +26,16 @@ import java.io.Serializable;
  * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
  * @see ObjectInputStream
  * @see Serializable
+ * @see JavaSerializationCodec
  * Date : 2021-05-02
  * @since 1.0.0
  */
 public class DefaultDeserializer implements Deserializer<Object> {
 
+    private final Codec codec = CodecRegistry.getInstance().getCodec(JavaSerializationCodec.NAME);
+
     @Override
     public Object deserialize(byte[] bytes) throws IOException {
-        if (bytes == null) {
-            return null;
-        }
-        Object value = null;
-        try (ByteArrayInputStream inputStream = new ByteArrayInputStream(bytes);
-             ObjectInputStream objectInputStream = new ObjectInputStream(inputStream)
-        ) {
-            // byte[] -> Value
-            value = objectInputStream.readObject();
-        } catch (Exception e) {
-            throw new IOException(e);
-        }
-        return value;
+        return codec.deserialize(bytes);
     }
 }
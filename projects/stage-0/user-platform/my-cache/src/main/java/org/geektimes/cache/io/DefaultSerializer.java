@@ -16,7 +16,6 @@
  */
 package org.geektimes.cache.io;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
@@ -27,22 +26,16 @@ import java.io.Serializable;
  * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
  * @see ObjectOutputStream
  * @see Serializable
+ * @see JavaSerializationCodec
  * Date : 2021-05-02
  * @since 1.0.0
  */
 public class DefaultSerializer implements Serializer<Object> {
 
+    private final Codec codec = CodecRegistry.getInstance().getCodec(JavaSerializationCodec.NAME);
+
     @Override
     public byte[] serialize(Object source) throws IOException {
-        byte[] bytes = null;
-        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-             ObjectOutputStream objectOutputStream = new ObjectOutputStream(outputStream)
-        ) {
-            // Key -> byte[]
-            objectOutputStream.writeObject(source);
-            bytes = outputStream.toByteArray();
-        }
-        return bytes;
+        return codec.serialize(source);
     }
 }
-
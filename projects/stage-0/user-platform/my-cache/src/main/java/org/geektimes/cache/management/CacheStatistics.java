@@ -25,7 +25,7 @@ import javax.cache.management.CacheStatisticsMXBean;
  * @since 1.0.0
  * Date : 2021-04-13
  */
-public interface CacheStatistics extends CacheStatisticsMXBean {
+public interface CacheStatistics extends CacheStatisticsMXBean, ExtendedCacheStatisticsMXBean {
 
     CacheStatistics reset();
 
@@ -39,10 +39,42 @@ public interface CacheStatistics extends CacheStatisticsMXBean {
 
     CacheStatistics cacheEvictions();
 
+    CacheStatistics cacheExpiries();
+
+    CacheStatistics cacheLoadWaits();
+
+    CacheStatistics cacheEventDrops();
+
+    CacheStatistics cacheRefreshes();
+
+    /**
+     * @param costTime the cost time in nanoseconds
+     */
     CacheStatistics cacheGetsTime(long costTime);
 
+    /**
+     * Record the cost time of a batch of gets, the latency of each get is sampled as the average of the batch
+     *
+     * @param costTime the cost time of the batch in nanoseconds
+     * @param count    the count of gets in the batch
+     */
+    CacheStatistics cacheGetsTime(long costTime, int count);
+
+    /**
+     * @param costTime the cost time in nanoseconds
+     */
     CacheStatistics cachePutsTime(long costTime);
 
+    /**
+     * @param costTime the cost time in nanoseconds
+     */
     CacheStatistics cacheRemovesTime(long costTime);
 
+    /**
+     * Record an invocation of {@link javax.cache.integration.CacheLoader}
+     *
+     * @param costTime the cost time in nanoseconds
+     */
+    CacheStatistics cacheLoadsTime(long costTime);
+
 }
@@ -63,11 +63,36 @@ public class DummyCacheStatistics implements CacheStatistics {
         return this;
     }
 
+    @Override
+    public CacheStatistics cacheExpiries() {
+        return this;
+    }
+
+    @Override
+    public CacheStatistics cacheLoadWaits() {
+        return this;
+    }
+
+    @Override
+    public CacheStatistics cacheEventDrops() {
+        return this;
+    }
+
+    @Override
+    public CacheStatistics cacheRefreshes() {
+        return this;
+    }
+
     @Override
     public CacheStatistics cacheGetsTime(long costTime) {
         return this;
     }
 
+    @Override
+    public CacheStatistics cacheGetsTime(long costTime, int count) {
+        return this;
+    }
+
     @Override
     public CacheStatistics cachePutsTime(long costTime) {
         return this;
@@ -78,6 +103,11 @@ public class DummyCacheStatistics implements CacheStatistics {
         return this;
     }
 
+    @Override
+    public CacheStatistics cacheLoadsTime(long costTime) {
+        return this;
+    }
+
     @Override
     public void clear() {
 
@@ -123,6 +153,16 @@ public class DummyCacheStatistics implements CacheStatistics {
         return 0;
     }
 
+    @Override
+    public long getCacheExpiries() {
+        return 0;
+    }
+
+    @Override
+    public long getCacheLoadWaits() {
+        return 0;
+    }
+
     @Override
     public float getAverageGetTime() {
         return 0;
@@ -137,4 +177,104 @@ public class DummyCacheStatistics implements CacheStatistics {
     public float getAverageRemoveTime() {
         return 0;
     }
+
+    @Override
+    public long getCacheEventDrops() {
+        return 0;
+    }
+
+    @Override
+    public long getCacheRefreshes() {
+        return 0;
+    }
+
+    @Override
+    public long getCacheLoads() {
+        return 0;
+    }
+
+    @Override
+    public float getAverageLoadTime() {
+        return 0;
+    }
+
+    @Override
+    public long getStatisticsWindowSeconds() {
+        return 0;
+    }
+
+    @Override
+    public long getRecentCacheGets() {
+        return 0;
+    }
+
+    @Override
+    public float getRecentCacheHitPercentage() {
+        return 0;
+    }
+
+    @Override
+    public float getRecentCacheMissPercentage() {
+        return 0;
+    }
+
+    @Override
+    public float getGetTime50thPercentile() {
+        return 0;
+    }
+
+    @Override
+    public float getGetTime99thPercentile() {
+        return 0;
+    }
+
+    @Override
+    public float getGetTime999thPercentile() {
+        return 0;
+    }
+
+    @Override
+    public float getPutTime50thPercentile() {
+        return 0;
+    }
+
+    @Override
+    public float getPutTime99thPercentile() {
+        return 0;
+    }
+
+    @Override
+    public float getPutTime999thPercentile() {
+        return 0;
+    }
+
+    @Override
+    public float getRemoveTime50thPercentile() {
+        return 0;
+    }
+
+    @Override
+    public float getRemoveTime99thPercentile() {
+        return 0;
+    }
+
+    @Override
+    public float getRemoveTime999thPercentile() {
+        return 0;
+    }
+
+    @Override
+    public float getLoadTime50thPercentile() {
+        return 0;
+    }
+
+    @Override
+    public float getLoadTime99thPercentile() {
+        return 0;
+    }
+
+    @Override
+    public float getLoadTime999thPercentile() {
+        return 0;
+    }
 }
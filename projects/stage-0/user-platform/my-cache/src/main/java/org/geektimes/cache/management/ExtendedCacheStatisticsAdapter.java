@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache.management;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * {@link ExtendedCacheStatisticsMXBean} Adapter based on {@link CacheStatistics}, the same object can't be
+ * registered as the different MXBeans.
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see ExtendedCacheStatisticsMXBean
+ * @see CacheStatistics
+ * @since 1.0.0
+ */
+class ExtendedCacheStatisticsAdapter implements ExtendedCacheStatisticsMXBean {
+
+    private final CacheStatistics cacheStatistics;
+
+    public ExtendedCacheStatisticsAdapter(CacheStatistics cacheStatistics) throws NullPointerException {
+        requireNonNull(cacheStatistics, "The argument 'cacheStatistics' must not be null!");
+        this.cacheStatistics = cacheStatistics;
+    }
+
+    @Override
+    public long getCacheExpiries() {
+        return cacheStatistics.getCacheExpiries();
+    }
+
+    @Override
+    public long getCacheLoadWaits() {
+        return cacheStatistics.getCacheLoadWaits();
+    }
+
+    @Override
+    public long getCacheEventDrops() {
+        return cacheStatistics.getCacheEventDrops();
+    }
+
+    @Override
+    public long getCacheRefreshes() {
+        return cacheStatistics.getCacheRefreshes();
+    }
+
+    @Override
+    public long getCacheLoads() {
+        return cacheStatistics.getCacheLoads();
+    }
+
+    @Override
+    public float getAverageLoadTime() {
+        return cacheStatistics.getAverageLoadTime();
+    }
+
+    @Override
+    public long getStatisticsWindowSeconds() {
+        return cacheStatistics.getStatisticsWindowSeconds();
+    }
+
+    @Override
+    public long getRecentCacheGets() {
+        return cacheStatistics.getRecentCacheGets();
+    }
+
+    @Override
+    public float getRecentCacheHitPercentage() {
+        return cacheStatistics.getRecentCacheHitPercentage();
+    }
+
+    @Override
+    public float getRecentCacheMissPercentage() {
+        return cacheStatistics.getRecentCacheMissPercentage();
+    }
+
+    @Override
+    public float getGetTime50thPercentile() {
+        return cacheStatistics.getGetTime50thPercentile();
+    }
+
+    @Override
+    public float getGetTime99thPercentile() {
+        return cacheStatistics.getGetTime99thPercentile();
+    }
+
+    @Override
+    public float getGetTime999thPercentile() {
+        return cacheStatistics.getGetTime999thPercentile();
+    }
+
+    @Override
+    public float getPutTime50thPercentile() {
+        return cacheStatistics.getPutTime50thPercentile();
+    }
+
+    @Override
+    public float getPutTime99thPercentile() {
+        return cacheStatistics.getPutTime99thPercentile();
+    }
+
+    @Override
+    public float getPutTime999thPercentile() {
+        return cacheStatistics.getPutTime999thPercentile();
+    }
+
+    @Override
+    public float getRemoveTime50thPercentile() {
+        return cacheStatistics.getRemoveTime50thPercentile();
+    }
+
+    @Override
+    public float getRemoveTime99thPercentile() {
+        return cacheStatistics.getRemoveTime99thPercentile();
+    }
+
+    @Override
+    public float getRemoveTime999thPercentile() {
+        return cacheStatistics.getRemoveTime999thPercentile();
+    }
+
+    @Override
+    public float getLoadTime50thPercentile() {
+        return cacheStatistics.getLoadTime50thPercentile();
+    }
+
+    @Override
+    public float getLoadTime99thPercentile() {
+        return cacheStatistics.getLoadTime99thPercentile();
+    }
+
+    @Override
+    public float getLoadTime999thPercentile() {
+        return cacheStatistics.getLoadTime999thPercentile();
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache.management;
+
+import javax.cache.management.CacheStatisticsMXBean;
+
+/**
+ * The statistics of cache that are not defined by {@link CacheStatisticsMXBean}, the times are in microseconds
+ * as same as {@link CacheStatisticsMXBean}, the percentiles and the recent rates are calculated over the sliding
+ * window of {@link #getStatisticsWindowSeconds()}.
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see CacheStatisticsMXBean
+ * @since 1.0.0
+ */
+public interface ExtendedCacheStatisticsMXBean {
+
+    /**
+     * @return the count of entries that were removed because they were expired
+     */
+    long getCacheExpiries();
+
+    /**
+     * @return the count of read-through loads that waited for the in-flight load of the same key
+     * instead of invoking the {@link javax.cache.integration.CacheLoader} again
+     */
+    long getCacheLoadWaits();
+
+    /**
+     * @return the count of events that were dropped because the queue of asynchronous listener was full
+     */
+    long getCacheEventDrops();
+
+    /**
+     * @return the count of asynchronous reloads that were triggered by the refresh-ahead
+     */
+    long getCacheRefreshes();
+
+    /**
+     * @return the count of invocations of {@link javax.cache.integration.CacheLoader}
+     */
+    long getCacheLoads();
+
+    float getAverageLoadTime();
+
+    long getStatisticsWindowSeconds();
+
+    long getRecentCacheGets();
+
+    float getRecentCacheHitPercentage();
+
+    float getRecentCacheMissPercentage();
+
+    float getGetTime50thPercentile();
+
+    float getGetTime99thPercentile();
+
+    float getGetTime999thPercentile();
+
+    float getPutTime50thPercentile();
+
+    float getPutTime99thPercentile();
+
+    float getPutTime999thPercentile();
+
+    float getRemoveTime50thPercentile();
+
+    float getRemoveTime99thPercentile();
+
+    float getRemoveTime999thPercentile();
+
+    float getLoadTime50thPercentile();
+
+    float getLoadTime99thPercentile();
+
+    float getLoadTime999thPercentile();
+}
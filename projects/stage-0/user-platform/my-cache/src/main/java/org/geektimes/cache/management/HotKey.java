@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache.management;
+
+/**
+ * The hot key that is reported by {@link HotKeySampler}
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @since 1.0.0
+ */
+public class HotKey {
+
+    private final String key;
+
+    private final long estimatedCount;
+
+    private final double rate;
+
+    public HotKey(String key, long estimatedCount, double rate) {
+        this.key = key;
+        this.estimatedCount = estimatedCount;
+        this.rate = rate;
+    }
+
+    /**
+     * @return the string representation of key
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @return the estimated count of accesses in the window
+     */
+    public long getEstimatedCount() {
+        return estimatedCount;
+    }
+
+    /**
+     * @return the estimated accesses per second in the window
+     */
+    public double getRate() {
+        return rate;
+    }
+
+    @Override
+    public String toString() {
+        return "HotKey{" +
+                "key='" + key + '\'' +
+                ", estimatedCount=" + estimatedCount +
+                ", rate=" + rate +
+                '}';
+    }
+}
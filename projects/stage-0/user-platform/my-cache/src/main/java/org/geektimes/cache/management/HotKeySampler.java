@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache.management;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * The sampler of hot keys, one of {@link #getSampleInterval() N} accesses is counted by the lock-free count-min
+ * sketch, and the keys whose estimated counts exceed the minimum of the top-K min-heap are offered to the heap.
+ * Thus the unsampled access only costs a thread-local random number, and the heap is only locked by the few
+ * candidates of hot keys.
+ * <p>
+ * The counts are kept in the tumbling window, the top-K of the completed window are published with the estimated
+ * rates, then the sketch and the heap are cleared by the first sampled access of the new window. The increments
+ * that race with the clearing may be lost, which is acceptable for the sampling.
+ *
+ * @param <K> the type of key
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see org.geektimes.cache.eviction.FrequencySketch
+ * @since 1.0.0
+ */
+public class HotKeySampler<K> implements HotKeySamplerMXBean {
+
+    /**
+     * The count of rows of the sketch
+     */
+    static final int DEPTH = 4;
+
+    /**
+     * The count of counters per row, the over-estimation is bounded by <code>e / WIDTH</code> of the sampled
+     * accesses in the window, must be the power of 2
+     */
+    static final int WIDTH = 1024;
+
+    private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL,
+            0xcbf29ce484222325L};
+
+    private static final Comparator<Candidate<?>> CANDIDATE_COMPARATOR = Comparator.comparingLong(c -> c.count);
+
+    private final int topK;
+
+    private final int sampleInterval;
+
+    private final long windowNanos;
+
+    private final LongSupplier nanoClock;
+
+    private final AtomicLongArray counters = new AtomicLongArray(DEPTH * WIDTH);
+
+    private final PriorityQueue<Candidate<K>> heap = new PriorityQueue<>(CANDIDATE_COMPARATOR);
+
+    private final Map<K, Candidate<K>> candidates = new HashMap<>();
+
+    private final AtomicLong windowStart;
+
+    /**
+     * The minimum count of the full heap, the keys whose counts do not exceed it are not offered
+     */
+    private volatile long threshold;
+
+    /**
+     * The hot keys of the last completed window, <code>null</code> if no window was completed
+     */
+    private volatile List<HotKey> lastHotKeys;
+
+    /**
+     * @param topK           the maximum count of hot keys
+     * @param sampleInterval one of how many accesses is sampled, which is rounded up to the power of 2
+     * @param window         the duration of window
+     * @param unit           the unit of duration
+     */
+    public HotKeySampler(int topK, int sampleInterval, long window, TimeUnit unit) {
+        this(topK, sampleInterval, window, unit, System::nanoTime);
+    }
+
+    HotKeySampler(int topK, int sampleInterval, long window, TimeUnit unit, LongSupplier nanoClock) {
+        if (topK < 1 || sampleInterval < 1 || window < 1) {
+            throw new IllegalArgumentException("The topK, the sampleInterval and the window must be positive!");
+        }
+        this.topK = topK;
+        this.sampleInterval = 1 << (Integer.SIZE - Integer.numberOfLeadingZeros(sampleInterval - 1));
+        this.windowNanos = unit.toNanos(window);
+        this.nanoClock = nanoClock;
+        this.windowStart = new AtomicLong(nanoClock.getAsLong());
+    }
+
+    /**
+     * Records the access of key
+     *
+     * @param key the non-null key
+     */
+    public void record(K key) {
+        if ((ThreadLocalRandom.current().nextInt() & (sampleInterval - 1)) != 0) {
+            return;
+        }
+        rollIfRequired();
+        long count = increment(key);
+        if (count > threshold) {
+            offer(key, count);
+        }
+    }
+
+    @Override
+    public List<HotKey> getHotKeys() {
+        rollIfRequired();
+        List<HotKey> hotKeys = lastHotKeys;
+        if (hotKeys == null) {
+            synchronized (heap) {
+                hotKeys = snapshot(nanoClock.getAsLong() - windowStart.get());
+            }
+        }
+        return hotKeys;
+    }
+
+    @Override
+    public int getTopK() {
+        return topK;
+    }
+
+    @Override
+    public int getSampleInterval() {
+        return sampleInterval;
+    }
+
+    @Override
+    public long getWindowSeconds() {
+        return TimeUnit.NANOSECONDS.toSeconds(windowNanos);
+    }
+
+    private void rollIfRequired() {
+        long now = nanoClock.getAsLong();
+        long start = windowStart.get();
+        if (now - start >= windowNanos && windowStart.compareAndSet(start, now)) {
+            synchronized (heap) {
+                lastHotKeys = snapshot(now - start);
+                heap.clear();
+                candidates.clear();
+                threshold = 0;
+            }
+            for (int i = 0; i < counters.length(); i++) {
+                counters.set(i, 0);
+            }
+        }
+    }
+
+    /**
+     * @return the estimated count of sampled accesses of key in current window
+     */
+    private long increment(K key) {
+        long hash = spread(key.hashCode());
+        long count = Long.MAX_VALUE;
+        for (int i = 0; i < DEPTH; i++) {
+            int index = i * WIDTH + (int) ((((hash ^ SEEDS[i]) * SEEDS[i]) >>> 32) & (WIDTH - 1));
+            count = Math.min(count, counters.incrementAndGet(index));
+        }
+        return count;
+    }
+
+    private void offer(K key, long count) {
+        synchronized (heap) {
+            Candidate<K> candidate = candidates.get(key);
+            if (candidate != null) {
+                heap.remove(candidate);
+                candidate.count = count;
+                heap.add(candidate);
+            } else if (heap.size() < topK) {
+                add(key, count);
+            } else if (count > heap.peek().count) {
+                candidates.remove(heap.poll().key);
+                add(key, count);
+            }
+            threshold = heap.size() < topK ? 0 : heap.peek().count;
+        }
+    }
+
+    private void add(K key, long count) {
+        Candidate<K> candidate = new Candidate<>(key, count);
+        candidates.put(key, candidate);
+        heap.add(candidate);
+    }
+
+    private List<HotKey> snapshot(long elapsedNanos) {
+        double seconds = Math.max(elapsedNanos, 1L) / 1e9d;
+        List<Candidate<K>> sorted = new ArrayList<>(heap);
+        sorted.sort(CANDIDATE_COMPARATOR.reversed());
+        List<HotKey> hotKeys = new ArrayList<>(sorted.size());
+        for (Candidate<K> candidate : sorted) {
+            long estimatedCount = candidate.count * sampleInterval;
+            hotKeys.add(new HotKey(String.valueOf(candidate.key), estimatedCount, estimatedCount / seconds));
+        }
+        return Collections.unmodifiableList(hotKeys);
+    }
+
+    private static long spread(int hashCode) {
+        long hash = hashCode * 0x9e3779b97f4a7c15L;
+        return hash ^ (hash >>> 29);
+    }
+
+    private static class Candidate<K> {
+
+        private final K key;
+
+        private long count;
+
+        private Candidate(K key, long count) {
+            this.key = key;
+            this.count = count;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache.management;
+
+import java.util.List;
+
+/**
+ * The MXBean of {@link HotKeySampler} exposes the most frequently accessed keys of cache
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @since 1.0.0
+ */
+public interface HotKeySamplerMXBean {
+
+    /**
+     * @return the hot keys of the last completed window in the descending order of rate, or the ones of current
+     * window if no window was completed
+     */
+    List<HotKey> getHotKeys();
+
+    /**
+     * @return the maximum count of hot keys
+     */
+    int getTopK();
+
+    /**
+     * @return one of how many accesses is sampled
+     */
+    int getSampleInterval();
+
+    /**
+     * @return the duration of window in seconds
+     */
+    long getWindowSeconds();
+}
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache.management;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The lock-free histogram of latencies over the sliding time window, the values are counted in the log-linear
+ * buckets : every power of two is split into {@link #SUB_BUCKET_COUNT} linear sub-buckets, thus the relative
+ * error of percentile is bounded by <code>1 / {@link #SUB_BUCKET_COUNT}</code>, and any non-negative
+ * <code>long</code> value is accepted without the up-front range.
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see SlidingWindowCounters
+ * @since 1.0.0
+ */
+public class LatencyHistogram {
+
+    static final int SUB_BUCKET_BITS = 3;
+
+    static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private final SlidingWindowCounters counters;
+
+    public LatencyHistogram(int slotCount, long slotDuration, TimeUnit unit) {
+        this(new SlidingWindowCounters(BUCKET_COUNT, slotCount, slotDuration, unit));
+    }
+
+    LatencyHistogram(SlidingWindowCounters counters) {
+        this.counters = counters;
+    }
+
+    /**
+     * @param value the latency, the negative value is recorded as zero
+     */
+    public void record(long value) {
+        counters.increment(bucketIndex(Math.max(0L, value)));
+    }
+
+    /**
+     * @param value the latency, the negative value is recorded as zero
+     * @param count the number of samples with the same latency
+     */
+    public void record(long value, long count) {
+        if (count > 0) {
+            counters.add(bucketIndex(Math.max(0L, value)), count);
+        }
+    }
+
+    /**
+     * @return the count of values in the window
+     */
+    public long getCount() {
+        long count = 0;
+        for (long bucketCount : counters.sums()) {
+            count += bucketCount;
+        }
+        return count;
+    }
+
+    /**
+     * @param percentile the percentile in the range of (0, 100], e.g. 99.9
+     * @return the estimated value at the percentile in the window, or zero if no value was recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        long[] bucketCounts = counters.sums();
+        long count = 0;
+        for (long bucketCount : bucketCounts) {
+            count += bucketCount;
+        }
+        if (count == 0) {
+            return 0L;
+        }
+        long rank = Math.max(1L, (long) Math.ceil(percentile / 100.0d * count));
+        long accumulated = 0;
+        for (int i = 0; i < bucketCounts.length; i++) {
+            accumulated += bucketCounts[i];
+            if (accumulated >= rank) {
+                return bucketValue(i);
+            }
+        }
+        return bucketValue(bucketCounts.length - 1);
+    }
+
+    public void reset() {
+        counters.reset();
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKET_COUNT;
+        return (shift + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    /**
+     * @return the middle value of bucket
+     */
+    static long bucketValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long lowerBound = (long) (SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT) << shift;
+        return lowerBound + ((1L << shift) >>> 1);
+    }
+}
@@ -19,9 +19,11 @@ package org.geektimes.cache.management;
 import javax.cache.Cache;
 import javax.cache.configuration.CompleteConfiguration;
 import javax.cache.management.CacheMXBean;
+import javax.cache.management.CacheStatisticsMXBean;
 import javax.management.MBeanServer;
 import javax.management.MalformedObjectNameException;
 import javax.management.ObjectName;
+import javax.management.StandardMBean;
 import java.io.UnsupportedEncodingException;
 import java.lang.management.ManagementFactory;
 import java.net.URI;
@@ -41,6 +43,10 @@ public abstract class ManagementUtils {
         return new CacheMXBeanAdapter(configuration);
     }
 
+    public static ExtendedCacheStatisticsMXBean adaptExtendedCacheStatisticsMXBean(CacheStatistics cacheStatistics) {
+        return new ExtendedCacheStatisticsAdapter(cacheStatistics);
+    }
+
     private static ObjectName createObjectName(Cache<?, ?> cache,
                                                String type) {
         Hashtable<String, String> props = new Hashtable<>();
@@ -84,11 +90,47 @@ public abstract class ManagementUtils {
         }
     }
 
+    /**
+     * Register the extended MBean of {@link Cache} if the management is enabled
+     *
+     * @param cache the {@link Cache}
+     * @param type  the type of MBean, e.g. "CacheStatistics"
+     * @param mBean the MBean
+     */
+    public static void registerMBeanIfRequired(Cache<?, ?> cache, String type, Object mBean) {
+        CompleteConfiguration configuration = cache.getConfiguration(CompleteConfiguration.class);
+        if (configuration.isManagementEnabled()) {
+            registerMBean(createObjectName(cache, type), mBean, ManagementFactory.getPlatformMBeanServer());
+        }
+    }
+
+    /**
+     * Unregister the extended MBean of {@link Cache} if present
+     *
+     * @param cache the {@link Cache}
+     * @param type  the type of MBean
+     */
+    public static void unregisterMBeanIfPresent(Cache<?, ?> cache, String type) {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = createObjectName(cache, type);
+        try {
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     private static void registerCacheStatisticsMXBeanIfRequired(Cache<?, ?> cache, CompleteConfiguration configuration,
                                                                 MBeanServer mBeanServer, CacheStatistics cacheStatistics) {
         if (configuration.isStatisticsEnabled()) {
             ObjectName objectName = createObjectName(cache, "CacheStatistics");
-            registerMBean(objectName, cacheStatistics, mBeanServer);
+            // CacheStatistics also implements ExtendedCacheStatisticsMXBean, which is registered by its adapter
+            registerMBean(objectName, new StandardMBean(cacheStatistics, CacheStatisticsMXBean.class, true),
+                    mBeanServer);
+            registerMBean(createObjectName(cache, "ExtendedCacheStatistics"),
+                    adaptExtendedCacheStatisticsMXBean(cacheStatistics), mBeanServer);
         }
     }
 
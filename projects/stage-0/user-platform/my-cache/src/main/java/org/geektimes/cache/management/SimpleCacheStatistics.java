@@ -20,8 +20,11 @@ import javax.cache.management.CacheStatisticsMXBean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.LongAdder;
 
+import static java.util.concurrent.TimeUnit.SECONDS;
+
 /**
- * Cache Statistics
+ * Cache Statistics, the cost times are recorded in nanoseconds and reported in microseconds, the latencies
+ * and the recent gets are also recorded over the sliding window of {@link #WINDOW_SECONDS} seconds.
  *
  * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
  * @since 1.0.0
@@ -29,6 +32,16 @@ import java.util.concurrent.atomic.LongAdder;
  */
 public class SimpleCacheStatistics implements CacheStatisticsMXBean, CacheStatistics {
 
+    public static final int WINDOW_SLOT_COUNT = 6;
+
+    public static final long WINDOW_SLOT_SECONDS = 10;
+
+    public static final long WINDOW_SECONDS = WINDOW_SLOT_COUNT * WINDOW_SLOT_SECONDS;
+
+    private static final int RECENT_GETS = 0;
+
+    private static final int RECENT_HITS = 1;
+
     private final AtomicLong cacheHits = new AtomicLong();
 
     private final AtomicLong cacheGets = new AtomicLong();
@@ -39,12 +52,35 @@ public class SimpleCacheStatistics implements CacheStatisticsMXBean, CacheStatis
 
     private final AtomicLong cacheEvictions = new AtomicLong();
 
+    private final AtomicLong cacheExpiries = new AtomicLong();
+
+    private final AtomicLong cacheLoadWaits = new AtomicLong();
+
+    private final AtomicLong cacheEventDrops = new AtomicLong();
+
+    private final AtomicLong cacheRefreshes = new AtomicLong();
+
     private final LongAdder cacheGetTime = new LongAdder();
 
     private final LongAdder cachePutTime = new LongAdder();
 
     private final LongAdder cacheRemoveTime = new LongAdder();
 
+    private final LongAdder cacheLoads = new LongAdder();
+
+    private final LongAdder cacheLoadTime = new LongAdder();
+
+    private final LatencyHistogram getLatencies = newLatencyHistogram();
+
+    private final LatencyHistogram putLatencies = newLatencyHistogram();
+
+    private final LatencyHistogram removeLatencies = newLatencyHistogram();
+
+    private final LatencyHistogram loadLatencies = newLatencyHistogram();
+
+    private final SlidingWindowCounters recentGets = new SlidingWindowCounters(2, WINDOW_SLOT_COUNT,
+            WINDOW_SLOT_SECONDS, SECONDS);
+
     @Override
     public void clear() {
         reset();
@@ -57,21 +93,34 @@ public class SimpleCacheStatistics implements CacheStatisticsMXBean, CacheStatis
         cachePuts.set(0);
         cacheRemovals.set(0);
         cacheEvictions.set(0);
+        cacheExpiries.set(0);
+        cacheLoadWaits.set(0);
+        cacheEventDrops.set(0);
+        cacheRefreshes.set(0);
         cacheGetTime.reset();
         cachePutTime.reset();
         cacheRemoveTime.reset();
+        cacheLoads.reset();
+        cacheLoadTime.reset();
+        getLatencies.reset();
+        putLatencies.reset();
+        removeLatencies.reset();
+        loadLatencies.reset();
+        recentGets.reset();
         return this;
     }
 
     @Override
     public SimpleCacheStatistics cacheHits() {
         cacheHits.incrementAndGet();
+        recentGets.increment(RECENT_HITS);
         return this;
     }
 
     @Override
     public SimpleCacheStatistics cacheGets() {
         cacheGets.incrementAndGet();
+        recentGets.increment(RECENT_GETS);
         return this;
     }
 
@@ -93,21 +142,65 @@ public class SimpleCacheStatistics implements CacheStatisticsMXBean, CacheStatis
         return this;
     }
 
+    @Override
+    public SimpleCacheStatistics cacheExpiries() {
+        cacheExpiries.incrementAndGet();
+        return this;
+    }
+
+    @Override
+    public SimpleCacheStatistics cacheLoadWaits() {
+        cacheLoadWaits.incrementAndGet();
+        return this;
+    }
+
+    @Override
+    public SimpleCacheStatistics cacheEventDrops() {
+        cacheEventDrops.incrementAndGet();
+        return this;
+    }
+
+    @Override
+    public SimpleCacheStatistics cacheRefreshes() {
+        cacheRefreshes.incrementAndGet();
+        return this;
+    }
+
     @Override
     public SimpleCacheStatistics cacheGetsTime(long costTime) {
         cacheGetTime.add(costTime);
+        getLatencies.record(costTime);
+        return this;
+    }
+
+    @Override
+    public SimpleCacheStatistics cacheGetsTime(long costTime, int count) {
+        cacheGetTime.add(costTime);
+        if (count > 0) {
+            getLatencies.record(costTime / count, count);
+        }
         return this;
     }
 
     @Override
     public SimpleCacheStatistics cachePutsTime(long costTime) {
         cachePutTime.add(costTime);
+        putLatencies.record(costTime);
         return this;
     }
 
     @Override
     public SimpleCacheStatistics cacheRemovesTime(long costTime) {
         cacheRemoveTime.add(costTime);
+        removeLatencies.record(costTime);
+        return this;
+    }
+
+    @Override
+    public SimpleCacheStatistics cacheLoadsTime(long costTime) {
+        cacheLoads.increment();
+        cacheLoadTime.add(costTime);
+        loadLatencies.record(costTime);
         return this;
     }
 
@@ -121,7 +214,7 @@ public class SimpleCacheStatistics implements CacheStatisticsMXBean, CacheStatis
         if (getCacheGets() < 1) {
             return 0.0f;
         }
-        return (getCacheHits() / getCacheGets()) / 100.0f;
+        return getCacheHits() * 100.0f / getCacheGets();
     }
 
     @Override
@@ -134,7 +227,7 @@ public class SimpleCacheStatistics implements CacheStatisticsMXBean, CacheStatis
         if (getCacheGets() < 1) {
             return 0.0f;
         }
-        return (getCacheMisses() / getCacheGets()) / 100.0f;
+        return getCacheMisses() * 100.0f / getCacheGets();
     }
 
     @Override
@@ -157,18 +250,142 @@ public class SimpleCacheStatistics implements CacheStatisticsMXBean, CacheStatis
         return cacheEvictions.get();
     }
 
+    @Override
+    public long getCacheExpiries() {
+        return cacheExpiries.get();
+    }
+
+    @Override
+    public long getCacheLoadWaits() {
+        return cacheLoadWaits.get();
+    }
+
+    @Override
+    public long getCacheEventDrops() {
+        return cacheEventDrops.get();
+    }
+
+    @Override
+    public long getCacheRefreshes() {
+        return cacheRefreshes.get();
+    }
+
+    @Override
+    public long getCacheLoads() {
+        return cacheLoads.sum();
+    }
+
     @Override
     public float getAverageGetTime() {
-        return cacheGetTime.floatValue() / getCacheGets();
+        return averageMicros(cacheGetTime, getCacheGets());
     }
 
     @Override
     public float getAveragePutTime() {
-        return cachePutTime.floatValue() / getCachePuts();
+        return averageMicros(cachePutTime, getCachePuts());
     }
 
     @Override
     public float getAverageRemoveTime() {
-        return cacheRemoveTime.floatValue() / getCacheRemovals();
+        return averageMicros(cacheRemoveTime, getCacheRemovals());
+    }
+
+    @Override
+    public float getAverageLoadTime() {
+        return averageMicros(cacheLoadTime, getCacheLoads());
+    }
+
+    @Override
+    public long getStatisticsWindowSeconds() {
+        return WINDOW_SECONDS;
+    }
+
+    @Override
+    public long getRecentCacheGets() {
+        return recentGets.sum(RECENT_GETS);
+    }
+
+    @Override
+    public float getRecentCacheHitPercentage() {
+        long[] sums = recentGets.sums();
+        return sums[RECENT_GETS] < 1 ? 0.0f : Math.min(sums[RECENT_HITS], sums[RECENT_GETS]) * 100.0f /
+                sums[RECENT_GETS];
+    }
+
+    @Override
+    public float getRecentCacheMissPercentage() {
+        return getRecentCacheGets() < 1 ? 0.0f : 100.0f - getRecentCacheHitPercentage();
+    }
+
+    @Override
+    public float getGetTime50thPercentile() {
+        return percentileMicros(getLatencies, 50);
+    }
+
+    @Override
+    public float getGetTime99thPercentile() {
+        return percentileMicros(getLatencies, 99);
+    }
+
+    @Override
+    public float getGetTime999thPercentile() {
+        return percentileMicros(getLatencies, 99.9);
+    }
+
+    @Override
+    public float getPutTime50thPercentile() {
+        return percentileMicros(putLatencies, 50);
+    }
+
+    @Override
+    public float getPutTime99thPercentile() {
+        return percentileMicros(putLatencies, 99);
+    }
+
+    @Override
+    public float getPutTime999thPercentile() {
+        return percentileMicros(putLatencies, 99.9);
+    }
+
+    @Override
+    public float getRemoveTime50thPercentile() {
+        return percentileMicros(removeLatencies, 50);
+    }
+
+    @Override
+    public float getRemoveTime99thPercentile() {
+        return percentileMicros(removeLatencies, 99);
+    }
+
+    @Override
+    public float getRemoveTime999thPercentile() {
+        return percentileMicros(removeLatencies, 99.9);
+    }
+
+    @Override
+    public float getLoadTime50thPercentile() {
+        return percentileMicros(loadLatencies, 50);
+    }
+
+    @Override
+    public float getLoadTime99thPercentile() {
+        return percentileMicros(loadLatencies, 99);
+    }
+
+    @Override
+    public float getLoadTime999thPercentile() {
+        return percentileMicros(loadLatencies, 99.9);
+    }
+
+    private static float averageMicros(LongAdder totalNanos, long count) {
+        return count < 1 ? 0.0f : totalNanos.floatValue() / 1000.0f / count;
+    }
+
+    private static float percentileMicros(LatencyHistogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0f;
+    }
+
+    private static LatencyHistogram newLatencyHistogram() {
+        return new LatencyHistogram(WINDOW_SLOT_COUNT, WINDOW_SLOT_SECONDS, SECONDS);
     }
 }
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache.management;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * The fixed number of counters over the sliding time window, the window is split into the slots that are
+ * reused circularly, the expired slot is cleared by the first writer of the new period. The counters are
+ * lock-free, thus the increments that race with the clearing of slot may be lost, which is acceptable for
+ * the statistics.
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @since 1.0.0
+ */
+public class SlidingWindowCounters {
+
+    private final int width;
+
+    private final long slotNanos;
+
+    private final Slot[] slots;
+
+    private final LongSupplier nanoClock;
+
+    /**
+     * @param width        the number of counters
+     * @param slotCount    the number of slots in the window
+     * @param slotDuration the duration of one slot
+     * @param unit         the unit of duration
+     */
+    public SlidingWindowCounters(int width, int slotCount, long slotDuration, TimeUnit unit) {
+        this(width, slotCount, slotDuration, unit, System::nanoTime);
+    }
+
+    SlidingWindowCounters(int width, int slotCount, long slotDuration, TimeUnit unit, LongSupplier nanoClock) {
+        this.width = width;
+        this.slotNanos = unit.toNanos(slotDuration);
+        this.slots = new Slot[slotCount];
+        this.nanoClock = nanoClock;
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = new Slot(width);
+        }
+    }
+
+    public void increment(int index) {
+        add(index, 1L);
+    }
+
+    public void add(int index, long delta) {
+        long period = currentPeriod();
+        Slot slot = slots[(int) Math.floorMod(period, (long) slots.length)];
+        long slotPeriod = slot.period.get();
+        if (slotPeriod != period && slot.period.compareAndSet(slotPeriod, period)) {
+            slot.clear();
+        }
+        slot.counters.addAndGet(index, delta);
+    }
+
+    /**
+     * @param index the index of counter
+     * @return the sum of counter in the window
+     */
+    public long sum(int index) {
+        long period = currentPeriod();
+        long sum = 0;
+        for (Slot slot : slots) {
+            if (isInWindow(slot, period)) {
+                sum += slot.counters.get(index);
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * @return the sums of all counters in the window
+     */
+    public long[] sums() {
+        long period = currentPeriod();
+        long[] sums = new long[width];
+        for (Slot slot : slots) {
+            if (isInWindow(slot, period)) {
+                for (int i = 0; i < width; i++) {
+                    sums[i] += slot.counters.get(i);
+                }
+            }
+        }
+        return sums;
+    }
+
+    public void reset() {
+        for (Slot slot : slots) {
+            slot.clear();
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    private boolean isInWindow(Slot slot, long period) {
+        long slotPeriod = slot.period.get();
+        return slotPeriod <= period && slotPeriod > period - slots.length;
+    }
+
+    private long currentPeriod() {
+        return Math.floorDiv(nanoClock.getAsLong(), slotNanos);
+    }
+
+    private static class Slot {
+
+        private final AtomicLong period = new AtomicLong(Long.MIN_VALUE);
+
+        private final AtomicLongArray counters;
+
+        private Slot(int width) {
+            this.counters = new AtomicLongArray(width);
+        }
+
+        private void clear() {
+            for (int i = 0; i < counters.length(); i++) {
+                counters.set(i, 0L);
+            }
+        }
+    }
+}
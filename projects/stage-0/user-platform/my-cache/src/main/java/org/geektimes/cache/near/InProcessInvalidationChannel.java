@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache.near;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The {@link InvalidationChannel} within current JVM, the channels of the same remote {@link URI} share their
+ * subscribers, which stands in for the distributed channel in the tests.
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @since 1.0.0
+ */
+public class InProcessInvalidationChannel implements InvalidationChannel {
+
+    private static final ConcurrentMap<URI, List<InvalidationListener>> subscribersRepository =
+            new ConcurrentHashMap<>();
+
+    private final List<InvalidationListener> subscribers;
+
+    private final List<InvalidationListener> listeners = new CopyOnWriteArrayList<>();
+
+    public InProcessInvalidationChannel(URI remoteUri, Properties properties) {
+        this.subscribers = subscribersRepository.computeIfAbsent(remoteUri, uri -> new CopyOnWriteArrayList<>());
+    }
+
+    @Override
+    public void publish(Invalidation invalidation) {
+        for (InvalidationListener subscriber : subscribers) {
+            subscriber.onInvalidation(invalidation);
+        }
+    }
+
+    @Override
+    public void subscribe(InvalidationListener listener) {
+        listeners.add(listener);
+        subscribers.add(listener);
+    }
+
+    @Override
+    public void unsubscribe(InvalidationListener listener) {
+        listeners.remove(listener);
+        subscribers.remove(listener);
+    }
+
+    @Override
+    public void close() {
+        subscribers.removeAll(listeners);
+        listeners.clear();
+    }
+}
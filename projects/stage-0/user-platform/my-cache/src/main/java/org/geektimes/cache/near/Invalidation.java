@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache.near;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * The message of invalidation that is broadcast by {@link InvalidationChannel}
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @since 1.0.0
+ */
+public class Invalidation implements Serializable {
+
+    private static final long serialVersionUID = -2837411265371830562L;
+
+    private final String sourceId;
+
+    private final String cacheName;
+
+    private final byte[] key;
+
+    /**
+     * @param sourceId  the id of {@link NearCache} that sends current message
+     * @param cacheName the name of cache, <code>null</code> means all caches
+     * @param key       the serialized key, <code>null</code> means all keys
+     */
+    public Invalidation(String sourceId, String cacheName, byte[] key) {
+        this.sourceId = sourceId;
+        this.cacheName = cacheName;
+        this.key = key;
+    }
+
+    public String getSourceId() {
+        return sourceId;
+    }
+
+    public String getCacheName() {
+        return cacheName;
+    }
+
+    /**
+     * @return the serialized key, <code>null</code> means all keys
+     */
+    public byte[] getKey() {
+        return key;
+    }
+
+    public boolean isAll() {
+        return key == null;
+    }
+
+    public boolean isAllCaches() {
+        return cacheName == null;
+    }
+
+    @Override
+    public String toString() {
+        return "Invalidation{" +
+                "sourceId='" + sourceId + '\'' +
+                ", cacheName='" + cacheName + '\'' +
+                ", key=" + Arrays.toString(key) +
+                '}';
+    }
+}
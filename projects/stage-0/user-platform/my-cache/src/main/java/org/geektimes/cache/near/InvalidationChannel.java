@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache.near;
+
+import java.net.URI;
+import java.util.Properties;
+
+/**
+ * The channel broadcasts the {@link Invalidation invalidations} of {@link NearCache} to the other nodes that share
+ * the same remote caches. The implementation class must have a public constructor with the arguments in order:
+ * <ol>
+ *     <li>{@link URI} - the URI of the remote {@link javax.cache.CacheManager}</li>
+ *     <li>{@link Properties} - the properties of {@link NearCacheManager}</li>
+ * </ol>
+ * The messages that were published by the subscriber itself may be received too.
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see InProcessInvalidationChannel
+ * @since 1.0.0
+ */
+public interface InvalidationChannel extends AutoCloseable {
+
+    void publish(Invalidation invalidation);
+
+    void subscribe(InvalidationListener listener);
+
+    void unsubscribe(InvalidationListener listener);
+
+    @Override
+    void close();
+}
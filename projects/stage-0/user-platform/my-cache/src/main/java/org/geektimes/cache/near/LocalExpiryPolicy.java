@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache.near;
+
+import javax.cache.expiry.Duration;
+import javax.cache.expiry.ExpiryPolicy;
+import java.io.Serializable;
+
+/**
+ * The {@link ExpiryPolicy} of the local tier bounds the configured one by the maximum time to live, thus the local
+ * entry that missed its {@link Invalidation} is refreshed from the remote tier at the latest after that time.
+ * The accesses never extend the local entries.
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see NearCache#LOCAL_TIME_TO_LIVE_PROPERTY_NAME
+ * @since 1.0.0
+ */
+class LocalExpiryPolicy implements ExpiryPolicy, Serializable {
+
+    private static final long serialVersionUID = 4183256312893204475L;
+
+    private final ExpiryPolicy expiryPolicy;
+
+    private final Duration maxTimeToLive;
+
+    LocalExpiryPolicy(ExpiryPolicy expiryPolicy, Duration maxTimeToLive) {
+        this.expiryPolicy = expiryPolicy;
+        this.maxTimeToLive = maxTimeToLive;
+    }
+
+    @Override
+    public Duration getExpiryForCreation() {
+        return min(expiryPolicy.getExpiryForCreation());
+    }
+
+    @Override
+    public Duration getExpiryForAccess() {
+        return null;
+    }
+
+    @Override
+    public Duration getExpiryForUpdate() {
+        Duration duration = expiryPolicy.getExpiryForUpdate();
+        // null keeps the bounded expiry of the creation
+        return duration == null ? null : min(duration);
+    }
+
+    private Duration min(Duration duration) {
+        if (duration == null || duration.isEternal()) {
+            return maxTimeToLive;
+        }
+        return duration.getAdjustedTime(0L) <= maxTimeToLive.getAdjustedTime(0L) ? duration : maxTimeToLive;
+    }
+}
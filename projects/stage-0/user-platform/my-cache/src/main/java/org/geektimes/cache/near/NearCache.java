@@ -0,0 +1,241 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache.near;
+
+import org.geektimes.cache.AbstractCache;
+import org.geektimes.cache.BoundedInMemoryCache;
+import org.geektimes.cache.ExpirableEntry;
+
+import javax.cache.Cache;
+import javax.cache.CacheException;
+import javax.cache.CacheManager;
+import javax.cache.configuration.Configuration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.Collections.unmodifiableSet;
+import static org.geektimes.cache.management.ManagementUtils.registerMBeanIfRequired;
+import static org.geektimes.cache.management.ManagementUtils.unregisterMBeanIfPresent;
+
+/**
+ * The two-tier {@link Cache} puts a bounded local tier in front of the remote one, the local tier is populated
+ * by the reads and the writes, and invalidated by the {@link Invalidation invalidations} from the other nodes
+ * through {@link InvalidationChannel}.
+ * <p>
+ * The {@link org.geektimes.cache.configuration.CacheProperties properties} :
+ * <ul>
+ *     <li>{@link #LOCAL_MAX_ENTRIES_PROPERTY_NAME "local-max-entries"} : the maximum count of entries in the
+ *     local tier, default is 10000</li>
+ *     <li>{@link #LOCAL_TIME_TO_LIVE_PROPERTY_NAME "local-time-to-live"} : the maximum time in milliseconds that an
+ *     entry lives in the local tier, which bounds the staleness after a lost {@link Invalidation}, the non-positive
+ *     value means the configured expiry policy only, default is 60000</li>
+ * </ul>
+ * The hits and misses of every tier are exposed by {@link NearCacheMXBean} if the management is enabled.
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see NearCacheManager
+ * @since 1.0.0
+ */
+public class NearCache<K, V> extends AbstractCache<K, V> {
+
+    public static final String LOCAL_MAX_ENTRIES_PROPERTY_NAME = "local-max-entries";
+
+    public static final int DEFAULT_LOCAL_MAX_ENTRIES = 10000;
+
+    public static final String LOCAL_TIME_TO_LIVE_PROPERTY_NAME = "local-time-to-live";
+
+    public static final long DEFAULT_LOCAL_TIME_TO_LIVE = 60 * 1000L;
+
+    /**
+     * The type of {@link NearCacheMXBean}
+     */
+    public static final String MBEAN_TYPE = "NearCache";
+
+    private final String id = UUID.randomUUID().toString();
+
+    private final BoundedInMemoryCache<K, V> localCache;
+
+    private final Cache<K, V> remoteCache;
+
+    private final InvalidationChannel invalidationChannel;
+
+    private final InvalidationListener invalidationListener = this::onInvalidation;
+
+    private final NearCacheStatistics statistics;
+
+    /**
+     * The sequence of local modifications, the value read from the remote tier will not be kept in the local
+     * tier if any modification happens during the read.
+     */
+    private final AtomicLong modificationSequence = new AtomicLong();
+
+    public NearCache(CacheManager cacheManager, String cacheName, Configuration<K, V> configuration,
+                     BoundedInMemoryCache<K, V> localCache, Cache<K, V> remoteCache,
+                     InvalidationChannel invalidationChannel) {
+        super(cacheManager, cacheName, configuration);
+        this.localCache = localCache;
+        this.remoteCache = remoteCache;
+        this.invalidationChannel = invalidationChannel;
+        this.statistics = new NearCacheStatistics(localCache::size);
+        invalidationChannel.subscribe(invalidationListener);
+        registerMBeanIfRequired(this, MBEAN_TYPE, statistics);
+    }
+
+    @Override
+    protected boolean containsEntry(K key) throws CacheException, ClassCastException {
+        return localCache.containsKey(key) || remoteCache.containsKey(key);
+    }
+
+    @Override
+    protected ExpirableEntry<K, V> getEntry(K key) throws CacheException, ClassCastException {
+        V value = localCache.get(key);
+        if (value != null) {
+            statistics.localHit();
+            return ExpirableEntry.of(key, value);
+        }
+        statistics.localMiss();
+        long sequence = modificationSequence.get();
+        value = remoteCache.get(key);
+        if (value == null) {
+            statistics.remoteMiss();
+            return null;
+        }
+        statistics.remoteHit();
+        fillLocalCache(sequence, Collections.singletonMap(key, value));
+        return ExpirableEntry.of(key, value);
+    }
+
+    @Override
+    protected Map<K, ExpirableEntry<K, V>> getEntries(Collection<? extends K> keys) throws CacheException,
+            ClassCastException {
+        Map<K, ExpirableEntry<K, V>> entries = new HashMap<>();
+        Set<K> missingKeys = new LinkedHashSet<>();
+        localCache.getAll(new LinkedHashSet<>(keys))
+                .forEach((key, value) -> entries.put(key, ExpirableEntry.of(key, value)));
+        for (K key : keys) {
+            if (entries.containsKey(key)) {
+                statistics.localHit();
+            } else {
+                statistics.localMiss();
+                missingKeys.add(key);
+            }
+        }
+        if (!missingKeys.isEmpty()) {
+            long sequence = modificationSequence.get();
+            Map<K, V> values = remoteCache.getAll(missingKeys);
+            for (K key : missingKeys) {
+                V value = values.get(key);
+                if (value == null) {
+                    statistics.remoteMiss();
+                } else {
+                    statistics.remoteHit();
+                    entries.put(key, ExpirableEntry.of(key, value));
+                }
+            }
+            fillLocalCache(sequence, values);
+        }
+        return entries;
+    }
+
+    @Override
+    protected void putEntry(ExpirableEntry<K, V> entry) throws CacheException, ClassCastException {
+        putEntries(Collections.singleton(entry));
+    }
+
+    @Override
+    protected void putEntries(Collection<ExpirableEntry<K, V>> entries) throws CacheException, ClassCastException {
+        Map<K, V> values = new LinkedHashMap<>();
+        for (ExpirableEntry<K, V> entry : entries) {
+            values.put(entry.getKey(), entry.getValue());
+        }
+        modificationSequence.incrementAndGet();
+        remoteCache.putAll(values);
+        localCache.putAll(values);
+        values.keySet().forEach(this::publishInvalidation);
+    }
+
+    @Override
+    protected ExpirableEntry<K, V> removeEntry(K key) throws CacheException, ClassCastException {
+        modificationSequence.incrementAndGet();
+        V oldValue = remoteCache.getAndRemove(key);
+        localCache.remove(key);
+        publishInvalidation(key);
+        return oldValue == null ? null : ExpirableEntry.of(key, oldValue);
+    }
+
+    @Override
+    protected void clearEntries() throws CacheException {
+        modificationSequence.incrementAndGet();
+        remoteCache.clear();
+        localCache.clear();
+        invalidationChannel.publish(new Invalidation(id, getName(), null));
+    }
+
+    @Override
+    protected Set<K> keySet() {
+        Set<K> keys = new LinkedHashSet<>();
+        keyIterator().forEachRemaining(keys::add);
+        return unmodifiableSet(keys);
+    }
+
+    /**
+     * The keys are iterated lazily from the remote tier without its values
+     */
+    @Override
+    protected Iterator<K> keyIterator() {
+        return keyIterator(remoteCache);
+    }
+
+    @Override
+    protected void doClose() {
+        invalidationChannel.unsubscribe(invalidationListener);
+        localCache.getCacheManager().destroyCache(getName());
+        unregisterMBeanIfPresent(this, MBEAN_TYPE);
+    }
+
+    /**
+     * Keep the values that were read from the remote tier in the local tier, unless they were modified during
+     * the read.
+     */
+    private void fillLocalCache(long sequence, Map<K, V> values) {
+        if (values.isEmpty()) {
+            return;
+        }
+        localCache.putAll(values);
+        if (modificationSequence.get() != sequence) {
+            localCache.removeAll(values.keySet());
+        }
+    }
+
+    private void publishInvalidation(K key) {
+        invalidationChannel.publish(new Invalidation(id, getName(), serialize(key)));
+    }
+
+    private void onInvalidation(Invalidation invalidation) {
+        if (id.equals(invalidation.getSourceId()) || isClosed()
+                || (!invalidation.isAllCaches() && !getName().equals(invalidation.getCacheName()))) {
+            return;
+        }
+        modificationSequence.incrementAndGet();
+        if (invalidation.isAll()) {
+            localCache.clear();
+        } else {
+            localCache.remove(deserialize(invalidation.getKey()));
+        }
+        statistics.invalidated();
+    }
+}
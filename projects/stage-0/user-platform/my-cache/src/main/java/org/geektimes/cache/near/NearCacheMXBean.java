@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache.near;
+
+/**
+ * The MXBean of {@link NearCache} exposes the hits and misses of every tier
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @since 1.0.0
+ */
+public interface NearCacheMXBean {
+
+    long getLocalHits();
+
+    long getLocalMisses();
+
+    /**
+     * @return the percentage of gets that were hit in the local tier
+     */
+    float getLocalHitPercentage();
+
+    /**
+     * @return the count of local misses that were hit in the remote tier
+     */
+    long getRemoteHits();
+
+    long getRemoteMisses();
+
+    /**
+     * @return the percentage of local misses that were hit in the remote tier
+     */
+    float getRemoteHitPercentage();
+
+    /**
+     * @return the count of invalidations that were received from the other nodes
+     */
+    long getInvalidations();
+
+    /**
+     * @return the count of entries in the local tier
+     */
+    long getLocalSize();
+}
@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache.near;
+
+import org.geektimes.cache.AbstractCacheManager;
+import org.geektimes.cache.BoundedInMemoryCache;
+import org.geektimes.cache.InMemoryCacheManager;
+import org.geektimes.cache.configuration.CacheProperties;
+
+import javax.cache.Cache;
+import javax.cache.CacheException;
+import javax.cache.CacheManager;
+import javax.cache.configuration.CompleteConfiguration;
+import javax.cache.configuration.Configuration;
+import javax.cache.configuration.FactoryBuilder;
+import javax.cache.configuration.MutableConfiguration;
+import javax.cache.expiry.Duration;
+import javax.cache.expiry.ExpiryPolicy;
+import javax.cache.spi.CachingProvider;
+import java.lang.reflect.Constructor;
+import java.net.URI;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.String.format;
+import static org.geektimes.cache.configuration.CacheProperties.PROPERTY_NAME_PREFIX;
+import static org.geektimes.cache.configuration.ConfigurationUtils.mutableConfiguration;
+
+/**
+ * "near" scheme {@link CacheManager}, the {@link Cache caches} are created as {@link NearCache} whose remote tiers are
+ * managed by the {@link CacheManager} of the scheme-specific part of URI, e.g :
+ * <pre>
+ * near:redis://127.0.0.1:6379/
+ * </pre>
+ * The fragment of URI could identify the different nodes within the same JVM, e.g "near:redis://127.0.0.1:6379/#a".
+ * The {@link InvalidationChannel} is specified by the property
+ * {@link #INVALIDATION_CHANNEL_PROPERTY_NAME "javax.cache.CacheManager.near.invalidation-channel"},
+ * default is {@link InProcessInvalidationChannel}.
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see NearCache
+ * @since 1.0.0
+ */
+public class NearCacheManager extends AbstractCacheManager {
+
+    /**
+     * The property name of the class name of {@link InvalidationChannel}
+     */
+    public static final String INVALIDATION_CHANNEL_PROPERTY_NAME = "javax.cache.CacheManager.near.invalidation-channel";
+
+    private final URI remoteUri;
+
+    private final InMemoryCacheManager localCacheManager;
+
+    private final InvalidationChannel invalidationChannel;
+
+    public NearCacheManager(CachingProvider cachingProvider, URI uri, ClassLoader classLoader, Properties properties) {
+        super(cachingProvider, uri, classLoader, properties);
+        this.remoteUri = URI.create(getURI().getSchemeSpecificPart());
+        Properties localProperties = new Properties();
+        localProperties.putAll(getProperties());
+        this.localCacheManager = new InMemoryCacheManager(cachingProvider, getURI(), getClassLoader(), localProperties);
+        this.invalidationChannel = createInvalidationChannel();
+    }
+
+    @Override
+    protected <K, V, C extends Configuration<K, V>> Cache doCreateCache(String cacheName, C configuration) {
+        MutableConfiguration<K, V> tierConfiguration = tierConfiguration(mutableConfiguration(configuration));
+        Cache<K, V> remoteCache = getOrCreateRemoteCache(cacheName, tierConfiguration);
+        CacheProperties cacheProperties = new CacheProperties(cacheName, getProperties());
+        int localMaxEntries = cacheProperties.getInt(NearCache.LOCAL_MAX_ENTRIES_PROPERTY_NAME,
+                NearCache.DEFAULT_LOCAL_MAX_ENTRIES);
+        localCacheManager.getProperties().setProperty(PROPERTY_NAME_PREFIX + cacheName + "." +
+                BoundedInMemoryCache.MAX_ENTRIES_PROPERTY_NAME, String.valueOf(localMaxEntries));
+        long localTimeToLive = cacheProperties.getLong(NearCache.LOCAL_TIME_TO_LIVE_PROPERTY_NAME,
+                NearCache.DEFAULT_LOCAL_TIME_TO_LIVE);
+        BoundedInMemoryCache<K, V> localCache = (BoundedInMemoryCache<K, V>)
+                localCacheManager.createCache(cacheName, localTierConfiguration(tierConfiguration, localTimeToLive));
+        return new NearCache<>(this, cacheName, configuration, localCache, remoteCache, invalidationChannel);
+    }
+
+    @Override
+    protected void doClose() {
+        localCacheManager.close();
+        invalidationChannel.close();
+    }
+
+    /**
+     * The remote caches may be shared by the nodes, thus the existed one is reused if the creation fails.
+     */
+    private <K, V> Cache<K, V> getOrCreateRemoteCache(String cacheName, CompleteConfiguration<K, V> configuration) {
+        CacheManager remoteCacheManager = getCachingProvider().getCacheManager(remoteUri, getClassLoader(),
+                getProperties());
+        try {
+            return remoteCacheManager.createCache(cacheName, configuration);
+        } catch (CacheException e) {
+            // created by another node
+            Cache<K, V> remoteCache = remoteCacheManager.getCache(cacheName, configuration.getKeyType(),
+                    configuration.getValueType());
+            if (remoteCache == null) {
+                throw e;
+            }
+            return remoteCache;
+        }
+    }
+
+    /**
+     * The tiers only keep the types and the expiry policy, the loader, the writer, the listeners and
+     * the statistics are handled by the {@link NearCache} itself.
+     */
+    private static <K, V> MutableConfiguration<K, V> tierConfiguration(CompleteConfiguration<K, V> configuration) {
+        return new MutableConfiguration<K, V>()
+                .setTypes(configuration.getKeyType(), configuration.getValueType())
+                .setExpiryPolicyFactory(configuration.getExpiryPolicyFactory());
+    }
+
+    /**
+     * The expiry policy of the local tier is bounded by the time to live, thus the local entries do not outlive
+     * the lost {@link Invalidation invalidations} forever.
+     */
+    private static <K, V> MutableConfiguration<K, V> localTierConfiguration(MutableConfiguration<K, V> configuration,
+                                                                            long timeToLive) {
+        if (timeToLive < 1) {
+            return configuration;
+        }
+        ExpiryPolicy expiryPolicy = new LocalExpiryPolicy(configuration.getExpiryPolicyFactory().create(),
+                new Duration(TimeUnit.MILLISECONDS, timeToLive));
+        return new MutableConfiguration<>(configuration)
+                .setExpiryPolicyFactory(new FactoryBuilder.SingletonFactory<>(expiryPolicy));
+    }
+
+    private InvalidationChannel createInvalidationChannel() {
+        String className = getProperties().getProperty(INVALIDATION_CHANNEL_PROPERTY_NAME,
+                InProcessInvalidationChannel.class.getName());
+        try {
+            Class<?> channelClass = getClassLoader().loadClass(className);
+            if (!InvalidationChannel.class.isAssignableFrom(channelClass)) {
+                throw new ClassCastException(format("The class[%s] must implement %s", className,
+                        InvalidationChannel.class.getName()));
+            }
+            Constructor<?> constructor = channelClass.getConstructor(URI.class, Properties.class);
+            return (InvalidationChannel) constructor.newInstance(remoteUri, getProperties());
+        } catch (Throwable e) {
+            throw new CacheException(e);
+        }
+    }
+}
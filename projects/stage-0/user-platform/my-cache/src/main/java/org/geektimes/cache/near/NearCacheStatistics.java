@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache.near;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * The statistics of tiers of {@link NearCache}
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @since 1.0.0
+ */
+class NearCacheStatistics implements NearCacheMXBean {
+
+    private final LongAdder localHits = new LongAdder();
+
+    private final LongAdder localMisses = new LongAdder();
+
+    private final LongAdder remoteHits = new LongAdder();
+
+    private final LongAdder remoteMisses = new LongAdder();
+
+    private final LongAdder invalidations = new LongAdder();
+
+    private final LongSupplier localSize;
+
+    NearCacheStatistics(LongSupplier localSize) {
+        this.localSize = localSize;
+    }
+
+    void localHit() {
+        localHits.increment();
+    }
+
+    void localMiss() {
+        localMisses.increment();
+    }
+
+    void remoteHit() {
+        remoteHits.increment();
+    }
+
+    void remoteMiss() {
+        remoteMisses.increment();
+    }
+
+    void invalidated() {
+        invalidations.increment();
+    }
+
+    @Override
+    public long getLocalHits() {
+        return localHits.sum();
+    }
+
+    @Override
+    public long getLocalMisses() {
+        return localMisses.sum();
+    }
+
+    @Override
+    public float getLocalHitPercentage() {
+        return percentage(getLocalHits(), getLocalMisses());
+    }
+
+    @Override
+    public long getRemoteHits() {
+        return remoteHits.sum();
+    }
+
+    @Override
+    public long getRemoteMisses() {
+        return remoteMisses.sum();
+    }
+
+    @Override
+    public float getRemoteHitPercentage() {
+        return percentage(getRemoteHits(), getRemoteMisses());
+    }
+
+    @Override
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    @Override
+    public long getLocalSize() {
+        return localSize.getAsLong();
+    }
+
+    private static float percentage(long hits, long misses) {
+        long requests = hits + misses;
+        return requests < 1 ? 0.0f : hits * 100.0f / requests;
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache.offheap;
+
+import org.geektimes.cache.AbstractCache;
+import org.geektimes.cache.ExpirableEntry;
+import org.geektimes.cache.configuration.CacheProperties;
+import org.geektimes.cache.io.Codec;
+
+import javax.cache.Cache;
+import javax.cache.CacheException;
+import javax.cache.CacheManager;
+import javax.cache.configuration.Configuration;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static java.util.Collections.unmodifiableSet;
+import static org.geektimes.cache.management.ManagementUtils.registerMBeanIfRequired;
+import static org.geektimes.cache.management.ManagementUtils.unregisterMBeanIfPresent;
+
+/**
+ * Off-heap {@link Cache} whose keys and values are serialized by {@link Codec} into the slabs of
+ * direct memory, thus the entries are invisible to the garbage collector. The keys are compared by their
+ * serialized bytes.
+ * <p>
+ * The {@link CacheProperties properties} :
+ * <ul>
+ *     <li>{@link #MAX_MEMORY_PROPERTY_NAME "max-memory"} : the memory budget in bytes, default is 64 MB</li>
+ *     <li>{@link #SLAB_SIZE_PROPERTY_NAME "slab-size"} : the size of slab in bytes, which is also the maximum size
+ *     of entry, default is 1 MB</li>
+ * </ul>
+ * The entries that were not read recently will be evicted when the budget is exhausted, the occupancy and
+ * the fragmentation of slabs are exposed by {@link OffHeapCacheMXBean} if the management is enabled.
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see SlabStore
+ * @since 1.0.0
+ */
+public class OffHeapCache<K, V> extends AbstractCache<K, V> {
+
+    public static final String MAX_MEMORY_PROPERTY_NAME = "max-memory";
+
+    public static final String SLAB_SIZE_PROPERTY_NAME = "slab-size";
+
+    public static final long DEFAULT_MAX_MEMORY = 64L * 1024 * 1024;
+
+    public static final int DEFAULT_SLAB_SIZE = 1024 * 1024;
+
+    /**
+     * The type of {@link OffHeapCacheMXBean}
+     */
+    public static final String MBEAN_TYPE = "OffHeapCache";
+
+    private final SlabStore store;
+
+    public OffHeapCache(CacheManager cacheManager, String cacheName, Configuration<K, V> configuration) {
+        super(cacheManager, cacheName, configuration);
+        CacheProperties properties = getCacheProperties();
+        this.store = new SlabStore(properties.getInt(SLAB_SIZE_PROPERTY_NAME, DEFAULT_SLAB_SIZE),
+                properties.getLong(MAX_MEMORY_PROPERTY_NAME, DEFAULT_MAX_MEMORY));
+        registerMBeanIfRequired(this, MBEAN_TYPE, store);
+    }
+
+    @Override
+    protected boolean containsEntry(K key) throws CacheException, ClassCastException {
+        return store.contains(serialize(key));
+    }
+
+    @Override
+    protected ExpirableEntry<K, V> getEntry(K key) throws CacheException, ClassCastException {
+        return toEntry(key, store.get(serialize(key)));
+    }
+
+    @Override
+    protected void putEntry(ExpirableEntry<K, V> entry) throws CacheException, ClassCastException {
+        byte[] key = serialize(entry.getKey());
+        List<SlabStore.Record> evictedRecords;
+        try {
+            evictedRecords = store.put(key, serialize(entry.getValue()), entry.getTimestamp());
+        } catch (IllegalArgumentException e) {
+            throw new CacheException(e);
+        }
+        for (SlabStore.Record record : evictedRecords) {
+            if (record.key == key) {
+                // the record that can't be stored is the entry itself
+                onEntryRejected(entry);
+            } else {
+                onEntryEvicted(toEntry(deserialize(record.key), record));
+            }
+        }
+    }
+
+    /**
+     * The entries are copied out of the slabs, thus the renewed timestamp is written back to the record
+     */
+    @Override
+    protected void touchEntry(ExpirableEntry<K, V> entry) throws CacheException, ClassCastException {
+        store.touch(serialize(entry.getKey()), entry.getTimestamp());
+    }
+
+    @Override
+    protected ExpirableEntry<K, V> removeEntry(K key) throws CacheException, ClassCastException {
+        return toEntry(key, store.remove(serialize(key)));
+    }
+
+    @Override
+    protected void clearEntries() throws CacheException {
+        store.clear();
+    }
+
+    @Override
+    protected Set<K> keySet() {
+        Set<K> keys = new LinkedHashSet<>();
+        for (byte[] key : store.keys()) {
+            keys.add(deserialize(key));
+        }
+        return unmodifiableSet(keys);
+    }
+
+    /**
+     * The keys are deserialized on demand
+     */
+    @Override
+    protected Iterator<K> keyIterator() {
+        Iterator<byte[]> keys = store.keys().iterator();
+        return new Iterator<K>() {
+
+            @Override
+            public boolean hasNext() {
+                return keys.hasNext();
+            }
+
+            @Override
+            public K next() {
+                return deserialize(keys.next());
+            }
+        };
+    }
+
+    @Override
+    protected void doClose() {
+        store.clear();
+        unregisterMBeanIfPresent(this, MBEAN_TYPE);
+    }
+
+    private ExpirableEntry<K, V> toEntry(K key, SlabStore.Record record) {
+        if (record == null) {
+            return null;
+        }
+        ExpirableEntry<K, V> entry = ExpirableEntry.of(key, deserialize(record.value));
+        entry.setTimestamp(record.timestamp);
+        return entry;
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache.offheap;
+
+/**
+ * The MXBean of {@link OffHeapCache} exposes the occupancy and the fragmentation of slabs
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @since 1.0.0
+ */
+public interface OffHeapCacheMXBean {
+
+    /**
+     * @return the memory budget in bytes
+     */
+    long getMaxMemory();
+
+    /**
+     * @return the bytes of allocated slabs
+     */
+    long getAllocatedMemory();
+
+    /**
+     * @return the bytes of chunks in use
+     */
+    long getUsedMemory();
+
+    /**
+     * @return the bytes of records (header, key and value) in use
+     */
+    long getPayloadMemory();
+
+    int getSlabSize();
+
+    int getSlabCount();
+
+    long getEntryCount();
+
+    /**
+     * @return the count of records that were evicted to reclaim the memory
+     */
+    long getEvictionCount();
+
+    /**
+     * @return the ratio of used memory to allocated memory
+     */
+    float getOccupancy();
+
+    /**
+     * @return the ratio of wasted bytes inside the used chunks
+     */
+    float getFragmentation();
+}
@@ -0,0 +1,354 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache.offheap;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+/**
+ * The allocator carves the direct {@link ByteBuffer slabs} into the fixed-size chunks, every slab belongs to one
+ * size class whose chunk size grows by {@link #GROWTH_FACTOR}. The freed chunks are kept in the free list of
+ * their size class and reused first, the slab could be reassigned to another size class once all of its chunks
+ * were freed.
+ * <p>
+ * The address of chunk is composed of the slab index (plus one, thus {@link #NULL_ADDRESS} is never a valid address)
+ * in the high 32 bits and the offset in the low 32 bits.
+ * <p>
+ * Current class is not thread-safe.
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @since 1.0.0
+ */
+class SlabAllocator {
+
+    static final long NULL_ADDRESS = 0L;
+
+    static final int MIN_CHUNK_SIZE = 64;
+
+    static final double GROWTH_FACTOR = 1.25;
+
+    private final int slabSize;
+
+    private final int maxSlabs;
+
+    private final SizeClass[] sizeClasses;
+
+    private final List<Slab> slabs = new ArrayList<>();
+
+    private long usedMemory;
+
+    SlabAllocator(int slabSize, long maxMemory) {
+        if (slabSize < MIN_CHUNK_SIZE) {
+            throw new IllegalArgumentException("The slab size must not be less than " + MIN_CHUNK_SIZE);
+        }
+        this.slabSize = slabSize;
+        this.maxSlabs = (int) Math.max(1, Math.min(Integer.MAX_VALUE, maxMemory / slabSize));
+        this.sizeClasses = createSizeClasses(slabSize);
+    }
+
+    private static SizeClass[] createSizeClasses(int slabSize) {
+        List<SizeClass> sizeClasses = new ArrayList<>();
+        int chunkSize = MIN_CHUNK_SIZE;
+        while (chunkSize < slabSize) {
+            sizeClasses.add(new SizeClass(chunkSize));
+            // 8-byte aligned
+            chunkSize = (Math.max(chunkSize + 8, (int) (chunkSize * GROWTH_FACTOR)) + 7) & ~7;
+        }
+        sizeClasses.add(new SizeClass(slabSize));
+        return sizeClasses.toArray(new SizeClass[0]);
+    }
+
+    /**
+     * @param size the size of record
+     * @return the index of size class, or <code>-1</code> if the size exceeds the slab size
+     */
+    int sizeClassIndex(int size) {
+        int low = 0, high = sizeClasses.length - 1;
+        if (size > sizeClasses[high].chunkSize) {
+            return -1;
+        }
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sizeClasses[middle].chunkSize < size) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Allocate a chunk that fits the specified size
+     *
+     * @param size the size of record
+     * @return the address of chunk, or {@link #NULL_ADDRESS} if the memory budget is exhausted
+     * @throws IllegalArgumentException if the size exceeds the slab size
+     */
+    long allocate(int size) throws IllegalArgumentException {
+        int index = sizeClassIndex(size);
+        if (index < 0) {
+            throw new IllegalArgumentException("The size[" + size + "] exceeds the slab size[" + slabSize + "]");
+        }
+        SizeClass sizeClass = sizeClasses[index];
+        long address;
+        if (sizeClass.freeCount > 0) {
+            address = sizeClass.freeChunks[--sizeClass.freeCount];
+        } else {
+            if (sizeClass.carvingSlab < 0 || sizeClass.carvingOffset + sizeClass.chunkSize > slabSize) {
+                if (slabs.size() >= maxSlabs) {
+                    return NULL_ADDRESS;
+                }
+                slabs.add(new Slab(ByteBuffer.allocateDirect(slabSize), index));
+                sizeClass.carvingSlab = slabs.size() - 1;
+                sizeClass.carvingOffset = 0;
+                sizeClass.slabs.add(sizeClass.carvingSlab);
+            }
+            address = address(sizeClass.carvingSlab, sizeClass.carvingOffset);
+            sizeClass.carvingOffset += sizeClass.chunkSize;
+        }
+        usedMemory += sizeClass.chunkSize;
+        return address;
+    }
+
+    /**
+     * Free the chunk, it will be reused by the next allocation of its size class.
+     *
+     * @param address the address of chunk
+     */
+    void free(long address) {
+        SizeClass sizeClass = sizeClasses[slabs.get(slabIndex(address)).sizeClass];
+        sizeClass.pushFree(address);
+        usedMemory -= sizeClass.chunkSize;
+    }
+
+    ByteBuffer buffer(long address) {
+        return slabs.get(slabIndex(address)).buffer;
+    }
+
+    /**
+     * The CLOCK hand of the size class, it visits all carved chunks of the size class circularly.
+     *
+     * @param sizeClassIndex the index of size class
+     * @return the address of next chunk, or {@link #NULL_ADDRESS} if there is no carved chunk
+     */
+    long nextClockChunk(int sizeClassIndex) {
+        SizeClass sizeClass = sizeClasses[sizeClassIndex];
+        for (int i = 0; i <= sizeClass.slabs.size(); i++) {
+            if (sizeClass.clockSlab >= sizeClass.slabs.size()) {
+                sizeClass.clockSlab = 0;
+                sizeClass.clockOffset = 0;
+            }
+            if (sizeClass.slabs.isEmpty()) {
+                break;
+            }
+            int slabIndex = sizeClass.slabs.get(sizeClass.clockSlab);
+            if (sizeClass.clockOffset + sizeClass.chunkSize <= chunkLimit(sizeClass, slabIndex)) {
+                long address = address(slabIndex, sizeClass.clockOffset);
+                sizeClass.clockOffset += sizeClass.chunkSize;
+                return address;
+            }
+            sizeClass.clockSlab++;
+            sizeClass.clockOffset = 0;
+        }
+        return NULL_ADDRESS;
+    }
+
+    /**
+     * @param sizeClassIndex the index of size class
+     * @return the count of chunks in the slabs of size class
+     */
+    int chunkCount(int sizeClassIndex) {
+        SizeClass sizeClass = sizeClasses[sizeClassIndex];
+        return sizeClass.slabs.size() * (slabSize / sizeClass.chunkSize);
+    }
+
+    /**
+     * Select a slab from the size class that owns the most slabs except the target
+     *
+     * @param targetSizeClassIndex the index of size class that requires a slab
+     * @return the index of slab, or <code>-1</code> if not found
+     */
+    int selectSlabToReassign(int targetSizeClassIndex) {
+        SizeClass candidate = null;
+        for (int i = 0; i < sizeClasses.length; i++) {
+            SizeClass sizeClass = sizeClasses[i];
+            if (i != targetSizeClassIndex && !sizeClass.slabs.isEmpty()
+                    && (candidate == null || sizeClass.slabs.size() > candidate.slabs.size())) {
+                candidate = sizeClass;
+            }
+        }
+        return candidate == null ? -1 : candidate.slabs.get(candidate.slabs.size() - 1);
+    }
+
+    /**
+     * Iterate the carved chunks of the specified slab
+     *
+     * @param slabIndex the index of slab
+     * @param action    the action for the address of chunk
+     */
+    void forEachChunk(int slabIndex, LongConsumer action) {
+        SizeClass sizeClass = sizeClasses[slabs.get(slabIndex).sizeClass];
+        int limit = chunkLimit(sizeClass, slabIndex);
+        for (int offset = 0; offset + sizeClass.chunkSize <= limit; offset += sizeClass.chunkSize) {
+            action.accept(address(slabIndex, offset));
+        }
+    }
+
+    /**
+     * Reassign the slab whose chunks were all freed to the target size class, the first byte of every new chunk
+     * will be zeroed.
+     *
+     * @param slabIndex            the index of slab
+     * @param targetSizeClassIndex the index of target size class
+     */
+    void reassignSlab(int slabIndex, int targetSizeClassIndex) {
+        Slab slab = slabs.get(slabIndex);
+        SizeClass source = sizeClasses[slab.sizeClass];
+        source.removeFreeChunks(slabIndex);
+        source.slabs.remove(Integer.valueOf(slabIndex));
+        if (source.carvingSlab == slabIndex) {
+            source.carvingSlab = -1;
+        }
+        source.clockSlab = 0;
+        source.clockOffset = 0;
+
+        SizeClass target = sizeClasses[targetSizeClassIndex];
+        slab.sizeClass = targetSizeClassIndex;
+        target.slabs.add(slabIndex);
+        for (int offset = 0; offset + target.chunkSize <= slabSize; offset += target.chunkSize) {
+            slab.buffer.put(offset, (byte) 0);
+            target.pushFree(address(slabIndex, offset));
+        }
+    }
+
+    /**
+     * Release all slabs
+     */
+    void clear() {
+        slabs.clear();
+        usedMemory = 0;
+        for (SizeClass sizeClass : sizeClasses) {
+            sizeClass.reset();
+        }
+    }
+
+    int getSlabSize() {
+        return slabSize;
+    }
+
+    int getSlabCount() {
+        return slabs.size();
+    }
+
+    long getMaxMemory() {
+        return (long) maxSlabs * slabSize;
+    }
+
+    long getAllocatedMemory() {
+        return (long) slabs.size() * slabSize;
+    }
+
+    long getUsedMemory() {
+        return usedMemory;
+    }
+
+    int getSizeClassCount() {
+        return sizeClasses.length;
+    }
+
+    static int offset(long address) {
+        return (int) address;
+    }
+
+    private int chunkLimit(SizeClass sizeClass, int slabIndex) {
+        return slabIndex == sizeClass.carvingSlab ? sizeClass.carvingOffset : slabSize;
+    }
+
+    private static int slabIndex(long address) {
+        return (int) (address >>> 32) - 1;
+    }
+
+    private static long address(int slabIndex, int offset) {
+        return ((long) (slabIndex + 1) << 32) | offset;
+    }
+
+    private static class Slab {
+
+        private final ByteBuffer buffer;
+
+        private int sizeClass;
+
+        private Slab(ByteBuffer buffer, int sizeClass) {
+            this.buffer = buffer;
+            this.sizeClass = sizeClass;
+        }
+    }
+
+    private static class SizeClass {
+
+        private final int chunkSize;
+
+        private final List<Integer> slabs = new ArrayList<>();
+
+        private long[] freeChunks = new long[16];
+
+        private int freeCount;
+
+        private int carvingSlab = -1;
+
+        private int carvingOffset;
+
+        private int clockSlab;
+
+        private int clockOffset;
+
+        private SizeClass(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        private void pushFree(long address) {
+            if (freeCount == freeChunks.length) {
+                freeChunks = Arrays.copyOf(freeChunks, freeCount << 1);
+            }
+            freeChunks[freeCount++] = address;
+        }
+
+        private void removeFreeChunks(int slabIndex) {
+            int count = 0;
+            for (int i = 0; i < freeCount; i++) {
+                if (slabIndex(freeChunks[i]) != slabIndex) {
+                    freeChunks[count++] = freeChunks[i];
+                }
+            }
+            freeCount = count;
+        }
+
+        private void reset() {
+            slabs.clear();
+            freeChunks = new long[16];
+            freeCount = 0;
+            carvingSlab = -1;
+            carvingOffset = 0;
+            clockSlab = 0;
+            clockOffset = 0;
+        }
+    }
+}
@@ -0,0 +1,431 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache.offheap;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.geektimes.cache.offheap.SlabAllocator.NULL_ADDRESS;
+import static org.geektimes.cache.offheap.SlabAllocator.offset;
+
+/**
+ * The thread-safe store of serialized records in the slabs of {@link SlabAllocator}, the records are indexed by
+ * an open-addressing (linear probing) hash table that only keeps the hash and the address of records on the heap.
+ * <p>
+ * The layout of record :
+ * <pre>
+ * | flags (1) | hash (4) | key length (4) | value length (4) | timestamp (8) | key bytes | value bytes |
+ * </pre>
+ * When the memory budget is exhausted, the records of the same size class are evicted by CLOCK, the records that
+ * were read since the last visit of the hand get a second chance unless they are expired. If the size class owns
+ * no reclaimable chunk, a slab of the largest size class will be emptied and reassigned.
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @since 1.0.0
+ */
+class SlabStore implements OffHeapCacheMXBean {
+
+    private static final byte LIVE = 1;
+
+    private static final byte REFERENCED = 2;
+
+    private static final int HASH_OFFSET = 1;
+
+    private static final int KEY_LENGTH_OFFSET = 5;
+
+    private static final int VALUE_LENGTH_OFFSET = 9;
+
+    private static final int TIMESTAMP_OFFSET = 13;
+
+    static final int HEADER_SIZE = 21;
+
+    private static final long TOMBSTONE = -1L;
+
+    private static final int INITIAL_CAPACITY = 1 << 10;
+
+    private final SlabAllocator allocator;
+
+    private long[] addresses;
+
+    private int[] hashes;
+
+    private int size;
+
+    private int tombstones;
+
+    private long payloadMemory;
+
+    private long evictionCount;
+
+    SlabStore(int slabSize, long maxMemory) {
+        this.allocator = new SlabAllocator(slabSize, maxMemory);
+        resetIndex();
+    }
+
+    synchronized boolean contains(byte[] key) {
+        return find(key, hash(key)) >= 0;
+    }
+
+    synchronized Record get(byte[] key) {
+        int slot = find(key, hash(key));
+        if (slot < 0) {
+            return null;
+        }
+        long address = addresses[slot];
+        ByteBuffer buffer = allocator.buffer(address);
+        int offset = offset(address);
+        buffer.put(offset, (byte) (buffer.get(offset) | REFERENCED));
+        return readRecord(address);
+    }
+
+    /**
+     * Put the record, the old record associated with the same key will be replaced.
+     *
+     * @return the evicted records, including the specified record if it can't be stored
+     * @throws IllegalArgumentException if the record is larger than the slab
+     */
+    synchronized List<Record> put(byte[] key, byte[] value, long timestamp) throws IllegalArgumentException {
+        int recordSize = HEADER_SIZE + key.length + value.length;
+        if (allocator.sizeClassIndex(recordSize) < 0) {
+            throw new IllegalArgumentException("The record size[" + recordSize + "] exceeds the slab size["
+                    + allocator.getSlabSize() + "]");
+        }
+        int hash = hash(key);
+        int slot = find(key, hash);
+        if (slot >= 0) {
+            // free the old record first, thus its chunk could be reused
+            release(slot);
+        }
+
+        List<Record> evictedRecords = new ArrayList<>(0);
+        long address = allocate(recordSize, evictedRecords);
+        if (address == NULL_ADDRESS) {
+            evictionCount++;
+            evictedRecords.add(new Record(hash, key, value, timestamp));
+            return evictedRecords;
+        }
+        writeRecord(address, hash, key, value, timestamp);
+        payloadMemory += recordSize;
+        insert(address, hash);
+        return evictedRecords;
+    }
+
+    /**
+     * Update the timestamp of the record in place
+     *
+     * @return <code>false</code> if the record is absent
+     */
+    synchronized boolean touch(byte[] key, long timestamp) {
+        int slot = find(key, hash(key));
+        if (slot < 0) {
+            return false;
+        }
+        long address = addresses[slot];
+        allocator.buffer(address).putLong(offset(address) + TIMESTAMP_OFFSET, timestamp);
+        return true;
+    }
+
+    synchronized Record remove(byte[] key) {
+        int slot = find(key, hash(key));
+        if (slot < 0) {
+            return null;
+        }
+        Record record = readRecord(addresses[slot]);
+        release(slot);
+        return record;
+    }
+
+    synchronized List<byte[]> keys() {
+        List<byte[]> keys = new ArrayList<>(size);
+        for (long address : addresses) {
+            if (isOccupied(address)) {
+                ByteBuffer buffer = allocator.buffer(address);
+                int offset = offset(address);
+                keys.add(read(buffer, offset + HEADER_SIZE, buffer.getInt(offset + KEY_LENGTH_OFFSET)));
+            }
+        }
+        return keys;
+    }
+
+    synchronized void clear() {
+        allocator.clear();
+        resetIndex();
+        payloadMemory = 0;
+    }
+
+    // OffHeapCacheMXBean
+
+    @Override
+    public synchronized long getMaxMemory() {
+        return allocator.getMaxMemory();
+    }
+
+    @Override
+    public synchronized long getAllocatedMemory() {
+        return allocator.getAllocatedMemory();
+    }
+
+    @Override
+    public synchronized long getUsedMemory() {
+        return allocator.getUsedMemory();
+    }
+
+    @Override
+    public synchronized long getPayloadMemory() {
+        return payloadMemory;
+    }
+
+    @Override
+    public int getSlabSize() {
+        return allocator.getSlabSize();
+    }
+
+    @Override
+    public synchronized int getSlabCount() {
+        return allocator.getSlabCount();
+    }
+
+    @Override
+    public synchronized long getEntryCount() {
+        return size;
+    }
+
+    @Override
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    @Override
+    public synchronized float getOccupancy() {
+        long allocatedMemory = allocator.getAllocatedMemory();
+        return allocatedMemory == 0 ? 0.0f : (float) allocator.getUsedMemory() / allocatedMemory;
+    }
+
+    @Override
+    public synchronized float getFragmentation() {
+        long usedMemory = allocator.getUsedMemory();
+        return usedMemory == 0 ? 0.0f : 1.0f - (float) payloadMemory / usedMemory;
+    }
+
+    // Allocation and eviction
+
+    private long allocate(int recordSize, List<Record> evictedRecords) {
+        long address = allocator.allocate(recordSize);
+        if (address != NULL_ADDRESS) {
+            return address;
+        }
+        int sizeClassIndex = allocator.sizeClassIndex(recordSize);
+        // CLOCK, two rounds at most
+        for (int i = 0, rounds = 2 * allocator.chunkCount(sizeClassIndex); i < rounds; i++) {
+            long candidate = allocator.nextClockChunk(sizeClassIndex);
+            if (candidate == NULL_ADDRESS) {
+                break;
+            }
+            ByteBuffer buffer = allocator.buffer(candidate);
+            int offset = offset(candidate);
+            byte flags = buffer.get(offset);
+            if ((flags & LIVE) == 0) {
+                continue;
+            }
+            if ((flags & REFERENCED) != 0 && !isExpired(buffer, offset)) {
+                // second chance
+                buffer.put(offset, (byte) (flags & ~REFERENCED));
+                continue;
+            }
+            evict(candidate, evictedRecords);
+            return allocator.allocate(recordSize);
+        }
+
+        int slabIndex = allocator.selectSlabToReassign(sizeClassIndex);
+        if (slabIndex < 0) {
+            return NULL_ADDRESS;
+        }
+        allocator.forEachChunk(slabIndex, chunk -> {
+            if ((allocator.buffer(chunk).get(offset(chunk)) & LIVE) != 0) {
+                evict(chunk, evictedRecords);
+            }
+        });
+        allocator.reassignSlab(slabIndex, sizeClassIndex);
+        return allocator.allocate(recordSize);
+    }
+
+    private void evict(long address, List<Record> evictedRecords) {
+        Record record = readRecord(address);
+        int slot = record.hash & (addresses.length - 1);
+        while (addresses[slot] != address) {
+            slot = (slot + 1) & (addresses.length - 1);
+        }
+        release(slot);
+        evictionCount++;
+        evictedRecords.add(record);
+    }
+
+    private void release(int slot) {
+        long address = addresses[slot];
+        ByteBuffer buffer = allocator.buffer(address);
+        int offset = offset(address);
+        payloadMemory -= HEADER_SIZE + buffer.getInt(offset + KEY_LENGTH_OFFSET)
+                + buffer.getInt(offset + VALUE_LENGTH_OFFSET);
+        buffer.put(offset, (byte) 0);
+        allocator.free(address);
+        addresses[slot] = TOMBSTONE;
+        size--;
+        tombstones++;
+    }
+
+    // Open-addressing index
+
+    private int find(byte[] key, int hash) {
+        int mask = addresses.length - 1;
+        int slot = hash & mask;
+        long address;
+        while ((address = addresses[slot]) != NULL_ADDRESS) {
+            if (address != TOMBSTONE && hashes[slot] == hash && keyEquals(address, key)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void insert(long address, int hash) {
+        if ((size + tombstones + 1) * 4L > addresses.length * 3L) {
+            // grow if the live records occupy more than half, or just purge the tombstones
+            rehash(size * 2L >= addresses.length ? addresses.length << 1 : addresses.length);
+        }
+        int mask = addresses.length - 1;
+        int slot = hash & mask;
+        while (isOccupied(addresses[slot])) {
+            slot = (slot + 1) & mask;
+        }
+        if (addresses[slot] == TOMBSTONE) {
+            tombstones--;
+        }
+        addresses[slot] = address;
+        hashes[slot] = hash;
+        size++;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldAddresses = this.addresses;
+        int[] oldHashes = this.hashes;
+        this.addresses = new long[capacity];
+        this.hashes = new int[capacity];
+        this.tombstones = 0;
+        int mask = capacity - 1;
+        for (int i = 0; i < oldAddresses.length; i++) {
+            if (isOccupied(oldAddresses[i])) {
+                int slot = oldHashes[i] & mask;
+                while (addresses[slot] != NULL_ADDRESS) {
+                    slot = (slot + 1) & mask;
+                }
+                addresses[slot] = oldAddresses[i];
+                hashes[slot] = oldHashes[i];
+            }
+        }
+    }
+
+    private void resetIndex() {
+        this.addresses = new long[INITIAL_CAPACITY];
+        this.hashes = new int[INITIAL_CAPACITY];
+        this.size = 0;
+        this.tombstones = 0;
+    }
+
+    private boolean keyEquals(long address, byte[] key) {
+        ByteBuffer buffer = allocator.buffer(address);
+        int offset = offset(address);
+        if (buffer.getInt(offset + KEY_LENGTH_OFFSET) != key.length) {
+            return false;
+        }
+        int keyOffset = offset + HEADER_SIZE;
+        for (int i = 0; i < key.length; i++) {
+            if (buffer.get(keyOffset + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Record I/O
+
+    private void writeRecord(long address, int hash, byte[] key, byte[] value, long timestamp) {
+        ByteBuffer buffer = allocator.buffer(address);
+        int offset = offset(address);
+        buffer.put(offset, LIVE);
+        buffer.putInt(offset + HASH_OFFSET, hash);
+        buffer.putInt(offset + KEY_LENGTH_OFFSET, key.length);
+        buffer.putInt(offset + VALUE_LENGTH_OFFSET, value.length);
+        buffer.putLong(offset + TIMESTAMP_OFFSET, timestamp);
+        buffer.position(offset + HEADER_SIZE);
+        buffer.put(key);
+        buffer.put(value);
+    }
+
+    private Record readRecord(long address) {
+        ByteBuffer buffer = allocator.buffer(address);
+        int offset = offset(address);
+        int keyLength = buffer.getInt(offset + KEY_LENGTH_OFFSET);
+        int valueLength = buffer.getInt(offset + VALUE_LENGTH_OFFSET);
+        byte[] key = read(buffer, offset + HEADER_SIZE, keyLength);
+        byte[] value = read(buffer, offset + HEADER_SIZE + keyLength, valueLength);
+        return new Record(buffer.getInt(offset + HASH_OFFSET), key, value, buffer.getLong(offset + TIMESTAMP_OFFSET));
+    }
+
+    private static byte[] read(ByteBuffer buffer, int position, int length) {
+        byte[] bytes = new byte[length];
+        buffer.position(position);
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static boolean isExpired(ByteBuffer buffer, int offset) {
+        return System.currentTimeMillis() >= buffer.getLong(offset + TIMESTAMP_OFFSET);
+    }
+
+    private static boolean isOccupied(long address) {
+        return address != NULL_ADDRESS && address != TOMBSTONE;
+    }
+
+    private static int hash(byte[] key) {
+        int hash = Arrays.hashCode(key);
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * The copy of record on the heap
+     */
+    static class Record {
+
+        private final int hash;
+
+        final byte[] key;
+
+        final byte[] value;
+
+        final long timestamp;
+
+        private Record(int hash, byte[] key, byte[] value, long timestamp) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+            this.timestamp = timestamp;
+        }
+    }
+}
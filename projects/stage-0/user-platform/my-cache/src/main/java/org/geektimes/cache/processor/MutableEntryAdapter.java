@@ -17,11 +17,16 @@
 package org.geektimes.cache.processor;
 
 import javax.cache.Cache;
-import javax.cache.configuration.CompleteConfiguration;
+import javax.cache.processor.EntryProcessor;
 import javax.cache.processor.MutableEntry;
+import java.util.function.Supplier;
+
+import static org.geektimes.cache.ExpirableEntry.requireValueNotNull;
 
 /**
- * The Adapter class of {@link MutableEntry}
+ * The Adapter class of {@link MutableEntry} that works on the snapshot of the {@link Cache.Entry}, the mutations are
+ * recorded as the single {@link Operation} that is applied to the {@link Cache} once the {@link EntryProcessor}
+ * completes.
  *
  * @param <K> the type of key
  * @param <V> the type of value
@@ -29,23 +34,57 @@ import javax.cache.processor.MutableEntry;
  */
 public class MutableEntryAdapter<K, V> implements MutableEntry<K, V> {
 
+    /**
+     * The operation that should be applied to the {@link Cache}
+     */
+    public enum Operation {
+
+        NONE,
+
+        ACCESS,
+
+        LOAD,
+
+        CREATE,
+
+        UPDATE,
+
+        REMOVE
+    }
+
     private final K key;
 
     private final Cache<K, V> cache;
 
-    private MutableEntryAdapter(K key, Cache<K, V> cache) {
+    private final boolean existed;
+
+    /**
+     * The loader of read-through, may be <code>null</code>
+     */
+    private final Supplier<V> loader;
+
+    private V value;
+
+    private Operation operation = Operation.NONE;
+
+    private MutableEntryAdapter(K key, V value, Supplier<V> loader, Cache<K, V> cache) {
         this.key = key;
+        this.value = value;
+        this.existed = value != null;
+        this.loader = loader;
         this.cache = cache;
     }
 
     @Override
     public boolean exists() {
-        return cache.containsKey(getKey());
+        return value != null;
     }
 
     @Override
     public void remove() {
-        cache.remove(getKey());
+        // the entry that is created by current EntryProcessor is not in the cache
+        operation = existed ? Operation.REMOVE : Operation.NONE;
+        value = null;
     }
 
     @Override
@@ -55,11 +94,20 @@ public class MutableEntryAdapter<K, V> implements MutableEntry<K, V> {
 
     @Override
     public V getValue() {
-        CompleteConfiguration configuration = cache.getConfiguration(CompleteConfiguration.class);
-        // If the cache is configured to use read-through, and this method
-        // would return null because the entry is missing from the cache,
-        // the Cache's {@link CacheLoader} is called in an attempt to load the entry.
-        return configuration.isReadThrough() ? null : cache.get(key);
+        if (value != null) {
+            if (operation == Operation.NONE) {
+                operation = Operation.ACCESS;
+            }
+        } else if (loader != null && operation == Operation.NONE) {
+            // If the cache is configured to use read-through, and this method
+            // would return null because the entry is missing from the cache,
+            // the Cache's {@link CacheLoader} is called in an attempt to load the entry.
+            value = loader.get();
+            if (value != null) {
+                operation = Operation.LOAD;
+            }
+        }
+        return value;
     }
 
     @Override
@@ -69,12 +117,39 @@ public class MutableEntryAdapter<K, V> implements MutableEntry<K, V> {
 
     @Override
     public void setValue(V value) {
+        requireValueNotNull(value);
         // If exists is false and setValue is called then a mapping is added to the cache visible
         // once the EntryProcessor completes. Moreover a second invocation of exists() will return true.
-        cache.put(key, value);
+        this.value = value;
+        this.operation = existed ? Operation.UPDATE : Operation.CREATE;
+    }
+
+    /**
+     * Get the operation that should be applied to the {@link Cache}
+     *
+     * @return non-null
+     */
+    public Operation getOperation() {
+        return operation;
+    }
+
+    /**
+     * Get the value of current entry without the read-through
+     *
+     * @return <code>null</code> if the entry does not exist
+     */
+    public V getCurrentValue() {
+        return value;
     }
 
-    public static <K, V> MutableEntry<K, V> of(K key, Cache<K, V> cache) {
-        return new MutableEntryAdapter<>(key, cache);
+    /**
+     * @param key    the key
+     * @param value  the snapshot of value, <code>null</code> if the entry does not exist
+     * @param loader the loader of read-through, may be <code>null</code>
+     * @param cache  the {@link Cache}
+     * @return non-null
+     */
+    public static <K, V> MutableEntryAdapter<K, V> of(K key, V value, Supplier<V> loader, Cache<K, V> cache) {
+        return new MutableEntryAdapter<>(key, value, loader, cache);
     }
 }
@@ -3,101 +3,192 @@ package org.geektimes.cache.redis;
 import org.geektimes.cache.AbstractCache;
 import org.geektimes.cache.ExpirableEntry;
 import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
 
 import javax.cache.CacheException;
 import javax.cache.CacheManager;
 import javax.cache.configuration.Configuration;
 import java.io.*;
-import java.util.Set;
+import java.util.*;
+
+import static java.util.Collections.unmodifiableSet;
 
 public class JedisCache<K extends Serializable, V extends Serializable> extends AbstractCache<K, V> {
 
     private final Jedis jedis;
 
+    private final RedisKeyNamespace keyNamespace;
+
     public JedisCache(CacheManager cacheManager, String cacheName,
                       Configuration<K, V> configuration, Jedis jedis) {
         super(cacheManager, cacheName, configuration);
         this.jedis = jedis;
+        this.keyNamespace = RedisKeyNamespace.of(getCacheProperties());
     }
 
     @Override
     protected boolean containsEntry(K key) throws CacheException, ClassCastException {
-        byte[] keyBytes = serialize(key);
+        byte[] keyBytes = serializeKey(key);
         return jedis.exists(keyBytes);
     }
 
     @Override
     protected ExpirableEntry<K, V> getEntry(K key) throws CacheException, ClassCastException {
-        byte[] keyBytes = serialize(key);
+        byte[] keyBytes = serializeKey(key);
         return getEntry(keyBytes);
     }
 
     protected ExpirableEntry<K, V> getEntry(byte[] keyBytes) throws CacheException, ClassCastException {
         byte[] valueBytes = jedis.get(keyBytes);
-        return ExpirableEntry.of(deserialize(keyBytes), deserialize(valueBytes));
+        if (valueBytes == null) {
+            return null;
+        }
+        return ExpirableEntry.of(deserializeKey(keyBytes), deserialize(valueBytes));
     }
 
     @Override
     protected void putEntry(ExpirableEntry<K, V> entry) throws CacheException, ClassCastException {
-        byte[] keyBytes = serialize(entry.getKey());
+        byte[] keyBytes = serializeKey(entry.getKey());
         byte[] valueBytes = serialize(entry.getValue());
         jedis.set(keyBytes, valueBytes);
     }
 
     @Override
     protected ExpirableEntry<K, V> removeEntry(K key) throws CacheException, ClassCastException {
-        byte[] keyBytes = serialize(key);
+        byte[] keyBytes = serializeKey(key);
         ExpirableEntry<K, V> oldEntry = getEntry(keyBytes);
         jedis.del(keyBytes);
         return oldEntry;
     }
 
+    /**
+     * Get the entries by one MGET command
+     */
     @Override
-    protected void clearEntries() throws CacheException {
-        // TODO
+    protected Map<K, ExpirableEntry<K, V>> getEntries(Collection<? extends K> keys) throws CacheException,
+            ClassCastException {
+        if (keys.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<K> keyList = new ArrayList<>(keys);
+        return toEntries(keyList, jedis.mget(serializeKeys(keyList)));
     }
 
-
+    /**
+     * Put the entries by one MSET command
+     */
     @Override
-    protected Set<K> keySet() {
-        // TODO
-        return null;
+    protected void putEntries(Collection<ExpirableEntry<K, V>> entries) throws CacheException, ClassCastException {
+        if (entries.isEmpty()) {
+            return;
+        }
+        byte[][] keysValues = new byte[entries.size() * 2][];
+        int i = 0;
+        for (ExpirableEntry<K, V> entry : entries) {
+            keysValues[i++] = serializeKey(entry.getKey());
+            keysValues[i++] = serialize(entry.getValue());
+        }
+        jedis.mset(keysValues);
     }
 
+    /**
+     * Get and remove the entries by the pipelined MGET and DEL commands
+     */
     @Override
-    protected void doClose() {
-        this.jedis.close();
+    protected Map<K, ExpirableEntry<K, V>> removeEntries(Collection<? extends K> keys) throws CacheException,
+            ClassCastException {
+        if (keys.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<K> keyList = new ArrayList<>(keys);
+        byte[][] keysBytes = serializeKeys(keyList);
+        Pipeline pipeline = jedis.pipelined();
+        Response<List<byte[]>> values = pipeline.mget(keysBytes);
+        pipeline.del(keysBytes);
+        pipeline.sync();
+        return toEntries(keyList, values.get());
     }
 
-    // 是否可以抽象出一套序列化和反序列化的 API
-    private byte[] serialize(Object value) throws CacheException {
-        byte[] bytes = null;
-        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-             ObjectOutputStream objectOutputStream = new ObjectOutputStream(outputStream)
-        ) {
-            // Key -> byte[]
-            objectOutputStream.writeObject(value);
-            bytes = outputStream.toByteArray();
-        } catch (IOException e) {
-            throw new CacheException(e);
+    private byte[][] serializeKeys(List<K> keys) {
+        byte[][] keysBytes = new byte[keys.size()][];
+        for (int i = 0; i < keysBytes.length; i++) {
+            keysBytes[i] = serializeKey(keys.get(i));
         }
-        return bytes;
+        return keysBytes;
     }
 
-    private <T> T deserialize(byte[] bytes) throws CacheException {
-        if (bytes == null) {
-            return null;
+    private Map<K, ExpirableEntry<K, V>> toEntries(List<K> keys, List<byte[]> values) {
+        Map<K, ExpirableEntry<K, V>> entries = new HashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            byte[] valueBytes = values.get(i);
+            if (valueBytes != null) {
+                K key = keys.get(i);
+                entries.put(key, ExpirableEntry.of(key, deserialize(valueBytes)));
+            }
         }
-        T value = null;
-        try (ByteArrayInputStream inputStream = new ByteArrayInputStream(bytes);
-             ObjectInputStream objectInputStream = new ObjectInputStream(inputStream)
-        ) {
-            // byte[] -> Value
-            value = (T) objectInputStream.readObject();
-        } catch (Exception e) {
-            throw new CacheException(e);
-        }
-        return value;
+        return entries;
+    }
+
+    /**
+     * Delete the keys of current cache page by page from the SCAN cursor
+     */
+    @Override
+    protected void clearEntries() throws CacheException {
+        ScanParams scanParams = scanParams();
+        byte[] cursor = ScanParams.SCAN_POINTER_START_BINARY;
+        do {
+            ScanResult<byte[]> result = jedis.scan(cursor, scanParams);
+            List<byte[]> keys = result.getResult();
+            if (!keys.isEmpty()) {
+                jedis.del(keys.toArray(new byte[0][]));
+            }
+            cursor = result.getCursorAsBytes();
+        } while (!Arrays.equals(ScanParams.SCAN_POINTER_START_BINARY, cursor));
+    }
+
+    @Override
+    protected Set<K> keySet() {
+        Set<K> keys = new LinkedHashSet<>();
+        keyIterator().forEachRemaining(keys::add);
+        return unmodifiableSet(keys);
+    }
+
+    @Override
+    protected Iterator<K> keyIterator() {
+        ScanParams scanParams = scanParams();
+        return new ScanKeyIterator<K>(this::deserializeKey) {
+
+            private byte[] cursor = ScanParams.SCAN_POINTER_START_BINARY;
+
+            @Override
+            protected List<byte[]> scan() {
+                ScanResult<byte[]> result = jedis.scan(cursor, scanParams);
+                cursor = result.getCursorAsBytes();
+                if (Arrays.equals(ScanParams.SCAN_POINTER_START_BINARY, cursor)) {
+                    finish();
+                }
+                return result.getResult();
+            }
+        };
+    }
+
+    private ScanParams scanParams() {
+        return new ScanParams().match(keyNamespace.getPattern()).count(ScanKeyIterator.SCAN_COUNT);
+    }
+
+    private byte[] serializeKey(K key) {
+        return keyNamespace.toRedisKey(serialize(key));
+    }
+
+    private K deserializeKey(byte[] keyBytes) {
+        return deserialize(keyNamespace.fromRedisKey(keyBytes));
     }
 
+    @Override
+    protected void doClose() {
+        this.jedis.close();
+    }
 }
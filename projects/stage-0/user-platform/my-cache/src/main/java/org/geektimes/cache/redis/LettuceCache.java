@@ -1,5 +1,10 @@
 package org.geektimes.cache.redis;
 
+import io.lettuce.core.KeyScanCursor;
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.ScanArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.async.RedisAsyncCommands;
 import io.lettuce.core.api.sync.RedisCommands;
 import org.geektimes.cache.AbstractCache;
 import org.geektimes.cache.ExpirableEntry;
@@ -7,104 +12,231 @@ import org.geektimes.cache.ExpirableEntry;
 import javax.cache.CacheException;
 import javax.cache.CacheManager;
 import javax.cache.configuration.Configuration;
-import java.io.*;
-import java.util.Set;
+import java.io.Serializable;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
+import static java.util.Collections.unmodifiableSet;
+
+/**
+ * {@link javax.cache.Cache} based on Lettuce, the {@link org.geektimes.cache.AsyncCache asynchronous operations}
+ * are implemented by the asynchronous commands of Lettuce.
+ */
 public class LettuceCache<K extends Serializable, V extends Serializable> extends AbstractCache<K, V> {
 
-    private final RedisCommands redisCommands;
+    private final RedisCommands<byte[], byte[]> redisCommands;
+
+    private final RedisAsyncCommands<byte[], byte[]> redisAsyncCommands;
+
+    private final RedisKeyNamespace keyNamespace;
 
     public LettuceCache(CacheManager cacheManager, String cacheName,
-                        Configuration<K, V> configuration, RedisCommands redisCommands) {
+                        Configuration<K, V> configuration, StatefulRedisConnection<byte[], byte[]> connection) {
         super(cacheManager, cacheName, configuration);
-        this.redisCommands = redisCommands;
+        this.redisCommands = connection.sync();
+        this.redisAsyncCommands = connection.async();
+        this.keyNamespace = RedisKeyNamespace.of(getCacheProperties());
     }
 
     @Override
     protected boolean containsEntry(K key) throws CacheException, ClassCastException {
-//        byte[] keyBytes = serialize(key);
-//        return redisCommands.exists(keyBytes) == 1;
-        return redisCommands.exists(key) == 1;
+        byte[] keyBytes = serializeKey(key);
+        return redisCommands.exists(keyBytes) == 1;
     }
 
     @Override
     protected ExpirableEntry<K, V> getEntry(K key) throws CacheException, ClassCastException {
-        Object o = redisCommands.get(key);
-        byte[] keyBytes = serialize(key);
-
-        return ExpirableEntry.of(deserialize(keyBytes), deserialize(serialize(o)));
-
-//        return getEntry(keyBytes);
+        byte[] keyBytes = serializeKey(key);
+        return getEntry(keyBytes);
     }
 
     protected ExpirableEntry<K, V> getEntry(byte[] keyBytes) throws CacheException, ClassCastException {
-//        redisCommands.get(keyBytes)
-        byte[] valueBytes = serialize(redisCommands.get(keyBytes));
-        return ExpirableEntry.of(deserialize(keyBytes), deserialize(valueBytes));
+        byte[] valueBytes = redisCommands.get(keyBytes);
+        if (valueBytes == null) {
+            return null;
+        }
+        return ExpirableEntry.of(deserializeKey(keyBytes), deserialize(valueBytes));
     }
 
     @Override
     protected void putEntry(ExpirableEntry<K, V> entry) throws CacheException, ClassCastException {
-        byte[] keyBytes = serialize(entry.getKey());
+        byte[] keyBytes = serializeKey(entry.getKey());
         byte[] valueBytes = serialize(entry.getValue());
-        String set = redisCommands.set(entry.getKey(), String.valueOf(entry.getValue()));
-        System.out.println(set);
+        redisCommands.set(keyBytes, valueBytes);
     }
 
     @Override
     protected ExpirableEntry<K, V> removeEntry(K key) throws CacheException, ClassCastException {
-//        byte[] keyBytes = serialize(key);
-        ExpirableEntry<K, V> oldEntry = getEntry(key);
-        redisCommands.del(key);
+        byte[] keyBytes = serializeKey(key);
+        ExpirableEntry<K, V> oldEntry = getEntry(keyBytes);
+        redisCommands.del(keyBytes);
         return oldEntry;
     }
 
+    /**
+     * Get the entries by one MGET command
+     */
     @Override
-    protected void clearEntries() throws CacheException {
-        // TODO
+    protected Map<K, ExpirableEntry<K, V>> getEntries(Collection<? extends K> keys) throws CacheException,
+            ClassCastException {
+        if (keys.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<K> keyList = new ArrayList<>(keys);
+        return toEntries(keyList, redisCommands.mget(serializeKeys(keyList)));
     }
 
+    /**
+     * Put the entries by one MSET command
+     */
+    @Override
+    protected void putEntries(Collection<ExpirableEntry<K, V>> entries) throws CacheException, ClassCastException {
+        if (entries.isEmpty()) {
+            return;
+        }
+        Map<byte[], byte[]> keysValues = new LinkedHashMap<>();
+        for (ExpirableEntry<K, V> entry : entries) {
+            keysValues.put(serializeKey(entry.getKey()), serialize(entry.getValue()));
+        }
+        redisCommands.mset(keysValues);
+    }
 
+    /**
+     * Get and remove the entries by the MGET and DEL commands
+     */
     @Override
-    protected Set<K> keySet() {
-        // TODO
-        return null;
+    protected Map<K, ExpirableEntry<K, V>> removeEntries(Collection<? extends K> keys) throws CacheException,
+            ClassCastException {
+        if (keys.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<K> keyList = new ArrayList<>(keys);
+        byte[][] keysBytes = serializeKeys(keyList);
+        Map<K, ExpirableEntry<K, V>> entries = toEntries(keyList, redisCommands.mget(keysBytes));
+        redisCommands.del(keysBytes);
+        return entries;
     }
 
     @Override
-    protected void doClose() {
-        // do nothing
+    protected boolean isAsyncSupported() {
+        return true;
     }
 
-    // 是否可以抽象出一套序列化和反序列化的 API
-    private byte[] serialize(Object value) throws CacheException {
-        byte[] bytes = null;
-        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-             ObjectOutputStream objectOutputStream = new ObjectOutputStream(outputStream)
-        ) {
-            // Key -> byte[]
-            objectOutputStream.writeObject(value);
-            bytes = outputStream.toByteArray();
-        } catch (IOException e) {
-            throw new CacheException(e);
+    @Override
+    protected CompletableFuture<ExpirableEntry<K, V>> getEntryAsync(K key) {
+        return redisAsyncCommands.get(serializeKey(key)).toCompletableFuture()
+                .thenApplyAsync(valueBytes -> toEntry(key, valueBytes), getExecutor());
+    }
+
+    @Override
+    protected CompletableFuture<Map<K, ExpirableEntry<K, V>>> getEntriesAsync(Collection<? extends K> keys) {
+        if (keys.isEmpty()) {
+            return CompletableFuture.completedFuture(Collections.emptyMap());
         }
-        return bytes;
+        List<K> keyList = new ArrayList<>(keys);
+        return redisAsyncCommands.mget(serializeKeys(keyList)).toCompletableFuture()
+                .thenApplyAsync(values -> toEntries(keyList, values), getExecutor());
     }
 
-    private <T> T deserialize(byte[] bytes) throws CacheException {
-        if (bytes == null) {
-            return null;
+    @Override
+    protected CompletableFuture<Void> putEntryAsync(ExpirableEntry<K, V> entry) {
+        return redisAsyncCommands.set(serializeKey(entry.getKey()), serialize(entry.getValue())).toCompletableFuture()
+                .thenApplyAsync(result -> null, getExecutor());
+    }
+
+    /**
+     * Get and remove the entry by the pipelined GET and DEL commands
+     */
+    @Override
+    protected CompletableFuture<ExpirableEntry<K, V>> removeEntryAsync(K key) {
+        byte[] keyBytes = serializeKey(key);
+        CompletableFuture<byte[]> value = redisAsyncCommands.get(keyBytes).toCompletableFuture();
+        CompletableFuture<Long> deleted = redisAsyncCommands.del(keyBytes).toCompletableFuture();
+        return value.thenCombineAsync(deleted, (valueBytes, count) -> toEntry(key, valueBytes), getExecutor());
+    }
+
+    private ExpirableEntry<K, V> toEntry(K key, byte[] valueBytes) {
+        return valueBytes == null ? null : ExpirableEntry.of(key, deserialize(valueBytes));
+    }
+
+    private byte[][] serializeKeys(List<K> keys) {
+        byte[][] keysBytes = new byte[keys.size()][];
+        for (int i = 0; i < keysBytes.length; i++) {
+            keysBytes[i] = serializeKey(keys.get(i));
         }
-        T value = null;
-        try (ByteArrayInputStream inputStream = new ByteArrayInputStream(bytes);
-             ObjectInputStream objectInputStream = new ObjectInputStream(inputStream)
-        ) {
-            // byte[] -> Value
-            value = (T) objectInputStream.readObject();
-        } catch (Exception e) {
-            throw new CacheException(e);
+        return keysBytes;
+    }
+
+    private Map<K, ExpirableEntry<K, V>> toEntries(List<K> keys, List<KeyValue<byte[], byte[]>> values) {
+        Map<K, ExpirableEntry<K, V>> entries = new HashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            KeyValue<byte[], byte[]> value = values.get(i);
+            if (value.hasValue()) {
+                K key = keys.get(i);
+                entries.put(key, ExpirableEntry.of(key, deserialize(value.getValue())));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Delete the keys of current cache page by page from the SCAN cursor
+     */
+    @Override
+    protected void clearEntries() throws CacheException {
+        ScanArgs scanArgs = scanArgs();
+        KeyScanCursor<byte[]> cursor = redisCommands.scan(scanArgs);
+        while (true) {
+            List<byte[]> keys = cursor.getKeys();
+            if (!keys.isEmpty()) {
+                redisCommands.del(keys.toArray(new byte[0][]));
+            }
+            if (cursor.isFinished()) {
+                break;
+            }
+            cursor = redisCommands.scan(cursor, scanArgs);
         }
-        return value;
     }
 
+    @Override
+    protected Set<K> keySet() {
+        Set<K> keys = new LinkedHashSet<>();
+        keyIterator().forEachRemaining(keys::add);
+        return unmodifiableSet(keys);
+    }
+
+    @Override
+    protected Iterator<K> keyIterator() {
+        ScanArgs scanArgs = scanArgs();
+        return new ScanKeyIterator<K>(this::deserializeKey) {
+
+            private KeyScanCursor<byte[]> cursor;
+
+            @Override
+            protected List<byte[]> scan() {
+                cursor = cursor == null ? redisCommands.scan(scanArgs) : redisCommands.scan(cursor, scanArgs);
+                if (cursor.isFinished()) {
+                    finish();
+                }
+                return cursor.getKeys();
+            }
+        };
+    }
+
+    private ScanArgs scanArgs() {
+        return ScanArgs.Builder.matches(keyNamespace.getPattern()).limit(ScanKeyIterator.SCAN_COUNT);
+    }
+
+    private byte[] serializeKey(K key) {
+        return keyNamespace.toRedisKey(serialize(key));
+    }
+
+    private K deserializeKey(byte[] keyBytes) {
+        return deserialize(keyNamespace.fromRedisKey(keyBytes));
+    }
+
+    @Override
+    protected void doClose() {
+        // do nothing
+    }
 }
@@ -3,6 +3,7 @@ package org.geektimes.cache.redis;
 import io.lettuce.core.RedisClient;
 import io.lettuce.core.RedisURI;
 import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.codec.ByteArrayCodec;
 import org.geektimes.cache.AbstractCacheManager;
 
 import javax.cache.Cache;
@@ -20,20 +21,18 @@ public class LettuceCacheManager extends AbstractCacheManager {
 
     private final RedisURI redisUri;
     private final RedisClient redisClient;
-    private final StatefulRedisConnection<String, String> connection;
+    private final StatefulRedisConnection<byte[], byte[]> connection;
 
     public LettuceCacheManager(CachingProvider cachingProvider, URI uri, ClassLoader classLoader, Properties properties) {
         super(cachingProvider, uri, classLoader, properties);
         this.redisUri = new RedisURI(uri.getHost(), uri.getPort(), Duration.of(10, ChronoUnit.SECONDS));
         this.redisClient = RedisClient.create(redisUri);
-        this.connection = redisClient.connect();
+        this.connection = redisClient.connect(ByteArrayCodec.INSTANCE);
     }
 
     @Override
     protected <K, V, C extends Configuration<K, V>> Cache doCreateCache(String cacheName, C configuration) {
-        RedisClient redisClient = RedisClient.create(redisUri);
-        StatefulRedisConnection<String, String> connection = redisClient.connect();
-        return new LettuceCache(this, cacheName, configuration, connection.sync());
+        return new LettuceCache(this, cacheName, configuration, connection);
     }
 
     @Override
@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache.redis;
+
+import io.lettuce.core.RedisChannelHandler;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisConnectionStateAdapter;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.pubsub.RedisPubSubAdapter;
+import io.lettuce.core.pubsub.StatefulRedisPubSubConnection;
+import org.geektimes.cache.near.Invalidation;
+import org.geektimes.cache.near.InvalidationChannel;
+import org.geektimes.cache.near.InvalidationListener;
+
+import java.io.*;
+import java.net.URI;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * {@link InvalidationChannel} based on the Pub/Sub of Redis by Lettuce, the messages published while the
+ * subscription is interrupted are lost, thus the local entries of all caches are invalidated when the connection
+ * is lost and once again when the channel is resubscribed.
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @since 1.0.0
+ */
+public class LettuceInvalidationChannel implements InvalidationChannel {
+
+    /**
+     * The name of Redis channel
+     */
+    public static final String CHANNEL_NAME = "javax.cache.near.invalidation";
+
+    private static final byte[] CHANNEL = CHANNEL_NAME.getBytes(UTF_8);
+
+    private final Logger logger = Logger.getLogger(getClass().getName());
+
+    private final String id = UUID.randomUUID().toString();
+
+    private final List<InvalidationListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Whether the subscription is lost by the disconnection and not restored yet
+     */
+    private final AtomicBoolean resubscribing = new AtomicBoolean(false);
+
+    private final RedisClient redisClient;
+
+    private final StatefulRedisConnection<byte[], byte[]> connection;
+
+    private final StatefulRedisPubSubConnection<byte[], byte[]> pubSubConnection;
+
+    public LettuceInvalidationChannel(URI remoteUri, Properties properties) {
+        this.redisClient = RedisClient.create(RedisURI.create(remoteUri.getHost(), remoteUri.getPort()));
+        this.connection = redisClient.connect(ByteArrayCodec.INSTANCE);
+        this.pubSubConnection = redisClient.connectPubSub(ByteArrayCodec.INSTANCE);
+        this.pubSubConnection.addListener(new RedisPubSubAdapter<byte[], byte[]>() {
+            @Override
+            public void message(byte[] channel, byte[] message) {
+                onMessage(message);
+            }
+
+            @Override
+            public void subscribed(byte[] channel, long count) {
+                // the messages published before the resubscription are lost
+                if (resubscribing.compareAndSet(true, false)) {
+                    invalidateAll();
+                }
+            }
+        });
+        this.pubSubConnection.sync().subscribe(CHANNEL);
+        this.redisClient.addListener(new RedisConnectionStateAdapter() {
+            @Override
+            public void onRedisDisconnected(RedisChannelHandler<?, ?> connection) {
+                if (connection == pubSubConnection) {
+                    resubscribing.set(true);
+                    invalidateAll();
+                }
+            }
+        });
+    }
+
+    @Override
+    public void publish(Invalidation invalidation) {
+        connection.async().publish(CHANNEL, encode(invalidation));
+    }
+
+    @Override
+    public void subscribe(InvalidationListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void unsubscribe(InvalidationListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public void close() {
+        listeners.clear();
+        pubSubConnection.close();
+        connection.close();
+        redisClient.shutdown();
+    }
+
+    /**
+     * The Pub/Sub delivers at most once, thus all local entries are invalidated when the subscription is
+     * interrupted, Lettuce reconnects and resubscribes the channel automatically.
+     */
+    private void invalidateAll() {
+        logger.warning(format("The subscription of the channel[%s] was interrupted, all local entries are invalidated",
+                CHANNEL_NAME));
+        dispatch(new Invalidation(id, null, null));
+    }
+
+    private void onMessage(byte[] message) {
+        Invalidation invalidation;
+        try {
+            invalidation = decode(message);
+        } catch (IOException e) {
+            logger.severe("The invalidation message can't be decoded, caused by : " + e.getMessage());
+            return;
+        }
+        dispatch(invalidation);
+    }
+
+    private void dispatch(Invalidation invalidation) {
+        for (InvalidationListener listener : listeners) {
+            listener.onInvalidation(invalidation);
+        }
+    }
+
+    private static byte[] encode(Invalidation invalidation) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (DataOutputStream dataOutputStream = new DataOutputStream(outputStream)) {
+            dataOutputStream.writeUTF(invalidation.getSourceId());
+            dataOutputStream.writeUTF(invalidation.getCacheName());
+            byte[] key = invalidation.getKey();
+            dataOutputStream.writeInt(key == null ? -1 : key.length);
+            if (key != null) {
+                dataOutputStream.write(key);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return outputStream.toByteArray();
+    }
+
+    private static Invalidation decode(byte[] message) throws IOException {
+        try (DataInputStream dataInputStream = new DataInputStream(new ByteArrayInputStream(message))) {
+            String sourceId = dataInputStream.readUTF();
+            String cacheName = dataInputStream.readUTF();
+            int length = dataInputStream.readInt();
+            byte[] key = null;
+            if (length > -1) {
+                key = new byte[length];
+                dataInputStream.readFully(key);
+            }
+            return new Invalidation(sourceId, cacheName, key);
+        }
+    }
+}
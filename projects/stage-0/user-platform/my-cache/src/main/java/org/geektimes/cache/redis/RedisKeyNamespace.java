@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache.redis;
+
+import org.geektimes.cache.configuration.CacheProperties;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * The namespace of the keys of a {@link javax.cache.Cache} in Redis, the serialized keys are prefixed with
+ * {@link #KEY_PREFIX_PROPERTY_NAME "javax.cache.Cache.[cacheName.]key-prefix"}, the default is
+ * "&lt;length&gt;:&lt;cacheName&gt;:" (the length is the count of UTF-8 bytes of cache name), thus the keys of
+ * different caches could be scanned and cleared separately. The length makes the default prefix of any cache never
+ * be the prefix of another one, e.g. "5:users:*" does not match the keys of the cache "users:x" ("7:users:x:").
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @since 1.0.0
+ */
+public class RedisKeyNamespace {
+
+    /**
+     * The property name of the prefix of keys
+     */
+    public static final String KEY_PREFIX_PROPERTY_NAME = "key-prefix";
+
+    private final byte[] prefix;
+
+    private final byte[] pattern;
+
+    public RedisKeyNamespace(String prefix) {
+        this.prefix = prefix.getBytes(UTF_8);
+        this.pattern = buildPattern(this.prefix);
+    }
+
+    public static RedisKeyNamespace of(CacheProperties cacheProperties) {
+        return new RedisKeyNamespace(cacheProperties.getProperty(KEY_PREFIX_PROPERTY_NAME,
+                defaultPrefix(cacheProperties.getCacheName())));
+    }
+
+    /**
+     * @param cacheName the name of cache
+     * @return the length-prefixed name of cache, e.g. "5:users:"
+     */
+    static String defaultPrefix(String cacheName) {
+        return cacheName.getBytes(UTF_8).length + ":" + cacheName + ":";
+    }
+
+    /**
+     * @param keyBytes the serialized key
+     * @return the key in Redis
+     */
+    public byte[] toRedisKey(byte[] keyBytes) {
+        byte[] redisKey = Arrays.copyOf(prefix, prefix.length + keyBytes.length);
+        System.arraycopy(keyBytes, 0, redisKey, prefix.length, keyBytes.length);
+        return redisKey;
+    }
+
+    /**
+     * @param redisKey the key in Redis
+     * @return the serialized key
+     */
+    public byte[] fromRedisKey(byte[] redisKey) {
+        return Arrays.copyOfRange(redisKey, prefix.length, redisKey.length);
+    }
+
+    /**
+     * @return the glob-style pattern of SCAN that matches all keys of namespace
+     */
+    public byte[] getPattern() {
+        return pattern.clone();
+    }
+
+    private static byte[] buildPattern(byte[] prefix) {
+        ByteArrayOutputStream pattern = new ByteArrayOutputStream(prefix.length + 2);
+        for (byte b : prefix) {
+            // escape the special characters of glob-style pattern
+            if (b == '*' || b == '?' || b == '[' || b == ']' || b == '\\') {
+                pattern.write('\\');
+            }
+            pattern.write(b);
+        }
+        pattern.write('*');
+        return pattern.toByteArray();
+    }
+}
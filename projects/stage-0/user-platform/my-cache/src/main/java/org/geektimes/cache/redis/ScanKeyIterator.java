@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache.redis;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * The lazy {@link Iterator} of keys that fetches the keys page by page from the SCAN cursor of Redis,
+ * as the SCAN command, the keys may be returned more than once, and the keys that are added or removed
+ * during the iteration may or may not be returned.
+ *
+ * @param <K> the type of key
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @since 1.0.0
+ */
+abstract class ScanKeyIterator<K> implements Iterator<K> {
+
+    /**
+     * The COUNT hint of SCAN command
+     */
+    static final int SCAN_COUNT = 500;
+
+    private final Function<byte[], K> keyDeserializer;
+
+    private Iterator<byte[]> page = Collections.emptyIterator();
+
+    private boolean finished;
+
+    ScanKeyIterator(Function<byte[], K> keyDeserializer) {
+        this.keyDeserializer = keyDeserializer;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!page.hasNext() && !finished) {
+            page = scan().iterator();
+        }
+        return page.hasNext();
+    }
+
+    @Override
+    public K next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return keyDeserializer.apply(page.next());
+    }
+
+    /**
+     * Fetch the next page of keys in Redis from the cursor, {@link #finish()} must be invoked
+     * if the cursor is completed.
+     *
+     * @return non-null
+     */
+    protected abstract List<byte[]> scan();
+
+    protected final void finish() {
+        this.finished = true;
+    }
+}
@@ -17,6 +17,7 @@
 package org.geektimes.cache;
 
 import org.geektimes.cache.event.TestCacheEntryListener;
+import org.geektimes.cache.integration.ChunkedCompletionListener;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -33,17 +34,24 @@ import javax.cache.expiry.Duration;
 import javax.cache.integration.CacheLoader;
 import javax.cache.integration.CacheLoaderException;
 import javax.cache.integration.CompletionListener;
+import javax.cache.processor.EntryProcessorException;
 import javax.cache.processor.EntryProcessorResult;
 import javax.cache.spi.CachingProvider;
-import java.util.Iterator;
-import java.util.Map;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static java.util.Collections.singleton;
 import static java.util.Collections.singletonMap;
 import static javax.cache.expiry.CreatedExpiryPolicy.factoryOf;
+import static org.geektimes.cache.configuration.CacheProperties.PROPERTY_NAME_PREFIX;
 import static org.junit.Assert.*;
 
 /**
@@ -255,6 +263,90 @@ public class AbstractCacheTest {
         assertCacheEntryEvent(EventType.UPDATED, key, value, 1);
     }
 
+    @Test
+    public void testBulkOperationsInBatch() {
+        TestCacheEntryListener<String, Integer> listener = new TestCacheEntryListener<>();
+        BatchCountingCache batchCache = new BatchCountingCache(cacheManager,
+                new MutableConfiguration<String, Integer>()
+                        .setTypes(String.class, Integer.class)
+                        .addCacheEntryListenerConfiguration(listener));
+        Map<String, Integer> map = new LinkedHashMap<>();
+        for (int i = 0; i < 10; i++) {
+            map.put("k-" + i, i);
+        }
+        batchCache.putAll(map);
+        assertEquals(1, batchCache.putEntriesCount.get());
+        // the events are still published per entry
+        assertEquals(EventType.CREATED, listener.getCacheEntryEvent().getEventType());
+
+        Set<String> keys = new LinkedHashSet<>(map.keySet());
+        keys.add("missing");
+        batchCache.getEntriesCount.set(0);
+        batchCache.getEntryCount.set(0);
+        Map<String, Integer> values = batchCache.getAll(keys);
+        assertEquals(map, values);
+        // the missing key is absent in the result
+        assertFalse(values.containsKey("missing"));
+        assertEquals(1, batchCache.getEntriesCount.get());
+        assertEquals(0, batchCache.getEntryCount.get());
+
+        batchCache.removeAll(keys);
+        assertEquals(1, batchCache.removeEntriesCount.get());
+        assertEquals(EventType.REMOVED, listener.getCacheEntryEvent().getEventType());
+        assertTrue(batchCache.getAll(keys).isEmpty());
+        batchCache.close();
+    }
+
+    /**
+     * The {@link InMemoryCache} counts the invocations of the batched store hooks, whose entries are fetched by
+     * the single-key hook only if the batched one is not used.
+     */
+    private static class BatchCountingCache extends InMemoryCache<String, Integer> {
+
+        private final AtomicInteger getEntryCount = new AtomicInteger();
+
+        private final AtomicInteger getEntriesCount = new AtomicInteger();
+
+        private final AtomicInteger putEntriesCount = new AtomicInteger();
+
+        private final AtomicInteger removeEntriesCount = new AtomicInteger();
+
+        BatchCountingCache(CacheManager cacheManager, Configuration<String, Integer> configuration) {
+            super(cacheManager, "batchCountingCache", configuration);
+        }
+
+        @Override
+        protected ExpirableEntry<String, Integer> getEntry(String key) {
+            getEntryCount.incrementAndGet();
+            return super.getEntry(key);
+        }
+
+        @Override
+        protected Map<String, ExpirableEntry<String, Integer>> getEntries(Collection<? extends String> keys) {
+            getEntriesCount.incrementAndGet();
+            Map<String, ExpirableEntry<String, Integer>> entries = new HashMap<>();
+            for (String key : keys) {
+                ExpirableEntry<String, Integer> entry = super.getEntry(key);
+                if (entry != null) {
+                    entries.put(key, entry);
+                }
+            }
+            return entries;
+        }
+
+        @Override
+        protected void putEntries(Collection<ExpirableEntry<String, Integer>> entries) {
+            putEntriesCount.incrementAndGet();
+            super.putEntries(entries);
+        }
+
+        @Override
+        protected Map<String, ExpirableEntry<String, Integer>> removeEntries(Collection<? extends String> keys) {
+            removeEntriesCount.incrementAndGet();
+            return super.removeEntries(keys);
+        }
+    }
+
     @Test
     public void testIterator() {
         cache.put(key, value);
@@ -266,6 +358,33 @@ public class AbstractCacheTest {
         }
     }
 
+    @Test
+    public void testLazyIterator() {
+        for (int i = 0; i < 1000; i++) {
+            cache.put("k-" + i, i);
+        }
+        int count = 0;
+        Iterator<Cache.Entry<String, Integer>> iterator = cache.iterator();
+        while (iterator.hasNext()) {
+            Cache.Entry<String, Integer> entry = iterator.next();
+            assertTrue(entry.getKey().endsWith("-" + entry.getValue()));
+            // the cache may be modified during the iteration
+            if (entry.getKey().startsWith("k-") && entry.getValue() % 2 == 0) {
+                iterator.remove();
+            }
+            if (count < 1000) {
+                cache.put("new-" + count, count);
+            }
+            count++;
+        }
+        assertTrue(count >= 1000);
+        assertFalse(cache.containsKey("k-0"));
+        assertTrue(cache.containsKey("k-1"));
+
+        cache.removeAll();
+        assertFalse(cache.iterator().hasNext());
+    }
+
     @Test
     public void testUnwrap() {
         assertEquals("", cache.unwrap(String.class));
@@ -312,18 +431,28 @@ public class AbstractCacheTest {
         cache.loadAll(singleton(key), replaceExistingValues, listener);
         while (!completed.get()) {
         }
-        assertFalse(cache.containsKey(key));
-        assertEquals(Integer.valueOf(1), cache.get(key)); // the value comes from CacheLoader
+        assertTrue(cache.containsKey(key)); // the absent key is loaded into the empty Cache
+        assertEquals(Integer.valueOf(1), cache.get(key));
         assertNull(exceptionReference.get());
 
-        // replaceExistingValues == false
+        // the existing value is replaced
+        cache.put(key, 2);
+        completed.set(false);
+        cache.loadAll(singleton(key), replaceExistingValues, listener);
+        while (!completed.get()) {
+        }
+        assertEquals(Integer.valueOf(1), cache.get(key));
+        assertNull(exceptionReference.get());
+
+        // replaceExistingValues == false, the existing value is kept
+        cache.put(key, 2);
         completed.set(false);
         replaceExistingValues = false;
         cache.loadAll(singleton(key), replaceExistingValues, listener);
         while (!completed.get()) {
         }
         assertTrue(cache.containsKey(key));
-        assertEquals(Integer.valueOf(1), cache.get(key)); // the value comes from Cache
+        assertEquals(Integer.valueOf(2), cache.get(key)); // the value comes from Cache
         assertNull(exceptionReference.get());
 
         // test isReadThrough == false
@@ -336,6 +465,8 @@ public class AbstractCacheTest {
         assertFalse(cache.containsKey(key));
         assertNull(cache.get(key));
         assertNull(exceptionReference.get());
+        // the CompletionListener may be null
+        cache.loadAll(singleton(key), replaceExistingValues, null);
 
         cache.clear();
         cache.close();
@@ -367,6 +498,153 @@ public class AbstractCacheTest {
         cache.close();
     }
 
+    @Test
+    public void testChunkedLoadAll() throws InterruptedException {
+        String cacheName = "testCache-chunked";
+        cacheManager.getProperties().setProperty(PROPERTY_NAME_PREFIX + cacheName + "." +
+                AbstractCache.LOAD_ALL_CHUNK_SIZE_PROPERTY_NAME, "10");
+        cacheManager.getProperties().setProperty(PROPERTY_NAME_PREFIX + cacheName + "." +
+                AbstractCache.LOADER_THREADS_PROPERTY_NAME, "2");
+        AtomicInteger bulkLoads = new AtomicInteger();
+        MutableConfiguration<String, Integer> config = new MutableConfiguration<>(this.config)
+                .setCacheLoaderFactory(() -> new CacheLoader<String, Integer>() {
+                    @Override
+                    public Integer load(String key) throws CacheLoaderException {
+                        throw new UnsupportedOperationException();
+                    }
+
+                    @Override
+                    public Map<String, Integer> loadAll(Iterable<? extends String> keys) throws CacheLoaderException {
+                        bulkLoads.incrementAndGet();
+                        Map<String, Integer> values = new HashMap<>();
+                        for (String key : keys) {
+                            if (key.equals("k-13")) {
+                                throw new CacheLoaderException(key);
+                            }
+                            values.put(key, Integer.valueOf(key.substring(2)));
+                        }
+                        return values;
+                    }
+                });
+        Cache<String, Integer> cache = cacheManager.createCache(cacheName, config);
+        cache.put("k-0", -1);
+
+        Set<String> keys = new LinkedHashSet<>();
+        for (int i = 0; i < 50; i++) {
+            keys.add("k-" + i);
+        }
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicInteger completedChunks = new AtomicInteger();
+        AtomicInteger failedChunks = new AtomicInteger();
+        AtomicInteger reportedKeys = new AtomicInteger();
+        AtomicReference<Exception> exceptionReference = new AtomicReference<>();
+        cache.loadAll(keys, false, new ChunkedCompletionListener() {
+            @Override
+            public void onChunkCompletion(Set<?> keys, int completed, int total) {
+                assertEquals(5, total);
+                reportedKeys.addAndGet(keys.size());
+                completedChunks.incrementAndGet();
+            }
+
+            @Override
+            public void onChunkException(Set<?> keys, Exception e, int completed, int total) {
+                failedChunks.incrementAndGet();
+            }
+
+            @Override
+            public void onCompletion() {
+                latch.countDown();
+            }
+
+            @Override
+            public void onException(Exception e) {
+                exceptionReference.set(e);
+                latch.countDown();
+            }
+        });
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+
+        assertEquals(5, bulkLoads.get());
+        assertEquals(4, completedChunks.get());
+        assertEquals(1, failedChunks.get());
+        // the existing key is skipped, but still reported in its chunk
+        assertEquals(40, reportedKeys.get());
+        assertEquals("k-13", exceptionReference.get().getMessage());
+        // the existing value is not replaced
+        assertEquals(Integer.valueOf(-1), cache.get("k-0"));
+        assertEquals(Integer.valueOf(49), cache.get("k-49"));
+        assertFalse(cache.containsKey("k-10"));
+
+        cacheManager.destroyCache(cacheName);
+    }
+
+    @Test
+    public void testRefreshAhead() throws InterruptedException {
+        String cacheName = "testCache-refresh-ahead";
+        cacheManager.getProperties().setProperty(PROPERTY_NAME_PREFIX + cacheName + "." +
+                AbstractCache.REFRESH_AHEAD_FACTOR_PROPERTY_NAME, "0.5");
+        AtomicInteger loads = new AtomicInteger();
+        MutableConfiguration<String, Integer> config = new MutableConfiguration<>(this.config)
+                .setExpiryPolicyFactory(factoryOf(new Duration(TimeUnit.MILLISECONDS, 600)))
+                .setCacheLoaderFactory(() -> new CacheLoader<String, Integer>() {
+                    @Override
+                    public Integer load(String key) throws CacheLoaderException {
+                        try {
+                            Thread.sleep(100);
+                        } catch (InterruptedException e) {
+                            throw new CacheLoaderException(e);
+                        }
+                        return loads.incrementAndGet();
+                    }
+
+                    @Override
+                    public Map<String, Integer> loadAll(Iterable<? extends String> keys) throws CacheLoaderException {
+                        return null;
+                    }
+                });
+        Cache<String, Integer> cache = cacheManager.createCache(cacheName, config);
+        cache.put(key, 0);
+        assertEquals(Integer.valueOf(0), cache.get(key));
+        assertEquals(0, loads.get());
+
+        Thread.sleep(350);
+        // the current value is returned, only one reload is in flight
+        for (int i = 0; i < 10; i++) {
+            assertEquals(Integer.valueOf(0), cache.get(key));
+        }
+        Thread.sleep(200);
+        assertEquals(1, loads.get());
+        assertEquals(Integer.valueOf(1), cache.get(key));
+
+        cacheManager.destroyCache(cacheName);
+    }
+
+    @Test
+    public void testHotKeys() throws Exception {
+        String cacheName = "testCache-hot-keys";
+        cacheManager.getProperties().setProperty(PROPERTY_NAME_PREFIX + cacheName + "." +
+                AbstractCache.HOT_KEY_SAMPLING_PROPERTY_NAME, "true");
+        cacheManager.getProperties().setProperty(PROPERTY_NAME_PREFIX + cacheName + "." +
+                AbstractCache.HOT_KEY_SAMPLE_INTERVAL_PROPERTY_NAME, "1");
+        Cache<String, Integer> cache = cacheManager.createCache(cacheName, config);
+        for (int i = 0; i < 100; i++) {
+            cache.put("k-" + i, i);
+            cache.get(key);
+        }
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        Set<ObjectName> objectNames = mBeanServer.queryNames(new ObjectName("javax.cache:type=" +
+                AbstractCache.HOT_KEYS_MBEAN_TYPE + ",name=" + cacheName + ",*"), null);
+        assertEquals(1, objectNames.size());
+        CompositeData[] hotKeys = (CompositeData[]) mBeanServer.getAttribute(objectNames.iterator().next(),
+                "HotKeys");
+        assertEquals(AbstractCache.DEFAULT_HOT_KEY_TOP_K, hotKeys.length);
+        assertEquals(key, hotKeys[0].get("key"));
+        assertTrue((Long) hotKeys[0].get("estimatedCount") >= 100);
+
+        cacheManager.destroyCache(cacheName);
+        assertTrue(mBeanServer.queryNames(objectNames.iterator().next(), null).isEmpty());
+    }
+
     @Test
     public void testInvoke() {
 
@@ -379,7 +657,7 @@ public class AbstractCacheTest {
 
         // test MutableEntry#getValue()
         result = cache.invoke(key, (entry, args) -> entry.getValue());
-        assertNull(result);
+        assertEquals(value, result);
         // isReadThrough(true) -> (false)
         config.setReadThrough(false);
         result = cache.invoke(key, (entry, args) -> entry.getValue());
@@ -416,6 +694,124 @@ public class AbstractCacheTest {
         assertArrayEquals(new String[]{"1", "2"}, resultMap.get(key).get());
     }
 
+    @Test
+    public void testConcurrentInvoke() throws InterruptedException {
+        cache.put(key, 0);
+        int threads = 4;
+        CountDownLatch latch = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                for (int i = 0; i < 250; i++) {
+                    cache.invoke(key, (entry, args) -> {
+                        entry.setValue(entry.getValue() + 1);
+                        return null;
+                    });
+                }
+                latch.countDown();
+            }).start();
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertEquals(Integer.valueOf(1000), cache.get(key));
+
+        // the concurrent put waits for the EntryProcessor rather than being overwritten by it
+        CountDownLatch processing = new CountDownLatch(1);
+        Thread putter = new Thread(() -> {
+            try {
+                processing.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            cache.put(key, -1);
+        });
+        putter.start();
+        cache.invoke(key, (entry, args) -> {
+            processing.countDown();
+            try {
+                putter.join(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            entry.setValue(entry.getValue() + 1);
+            return null;
+        });
+        putter.join();
+        assertEquals(Integer.valueOf(-1), cache.get(key));
+
+        // the EntryProcessor is executed eagerly, the failures are reported per key
+        Set<String> keys = new LinkedHashSet<>();
+        for (int i = 0; i < 100; i++) {
+            keys.add("k-" + i);
+        }
+        Map<String, EntryProcessorResult<Integer>> resultMap = cache.invokeAll(keys, (entry, args) -> {
+            if ("k-7".equals(entry.getKey())) {
+                throw new IllegalStateException();
+            }
+            entry.setValue(1);
+            return entry.exists() ? 1 : null;
+        });
+        assertEquals(100, resultMap.size());
+        assertEquals("k-0", resultMap.keySet().iterator().next());
+        assertEquals(Integer.valueOf(1), cache.get("k-99"));
+        assertFalse(cache.containsKey("k-7"));
+        try {
+            resultMap.get("k-7").get();
+            fail();
+        } catch (EntryProcessorException expected) {
+        }
+        cache.removeAll(keys);
+    }
+
+    @Test
+    public void testInvokeDuringCoalescedLoad() throws InterruptedException {
+        String cacheName = "testCache-invoke-during-load";
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch processing = new CountDownLatch(1);
+        MutableConfiguration<String, Integer> config = new MutableConfiguration<>(this.config)
+                .setCacheLoaderFactory(() -> new CacheLoader<String, Integer>() {
+                    @Override
+                    public Integer load(String key) throws CacheLoaderException {
+                        if (loading.getCount() > 0) {
+                            loading.countDown();
+                            try {
+                                // the leader of load completes while the EntryProcessor holds the lock of key
+                                processing.await();
+                            } catch (InterruptedException e) {
+                                throw new CacheLoaderException(e);
+                            }
+                        }
+                        return 1;
+                    }
+
+                    @Override
+                    public Map<String, Integer> loadAll(Iterable<? extends String> keys) throws CacheLoaderException {
+                        return null;
+                    }
+                });
+        Cache<String, Integer> cache = cacheManager.createCache(cacheName, config);
+        AtomicReference<Integer> loadedValue = new AtomicReference<>();
+        Thread reader = new Thread(() -> loadedValue.set(cache.get(key)));
+        reader.setDaemon(true);
+        reader.start();
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        AtomicReference<Object> result = new AtomicReference<>();
+        Thread invoker = new Thread(() -> result.set(cache.invoke(key, (entry, args) -> {
+            processing.countDown();
+            return entry.getValue();
+        })));
+        invoker.setDaemon(true);
+        invoker.start();
+        invoker.join(5000);
+        reader.join(5000);
+        assertFalse(invoker.isAlive());
+        assertFalse(reader.isAlive());
+        assertEquals(1, result.get());
+        assertEquals(Integer.valueOf(1), loadedValue.get());
+        assertEquals(Integer.valueOf(1), cache.get(key));
+
+        cacheManager.destroyCache(cacheName);
+    }
+
     @Test
     public void testDeregisterCacheEntryListener() {
         cache.deregisterCacheEntryListener(cacheEntryListener);
@@ -447,8 +843,8 @@ public class AbstractCacheTest {
 
         Thread.sleep(TimeUnit.SECONDS.toMillis(2));
 
-        assertTrue(cache.containsKey(key));
-        assertNull(cache.get(key));
+        // The expired entry was removed by the expiry reaper without being read
+        assertFalse(cache.containsKey(key));
         assertCacheEntryEvent(EventType.EXPIRED, key, value, value);
     }
 
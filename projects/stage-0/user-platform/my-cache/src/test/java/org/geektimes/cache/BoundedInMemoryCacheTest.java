@@ -0,0 +1,424 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache;
+
+import org.geektimes.cache.event.TestCacheEntryListener;
+import org.geektimes.cache.eviction.EntrySizeEstimator;
+import org.geektimes.cache.eviction.Weigher;
+import org.geektimes.cache.io.CodecRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.configuration.FactoryBuilder;
+import javax.cache.configuration.MutableConfiguration;
+import javax.cache.event.CacheEntryEvent;
+import javax.cache.event.CacheEntryExpiredListener;
+import javax.cache.event.CacheEntryRemovedListener;
+import javax.cache.event.EventType;
+import javax.cache.expiry.CreatedExpiryPolicy;
+import javax.cache.expiry.Duration;
+import javax.cache.integration.CacheLoader;
+import javax.cache.integration.CacheLoaderException;
+import javax.cache.spi.CachingProvider;
+import javax.management.ObjectName;
+import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Collections.singletonList;
+import static org.geektimes.cache.configuration.CacheProperties.PROPERTY_NAME_PREFIX;
+import static org.geektimes.cache.configuration.ConfigurationUtils.cacheEntryListenerConfiguration;
+import static org.junit.Assert.*;
+
+/**
+ * {@link BoundedInMemoryCache} Test
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @since 1.0.0
+ */
+public class BoundedInMemoryCacheTest {
+
+    private CacheManager cacheManager;
+
+    @Before
+    public void init() {
+        CachingProvider cachingProvider = Caching.getCachingProvider();
+        Properties properties = new Properties();
+        properties.putAll(cachingProvider.getDefaultProperties());
+        properties.setProperty(PROPERTY_NAME_PREFIX + "lfuCache." + BoundedInMemoryCache.MAX_ENTRIES_PROPERTY_NAME, "100");
+        properties.setProperty(PROPERTY_NAME_PREFIX + "lruCache." + BoundedInMemoryCache.MAX_ENTRIES_PROPERTY_NAME, "100");
+        properties.setProperty(PROPERTY_NAME_PREFIX + "lruCache." + BoundedInMemoryCache.EVICTION_POLICY_PROPERTY_NAME, "lru");
+        properties.setProperty(PROPERTY_NAME_PREFIX + "weightCache." + BoundedInMemoryCache.MAX_WEIGHT_PROPERTY_NAME, "1000");
+        properties.setProperty(PROPERTY_NAME_PREFIX + "weightCache." + BoundedInMemoryCache.WEIGHER_PROPERTY_NAME,
+                ValueWeigher.class.getName());
+        properties.setProperty(PROPERTY_NAME_PREFIX + "weightCache." + BoundedInMemoryCache.CONCURRENCY_LEVEL_PROPERTY_NAME, "1");
+        properties.setProperty(PROPERTY_NAME_PREFIX + "sizeCache." + BoundedInMemoryCache.MAX_WEIGHT_PROPERTY_NAME, "262144");
+        properties.setProperty(AbstractCacheManager.EXPIRY_TICK_DURATION_PROPERTY_NAME, "10");
+        cacheManager = cachingProvider.getCacheManager(URI.create("in-memory://localhost/"), null, properties);
+    }
+
+    @After
+    public void destroy() {
+        for (String cacheName : cacheManager.getCacheNames()) {
+            cacheManager.destroyCache(cacheName);
+        }
+    }
+
+    @Test
+    public void testTinyLfuEviction() {
+        assertEviction("lfuCache");
+    }
+
+    @Test
+    public void testLruEviction() {
+        assertEviction("lruCache");
+    }
+
+    @Test
+    public void testUnbounded() {
+        BoundedInMemoryCache<Integer, Integer> cache = createCache("unboundedCache", new AtomicInteger());
+        for (int i = 0; i < 1000; i++) {
+            cache.put(i, i);
+        }
+        assertEquals(1000, cache.size());
+    }
+
+    @Test
+    public void testConcurrentPuts() throws InterruptedException {
+        BoundedInMemoryCache<Integer, Integer> cache = createCache("lfuCache", new AtomicInteger());
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        CountDownLatch latch = new CountDownLatch(4);
+        for (int t = 0; t < 4; t++) {
+            int offset = t * 10000;
+            executorService.execute(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    cache.put(offset + i, i);
+                }
+                latch.countDown();
+            });
+        }
+        assertTrue(latch.await(30, TimeUnit.SECONDS));
+        executorService.shutdown();
+        assertTrue(cache.size() <= 100);
+    }
+
+    @Test
+    public void testWeightBound() {
+        AtomicInteger evictions = new AtomicInteger();
+        BoundedInMemoryCache<Integer, Integer> cache = createCache("weightCache", evictions);
+        for (int i = 0; i < 20; i++) {
+            cache.put(i, 100);
+        }
+        assertEquals(1000, cache.getWeightedSize());
+        assertEquals(1000, cache.getMaxWeight());
+        assertEquals(10, cache.size());
+        assertEquals(10, evictions.get());
+        assertEquals(10, cache.getEvictionCount());
+        // the least recently used entries are evicted
+        assertFalse(cache.containsKey(0));
+        assertTrue(cache.containsKey(19));
+
+        // the heavy entry evicts the others
+        cache.put(100, 900);
+        assertTrue(cache.getWeightedSize() <= 1000);
+        assertTrue(cache.containsKey(100));
+        assertEquals(2, cache.size());
+
+        // the entry heavier than the bound is evicted itself
+        cache.put(200, 2000);
+        assertFalse(cache.containsKey(200));
+        assertTrue(cache.getWeightedSize() <= 1000);
+
+        cache.remove(100);
+        cache.clear();
+        assertEquals(0, cache.getWeightedSize());
+    }
+
+    @Test
+    public void testIterationNotTouching() {
+        BoundedInMemoryCache<Integer, Integer> cache = createCache("weightCache", new AtomicInteger());
+        for (int i = 0; i < 10; i++) {
+            cache.put(i, 100);
+        }
+        // the key 0 is the most recently used
+        assertEquals(Integer.valueOf(100), cache.get(0));
+        int count = 0;
+        for (Cache.Entry<Integer, Integer> entry : cache) {
+            count++;
+        }
+        assertEquals(10, count);
+        // the iteration does not promote the keys, the least recently used key 1 is evicted
+        cache.put(10, 100);
+        assertTrue(cache.containsKey(0));
+        assertFalse(cache.containsKey(1));
+    }
+
+    @Test
+    public void testRejectedEntry() {
+        TestCacheEntryListener<Integer, Integer> listener = new TestCacheEntryListener<>();
+        AtomicInteger removals = new AtomicInteger();
+        MutableConfiguration<Integer, Integer> configuration = new MutableConfiguration<Integer, Integer>()
+                .setTypes(Integer.class, Integer.class)
+                .addCacheEntryListenerConfiguration(cacheEntryListenerConfiguration(new RemovalCounter(removals)))
+                .addCacheEntryListenerConfiguration(listener);
+        BoundedInMemoryCache<Integer, Integer> cache = (BoundedInMemoryCache<Integer, Integer>)
+                cacheManager.createCache("weightCache", configuration);
+        // the entry heavier than the bound is neither created nor removed
+        cache.put(1, 2000);
+        assertNull(listener.getCacheEntryEvent());
+        assertEquals(0, removals.get());
+        assertFalse(cache.containsKey(1));
+        assertEquals(1, cache.getEvictionCount());
+        cache.putAll(Collections.singletonMap(2, 2000));
+        assertNull(listener.getCacheEntryEvent());
+        assertFalse(cache.containsKey(2));
+
+        // the old value is evicted rather than updated
+        cache.put(1, 100);
+        assertEquals(EventType.CREATED, listener.getCacheEntryEvent().getEventType());
+        cache.put(1, 2000);
+        CacheEntryEvent<Integer, Integer> event = listener.getCacheEntryEvent();
+        assertEquals(EventType.REMOVED, event.getEventType());
+        assertEquals(Integer.valueOf(100), event.getOldValue());
+        assertEquals(1, removals.get());
+        assertFalse(cache.containsKey(1));
+        assertEquals(0, cache.getWeightedSize());
+    }
+
+    @Test
+    public void testEstimatedWeight() {
+        MutableConfiguration<String, byte[]> configuration = new MutableConfiguration<String, byte[]>()
+                .setTypes(String.class, byte[].class);
+        BoundedInMemoryCache<String, byte[]> cache = (BoundedInMemoryCache<String, byte[]>)
+                cacheManager.createCache("sizeCache", configuration);
+        cache.put("small", new byte[200]);
+        long smallWeight = cache.getWeightedSize();
+        assertTrue(smallWeight > 200 && smallWeight < 512);
+        for (int i = 0; i < 100; i++) {
+            cache.put("large-" + i, new byte[4096]);
+        }
+        assertTrue(cache.getWeightedSize() <= 262144);
+        assertTrue(cache.size() > 1 && cache.size() < 64);
+    }
+
+    @Test
+    public void testEstimatedWeightOfNonSerializable() {
+        cacheManager.getProperties().setProperty(PROPERTY_NAME_PREFIX + "objectCache." +
+                BoundedInMemoryCache.MAX_WEIGHT_PROPERTY_NAME, "262144");
+        MutableConfiguration<String, Object> configuration = new MutableConfiguration<String, Object>()
+                .setTypes(String.class, Object.class)
+                .setStoreByValue(false);
+        BoundedInMemoryCache<String, Object> cache = (BoundedInMemoryCache<String, Object>)
+                cacheManager.createCache("objectCache", configuration);
+        Object value = new Object();
+        cache.put("a", value);
+        assertSame(value, cache.get("a"));
+        long weight = cache.getWeightedSize();
+        assertTrue(weight >= EntrySizeEstimator.DEFAULT_OBJECT_SIZE);
+        // the estimate of class is reused
+        cache.put("b", new Object());
+        assertTrue(cache.getWeightedSize() <= 2 * weight + 8);
+    }
+
+    @Test
+    public void testEstimatedWeightPerInstance() {
+        EntrySizeEstimator estimator = new EntrySizeEstimator(CodecRegistry.getInstance().getDefaultCodec());
+        long smallSize = estimator.estimate(new Payload(new byte[200]));
+        long largeSize = estimator.estimate(new Payload(new byte[2 * 1024 * 1024]));
+        assertTrue(smallSize < 512);
+        assertTrue(largeSize > 2 * 1024 * 1024);
+        // the nested collections beyond the max depth are weighed per instance as well
+        List<String> strings = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            strings.add("s-" + i);
+        }
+        List<List<List<String>>> smallList = singletonList(singletonList(new ArrayList<>(singletonList("a"))));
+        List<List<List<String>>> largeList = singletonList(singletonList(strings));
+        assertTrue(estimator.estimate(largeList) > estimator.estimate(smallList) + 1000);
+    }
+
+    @Test
+    public void testActiveExpiry() throws InterruptedException {
+        AtomicInteger expirations = new AtomicInteger();
+        MutableConfiguration<Integer, Integer> configuration = new MutableConfiguration<Integer, Integer>()
+                .setTypes(Integer.class, Integer.class)
+                .setExpiryPolicyFactory(CreatedExpiryPolicy.factoryOf(new Duration(TimeUnit.MILLISECONDS, 50)))
+                .setStatisticsEnabled(true)
+                .addCacheEntryListenerConfiguration(cacheEntryListenerConfiguration(new ExpirationCounter(expirations)));
+        BoundedInMemoryCache<Integer, Integer> cache = (BoundedInMemoryCache<Integer, Integer>)
+                cacheManager.createCache("expiryCache", configuration);
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, i);
+        }
+        assertEquals(100, cache.size());
+
+        // the entries are never read again
+        long deadline = System.currentTimeMillis() + 5000;
+        while (expirations.get() < 100 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(100, expirations.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testSingleFlightLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        MutableConfiguration<Integer, Integer> configuration = new MutableConfiguration<Integer, Integer>()
+                .setTypes(Integer.class, Integer.class)
+                .setReadThrough(true)
+                .setStatisticsEnabled(true)
+                .setManagementEnabled(true)
+                .setCacheLoaderFactory(FactoryBuilder.factoryOf(new SlowLoader(loads)));
+        BoundedInMemoryCache<Integer, Integer> cache = (BoundedInMemoryCache<Integer, Integer>)
+                cacheManager.createCache("loadingCache", configuration);
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        // all misses happen while the first load is in flight
+        CyclicBarrier barrier = new CyclicBarrier(8);
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(executorService.submit(() -> {
+                barrier.await();
+                return cache.get(1);
+            }));
+        }
+        for (Future<Integer> future : futures) {
+            assertEquals(Integer.valueOf(1), future.get(5, TimeUnit.SECONDS));
+        }
+        executorService.shutdown();
+        assertEquals(1, loads.get());
+        ObjectName objectName = ManagementFactory.getPlatformMBeanServer().queryNames(
+                new ObjectName("javax.cache:type=ExtendedCacheStatistics,name=loadingCache,*"), null)
+                .iterator().next();
+        assertEquals(7L, ManagementFactory.getPlatformMBeanServer().getAttribute(objectName, "CacheLoadWaits"));
+    }
+
+    @Test
+    public void testAsyncCache() throws Exception {
+        BoundedInMemoryCache<Integer, Integer> cache = createCache("asyncCache", new AtomicInteger());
+        AsyncCache<Integer, Integer> asyncCache = cache.unwrap(AsyncCache.class);
+        CompletableFuture<Void> putFuture = asyncCache.putAsync(1, 1);
+        // the futures of in-memory store are completed immediately
+        assertTrue(putFuture.isDone());
+        assertEquals(Integer.valueOf(1), asyncCache.getAsync(1).get());
+        assertEquals(Integer.valueOf(2), asyncCache.invokeAsync(1, (entry, args) -> {
+            entry.setValue(entry.getValue() + 1);
+            return entry.getValue();
+        }).get());
+        assertEquals(Collections.singletonMap(1, 2), asyncCache.getAllAsync(Collections.singleton(1)).get());
+        assertTrue(asyncCache.removeAsync(1).get());
+        assertFalse(asyncCache.removeAsync(1).get());
+        assertNull(asyncCache.getAsync(1).get());
+        assertEquals(0, cache.size());
+    }
+
+    private void assertEviction(String cacheName) {
+        AtomicInteger evictions = new AtomicInteger();
+        BoundedInMemoryCache<Integer, Integer> cache = createCache(cacheName, evictions);
+        for (int i = 0; i < 1000; i++) {
+            cache.put(i, i);
+        }
+        assertEquals(100, cache.size());
+        assertEquals(900, evictions.get());
+    }
+
+    private BoundedInMemoryCache<Integer, Integer> createCache(String cacheName, AtomicInteger removals) {
+        MutableConfiguration<Integer, Integer> configuration = new MutableConfiguration<Integer, Integer>()
+                .setTypes(Integer.class, Integer.class)
+                .addCacheEntryListenerConfiguration(cacheEntryListenerConfiguration(new RemovalCounter(removals)));
+        return (BoundedInMemoryCache<Integer, Integer>) cacheManager.createCache(cacheName, configuration);
+    }
+
+    public static class Payload implements Serializable {
+
+        private final byte[] data;
+
+        public Payload(byte[] data) {
+            this.data = data;
+        }
+    }
+
+    public static class ValueWeigher implements Weigher<Integer, Integer> {
+
+        @Override
+        public long weigh(Integer key, Integer value) {
+            return value;
+        }
+    }
+
+    public static class ExpirationCounter implements CacheEntryExpiredListener<Integer, Integer> {
+
+        private final AtomicInteger expirations;
+
+        public ExpirationCounter(AtomicInteger expirations) {
+            this.expirations = expirations;
+        }
+
+        @Override
+        public void onExpired(Iterable<CacheEntryEvent<? extends Integer, ? extends Integer>> events) {
+            events.forEach(event -> expirations.incrementAndGet());
+        }
+    }
+
+    public static class SlowLoader implements CacheLoader<Integer, Integer>, Serializable {
+
+        private final AtomicInteger loads;
+
+        public SlowLoader(AtomicInteger loads) {
+            this.loads = loads;
+        }
+
+        @Override
+        public Integer load(Integer key) throws CacheLoaderException {
+            loads.incrementAndGet();
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                throw new CacheLoaderException(e);
+            }
+            return key;
+        }
+
+        @Override
+        public Map<Integer, Integer> loadAll(Iterable<? extends Integer> keys) throws CacheLoaderException {
+            Map<Integer, Integer> values = new HashMap<>();
+            keys.forEach(key -> values.put(key, load(key)));
+            return values;
+        }
+    }
+
+    public static class RemovalCounter implements CacheEntryRemovedListener<Integer, Integer> {
+
+        private final AtomicInteger removals;
+
+        public RemovalCounter(AtomicInteger removals) {
+            this.removals = removals;
+        }
+
+        @Override
+        public void onRemoved(Iterable<CacheEntryEvent<? extends Integer, ? extends Integer>> events) {
+            events.forEach(event -> removals.incrementAndGet());
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.configuration.MutableConfiguration;
+import javax.cache.expiry.CreatedExpiryPolicy;
+import javax.cache.expiry.Duration;
+import javax.cache.spi.CachingProvider;
+import java.io.RandomAccessFile;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.geektimes.cache.configuration.CacheProperties.PROPERTY_NAME_PREFIX;
+import static org.junit.Assert.*;
+
+/**
+ * {@link CacheSnapshot} Test
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @since 1.0.0
+ */
+public class CacheSnapshotTest {
+
+    private static final String CACHE_NAME = "snapshotCache";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private CachingProvider cachingProvider;
+
+    private Properties properties;
+
+    @Before
+    public void init() throws Exception {
+        cachingProvider = Caching.getCachingProvider();
+        properties = new Properties();
+        properties.putAll(cachingProvider.getDefaultProperties());
+        properties.setProperty(AbstractCacheManager.SNAPSHOT_DIRECTORY_PROPERTY_NAME,
+                temporaryFolder.getRoot().getAbsolutePath());
+        properties.setProperty(PROPERTY_NAME_PREFIX + CACHE_NAME + "." + AbstractCache.SNAPSHOT_PROPERTY_NAME, "true");
+    }
+
+    @Test
+    public void testWarmRestart() throws Exception {
+        CacheManager cacheManager = newCacheManager();
+        Cache<String, Integer> cache = cacheManager.createCache(CACHE_NAME, configuration());
+        for (int i = 0; i < 100; i++) {
+            cache.put("k-" + i, i);
+        }
+        cacheManager.close();
+
+        cacheManager = newCacheManager();
+        cache = cacheManager.createCache(CACHE_NAME, configuration());
+        // the snapshot is consumed once it's opened
+        assertEquals(0, countSnapshots());
+        assertEquals(Integer.valueOf(7), cache.get("k-7"));
+        assertTrue(cache.containsKey("k-8"));
+        assertTrue(cache.remove("k-9"));
+        assertNull(cache.get("k-9"));
+        cache.put("k-10", -10);
+        assertEquals(Integer.valueOf(-10), cache.get("k-10"));
+        int count = 0;
+        for (Cache.Entry<String, Integer> entry : cache) {
+            count++;
+        }
+        assertEquals(99, count);
+        cacheManager.close();
+
+        // the entries that were not restored are written again
+        cacheManager = newCacheManager();
+        cache = cacheManager.createCache(CACHE_NAME, configuration());
+        assertEquals(Integer.valueOf(-10), cache.get("k-10"));
+        assertEquals(Integer.valueOf(99), cache.get("k-99"));
+        assertFalse(cache.containsKey("k-9"));
+        cacheManager.close();
+    }
+
+    @Test
+    public void testExpiredEntriesSkipped() throws Exception {
+        CacheManager cacheManager = newCacheManager();
+        Cache<String, Integer> cache = cacheManager.createCache(CACHE_NAME, configuration()
+                .setExpiryPolicyFactory(CreatedExpiryPolicy.factoryOf(new Duration(TimeUnit.MILLISECONDS, 300))));
+        cache.put("short", 1);
+        cacheManager.close();
+
+        cacheManager = newCacheManager();
+        cache = cacheManager.createCache(CACHE_NAME, configuration());
+        assertEquals(Integer.valueOf(1), cache.get("short"));
+        cacheManager.close();
+
+        Thread.sleep(400);
+        cacheManager = newCacheManager();
+        cache = cacheManager.createCache(CACHE_NAME, configuration());
+        assertFalse(cache.containsKey("short"));
+        cacheManager.close();
+    }
+
+    @Test
+    public void testMismatchedSnapshotRejected() throws Exception {
+        CacheManager cacheManager = newCacheManager();
+        cacheManager.createCache(CACHE_NAME, configuration()).put("key", 1);
+        cacheManager.close();
+
+        // the types are mismatched
+        cacheManager = newCacheManager();
+        Cache<String, String> cache = cacheManager.createCache(CACHE_NAME, new MutableConfiguration<String, String>()
+                .setTypes(String.class, String.class));
+        assertFalse(cache.containsKey("key"));
+        cacheManager.close();
+
+        cacheManager = newCacheManager();
+        cacheManager.createCache(CACHE_NAME, configuration()).put("key", 1);
+        cacheManager.close();
+
+        // the snapshot is corrupt
+        Path snapshot;
+        try (Stream<Path> files = Files.walk(temporaryFolder.getRoot().toPath())) {
+            snapshot = files.filter(Files::isRegularFile).findFirst().get();
+        }
+        try (RandomAccessFile file = new RandomAccessFile(snapshot.toFile(), "rw")) {
+            // flip a byte of the expiry timestamp of entry
+            file.seek(file.length() - 20);
+            int value = file.read();
+            file.seek(file.length() - 20);
+            file.write(~value);
+        }
+        cacheManager = newCacheManager();
+        assertFalse(cacheManager.createCache(CACHE_NAME, configuration()).containsKey("key"));
+        cacheManager.close();
+    }
+
+    private CacheManager newCacheManager() {
+        return new InMemoryCacheManager(cachingProvider, URI.create("in-memory://localhost/snapshot"), null,
+                properties);
+    }
+
+    private static MutableConfiguration<String, Integer> configuration() {
+        return new MutableConfiguration<String, Integer>().setTypes(String.class, Integer.class);
+    }
+
+    private long countSnapshots() throws Exception {
+        try (Stream<Path> files = Files.walk(temporaryFolder.getRoot().toPath())) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+}
@@ -21,11 +21,19 @@ import org.junit.Test;
 
 import javax.cache.Cache;
 import javax.cache.configuration.CacheEntryListenerConfiguration;
+import javax.cache.configuration.Factory;
 import javax.cache.configuration.MutableCacheEntryListenerConfiguration;
-import javax.cache.event.EventType;
+import javax.cache.event.*;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
 
 /**
  * {@link CacheEntryEventListenerAdapter} Test
@@ -49,6 +57,124 @@ public class CacheEntryEventListenerAdapterTest {
         listenerAdapter.onEvent(new GenericCacheEntryEvent(cache, EventType.REMOVED, "a", 1, 2));
     }
 
+    @Test
+    public void testOrderedBatchDelivery() throws Exception {
+        RecordingListener listener = new RecordingListener();
+        CacheEntryEventListenerAdapter<String, Integer> listenerAdapter =
+                new CacheEntryEventListenerAdapter<>(asynchronous(listener), 16, 8, false, () -> {
+                });
+        Cache cache = newCacheProxy();
+        EventType[] eventTypes = {EventType.CREATED, EventType.UPDATED, EventType.UPDATED, EventType.REMOVED};
+        int count = 1000;
+        for (int i = 0; i < count; i++) {
+            listenerAdapter.onEvent(new GenericCacheEntryEvent(cache, eventTypes[i % eventTypes.length], "a", i, i));
+        }
+        listener.await(count);
+        synchronized (listener) {
+            for (int i = 0; i < count; i++) {
+                CacheEntryEvent event = listener.events.get(i);
+                assertEquals(i, event.getValue());
+                assertEquals(eventTypes[i % eventTypes.length], event.getEventType());
+            }
+            // the consecutive updates are delivered at once
+            assertTrue(listener.invocations.get() < count);
+        }
+    }
+
+    @Test
+    public void testDropOnFull() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        RecordingListener listener = new RecordingListener(latch);
+        AtomicInteger drops = new AtomicInteger();
+        CacheEntryEventListenerAdapter<String, Integer> listenerAdapter =
+                new CacheEntryEventListenerAdapter<>(asynchronous(listener), 2, 1, true, drops::incrementAndGet);
+        Cache cache = newCacheProxy();
+        for (int i = 0; i < 10; i++) {
+            listenerAdapter.onEvent(new GenericCacheEntryEvent(cache, EventType.CREATED, "a", null, i));
+        }
+        // at most one event is being delivered, and two are queued
+        assertTrue(drops.get() >= 7);
+        latch.countDown();
+        listener.await(10 - drops.get());
+    }
+
+    @Test
+    public void testBoundedWaitOnFull() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        RecordingListener listener = new RecordingListener(latch);
+        AtomicInteger drops = new AtomicInteger();
+        CacheEntryEventListenerAdapter<String, Integer> listenerAdapter =
+                new CacheEntryEventListenerAdapter<>(asynchronous(listener), 1, 1, false, drops::incrementAndGet);
+        Cache cache = newCacheProxy();
+        long startTime = System.currentTimeMillis();
+        for (int i = 0; i < 3; i++) {
+            listenerAdapter.onEvent(new GenericCacheEntryEvent(cache, EventType.CREATED, "a", null, i));
+        }
+        // the publisher gives up waiting for the blocked listener rather than waiting forever
+        assertTrue(drops.get() >= 1);
+        assertTrue(System.currentTimeMillis() - startTime >= CacheEntryEventListenerAdapter.MAX_WAIT_MILLIS);
+        latch.countDown();
+        listener.await(3 - drops.get());
+    }
+
+    private CacheEntryListenerConfiguration<String, Integer> asynchronous(RecordingListener listener) {
+        return new MutableCacheEntryListenerConfiguration<>((Factory) () -> listener, null, true, false);
+    }
+
+    public static class RecordingListener implements CacheEntryCreatedListener<String, Integer>,
+            CacheEntryUpdatedListener<String, Integer>, CacheEntryRemovedListener<String, Integer> {
+
+        private final List<CacheEntryEvent> events = new ArrayList<>();
+
+        private final AtomicInteger invocations = new AtomicInteger();
+
+        private final CountDownLatch latch;
+
+        public RecordingListener() {
+            this(new CountDownLatch(0));
+        }
+
+        public RecordingListener(CountDownLatch latch) {
+            this.latch = latch;
+        }
+
+        @Override
+        public void onCreated(Iterable<CacheEntryEvent<? extends String, ? extends Integer>> events) {
+            record(events);
+        }
+
+        @Override
+        public void onUpdated(Iterable<CacheEntryEvent<? extends String, ? extends Integer>> events) {
+            record(events);
+        }
+
+        @Override
+        public void onRemoved(Iterable<CacheEntryEvent<? extends String, ? extends Integer>> events) {
+            record(events);
+        }
+
+        private void record(Iterable<CacheEntryEvent<? extends String, ? extends Integer>> events) {
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            invocations.incrementAndGet();
+            synchronized (this) {
+                events.forEach(this.events::add);
+                notifyAll();
+            }
+        }
+
+        private synchronized void await(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (events.size() < count && System.nanoTime() < deadline) {
+                wait(100);
+            }
+            assertEquals(count, events.size());
+        }
+    }
+
     private Cache newCacheProxy() {
         return (Cache) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{Cache.class}, new InvocationHandler() {
             @Override
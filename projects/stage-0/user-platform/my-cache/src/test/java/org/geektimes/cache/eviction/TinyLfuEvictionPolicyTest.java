@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache.eviction;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link TinyLfuEvictionPolicy} and {@link LruEvictionPolicy} Test
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @since 1.0.0
+ */
+public class TinyLfuEvictionPolicyTest {
+
+    @Test
+    public void testFrequentKeysSurviveScan() {
+        int capacity = 100;
+        EvictionPolicy<Integer> policy = new TinyLfuEvictionPolicy<>(capacity);
+        Set<Integer> keys = new HashSet<>();
+        // hot keys
+        for (int i = 0; i < capacity / 2; i++) {
+            insert(policy, keys, i);
+            for (int j = 0; j < 5; j++) {
+                policy.onAccess(i);
+            }
+        }
+        // one-hit scan while the hot keys are still accessed
+        for (int i = 1000; i < 5000; i++) {
+            insert(policy, keys, i);
+            policy.onAccess(i % (capacity / 2));
+        }
+        assertEquals(capacity, keys.size());
+        for (int i = 0; i < capacity / 2; i++) {
+            assertTrue(keys.contains(i));
+        }
+    }
+
+    @Test
+    public void testLru() {
+        EvictionPolicy<Integer> policy = new LruEvictionPolicy<>(2);
+        assertNull(policy.onInsert(1));
+        assertNull(policy.onInsert(2));
+        policy.onAccess(1);
+        assertEquals(Integer.valueOf(2), policy.onInsert(3));
+        policy.onRemove(1);
+        assertNull(policy.onInsert(4));
+        assertEquals(Integer.valueOf(3), policy.onInsert(5));
+    }
+
+    @Test
+    public void testFrequencySketch() {
+        FrequencySketch<String> sketch = new FrequencySketch<>(64);
+        assertEquals(0, sketch.frequency("a"));
+        for (int i = 0; i < 20; i++) {
+            sketch.increment("a");
+        }
+        assertEquals(FrequencySketch.MAXIMUM_FREQUENCY, sketch.frequency("a"));
+        sketch.clear();
+        assertEquals(0, sketch.frequency("a"));
+    }
+
+    private void insert(EvictionPolicy<Integer> policy, Set<Integer> keys, Integer key) {
+        keys.add(key);
+        Integer victim = policy.onInsert(key);
+        if (victim != null) {
+            keys.remove(victim);
+        }
+    }
+}
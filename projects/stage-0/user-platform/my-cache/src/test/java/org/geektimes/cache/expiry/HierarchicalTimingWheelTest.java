@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache.expiry;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.*;
+
+/**
+ * {@link HierarchicalTimingWheel} Test
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @since 1.0.0
+ */
+public class HierarchicalTimingWheelTest {
+
+    @Test
+    public void testAdvance() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, 0);
+        wheel.schedule("a", 25);
+        wheel.schedule("b", 10);
+        wheel.schedule("c", -1);
+        assertEquals(3, wheel.size());
+
+        assertEquals(asList("b", "c"), wheel.advance(19));
+        // never be due before its deadline
+        assertEquals(emptyList(), wheel.advance(29));
+        assertEquals(singletonList("a"), wheel.advance(30));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testCascade() {
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(1, 0);
+        long[] deadlines = {63, 64, 65, 4095, 4096, 4097, 262_143, 262_144, 300_000, 20_000_000};
+        for (long deadline : deadlines) {
+            wheel.schedule(deadline, deadline);
+        }
+        List<Long> payloads = new ArrayList<>();
+        for (long now = 0; now < 20_001_000; now += 997) {
+            for (Long deadline : wheel.advance(now)) {
+                // due in the advance that passes its deadline
+                assertTrue(deadline <= now && deadline > now - 997);
+                payloads.add(deadline);
+            }
+        }
+        assertEquals(deadlines.length, payloads.size());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testCancel() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, 0);
+        HierarchicalTimingWheel.Timeout<String> timeout = wheel.schedule("a", 100_000);
+        wheel.schedule("b", 100_000);
+        assertTrue(timeout.cancel());
+        assertFalse(timeout.cancel());
+        assertFalse(timeout.isPending());
+        assertEquals(singletonList("b"), wheel.advance(100_000));
+    }
+}
@@ -48,6 +48,7 @@ public class CompositeFallbackStorageTest {
     @After
     public void deleteAll() {
         instance.deleteAll(asList("a", "b", "c"));
+        instance.close();
     }
 
 }
@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache.integration;
+
+import org.geektimes.cache.ExpirableEntry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+/**
+ * {@link LogFallbackStorage} Test
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @since 1.0.0
+ */
+public class LogFallbackStorageTest {
+
+    private File directory;
+
+    private LogFallbackStorage instance;
+
+    @Before
+    public void init() throws Exception {
+        directory = Files.createTempDirectory("log-fallback-storage").toFile();
+        instance = new LogFallbackStorage(directory, 1024);
+    }
+
+    @After
+    public void destroy() throws IOException {
+        instance.close();
+        instance.destroy();
+        try (Stream<Path> paths = Files.walk(directory.toPath())) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+        assertFalse(directory.exists());
+        assertTrue(new File(directory.getPath() + ".lock").delete());
+    }
+
+    @Test
+    public void testDirectoryLock() {
+        // the directory is owned by one storage at a time
+        assertThrows(IllegalStateException.class, () -> new LogFallbackStorage(directory, 1024));
+        instance.write(ExpirableEntry.of("a", 1));
+        instance.close();
+        instance.close();
+        instance = new LogFallbackStorage(directory, 1024);
+        assertEquals(1, instance.load("a"));
+
+        // the default directory falls back to the next free one
+        File defaultDirectory = new File(directory, "default");
+        System.setProperty(LogFallbackStorage.DIRECTORY_PROPERTY_NAME, defaultDirectory.getPath());
+        LogFallbackStorage storage = new LogFallbackStorage();
+        LogFallbackStorage anotherStorage = new LogFallbackStorage();
+        try {
+            assertEquals(defaultDirectory, storage.getDirectory());
+            assertEquals(new File(defaultDirectory.getPath() + "-1"), anotherStorage.getDirectory());
+        } finally {
+            System.clearProperty(LogFallbackStorage.DIRECTORY_PROPERTY_NAME);
+            storage.close();
+            anotherStorage.close();
+        }
+    }
+
+    @Test
+    public void testLazySegment() {
+        File subDirectory = new File(directory, "lazy");
+        LogFallbackStorage storage = new LogFallbackStorage(subDirectory, 1024);
+        try {
+            assertNull(storage.load("a"));
+            storage.delete("a");
+            // nothing is mapped until the first write
+            assertEquals(0, storage.getSegmentCount());
+            assertFalse(subDirectory.exists());
+            storage.write(ExpirableEntry.of("a", 1));
+            assertEquals(1, storage.getSegmentCount());
+            assertEquals(1, storage.load("a"));
+        } finally {
+            storage.close();
+        }
+    }
+
+    @Test
+    public void writeAllAndLoadAll() {
+        assertNull(instance.load("a"));
+
+        instance.writeAll(asList(ExpirableEntry.of("a", 1), ExpirableEntry.of("b", 2),
+                ExpirableEntry.of("c/d:e*?", 3)));
+        Map map = instance.loadAll(asList("a", "b", "c/d:e*?"));
+        assertEquals(1, map.get("a"));
+        assertEquals(2, map.get("b"));
+        assertEquals(3, map.get("c/d:e*?"));
+
+        instance.write(ExpirableEntry.of("a", "A"));
+        assertEquals("A", instance.load("a"));
+        instance.delete("a");
+        assertNull(instance.load("a"));
+    }
+
+    @Test
+    public void testRecovery() {
+        for (int i = 0; i < 100; i++) {
+            instance.write(ExpirableEntry.of(i, "value-" + i));
+        }
+        instance.deleteAll(asList(1, 2, 3));
+        instance.write(ExpirableEntry.of(4, "new-value"));
+        instance.close();
+
+        LogFallbackStorage recovered = new LogFallbackStorage(directory, 1024);
+        try {
+            assertEquals("value-0", recovered.load(0));
+            assertNull(recovered.load(1));
+            assertNull(recovered.load(3));
+            assertEquals("new-value", recovered.load(4));
+            assertEquals("value-99", recovered.load(99));
+            recovered.write(ExpirableEntry.of(100, "value-100"));
+            assertEquals("value-100", recovered.load(100));
+        } finally {
+            recovered.close();
+        }
+    }
+
+    @Test
+    public void testCompaction() {
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 20; i++) {
+                instance.write(ExpirableEntry.of(i, "value-" + round));
+            }
+        }
+        instance.deleteAll(asList(0, 1));
+        int segmentCount = instance.getSegmentCount();
+        assertTrue(segmentCount > 1);
+
+        instance.compact();
+        assertTrue(instance.getSegmentCount() < segmentCount);
+        instance.close();
+
+        LogFallbackStorage recovered = new LogFallbackStorage(directory, 1024);
+        try {
+            assertNull(recovered.load(0));
+            assertNull(recovered.load(1));
+            for (int i = 2; i < 20; i++) {
+                assertEquals("value-9", recovered.load(i));
+            }
+        } finally {
+            recovered.close();
+        }
+    }
+}
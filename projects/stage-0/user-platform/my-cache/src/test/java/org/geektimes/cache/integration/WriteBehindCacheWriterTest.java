@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache.integration;
+
+import org.geektimes.cache.ExpirableEntry;
+import org.junit.Test;
+
+import javax.cache.Cache;
+import javax.cache.integration.CacheWriter;
+import javax.cache.integration.CacheWriterException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link WriteBehindCacheWriter} Test
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @since 1.0.0
+ */
+public class WriteBehindCacheWriterTest {
+
+    @Test
+    public void testCoalescing() {
+        RecordingWriter delegate = new RecordingWriter();
+        WriteBehindCacheWriter<String, Integer> writer = new WriteBehindCacheWriter<>(delegate, null,
+                100, 60 * 1000, 3);
+        for (int i = 0; i < 10; i++) {
+            writer.write(ExpirableEntry.of("a", i));
+        }
+        writer.write(ExpirableEntry.of("b", 1));
+        writer.delete("b");
+        assertEquals(2, writer.getPendingWrites());
+        assertTrue(delegate.values.isEmpty());
+
+        writer.flush();
+        assertEquals(0, writer.getPendingWrites());
+        assertEquals(Integer.valueOf(9), delegate.values.get("a"));
+        assertFalse(delegate.values.containsKey("b"));
+        assertEquals(1, delegate.batches.get());
+        writer.close();
+    }
+
+    @Test
+    public void testBatchFlush() throws InterruptedException {
+        RecordingWriter delegate = new RecordingWriter();
+        WriteBehindCacheWriter<String, Integer> writer = new WriteBehindCacheWriter<>(delegate, null,
+                10, 60 * 1000, 3);
+        for (int i = 0; i < 10; i++) {
+            writer.write(ExpirableEntry.of("k-" + i, i));
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while (delegate.size() < 10 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(10, delegate.size());
+        writer.close();
+    }
+
+    @Test
+    public void testRetriesAndClose() {
+        RecordingWriter delegate = new RecordingWriter();
+        RecordingWriter fallback = new RecordingWriter();
+        WriteBehindCacheWriter<String, Integer> writer = new WriteBehindCacheWriter<>(delegate, fallback,
+                100, 60 * 1000, 2);
+        delegate.failures.set(2);
+        writer.write(ExpirableEntry.of("a", 1));
+        writer.flush();
+        writer.flush();
+        assertEquals(1, writer.getPendingWrites());
+        writer.flush();
+        assertEquals(Integer.valueOf(1), delegate.values.get("a"));
+
+        // the key is written into the fallback after the retries are exhausted
+        delegate.failures.set(Integer.MAX_VALUE);
+        writer.write(ExpirableEntry.of("b", 2));
+        writer.close();
+        assertEquals(0, writer.getPendingWrites());
+        assertFalse(delegate.values.containsKey("b"));
+        assertEquals(Integer.valueOf(2), fallback.values.get("b"));
+    }
+
+    static class RecordingWriter implements CacheWriter<String, Integer> {
+
+        private final Map<String, Integer> values = Collections.synchronizedMap(new HashMap<>());
+
+        private final AtomicInteger batches = new AtomicInteger();
+
+        private final AtomicInteger failures = new AtomicInteger();
+
+        @Override
+        public void write(Cache.Entry<? extends String, ? extends Integer> entry) throws CacheWriterException {
+            values.put(entry.getKey(), entry.getValue());
+        }
+
+        @Override
+        public void writeAll(Collection<Cache.Entry<? extends String, ? extends Integer>> entries)
+                throws CacheWriterException {
+            if (failures.getAndDecrement() > 0) {
+                throw new CacheWriterException("Testing...");
+            }
+            batches.incrementAndGet();
+            for (Iterator<Cache.Entry<? extends String, ? extends Integer>> iterator = entries.iterator();
+                 iterator.hasNext(); ) {
+                write(iterator.next());
+                iterator.remove();
+            }
+        }
+
+        @Override
+        public void delete(Object key) throws CacheWriterException {
+            values.remove(key);
+        }
+
+        @Override
+        public void deleteAll(Collection<?> keys) throws CacheWriterException {
+            keys.forEach(this::delete);
+            keys.clear();
+        }
+
+        private int size() {
+            return values.size();
+        }
+    }
+}
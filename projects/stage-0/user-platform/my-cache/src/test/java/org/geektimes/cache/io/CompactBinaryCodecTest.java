@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache.io;
+
+import org.junit.Test;
+
+import java.awt.Point;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Date;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link CompactBinaryCodec} Test
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @since 1.0.0
+ */
+public class CompactBinaryCodecTest {
+
+    private final CompactBinaryCodec codec = new CompactBinaryCodec();
+
+    @Test
+    public void testBuiltinTypes() throws Exception {
+        Object[] values = {null, "", "hello", "你好, world", 0, -1, Integer.MAX_VALUE, Integer.MIN_VALUE,
+                0L, Long.MIN_VALUE, Long.MAX_VALUE, true, false, (byte) -7, (short) -300, 'x', '中',
+                1.5f, Float.NaN, -2.25d, Double.MAX_VALUE};
+        for (Object value : values) {
+            assertEquals(value, codec.deserialize(codec.serialize(value)));
+        }
+        byte[] bytes = {1, 2, 3};
+        assertArrayEquals(bytes, (byte[]) codec.deserialize(codec.serialize(bytes)));
+        assertNull(codec.deserialize(null));
+    }
+
+    @Test
+    public void testCompactness() throws Exception {
+        assertEquals(2, codec.serialize(1).length);
+        assertEquals(7, codec.serialize("hello").length);
+        JavaSerializationCodec javaCodec = new JavaSerializationCodec();
+        assertTrue(codec.serialize(123456L).length < javaCodec.serialize(123456L).length);
+    }
+
+    @Test
+    public void testRegisteredType() throws Exception {
+        codec.register(1, Point.class,
+                point -> ByteBuffer.allocate(8).putInt(point.x).putInt(point.y).array(),
+                bytes -> {
+                    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                    return new Point(buffer.getInt(), buffer.getInt());
+                });
+        Point point = new Point(3, -4);
+        byte[] bytes = codec.serialize(point);
+        assertEquals(CompactBinaryCodec.REGISTERED, bytes[0]);
+        assertEquals(point, codec.deserialize(bytes));
+
+        try {
+            codec.register(1, Date.class, date -> new byte[0], data -> new Date());
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void testFallback() throws Exception {
+        Date date = new Date();
+        byte[] bytes = codec.serialize(date);
+        assertEquals(CompactBinaryCodec.FALLBACK, bytes[0]);
+        assertEquals(date, codec.deserialize(bytes));
+        // the large buffer is released from the pool
+        byte[] largeBytes = new byte[100 * 1024];
+        Arrays.fill(largeBytes, (byte) 1);
+        assertArrayEquals(largeBytes, (byte[]) codec.deserialize(codec.serialize(largeBytes)));
+    }
+
+    @Test
+    public void testJavaSerializationData() throws Exception {
+        // the data written before the compact codec became the default
+        JavaSerializationCodec javaCodec = new JavaSerializationCodec();
+        Date date = new Date();
+        assertEquals(date, codec.deserialize(javaCodec.serialize(date)));
+        assertEquals("hello", codec.deserialize(javaCodec.serialize("hello")));
+        assertEquals(123456L, codec.deserialize(javaCodec.serialize(123456L)));
+    }
+
+    @Test
+    public void testRegistry() {
+        CodecRegistry registry = CodecRegistry.getInstance();
+        assertEquals(CompactBinaryCodec.NAME, registry.getDefaultCodec().getName());
+        assertEquals(JavaSerializationCodec.NAME, registry.getCodec(JavaSerializationCodec.NAME).getName());
+        try {
+            registry.getCodec("unknown");
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
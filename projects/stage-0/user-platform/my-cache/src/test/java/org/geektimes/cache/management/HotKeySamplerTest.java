@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache.management;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link HotKeySampler} Test
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @since 1.0.0
+ */
+public class HotKeySamplerTest {
+
+    @Test
+    public void testTopK() {
+        AtomicLong clock = new AtomicLong();
+        HotKeySampler<String> sampler = new HotKeySampler<>(3, 1, 10, SECONDS, clock::get);
+        for (int i = 0; i < 10000; i++) {
+            sampler.record("cold-" + i);
+            if (i % 2 == 0) {
+                sampler.record("hot-1");
+            }
+            if (i % 4 == 0) {
+                sampler.record("hot-2");
+            }
+            if (i % 8 == 0) {
+                sampler.record("hot-3");
+            }
+        }
+        clock.set(SECONDS.toNanos(5));
+        List<HotKey> hotKeys = sampler.getHotKeys();
+        assertEquals(3, hotKeys.size());
+        assertEquals("hot-1", hotKeys.get(0).getKey());
+        assertEquals("hot-2", hotKeys.get(1).getKey());
+        assertEquals("hot-3", hotKeys.get(2).getKey());
+        // the count-min sketch never under-estimates
+        assertTrue(hotKeys.get(0).getEstimatedCount() >= 5000);
+        assertEquals(hotKeys.get(0).getEstimatedCount() / 5d, hotKeys.get(0).getRate(), 0.001d);
+
+        // the completed window is reported, and the counts of new window start from zero
+        clock.set(SECONDS.toNanos(10));
+        sampler.record("hot-2");
+        hotKeys = sampler.getHotKeys();
+        assertEquals("hot-1", hotKeys.get(0).getKey());
+        assertEquals(hotKeys.get(0).getEstimatedCount() / 10d, hotKeys.get(0).getRate(), 0.001d);
+        clock.set(SECONDS.toNanos(20));
+        hotKeys = sampler.getHotKeys();
+        assertEquals(1, hotKeys.size());
+        assertEquals("hot-2", hotKeys.get(0).getKey());
+        assertEquals(1L, hotKeys.get(0).getEstimatedCount());
+    }
+
+    @Test
+    public void testSampling() {
+        HotKeySampler<Integer> sampler = new HotKeySampler<>(1, 10, 10, SECONDS);
+        assertEquals(16, sampler.getSampleInterval());
+        for (int i = 0; i < 100000; i++) {
+            sampler.record(i % 2 == 0 ? 0 : i);
+        }
+        List<HotKey> hotKeys = sampler.getHotKeys();
+        assertEquals("0", hotKeys.get(0).getKey());
+        // about 50000 accesses are estimated by the sampling
+        long estimatedCount = hotKeys.get(0).getEstimatedCount();
+        assertTrue(String.valueOf(estimatedCount), estimatedCount > 40000 && estimatedCount < 60000);
+    }
+}
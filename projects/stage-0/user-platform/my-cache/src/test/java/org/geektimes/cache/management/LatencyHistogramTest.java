@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache.management;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link LatencyHistogram} Test
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @since 1.0.0
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBuckets() {
+        for (long value : new long[]{0, 1, 7, 8, 9, 15, 16, 1000, 123456789L, Long.MAX_VALUE}) {
+            int index = LatencyHistogram.bucketIndex(value);
+            assertTrue(index < LatencyHistogram.BUCKET_COUNT);
+            long bucketValue = LatencyHistogram.bucketValue(index);
+            assertTrue(Math.abs(bucketValue - value) <= value / LatencyHistogram.SUB_BUCKET_COUNT);
+        }
+        assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.bucketIndex(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram(6, 10, SECONDS);
+        assertEquals(0L, histogram.getValueAtPercentile(99));
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        assertEquals(1000L, histogram.getCount());
+        assertWithinError(500 * 1000L, histogram.getValueAtPercentile(50));
+        assertWithinError(990 * 1000L, histogram.getValueAtPercentile(99));
+        assertWithinError(999 * 1000L, histogram.getValueAtPercentile(99.9));
+        histogram.reset();
+        assertEquals(0L, histogram.getCount());
+    }
+
+    @Test
+    public void testSlidingWindow() {
+        AtomicLong clock = new AtomicLong();
+        LatencyHistogram histogram = new LatencyHistogram(new SlidingWindowCounters(LatencyHistogram.BUCKET_COUNT,
+                3, 1, SECONDS, clock::get));
+        histogram.record(100);
+        clock.addAndGet(SECONDS.toNanos(1));
+        histogram.record(10000);
+        assertEquals(2L, histogram.getCount());
+        clock.addAndGet(SECONDS.toNanos(2));
+        // the first slot is out of the window
+        assertEquals(1L, histogram.getCount());
+        assertWithinError(10000, histogram.getValueAtPercentile(50));
+        clock.addAndGet(SECONDS.toNanos(1));
+        assertEquals(0L, histogram.getCount());
+    }
+
+    @Test
+    public void testNegativeClock() {
+        AtomicLong clock = new AtomicLong(-SECONDS.toNanos(10) - 1);
+        LatencyHistogram histogram = new LatencyHistogram(new SlidingWindowCounters(LatencyHistogram.BUCKET_COUNT,
+                3, 1, SECONDS, clock::get));
+        histogram.record(100);
+        clock.addAndGet(SECONDS.toNanos(1));
+        histogram.record(200);
+        assertEquals(2L, histogram.getCount());
+        clock.addAndGet(SECONDS.toNanos(10));
+        histogram.record(300);
+        assertEquals(1L, histogram.getCount());
+    }
+
+    @Test
+    public void testBatchCacheStatistics() {
+        SimpleCacheStatistics statistics = new SimpleCacheStatistics();
+        for (int i = 0; i < 10; i++) {
+            statistics.cacheGets();
+        }
+        // one batch of 10 gets with 10000ns in total
+        statistics.cacheGetsTime(10000, 10);
+        assertEquals(10L, statistics.getRecentCacheGets());
+        assertEquals(1.0f, statistics.getAverageGetTime(), 0.0f);
+        // the batch is sampled per key rather than as a single 10us sample
+        assertTrue(statistics.getGetTime99thPercentile() < 1.2f);
+    }
+
+    @Test
+    public void testCacheStatistics() {
+        SimpleCacheStatistics statistics = new SimpleCacheStatistics();
+        statistics.cacheGets().cacheHits().cacheGets().cacheGets().cacheHits().cacheGets();
+        statistics.cacheGetsTime(2000).cacheGetsTime(4000);
+        assertEquals(50.0f, statistics.getCacheHitPercentage(), 0.0f);
+        assertEquals(50.0f, statistics.getCacheMissPercentage(), 0.0f);
+        assertEquals(50.0f, statistics.getRecentCacheHitPercentage(), 0.0f);
+        assertEquals(4L, statistics.getRecentCacheGets());
+        assertEquals(1.5f, statistics.getAverageGetTime(), 0.0f);
+        assertEquals(0.0f, statistics.getAveragePutTime(), 0.0f);
+        assertTrue(statistics.getGetTime99thPercentile() > 3.5f);
+    }
+
+    private static void assertWithinError(long expected, long actual) {
+        assertTrue(actual + " is not close to " + expected,
+                Math.abs(actual - expected) <= expected / LatencyHistogram.SUB_BUCKET_COUNT);
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache.near;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.configuration.MutableConfiguration;
+import javax.cache.spi.CachingProvider;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.util.Properties;
+
+import static org.geektimes.cache.configuration.CacheProperties.PROPERTY_NAME_PREFIX;
+import static org.junit.Assert.*;
+
+/**
+ * {@link NearCache} Test
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @since 1.0.0
+ */
+public class NearCacheTest {
+
+    private final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+
+    private CacheManager nodeA;
+
+    private CacheManager nodeB;
+
+    @Before
+    public void init() {
+        CachingProvider cachingProvider = Caching.getCachingProvider();
+        Properties properties = new Properties();
+        properties.putAll(cachingProvider.getDefaultProperties());
+        properties.setProperty(PROPERTY_NAME_PREFIX + NearCache.LOCAL_MAX_ENTRIES_PROPERTY_NAME, "10");
+        // the nodes share the same remote in-memory caches
+        nodeA = cachingProvider.getCacheManager(URI.create("near:in-memory://localhost/#a"), null, properties);
+        nodeB = cachingProvider.getCacheManager(URI.create("near:in-memory://localhost/#b"), null, properties);
+    }
+
+    @After
+    public void destroy() {
+        for (CacheManager cacheManager : new CacheManager[]{nodeA, nodeB}) {
+            for (String cacheName : cacheManager.getCacheNames()) {
+                cacheManager.destroyCache(cacheName);
+            }
+        }
+    }
+
+    @Test
+    public void testTiers() throws Exception {
+        Cache<Integer, String> cacheA = createCache(nodeA);
+        Cache<Integer, String> cacheB = createCache(nodeB);
+        assertEquals(NearCache.class, cacheA.getClass());
+
+        cacheA.put(1, "a");
+        // local miss and remote hit
+        assertEquals("a", cacheB.get(1));
+        // local hits
+        assertEquals("a", cacheB.get(1));
+        assertEquals("a", cacheB.get(1));
+        assertNull(cacheB.get(2));
+
+        ObjectName objectName = objectName(nodeB);
+        assertEquals(2L, mBeanServer.getAttribute(objectName, "LocalHits"));
+        assertEquals(2L, mBeanServer.getAttribute(objectName, "LocalMisses"));
+        assertEquals(50.0f, mBeanServer.getAttribute(objectName, "LocalHitPercentage"));
+        assertEquals(1L, mBeanServer.getAttribute(objectName, "RemoteHits"));
+        assertEquals(1L, mBeanServer.getAttribute(objectName, "RemoteMisses"));
+        assertEquals(1L, mBeanServer.getAttribute(objectName, "LocalSize"));
+    }
+
+    @Test
+    public void testInvalidation() throws Exception {
+        Cache<Integer, String> cacheA = createCache(nodeA);
+        Cache<Integer, String> cacheB = createCache(nodeB);
+        cacheA.put(1, "a");
+        assertEquals("a", cacheB.get(1));
+
+        cacheA.put(1, "b");
+        assertEquals("b", cacheB.get(1));
+
+        cacheA.remove(1);
+        assertNull(cacheB.get(1));
+
+        cacheB.put(2, "c");
+        assertEquals("c", cacheA.get(2));
+        cacheB.clear();
+        assertNull(cacheA.get(2));
+        assertTrue((Long) mBeanServer.getAttribute(objectName(nodeA), "Invalidations") > 0);
+    }
+
+    @Test
+    public void testInvalidateAllCaches() throws Exception {
+        Cache<Integer, String> cache = createCache(nodeA);
+        Cache<Integer, String> anotherCache = createCache(nodeA, "anotherCache");
+        cache.put(1, "a");
+        anotherCache.put(1, "b");
+        assertEquals(1L, mBeanServer.getAttribute(objectName(nodeA), "LocalSize"));
+        assertEquals(1L, mBeanServer.getAttribute(objectName(nodeA, "anotherCache"), "LocalSize"));
+
+        // the invalidation of all caches, e.g. after the subscription is interrupted
+        InvalidationChannel channel = new InProcessInvalidationChannel(URI.create("in-memory://localhost/"), null);
+        channel.publish(new Invalidation("channel", null, null));
+        assertEquals(0L, mBeanServer.getAttribute(objectName(nodeA), "LocalSize"));
+        assertEquals(0L, mBeanServer.getAttribute(objectName(nodeA, "anotherCache"), "LocalSize"));
+        // the remote tier is kept
+        assertEquals("a", cache.get(1));
+        assertEquals("b", anotherCache.get(1));
+    }
+
+    @Test
+    public void testLocalTimeToLive() throws Exception {
+        nodeA.getProperties().setProperty(PROPERTY_NAME_PREFIX + "ttlCache." +
+                NearCache.LOCAL_TIME_TO_LIVE_PROPERTY_NAME, "100");
+        Cache<Integer, String> cache = createCache(nodeA, "ttlCache");
+        cache.put(1, "a");
+        assertEquals("a", cache.get(1));
+        Thread.sleep(300);
+        // the local entry expires even if the invalidation is lost, the value comes from the remote tier
+        assertEquals("a", cache.get(1));
+        ObjectName objectName = objectName(nodeA, "ttlCache");
+        assertEquals(1L, mBeanServer.getAttribute(objectName, "LocalHits"));
+        assertEquals(1L, mBeanServer.getAttribute(objectName, "RemoteHits"));
+    }
+
+    @Test
+    public void testLocalTierBounded() throws Exception {
+        Cache<Integer, String> cache = createCache(nodeA);
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, "v" + i);
+        }
+        assertTrue((Long) mBeanServer.getAttribute(objectName(nodeA), "LocalSize") <= 10);
+        for (int i = 0; i < 100; i++) {
+            assertEquals("v" + i, cache.get(i));
+        }
+        // the keys are iterated from the remote tier
+        int count = 0;
+        for (Cache.Entry<Integer, String> entry : cache) {
+            assertEquals("v" + entry.getKey(), entry.getValue());
+            count++;
+        }
+        assertEquals(100, count);
+    }
+
+    private Cache<Integer, String> createCache(CacheManager cacheManager) {
+        return createCache(cacheManager, "nearCache");
+    }
+
+    private Cache<Integer, String> createCache(CacheManager cacheManager, String cacheName) {
+        MutableConfiguration<Integer, String> configuration = new MutableConfiguration<Integer, String>()
+                .setTypes(Integer.class, String.class)
+                .setManagementEnabled(true);
+        return cacheManager.createCache(cacheName, configuration);
+    }
+
+    private ObjectName objectName(CacheManager cacheManager) throws Exception {
+        return objectName(cacheManager, "nearCache");
+    }
+
+    private ObjectName objectName(CacheManager cacheManager, String cacheName) throws Exception {
+        ObjectName objectName = new ObjectName("javax.cache:type=" + NearCache.MBEAN_TYPE + ",name=" + cacheName +
+                ",uri=" + URLEncoder.encode(cacheManager.getURI().toASCIIString(), "UTF-8"));
+        assertTrue(mBeanServer.isRegistered(objectName));
+        return objectName;
+    }
+}
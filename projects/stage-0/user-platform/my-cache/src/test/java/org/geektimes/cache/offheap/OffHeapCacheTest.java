@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache.offheap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.configuration.MutableConfiguration;
+import javax.cache.event.CacheEntryEvent;
+import javax.cache.event.CacheEntryRemovedListener;
+import javax.cache.expiry.Duration;
+import javax.cache.expiry.TouchedExpiryPolicy;
+import javax.cache.spi.CachingProvider;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.geektimes.cache.configuration.CacheProperties.PROPERTY_NAME_PREFIX;
+import static org.geektimes.cache.configuration.ConfigurationUtils.cacheEntryListenerConfiguration;
+import static org.junit.Assert.*;
+
+/**
+ * {@link OffHeapCache} Test
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @since 1.0.0
+ */
+public class OffHeapCacheTest {
+
+    private static final String VALUE_PREFIX = new String(new char[100]).replace('\0', 'v');
+
+    private CacheManager cacheManager;
+
+    private final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+
+    @Before
+    public void init() {
+        CachingProvider cachingProvider = Caching.getCachingProvider();
+        Properties properties = new Properties();
+        properties.putAll(cachingProvider.getDefaultProperties());
+        properties.setProperty(PROPERTY_NAME_PREFIX + OffHeapCache.SLAB_SIZE_PROPERTY_NAME, "4096");
+        properties.setProperty(PROPERTY_NAME_PREFIX + OffHeapCache.MAX_MEMORY_PROPERTY_NAME, "65536");
+        cacheManager = cachingProvider.getCacheManager(URI.create("off-heap://localhost/"), null, properties);
+    }
+
+    @After
+    public void destroy() {
+        for (String cacheName : cacheManager.getCacheNames()) {
+            cacheManager.destroyCache(cacheName);
+        }
+    }
+
+    @Test
+    public void testOperations() {
+        Cache<Integer, String> cache = createCache("offHeapCache", new AtomicInteger());
+        assertEquals(OffHeapCache.class, cache.getClass());
+        cache.put(1, "a");
+        cache.put(2, "b");
+        assertTrue(cache.containsKey(1));
+        assertEquals("a", cache.get(1));
+        assertEquals("a", cache.getAndPut(1, "c"));
+        assertEquals("c", cache.get(1));
+        assertTrue(cache.remove(2));
+        assertFalse(cache.containsKey(2));
+        assertNull(cache.get(2));
+
+        int count = 0;
+        for (Cache.Entry<Integer, String> entry : cache) {
+            assertEquals(Integer.valueOf(1), entry.getKey());
+            assertEquals("c", entry.getValue());
+            count++;
+        }
+        assertEquals(1, count);
+    }
+
+    @Test
+    public void testTouchedExpiry() throws Exception {
+        MutableConfiguration<Integer, String> configuration = new MutableConfiguration<Integer, String>()
+                .setTypes(Integer.class, String.class)
+                .setExpiryPolicyFactory(TouchedExpiryPolicy.factoryOf(new Duration(TimeUnit.MILLISECONDS, 300)));
+        Cache<Integer, String> cache = cacheManager.createCache("touchedCache", configuration);
+        cache.put(1, "a");
+        // every access extends the lifetime beyond the initial 300 ms
+        for (int i = 0; i < 4; i++) {
+            Thread.sleep(150);
+            assertEquals("a", cache.get(1));
+        }
+        Thread.sleep(400);
+        assertNull(cache.get(1));
+    }
+
+    @Test
+    public void testMemoryBudget() throws Exception {
+        AtomicInteger evictions = new AtomicInteger();
+        Cache<Integer, String> cache = createCache("boundedCache", evictions);
+        for (int i = 0; i < 2000; i++) {
+            cache.put(i, VALUE_PREFIX + i);
+        }
+        ObjectName objectName = objectName("boundedCache");
+        long entryCount = (Long) mBeanServer.getAttribute(objectName, "EntryCount");
+        assertTrue(entryCount < 2000);
+        assertEquals(2000, entryCount + evictions.get());
+        assertTrue((Long) mBeanServer.getAttribute(objectName, "AllocatedMemory") <= 65536);
+        assertTrue((Float) mBeanServer.getAttribute(objectName, "Occupancy") > 0.9f);
+        assertTrue((Float) mBeanServer.getAttribute(objectName, "Fragmentation") < 0.5f);
+        // the most recent entry is present
+        assertEquals(VALUE_PREFIX + 1999, cache.get(1999));
+    }
+
+    @Test
+    public void testFreedSpaceReused() throws Exception {
+        Cache<Integer, String> cache = createCache("reusedCache", new AtomicInteger());
+        ObjectName objectName = objectName("reusedCache");
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, VALUE_PREFIX + i);
+        }
+        int slabCount = (Integer) mBeanServer.getAttribute(objectName, "SlabCount");
+        for (int i = 0; i < 100; i++) {
+            cache.remove(i);
+        }
+        assertEquals(0L, mBeanServer.getAttribute(objectName, "UsedMemory"));
+        for (int i = 100; i < 200; i++) {
+            cache.put(i, VALUE_PREFIX + i);
+        }
+        assertEquals(slabCount, mBeanServer.getAttribute(objectName, "SlabCount"));
+    }
+
+    @Test
+    public void testSlabReassigned() {
+        Cache<Integer, String> cache = createCache("reassignedCache", new AtomicInteger());
+        // fill all slabs with the small entries
+        for (int i = 0; i < 2000; i++) {
+            cache.put(i, VALUE_PREFIX);
+        }
+        String largeValue = new String(new char[1000]).replace('\0', 'l');
+        for (int i = 0; i < 10; i++) {
+            cache.put(-i, largeValue);
+        }
+        assertEquals(largeValue, cache.get(-9));
+    }
+
+    private Cache<Integer, String> createCache(String cacheName, AtomicInteger evictions) {
+        MutableConfiguration<Integer, String> configuration = new MutableConfiguration<Integer, String>()
+                .setTypes(Integer.class, String.class)
+                .setManagementEnabled(true)
+                .addCacheEntryListenerConfiguration(cacheEntryListenerConfiguration(new RemovalCounter(evictions)));
+        return cacheManager.createCache(cacheName, configuration);
+    }
+
+    private ObjectName objectName(String cacheName) throws Exception {
+        Set<ObjectName> objectNames = mBeanServer.queryNames(
+                new ObjectName("javax.cache:type=" + OffHeapCache.MBEAN_TYPE + ",name=" + cacheName + ",*"), null);
+        assertEquals(1, objectNames.size());
+        return objectNames.iterator().next();
+    }
+
+    public static class RemovalCounter implements CacheEntryRemovedListener<Integer, String> {
+
+        private final AtomicInteger removals;
+
+        public RemovalCounter(AtomicInteger removals) {
+            this.removals = removals;
+        }
+
+        @Override
+        public void onRemoved(Iterable<CacheEntryEvent<? extends Integer, ? extends String>> events) {
+            events.forEach(event -> removals.incrementAndGet());
+        }
+    }
+}
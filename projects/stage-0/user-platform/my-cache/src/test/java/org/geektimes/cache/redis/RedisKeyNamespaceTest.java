@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.cache.redis;
+
+import org.junit.Test;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * {@link RedisKeyNamespace} Test
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @since 1.0.0
+ */
+public class RedisKeyNamespaceTest {
+
+    @Test
+    public void testRedisKey() {
+        RedisKeyNamespace keyNamespace = new RedisKeyNamespace("users:");
+        byte[] keyBytes = {1, 2, 3};
+        byte[] redisKey = keyNamespace.toRedisKey(keyBytes);
+        assertEquals("users:", new String(redisKey, 0, 6, UTF_8));
+        assertArrayEquals(keyBytes, keyNamespace.fromRedisKey(redisKey));
+    }
+
+    @Test
+    public void testPattern() {
+        assertEquals("users:*", new String(new RedisKeyNamespace("users:").getPattern(), UTF_8));
+        assertEquals("a\\*b\\?\\[c\\]:*", new String(new RedisKeyNamespace("a*b?[c]:").getPattern(), UTF_8));
+        assertEquals("*", new String(new RedisKeyNamespace("").getPattern(), UTF_8));
+    }
+
+    @Test
+    public void testDefaultPrefix() {
+        assertEquals("5:users:", RedisKeyNamespace.defaultPrefix("users"));
+        assertEquals("7:users:x:", RedisKeyNamespace.defaultPrefix("users:x"));
+        // the length is the count of UTF-8 bytes
+        assertEquals("6:\u7528\u6237:", RedisKeyNamespace.defaultPrefix("\u7528\u6237"));
+        // the keys of cache "users:x" are not matched by the pattern of cache "users"
+        String pattern = new String(new RedisKeyNamespace(RedisKeyNamespace.defaultPrefix("users")).getPattern(),
+                UTF_8);
+        assertFalse(RedisKeyNamespace.defaultPrefix("users:x").startsWith(pattern.substring(0, pattern.length() - 1)));
+    }
+}
@@ -16,14 +16,13 @@
  */
 package org.geektimes.session.servlet.http;
 
-import javax.cache.Cache;
 import javax.servlet.http.HttpSessionAttributeListener;
 import javax.servlet.http.HttpSessionBindingEvent;
 
-import static org.geektimes.session.servlet.http.DistributedHttpSession.ATTRIBUTE_NAME;
-
 /**
- * The {@link HttpSessionAttributeListener} of {@link DistributedHttpSession}
+ * The {@link HttpSessionAttributeListener} of {@link DistributedHttpSession}, which tracks the changes of attributes
+ * that are made on the local session directly, the changes are flushed into the cache once the request is completed
+ * by {@link DistributedCacheSessionFilter}.
  *
  * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
  * @since 1.0.0
@@ -34,37 +33,29 @@ public class DistributedCacheSessionAttributeListener implements
 
     @Override
     public void attributeAdded(HttpSessionBindingEvent event) {
-        String name = event.getName();
-        if (ATTRIBUTE_NAME.equals(name)) {
-            return;
+        DistributedHttpSession session = getDistributedHttpSession(event);
+        if (session != null) {
+            session.markDirty(event.getName());
         }
-        Object value = event.getValue();
-        Cache<String, Object> attributesCache = getAttributesCache(event);
-        attributesCache.put(name, value);
     }
 
     @Override
     public void attributeRemoved(HttpSessionBindingEvent event) {
-        String name = event.getName();
-        Cache<String, Object> attributesCache = getAttributesCache(event);
-        attributesCache.remove(name);
+        DistributedHttpSession session = getDistributedHttpSession(event);
+        if (session != null) {
+            session.markRemoved(event.getName());
+        }
     }
 
     @Override
     public void attributeReplaced(HttpSessionBindingEvent event) {
-        String name = event.getName();
-        Cache<String, Object> attributesCache = getAttributesCache(event);
-        // 先删除缓存
-        attributesCache.remove(name);
+        DistributedHttpSession session = getDistributedHttpSession(event);
+        if (session != null) {
+            session.markDirty(event.getName());
+        }
     }
 
     private DistributedHttpSession getDistributedHttpSession(HttpSessionBindingEvent event) {
         return DistributedHttpSession.get(event.getSession());
     }
-
-    private Cache<String, Object> getAttributesCache(HttpSessionBindingEvent event) {
-        DistributedHttpSession session = getDistributedHttpSession(event);
-        return session.getAttributesCache();
-    }
-
 }
@@ -21,6 +21,8 @@ import org.eclipse.microprofile.config.spi.ConfigBuilder;
 import org.eclipse.microprofile.config.spi.ConfigProviderResolver;
 import org.geektimes.configuration.microprofile.config.source.servlet.FilterConfigSource;
 import org.geektimes.configuration.microprofile.config.util.DelegatingPropertiesAdapter;
+import org.geektimes.session.store.LocalSessionCache;
+import org.geektimes.session.store.SessionStore;
 
 import javax.cache.CacheManager;
 import javax.cache.Caching;
@@ -49,11 +51,35 @@ public class DistributedCacheSessionFilter implements Filter {
 
     private CacheManager cacheManager;
 
+    private SessionStore sessionStore;
+
+    private LocalSessionCache localSessionCache;
+
+    private boolean dirtyOnRead;
+
+    private SessionExpiryReaper sessionExpiryReaper;
+
     @Override
     public void init(FilterConfig filterConfig) throws ServletException {
         this.classLoader = filterConfig.getServletContext().getClassLoader();
         this.config = buildConfig(filterConfig, classLoader);
         this.cacheManager = buildCacheManager(config, classLoader);
+        this.sessionStore = SessionStore.load(cacheManager, classLoader);
+        this.localSessionCache = new LocalSessionCache(classLoader,
+                config.getOptionalValue(LocalSessionCache.MAX_ENTRIES_PROPERTY_NAME, Integer.class)
+                        .orElse(LocalSessionCache.DEFAULT_MAX_ENTRIES));
+        this.dirtyOnRead = config.getOptionalValue(DistributedHttpSession.DIRTY_ON_READ_PROPERTY_NAME, Boolean.class)
+                .orElse(Boolean.FALSE);
+        if (config.getOptionalValue(SessionExpiryReaper.ENABLED_PROPERTY_NAME, Boolean.class).orElse(Boolean.TRUE)) {
+            this.sessionExpiryReaper = new SessionExpiryReaper(sessionStore, filterConfig.getServletContext(),
+                    classLoader,
+                    config.getOptionalValue(SessionExpiryReaper.INTERVAL_PROPERTY_NAME, Integer.class)
+                            .orElse(SessionExpiryReaper.DEFAULT_INTERVAL),
+                    config.getOptionalValue(SessionExpiryReaper.BATCH_SIZE_PROPERTY_NAME, Integer.class)
+                            .orElse(SessionExpiryReaper.DEFAULT_BATCH_SIZE),
+                    config.getOptionalValue(SessionExpiryReaper.MAX_SESSIONS_PROPERTY_NAME, Integer.class)
+                            .orElse(SessionExpiryReaper.DEFAULT_MAX_SESSIONS));
+        }
     }
 
 
@@ -78,6 +104,7 @@ public class DistributedCacheSessionFilter implements Filter {
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
         if (!(request instanceof HttpServletRequest)) { // Non-HTTP Servlet
             chain.doFilter(request, response);
+            return;
         }
 
         HttpServletRequest httpRequest = (HttpServletRequest) request;
@@ -87,13 +114,22 @@ public class DistributedCacheSessionFilter implements Filter {
 
     protected void doFilter(HttpServletRequest request, HttpServletResponse response,
                             FilterChain chain) throws IOException, ServletException {
-        DistributedServletRequestWrapper requestWrapper = new DistributedServletRequestWrapper(request, cacheManager);
+        DistributedServletRequestWrapper requestWrapper = new DistributedServletRequestWrapper(request, sessionStore,
+                localSessionCache, dirtyOnRead);
         DistributedServletResponseWrapper responseWrapper = new DistributedServletResponseWrapper(response);
-        chain.doFilter(requestWrapper, responseWrapper);
+        try {
+            chain.doFilter(requestWrapper, responseWrapper);
+        } finally {
+            // the changes of attributes are written once per request
+            requestWrapper.flushSessions();
+        }
     }
 
     @Override
     public void destroy() {
-
+        if (sessionExpiryReaper != null) {
+            sessionExpiryReaper.shutdown();
+        }
+        sessionStore.flush();
     }
 }
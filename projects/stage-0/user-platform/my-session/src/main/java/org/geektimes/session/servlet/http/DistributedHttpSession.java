@@ -16,21 +16,29 @@
  */
 package org.geektimes.session.servlet.http;
 
-import javax.cache.Cache;
-import javax.cache.CacheManager;
-import javax.cache.configuration.MutableConfiguration;
-import javax.cache.expiry.Duration;
-import javax.cache.expiry.ExpiryPolicy;
-import javax.cache.expiry.TouchedExpiryPolicy;
+import org.geektimes.session.store.LocalSessionCache;
+import org.geektimes.session.store.SessionRecord;
+import org.geektimes.session.store.SessionStore;
+
 import javax.servlet.ServletContext;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpSession;
 import javax.servlet.http.HttpSessionContext;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Enumeration;
-import java.util.concurrent.TimeUnit;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.geektimes.session.store.SessionStore.NO_VERSION;
 
 /**
- * The Distributed {@link HttpSession}
+ * The Distributed {@link HttpSession}, whose metadata and attributes are kept as one {@link SessionRecord} in the
+ * {@link SessionStore}
  *
  * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
  * @since 1.0.0
@@ -43,24 +51,87 @@ public class DistributedHttpSession implements HttpSession {
      */
     public static final String ATTRIBUTE_NAME = "_distributedHttpSession";
 
+    /**
+     * The property name of whether the attribute is regarded as dirty once it's read, which is required if the
+     * attribute values are mutable objects, the default is false
+     */
+    public static final String DIRTY_ON_READ_PROPERTY_NAME = "javax.servlet.http.HttpSession.dirty-on-read";
+
+    private static final long UNKNOWN_VERSION = Long.MIN_VALUE;
+
     private final HttpServletRequest request;
 
-    private final CacheManager cacheManager;
+    private final SessionStore sessionStore;
+
+    /**
+     * The node-local versions of sessions, <code>null</code> if the local session is not trusted
+     */
+    private final LocalSessionCache localSessionCache;
 
     private final HttpSession source;
 
     private final SessionInfo sessionInfo;
 
-    private final Cache<String, Object> attributesCache;
+    private final boolean dirtyOnRead;
+
+    /**
+     * The names of attributes that were added or replaced during current request
+     */
+    private final Set<String> dirtyAttributeNames = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The names of attributes that were removed during current request
+     */
+    private final Set<String> removedAttributeNames = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The record of session that is loaded from the {@link SessionStore} at most once per request
+     */
+    private SessionRecord record;
+
+    private boolean recordLoaded;
+
+    /**
+     * The version of record that the local session was synchronized with, {@link SessionStore#NO_VERSION} if the
+     * record is absent, or {@link #UNKNOWN_VERSION} if the local session may miss the changes of other servers
+     */
+    private long synchronizedVersion = NO_VERSION;
+
+    /**
+     * Whether the {@link SessionInfo} should be saved even if no attribute is changed
+     */
+    private volatile boolean sessionInfoChanged;
+
+    /**
+     * The id of session that was migrated from another server, its record is removed once the session is saved
+     * by the id of local session
+     */
+    private String migratedSessionId;
+
+    /**
+     * Whether the session was synchronized with the {@link SessionStore}, which is deferred until the metadata or
+     * attributes are required, thus the session whose id is only used is never read remotely.
+     */
+    private volatile boolean resolved;
 
-    public DistributedHttpSession(HttpServletRequest request, HttpSession source, CacheManager cacheManager) {
+    private volatile boolean invalidated;
+
+    public DistributedHttpSession(HttpServletRequest request, HttpSession source, SessionStore sessionStore) {
+        this(request, source, sessionStore, null, false);
+    }
+
+    public DistributedHttpSession(HttpServletRequest request, HttpSession source, SessionStore sessionStore,
+                                  LocalSessionCache localSessionCache, boolean dirtyOnRead) {
         this.request = request;
         this.source = source;
-        this.cacheManager = cacheManager;
-        this.sessionInfo = resolveSessionInfo();
-        this.attributesCache = getCache();
+        this.sessionStore = sessionStore;
+        this.localSessionCache = localSessionCache;
+        this.dirtyOnRead = dirtyOnRead;
         // set self into Session context
         source.setAttribute(ATTRIBUTE_NAME, this);
+        this.sessionInfo = new SessionInfo(source);
+        // the session is created for the first time or by another server in the cluster
+        this.sessionInfoChanged = !isReentrantSession();
     }
 
     public static DistributedHttpSession get(HttpSession session) {
@@ -71,10 +142,6 @@ public class DistributedHttpSession implements HttpSession {
 //        return request;
 //    }
 //
-//    public CacheManager getCacheManager() {
-//        return cacheManager;
-//    }
-//
 //    public HttpSession getSource() {
 //        return source;
 //    }
@@ -83,106 +150,146 @@ public class DistributedHttpSession implements HttpSession {
 //        return sessionInfo;
 //    }
 
-    public Cache<String, Object> getAttributesCache() {
-        return attributesCache;
-    }
-
-    private SessionInfo resolveSessionInfo() {
-        SessionInfo sessionInfo = null;
-        if (isNewSession() || isReentrantSession()) { // First time access or re-access to the same server
-            sessionInfo = new SessionInfo(source);
-        } else { // Get the SessionInfo from cache if the session was created by another server in the cluster.
-            sessionInfo = getSessionInfo(request.getRequestedSessionId());
+    private void resolve() {
+        if (resolved) {
+            return;
+        }
+        synchronized (this) {
+            if (resolved) {
+                return;
+            }
+            if (isNewSession()) { // First time access
+                resolved = true;
+                return;
+            }
+            if (!isReentrantSession()) {
+                // Get the SessionRecord from the store if the session was created by another server in the cluster.
+                String requestedSessionId = request.getRequestedSessionId();
+                SessionRecord record = requestedSessionId == null ? null : sessionStore.load(requestedSessionId);
+                if (record != null) {
+                    migrate(record, sessionInfo);
+                }
+            } else if (localSessionCache != null) { // re-access to the same server
+                synchronize(sessionInfo);
+            }
+            resolved = true;
         }
-        return sessionInfo;
     }
 
     /**
-     * @return The requestedSessionId matches current session id and session is exited.
+     * The local session is reused unless the version of record was changed by another server, or the local version
+     * is unknown, only the version is read remotely in the common case.
      */
-    private boolean isReentrantSession() {
-        return request.isRequestedSessionIdValid() && !source.isNew();
+    private void synchronize(SessionInfo sessionInfo) {
+        String sessionId = sessionInfo.getId();
+        long version = sessionStore.getVersion(sessionId);
+        synchronizedVersion = version;
+        if (version != NO_VERSION && version != localSessionCache.getVersion(sessionId)) {
+            SessionRecord record = sessionStore.load(sessionId);
+            if (record != null) {
+                refresh(record, sessionInfo);
+                localSessionCache.setVersion(sessionId, record.getVersion());
+                synchronizedVersion = record.getVersion();
+            } else {
+                synchronizedVersion = NO_VERSION;
+            }
+            this.record = record;
+        }
+        // the local session is up to date
+        this.recordLoaded = true;
     }
 
     /**
-     * Is first time access
-     *
-     * @return
+     * Replace the attributes of local session by the ones of record, except the ones that were changed locally
+     * during current request
      */
-    private boolean isNewSession() {
-        return request.getRequestedSessionId() == null && source.isNew();
+    private void refresh(SessionRecord record, SessionInfo sessionInfo) {
+        Map<String, Object> attributes = record.getAttributes();
+        List<String> localNames = new ArrayList<>(Collections.list(source.getAttributeNames()));
+        for (String name : localNames) {
+            if (!ATTRIBUTE_NAME.equals(name) && !attributes.containsKey(name) && !isChanged(name)) {
+                source.removeAttribute(name);
+                removedAttributeNames.remove(name);
+            }
+        }
+        attributes.forEach((name, value) -> {
+            if (!isChanged(name)) {
+                source.setAttribute(name, value);
+                dirtyAttributeNames.remove(name);
+            }
+        });
+        SessionInfo storedSessionInfo = record.getSessionInfo();
+        if (storedSessionInfo != null) {
+            sessionInfo.setCreationTime(storedSessionInfo.getCreationTime());
+            sessionInfo.setMaxInactiveInterval(storedSessionInfo.getMaxInactiveInterval());
+        }
     }
 
-    public void saveSessionInfo(SessionInfo sessionInfo) {
-        Cache<String, SessionInfo> sessionInfoCache = getSessionInfoCache();
-        sessionInfo.setLastAccessedTime(System.currentTimeMillis());
-        sessionInfoCache.put(sessionInfo.getId(), sessionInfo);
+    /**
+     * The local session is identified by its own id, thus the migrated attributes are saved by it
+     */
+    private void migrate(SessionRecord record, SessionInfo sessionInfo) {
+        SessionInfo migratedSessionInfo = record.getSessionInfo();
+        if (migratedSessionInfo != null) {
+            migratedSessionId = migratedSessionInfo.getId();
+            sessionInfo.setCreationTime(migratedSessionInfo.getCreationTime());
+            sessionInfo.setMaxInactiveInterval(migratedSessionInfo.getMaxInactiveInterval());
+        }
+        record.getAttributes().forEach((name, value) -> {
+            if (!isChanged(name)) {
+                source.setAttribute(name, value);
+                markDirty(name);
+            }
+        });
     }
 
     /**
-     * Get the {@link SessionInfo} from cache.
-     *
-     * @param sessionId session id
-     * @return if not null, it indicates that current requested associating distributed session is present
-     * in the cache, or current new session is a new one absolutely
+     * The saved version is adopted by the local session only if no other server saved the record since the local
+     * session was synchronized, otherwise the local session may miss their changes, thus its version is evicted and
+     * the record is loaded by the next request.
      */
-    public SessionInfo getSessionInfo(String sessionId) {
-        Cache<String, SessionInfo> sessionInfoCache = getSessionInfoCache();
-        return sessionInfoCache.get(sessionId);
-    }
-
-    private Cache<String, SessionInfo> getSessionInfoCache() {
-        String cacheName = "SessionInfoCache";
-        Cache<String, SessionInfo> cache = cacheManager.getCache(cacheName, String.class, SessionInfo.class);
-        if (cache == null) {
-            MutableConfiguration<String, SessionInfo> configuration =
-                    new MutableConfiguration<String, SessionInfo>()
-                            .setTypes(String.class, SessionInfo.class)
-                            .setExpiryPolicyFactory(() -> new TouchedExpiryPolicy(Duration));
-            cache = cacheManager.createCache(cacheName, configuration);
+    private void adoptVersion(long version) {
+        long expectedVersion = synchronizedVersion == NO_VERSION ? 1 : synchronizedVersion + 1;
+        if (synchronizedVersion != UNKNOWN_VERSION && version == expectedVersion) {
+            localSessionCache.setVersion(getId(), version);
+            synchronizedVersion = version;
+        } else {
+            localSessionCache.remove(getId());
+            synchronizedVersion = UNKNOWN_VERSION;
         }
-        return cache;
     }
 
-    private ExpiryPolicy createExpiryPolicy() {
-        return new ExpiryPolicy(){
-
-            @Override
-            public Duration getExpiryForCreation() {
-                return null;
-            }
-
-            @Override
-            public Duration getExpiryForAccess() {
-                return null;
-            }
-
-            @Override
-            public Duration getExpiryForUpdate() {
-                return null;
-            }
-        }
+    private boolean isChanged(String name) {
+        return dirtyAttributeNames.contains(name) || removedAttributeNames.contains(name);
     }
 
-    private Cache<String, Object> getCache() {
-        Cache<String, Object> cache = buildCache();
-        return cache;
+    /**
+     * @return The requestedSessionId matches current session id and session is exited.
+     */
+    private boolean isReentrantSession() {
+        return request.isRequestedSessionIdValid() && !source.isNew();
     }
 
-    private Cache<String, Object> buildCache() {
-        String sessionId = getId();
-        String cacheName = "session-attributes-cache-" + sessionId;
-        MutableConfiguration<String, Object> configuration = new MutableConfiguration<String, Object>()
-                .setTypes(String.class, Object.class)
-                .setExpiryPolicyFactory(() -> new TouchedExpiryPolicy(new Duration(TimeUnit.SECONDS, getMaxInactiveInterval())))
-                .setStoreByValue(true);
+    /**
+     * Is first time access
+     *
+     * @return
+     */
+    private boolean isNewSession() {
+        return request.getRequestedSessionId() == null && source.isNew();
+    }
 
-        Cache<String, Object> cache = cacheManager.createCache(cacheName, configuration);
-        return cache;
+    private SessionRecord getRecord() {
+        if (!recordLoaded) {
+            record = sessionStore.load(getId());
+            recordLoaded = true;
+        }
+        return record;
     }
 
     @Override
     public long getCreationTime() {
+        resolve();
         return sessionInfo.getCreationTime();
     }
 
@@ -203,11 +310,15 @@ public class DistributedHttpSession implements HttpSession {
 
     @Override
     public void setMaxInactiveInterval(int interval) {
+        resolve();
         sessionInfo.setMaxInactiveInterval(interval);
+        source.setMaxInactiveInterval(interval);
+        sessionInfoChanged = true;
     }
 
     @Override
     public int getMaxInactiveInterval() {
+        resolve();
         return sessionInfo.getMaxInactiveInterval();
     }
 
@@ -218,15 +329,23 @@ public class DistributedHttpSession implements HttpSession {
 
     @Override
     public Object getAttribute(String name) {
+        resolve();
         // try to find the value in local session
         Object value = source.getAttribute(name);
-        if (value == null) { // If not found, try to find it in the cache
-            value = attributesCache.get(name);
-            // restore the cached value into local session if found
+        if (value == null && !removedAttributeNames.contains(name)) { // If not found, try to find it in the record
+            SessionRecord record = getRecord();
+            value = record == null ? null : record.getAttributes().get(name);
+            // restore the stored value into local session if found
             if (value != null) {
                 source.setAttribute(name, value);
+                // the restored value is not changed
+                dirtyAttributeNames.remove(name);
             }
         }
+        if (value != null && dirtyOnRead) {
+            // the mutable value may be changed by the reader
+            markDirty(name);
+        }
         return value;
     }
 
@@ -238,18 +357,26 @@ public class DistributedHttpSession implements HttpSession {
 
     @Override
     public Enumeration<String> getAttributeNames() {
+        resolve();
         return source.getAttributeNames();
     }
 
     @Override
     @Deprecated
     public String[] getValueNames() {
+        resolve();
         return source.getValueNames();
     }
 
     @Override
     public void setAttribute(String name, Object value) {
+        resolve();
         source.setAttribute(name, value);
+        if (value == null) {
+            markRemoved(name);
+        } else {
+            markDirty(name);
+        }
     }
 
     @Override
@@ -260,7 +387,9 @@ public class DistributedHttpSession implements HttpSession {
 
     @Override
     public void removeAttribute(String name) {
+        resolve();
         source.removeAttribute(name);
+        markRemoved(name);
     }
 
     @Override
@@ -271,6 +400,13 @@ public class DistributedHttpSession implements HttpSession {
 
     @Override
     public void invalidate() {
+        invalidated = true;
+        dirtyAttributeNames.clear();
+        removedAttributeNames.clear();
+        sessionStore.remove(getId());
+        if (localSessionCache != null) {
+            localSessionCache.remove(getId());
+        }
         source.invalidate();
     }
 
@@ -279,4 +415,106 @@ public class DistributedHttpSession implements HttpSession {
         return source.isNew();
     }
 
+    boolean isInvalidated() {
+        return invalidated;
+    }
+
+    /**
+     * @param session the local {@link HttpSession}
+     * @return <code>true</code> if current session is backed by the specified local session
+     */
+    boolean isBackedBy(HttpSession session) {
+        return source == session;
+    }
+
+    /**
+     * The id of local session was changed, the record of the previous id is moved to the new id when current
+     * session is flushed
+     *
+     * @param sessionId the new id of session
+     */
+    void changeSessionId(String sessionId) {
+        // the attributes of the previous id are required to be saved by the new one
+        resolve();
+        String previousSessionId = getId();
+        if (migratedSessionId == null) {
+            migratedSessionId = previousSessionId;
+        }
+        sessionInfo.setId(sessionId);
+        sessionInfoChanged = true;
+        // the record of new id is absent
+        synchronizedVersion = NO_VERSION;
+        for (String name : Collections.list(source.getAttributeNames())) {
+            markDirty(name);
+        }
+        if (localSessionCache != null) {
+            localSessionCache.remove(previousSessionId);
+        }
+    }
+
+    /**
+     * Mark the attribute as added or replaced, it will be written into the cache when current request is completed
+     *
+     * @param name the name of attribute
+     */
+    void markDirty(String name) {
+        if (ATTRIBUTE_NAME.equals(name)) {
+            return;
+        }
+        removedAttributeNames.remove(name);
+        dirtyAttributeNames.add(name);
+    }
+
+    /**
+     * Mark the attribute as removed, it will be removed from the cache when current request is completed
+     *
+     * @param name the name of attribute
+     */
+    void markRemoved(String name) {
+        if (ATTRIBUTE_NAME.equals(name)) {
+            return;
+        }
+        dirtyAttributeNames.remove(name);
+        removedAttributeNames.add(name);
+    }
+
+    /**
+     * Save the changed attributes and the {@link SessionInfo} into the {@link SessionStore} in one update, the
+     * changes are cleared after being flushed. The session that is not changed is saved only if its expiration
+     * in the {@link SessionStore} is postponed by current access.
+     */
+    public void flush() {
+        if (invalidated) {
+            return;
+        }
+        long currentTimeMillis = System.currentTimeMillis();
+        if (!sessionInfoChanged && dirtyAttributeNames.isEmpty() && removedAttributeNames.isEmpty()
+                && !sessionStore.isExpirationChanged(sessionInfo, currentTimeMillis)) {
+            return;
+        }
+        // the local session is synchronized before it's saved
+        resolve();
+        Map<String, Object> dirtyAttributes = new HashMap<>();
+        Set<String> removedNames = new HashSet<>(removedAttributeNames);
+        for (String name : dirtyAttributeNames) {
+            Object value = source.getAttribute(name);
+            if (value == null) {
+                removedNames.add(name);
+            } else {
+                dirtyAttributes.put(name, value);
+            }
+        }
+        dirtyAttributeNames.clear();
+        removedAttributeNames.clear();
+        sessionInfoChanged = false;
+        sessionInfo.setLastAccessedTime(currentTimeMillis);
+        long version = sessionStore.save(sessionInfo, dirtyAttributes, removedNames);
+        if (localSessionCache != null) {
+            adoptVersion(version);
+        }
+        if (migratedSessionId != null && !migratedSessionId.equals(getId())) {
+            sessionStore.remove(migratedSessionId);
+            migratedSessionId = null;
+        }
+    }
 }
@@ -16,9 +16,9 @@
  */
 package org.geektimes.session.servlet.http;
 
-import javax.cache.Cache;
-import javax.cache.CacheManager;
-import javax.cache.configuration.MutableConfiguration;
+import org.geektimes.session.store.LocalSessionCache;
+import org.geektimes.session.store.SessionStore;
+
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletRequestWrapper;
 import javax.servlet.http.HttpSession;
@@ -34,7 +34,16 @@ public class DistributedServletRequestWrapper extends HttpServletRequestWrapper
 
     private final HttpServletRequest request;
 
-    private final CacheManager cacheManager;
+    private final SessionStore sessionStore;
+
+    private final LocalSessionCache localSessionCache;
+
+    private final boolean dirtyOnRead;
+
+    /**
+     * The session that is built once per request, it's rebuilt only if the local session was invalidated or replaced
+     */
+    private DistributedHttpSession distributedSession;
 
     /**
      * Constructs a request object wrapping the given request.
@@ -42,69 +51,68 @@ public class DistributedServletRequestWrapper extends HttpServletRequestWrapper
      * @param request HttpServletRequest
      * @throws IllegalArgumentException if the request is null
      */
-    public DistributedServletRequestWrapper(HttpServletRequest request, CacheManager cacheManager) {
+    public DistributedServletRequestWrapper(HttpServletRequest request, SessionStore sessionStore) {
+        this(request, sessionStore, null, false);
+    }
+
+    /**
+     * Constructs a request object wrapping the given request.
+     *
+     * @param request           HttpServletRequest
+     * @param localSessionCache the node-local versions of sessions, <code>null</code> if the local session is not
+     *                          trusted
+     * @param dirtyOnRead       whether the attribute is regarded as dirty once it's read
+     * @throws IllegalArgumentException if the request is null
+     * @see DistributedHttpSession#DIRTY_ON_READ_PROPERTY_NAME
+     */
+    public DistributedServletRequestWrapper(HttpServletRequest request, SessionStore sessionStore,
+                                            LocalSessionCache localSessionCache, boolean dirtyOnRead) {
         super(request);
         this.request = request;
-        this.cacheManager = cacheManager;
+        this.sessionStore = sessionStore;
+        this.localSessionCache = localSessionCache;
+        this.dirtyOnRead = dirtyOnRead;
     }
 
     @Override
     public HttpSession getSession(boolean create) {
-        // Get Session ID from request
-        String requestedSessionId = request.getRequestedSessionId();
-
         HttpSession session = super.getSession(create);
-
-        if (session != null) {
-            return new DistributedHttpSession(request, session, cacheManager);
+        if (session == null) {
+            return null;
         }
-
-        if (session != null) {
-            if (requestedSessionId == null) { // First time access
-                if (session.isNew()) {
-                    SessionInfo sessionInfo = new SessionInfo(session);
-                }
-
-            } else if (request.isRequestedSessionIdValid()) { // current request accessed this server
-
-            } else {  // the requestedSessionId can't match current session id
-
+        DistributedHttpSession distributedSession = this.distributedSession;
+        if (distributedSession == null || distributedSession.isInvalidated()
+                || !distributedSession.isBackedBy(session)) {
+            if (distributedSession != null) {
+                // the replaced session is flushed before the new one
+                distributedSession.flush();
             }
+            distributedSession = new DistributedHttpSession(request, session, sessionStore, localSessionCache,
+                    dirtyOnRead);
+            this.distributedSession = distributedSession;
         }
+        return distributedSession;
+    }
 
-
-        if (session != null) {
-            SessionInfo sessionInfo = getSessionInfoFromCache(requestedSessionId);
-            return new DistributedHttpSession(cacheManager, session, sessionInfo);
-        } else {
-            // invalidate session
-            return session;
+    @Override
+    public String changeSessionId() {
+        DistributedHttpSession distributedSession = (DistributedHttpSession) getSession(false);
+        String sessionId = super.changeSessionId();
+        if (distributedSession != null) {
+            distributedSession.changeSessionId(sessionId);
         }
+        return sessionId;
     }
 
     /**
-     * Get the {@link SessionInfo} from cache.
-     *
-     * @param sessionId session id
-     * @return if not null, it indicates that current requested associating distributed session is present
-     * in the cache, or current new session is a new one absolutely
+     * Flush the changes of attributes of the session that was obtained during current request
      */
-    private SessionInfo getSessionInfoFromCache(String sessionId) {
-        Cache<String, SessionInfo> sessionInfoCache = getSessionInfoCache();
-        return sessionInfoCache.get(sessionId);
-    }
-
-    private Cache<String, SessionInfo> getSessionInfoCache() {
-        String cacheName = "SessionInfoCache";
-        Cache<String, SessionInfo> cache = cacheManager.getCache(cacheName, String.class, SessionInfo.class);
-        if (cache == null) {
-            MutableConfiguration<String, SessionInfo> configuration = new MutableConfiguration<>();
-            configuration.setTypes(String.class, SessionInfo.class);
-            // TODO ExpiryPolicy
-            // configuration.setExpiryPolicyFactory();
-            cache = cacheManager.createCache(cacheName, configuration);
+    public void flushSessions() {
+        DistributedHttpSession distributedSession = this.distributedSession;
+        if (distributedSession != null) {
+            distributedSession.flush();
+            this.distributedSession = null;
         }
-        return cache;
     }
 
     /**
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.session.servlet.http;
+
+import org.geektimes.session.store.SessionRecord;
+
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpSession;
+import javax.servlet.http.HttpSessionContext;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Map;
+
+/**
+ * The read-only {@link HttpSession} of the {@link SessionRecord} that was removed by
+ * {@link SessionExpiryReaper}, which is passed to {@link javax.servlet.http.HttpSessionListener#sessionDestroyed}.
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @since 1.0.0
+ */
+class ExpiredHttpSession implements HttpSession {
+
+    private final SessionInfo sessionInfo;
+
+    private final Map<String, Object> attributes;
+
+    private final ServletContext servletContext;
+
+    ExpiredHttpSession(SessionRecord record, ServletContext servletContext) {
+        this.sessionInfo = record.getSessionInfo();
+        this.attributes = Collections.unmodifiableMap(record.getAttributes());
+        this.servletContext = servletContext;
+    }
+
+    @Override
+    public long getCreationTime() {
+        return sessionInfo.getCreationTime();
+    }
+
+    @Override
+    public String getId() {
+        return sessionInfo.getId();
+    }
+
+    @Override
+    public long getLastAccessedTime() {
+        return sessionInfo.getLastAccessedTime();
+    }
+
+    @Override
+    public ServletContext getServletContext() {
+        return servletContext;
+    }
+
+    @Override
+    public void setMaxInactiveInterval(int interval) {
+        throw expired();
+    }
+
+    @Override
+    public int getMaxInactiveInterval() {
+        return sessionInfo.getMaxInactiveInterval();
+    }
+
+    @Override
+    @Deprecated
+    public HttpSessionContext getSessionContext() {
+        return null;
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    @Override
+    @Deprecated
+    public Object getValue(String name) {
+        return getAttribute(name);
+    }
+
+    @Override
+    public Enumeration<String> getAttributeNames() {
+        return Collections.enumeration(attributes.keySet());
+    }
+
+    @Override
+    @Deprecated
+    public String[] getValueNames() {
+        return attributes.keySet().toArray(new String[0]);
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+        throw expired();
+    }
+
+    @Override
+    @Deprecated
+    public void putValue(String name, Object value) {
+        setAttribute(name, value);
+    }
+
+    @Override
+    public void removeAttribute(String name) {
+        throw expired();
+    }
+
+    @Override
+    @Deprecated
+    public void removeValue(String name) {
+        removeAttribute(name);
+    }
+
+    @Override
+    public void invalidate() {
+        throw expired();
+    }
+
+    @Override
+    public boolean isNew() {
+        return false;
+    }
+
+    private IllegalStateException expired() {
+        return new IllegalStateException("The session[id : " + getId() + "] was expired!");
+    }
+}
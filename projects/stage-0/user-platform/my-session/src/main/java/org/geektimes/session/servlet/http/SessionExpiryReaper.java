@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.session.servlet.http;
+
+import org.geektimes.session.store.SessionRecord;
+import org.geektimes.session.store.SessionStore;
+
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpSessionEvent;
+import javax.servlet.http.HttpSessionListener;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.UUID;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * The reaper removes the expired sessions from the {@link SessionStore} periodically, every node of the cluster runs
+ * one, but only the one that holds the {@link SessionStore#acquireExpiryLease(String, long) lease} sweeps, the lease
+ * is taken over by another node once its holder is down.
+ * <p>
+ * The work of sweep is bounded by {@link #MAX_SESSIONS_PROPERTY_NAME}, the {@link HttpSessionListener
+ * HttpSessionListeners} that are loaded by {@link ServiceLoader Java SPI} are notified of the removed sessions.
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see SessionStore#removeExpired(long, int, int)
+ * @since 1.0.0
+ */
+class SessionExpiryReaper {
+
+    /**
+     * The property name of whether the expired sessions are removed from the store, the default is true
+     */
+    static final String ENABLED_PROPERTY_NAME = "javax.servlet.http.HttpSession.reaper.enabled";
+
+    /**
+     * The property name of the interval of sweeps in seconds
+     */
+    static final String INTERVAL_PROPERTY_NAME = "javax.servlet.http.HttpSession.reaper.interval";
+
+    /**
+     * The property name of the max count of sessions that are removed in one batch
+     */
+    static final String BATCH_SIZE_PROPERTY_NAME = "javax.servlet.http.HttpSession.reaper.batch-size";
+
+    /**
+     * The property name of the max count of sessions that are removed in one sweep
+     */
+    static final String MAX_SESSIONS_PROPERTY_NAME = "javax.servlet.http.HttpSession.reaper.max-sessions";
+
+    static final int DEFAULT_INTERVAL = 60;
+
+    static final int DEFAULT_BATCH_SIZE = 100;
+
+    static final int DEFAULT_MAX_SESSIONS = 1000;
+
+    private static final AtomicInteger threadCounter = new AtomicInteger();
+
+    private final Logger logger = Logger.getLogger(getClass().getName());
+
+    private final String owner = UUID.randomUUID().toString();
+
+    private final SessionStore sessionStore;
+
+    private final ServletContext servletContext;
+
+    private final List<HttpSessionListener> listeners = new ArrayList<>();
+
+    private final int batchSize;
+
+    private final int maxSessions;
+
+    /**
+     * The lease outlives two sweeps, thus it's renewed by its holder before it expires
+     */
+    private final long leaseDuration;
+
+    private final ScheduledExecutorService scheduler;
+
+    SessionExpiryReaper(SessionStore sessionStore, ServletContext servletContext, ClassLoader classLoader,
+                        int interval, int batchSize, int maxSessions) {
+        this.sessionStore = sessionStore;
+        this.servletContext = servletContext;
+        ServiceLoader.load(HttpSessionListener.class, classLoader).forEach(listeners::add);
+        this.batchSize = batchSize;
+        this.maxSessions = maxSessions;
+        this.leaseDuration = SECONDS.toMillis(interval) * 2;
+        this.scheduler = newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-expiry-reaper-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::sweep, interval, interval, SECONDS);
+    }
+
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private void sweep() {
+        try {
+            // every node writes its buffered index of expirations, whether it holds the lease or not
+            sessionStore.flush();
+            if (!sessionStore.acquireExpiryLease(owner, leaseDuration)) {
+                return;
+            }
+            List<SessionRecord> records = sessionStore.removeExpired(System.currentTimeMillis(), batchSize,
+                    maxSessions);
+            for (SessionRecord record : records) {
+                sessionDestroyed(record);
+            }
+        } catch (Throwable e) {
+            // keep the scheduler alive
+            logger.log(Level.WARNING, "Failed to remove the expired sessions", e);
+        }
+    }
+
+    private void sessionDestroyed(SessionRecord record) {
+        HttpSessionEvent event = new HttpSessionEvent(new ExpiredHttpSession(record, servletContext));
+        for (HttpSessionListener listener : listeners) {
+            try {
+                listener.sessionDestroyed(event);
+            } catch (Throwable e) {
+                logger.log(Level.WARNING, "Failed to notify the listener[" + listener + "] of the expired session["
+                        + record.getSessionInfo().getId() + "]", e);
+            }
+        }
+    }
+}
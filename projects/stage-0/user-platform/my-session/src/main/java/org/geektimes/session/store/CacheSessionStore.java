@@ -0,0 +1,617 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.session.store;
+
+import org.geektimes.session.servlet.http.SessionInfo;
+
+import javax.cache.Cache;
+import javax.cache.CacheException;
+import javax.cache.CacheManager;
+import javax.cache.configuration.MutableConfiguration;
+import javax.cache.processor.EntryProcessor;
+import javax.cache.processor.EntryProcessorResult;
+import javax.cache.processor.MutableEntry;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static java.util.Collections.emptySet;
+
+/**
+ * The {@link SessionStore} based on the single {@link Cache} that is shared by all sessions, the changed attributes
+ * are applied to the record by {@link Cache#invoke(Object, EntryProcessor, Object...)}. The versions of records are
+ * kept in another {@link Cache}, which is updated after the record, thus the version is read without the transfer of
+ * attributes.
+ * <p>
+ * The {@link EntryProcessor} is serialized against the other mutations of the same session in current JVM only, the
+ * remote {@link Cache}, e.g. Redis, reads and writes the whole record, thus the concurrent saves of the same session
+ * on different nodes are last-writer-wins : the attributes changed by the other node may be lost, and both saves may
+ * return the same version. The sticky sessions, which are saved by one node at a time, are not affected.
+ * <p>
+ * The expirations of sessions are indexed by the buckets of {@link #EXPIRY_BUCKET_DURATION one minute}, every
+ * bucket is sharded by the nodes, thus the shard is only appended by its own node, whose appends are serialized in
+ * the JVM, rather than being read and rewritten by the nodes concurrently. The session is indexed only if its
+ * bucket is changed by the save, the ids of sessions are buffered by the node and appended to its shards once per
+ * {@link #EXPIRY_INDEX_FLUSH_INTERVAL flush interval}, thus the shard is rewritten once per interval rather than once
+ * per request, the buffered ids are lost if the node crashes, whose records are no longer removed by the reaper. The
+ * nodes that have the shards are
+ * registered in the expiry state, the registration is verified once the node indexes a later bucket or every bucket
+ * duration, thus the registration that was lost by the concurrent update is restored long before the shards are
+ * due, as long as the sessions are inactive for more than a few minutes.
+ * <p>
+ * The bucket whose expirations all passed is swept in batches by the holder of lease, the session that was accessed
+ * after it was indexed is kept and indexed by its new bucket meanwhile, thus the index is never updated in place.
+ * The node is unregistered once all of its shards were swept. The lease is best-effort, since
+ * {@link Cache#putIfAbsent(Object, Object)} and {@link Cache#replace(Object, Object, Object)} are not
+ * compare-and-set on the remote {@link Cache}, e.g. Redis, two nodes may sweep at the same time while the lease is
+ * taken over, which removes no live session, but the {@link javax.servlet.http.HttpSessionListener listeners} may be
+ * notified of the same expired session twice.
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @since 1.0.0
+ */
+public class CacheSessionStore implements SessionStore {
+
+    /**
+     * The name of {@link Cache} of {@link SessionRecord session records}
+     */
+    public static final String CACHE_NAME = "session-records";
+
+    /**
+     * The name of {@link Cache} of the versions of {@link SessionRecord session records}
+     */
+    public static final String VERSIONS_CACHE_NAME = "session-record-versions";
+
+    /**
+     * The name of {@link Cache} of the expiry index, whose key is the shard of the bucket of expirations
+     */
+    public static final String EXPIRY_INDEX_CACHE_NAME = "session-expiry-index";
+
+    /**
+     * The name of {@link Cache} of the lease and the progress of expiring sessions
+     */
+    public static final String EXPIRY_STATE_CACHE_NAME = "session-expiry-state";
+
+    /**
+     * The duration of expiry bucket in milliseconds
+     */
+    public static final long EXPIRY_BUCKET_DURATION = 60 * 1000L;
+
+    /**
+     * The min interval of appending the buffered ids of sessions to the shards of expiry index in milliseconds
+     */
+    public static final long EXPIRY_INDEX_FLUSH_INTERVAL = 1000L;
+
+    /**
+     * The bucket of the session that never expires, which is not indexed
+     */
+    private static final long NO_EXPIRY_BUCKET = 0L;
+
+    private static final String LEASE_KEY = "lease";
+
+    private static final String CURSOR_KEY = "cursor";
+
+    /**
+     * The key of the ids of nodes that have the shards of expiry index
+     */
+    private static final String NODES_KEY = "nodes";
+
+    /**
+     * The prefix of the key of the latest bucket that is indexed by the node
+     */
+    private static final String NODE_KEY_PREFIX = "node:";
+
+    private static final String NODE_SEPARATOR = ",";
+
+    private static final char LEASE_SEPARATOR = '@';
+
+    private final Logger logger = Logger.getLogger(getClass().getName());
+
+    private Cache<String, SessionRecord> cache;
+
+    private Cache<String, Long> versionsCache;
+
+    private Cache<String, ExpiryBucket> expiryIndexCache;
+
+    private Cache<String, String> expiryStateCache;
+
+    /**
+     * The id of current node that owns the shards of expiry index
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    /**
+     * The latest bucket that is indexed by current node
+     */
+    private final AtomicLong latestBucket = new AtomicLong(Long.MIN_VALUE);
+
+    private volatile long registrationTime;
+
+    /**
+     * The ids of sessions that are not appended to the shards of expiry index yet by the buckets, the set of ids is
+     * only mutated in {@link ConcurrentMap#compute(Object, BiFunction)}, thus it's drained atomically by removal.
+     */
+    private final ConcurrentMap<Long, Set<String>> pendingExpirations = new ConcurrentHashMap<>();
+
+    private final Lock flushLock = new ReentrantLock();
+
+    private volatile long flushTime;
+
+    @Override
+    public int getPriority() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public void initialize(CacheManager cacheManager) {
+        this.cache = getOrCreateCache(cacheManager, CACHE_NAME, String.class, SessionRecord.class);
+        this.versionsCache = getOrCreateCache(cacheManager, VERSIONS_CACHE_NAME, String.class, Long.class);
+        this.expiryIndexCache = getOrCreateCache(cacheManager, EXPIRY_INDEX_CACHE_NAME, String.class,
+                ExpiryBucket.class);
+        this.expiryStateCache = getOrCreateCache(cacheManager, EXPIRY_STATE_CACHE_NAME, String.class, String.class);
+        // No session expires before the first store is initialized
+        expiryStateCache.putIfAbsent(CURSOR_KEY, String.valueOf(getBucket(System.currentTimeMillis())));
+    }
+
+    @Override
+    public SessionRecord load(String sessionId) {
+        return cache.get(sessionId);
+    }
+
+    @Override
+    public long getVersion(String sessionId) {
+        Long version = versionsCache.get(sessionId);
+        return version == null ? NO_VERSION : version;
+    }
+
+    @Override
+    public long save(SessionInfo sessionInfo, Map<String, Object> changedAttributes, Set<String> removedAttributeNames) {
+        String sessionId = sessionInfo.getId();
+        SaveResult result = cache.invoke(sessionId,
+                new SessionRecordUpdater(sessionInfo, changedAttributes, removedAttributeNames));
+        versionsCache.put(sessionId, result.getVersion());
+        long expiryBucket = getExpiryBucket(sessionInfo);
+        if (result.isExpiryBucketChanged() && expiryBucket != NO_EXPIRY_BUCKET) {
+            pendingExpirations.compute(expiryBucket, (bucket, sessionIds) -> {
+                Set<String> ids = sessionIds == null ? new HashSet<>() : sessionIds;
+                ids.add(sessionId);
+                return ids;
+            });
+        }
+        if (System.currentTimeMillis() - flushTime >= EXPIRY_INDEX_FLUSH_INTERVAL) {
+            flush();
+        }
+        return result.getVersion();
+    }
+
+    /**
+     * Append the buffered ids of sessions to the shards of current node, the concurrent flush is skipped since the
+     * ids are drained by the running one.
+     */
+    @Override
+    public void flush() {
+        if (!flushLock.tryLock()) {
+            return;
+        }
+        try {
+            flushTime = System.currentTimeMillis();
+            // the session that expired before being indexed is swept with the current bucket
+            long currentBucket = getBucket(flushTime);
+            for (Long bucket : new ArrayList<>(pendingExpirations.keySet())) {
+                Set<String> sessionIds = pendingExpirations.remove(bucket);
+                if (sessionIds == null) {
+                    continue;
+                }
+                long shardBucket = Math.max(bucket, currentBucket);
+                try {
+                    registerNode(shardBucket);
+                    expiryIndexCache.invoke(getShardKey(shardBucket, nodeId), new ExpiryBucketAppender(sessionIds));
+                } catch (RuntimeException e) {
+                    // retry in next time
+                    pendingExpirations.merge(bucket, sessionIds, (ids, failedIds) -> {
+                        ids.addAll(failedIds);
+                        return ids;
+                    });
+                    logger.log(Level.WARNING, "Failed to index the expirations of sessions in bucket[" + bucket
+                            + "]", e);
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Register current node before its shard of bucket is appended, the registration is verified once the latest
+     * bucket is moved or every {@link #EXPIRY_BUCKET_DURATION bucket duration}.
+     */
+    private void registerNode(long bucket) {
+        long currentTimeMillis = System.currentTimeMillis();
+        long previousBucket = latestBucket.getAndAccumulate(bucket, Math::max);
+        if (bucket > previousBucket || currentTimeMillis - registrationTime >= EXPIRY_BUCKET_DURATION) {
+            registrationTime = currentTimeMillis;
+            // the latest bucket is written before the id, thus the registered node is never regarded as swept
+            expiryStateCache.put(NODE_KEY_PREFIX + nodeId, String.valueOf(latestBucket.get()));
+            if (!getNodeIds().contains(nodeId)) {
+                expiryStateCache.invoke(NODES_KEY, new NodesUpdater(nodeId, true));
+            }
+        }
+    }
+
+    @Override
+    public void remove(String sessionId) {
+        versionsCache.remove(sessionId);
+        cache.remove(sessionId);
+    }
+
+    @Override
+    public boolean isExpirationChanged(SessionInfo sessionInfo, long lastAccessedTime) {
+        int maxInactiveInterval = sessionInfo.getMaxInactiveInterval();
+        if (maxInactiveInterval <= 0) {
+            return false;
+        }
+        long duration = maxInactiveInterval * 1000L;
+        return getBucket(sessionInfo.getLastAccessedTime() + duration) != getBucket(lastAccessedTime + duration);
+    }
+
+    @Override
+    public boolean acquireExpiryLease(String owner, long leaseDuration) {
+        long currentTimeMillis = System.currentTimeMillis();
+        String lease = owner + LEASE_SEPARATOR + (currentTimeMillis + leaseDuration);
+        String currentLease = expiryStateCache.get(LEASE_KEY);
+        if (currentLease == null) {
+            return expiryStateCache.putIfAbsent(LEASE_KEY, lease);
+        }
+        int index = currentLease.lastIndexOf(LEASE_SEPARATOR);
+        String currentOwner = currentLease.substring(0, index);
+        long leaseExpiration = Long.parseLong(currentLease.substring(index + 1));
+        if (owner.equals(currentOwner) || leaseExpiration <= currentTimeMillis) {
+            // renew or take over the lease unless it was changed meanwhile
+            return expiryStateCache.replace(LEASE_KEY, currentLease, lease);
+        }
+        return false;
+    }
+
+    @Override
+    public List<SessionRecord> removeExpired(long currentTimeMillis, int batchSize, int maxSessions) {
+        List<SessionRecord> removedRecords = new ArrayList<>();
+        String cursorValue = expiryStateCache.get(CURSOR_KEY);
+        long cursor = cursorValue == null ? getBucket(currentTimeMillis) : Long.parseLong(cursorValue);
+        // the last bucket whose expirations all passed
+        long dueBucket = getBucket(currentTimeMillis) - 1;
+        Set<String> nodeIds = getNodeIds();
+        int remaining = maxSessions;
+        while (cursor <= dueBucket && remaining > 0) {
+            int count = 0;
+            boolean swept = true;
+            for (String nodeId : nodeIds) {
+                String shardKey = getShardKey(cursor, nodeId);
+                ExpiryBucket bucket = expiryIndexCache.get(shardKey);
+                List<String> sessionIds = bucket == null ? new ArrayList<>() :
+                        new ArrayList<>(bucket.getSessionIds());
+                int shardCount = Math.min(sessionIds.size(), remaining - count);
+                for (int i = 0; i < shardCount; i += batchSize) {
+                    Set<String> batch = new HashSet<>(sessionIds.subList(i, Math.min(i + batchSize, shardCount)));
+                    removedRecords.addAll(removeExpiredRecords(batch, currentTimeMillis));
+                    expiryIndexCache.invoke(shardKey, new ExpiryBucketRemover(batch));
+                }
+                count += shardCount;
+                if (shardCount < sessionIds.size()) { // the rest of bucket is removed in next time
+                    swept = false;
+                    break;
+                }
+            }
+            // the empty bucket is counted as well, thus the long idle cluster catches up in steps
+            remaining -= Math.max(count, 1);
+            if (!swept) {
+                break;
+            }
+            cursor++;
+            expiryStateCache.put(CURSOR_KEY, String.valueOf(cursor));
+        }
+        unregisterSweptNodes(nodeIds, cursor);
+        return removedRecords;
+    }
+
+    /**
+     * Unregister the nodes whose shards were all swept, the node registers itself again once it indexes a session
+     */
+    private void unregisterSweptNodes(Set<String> nodeIds, long cursor) {
+        for (String nodeId : nodeIds) {
+            String latestBucket = expiryStateCache.get(NODE_KEY_PREFIX + nodeId);
+            if (latestBucket == null || Long.parseLong(latestBucket) < cursor) {
+                expiryStateCache.invoke(NODES_KEY, new NodesUpdater(nodeId, false));
+                expiryStateCache.remove(NODE_KEY_PREFIX + nodeId);
+            }
+        }
+    }
+
+    private Set<String> getNodeIds() {
+        return parseNodeIds(expiryStateCache.get(NODES_KEY));
+    }
+
+    private static Set<String> parseNodeIds(String nodes) {
+        Set<String> nodeIds = new LinkedHashSet<>();
+        if (nodes != null && !nodes.isEmpty()) {
+            nodeIds.addAll(Arrays.asList(nodes.split(NODE_SEPARATOR)));
+        }
+        return nodeIds;
+    }
+
+    private List<SessionRecord> removeExpiredRecords(Set<String> sessionIds, long currentTimeMillis) {
+        Map<String, EntryProcessorResult<SessionRecord>> results =
+                cache.invokeAll(sessionIds, new ExpiredRecordRemover(currentTimeMillis));
+        List<SessionRecord> removedRecords = new ArrayList<>(results.size());
+        Set<String> removedSessionIds = new HashSet<>();
+        results.forEach((sessionId, result) -> {
+            SessionRecord record = result == null ? null : result.get();
+            if (record != null) {
+                removedRecords.add(record);
+                removedSessionIds.add(sessionId);
+            }
+        });
+        if (!removedSessionIds.isEmpty()) {
+            versionsCache.removeAll(removedSessionIds);
+        }
+        return removedRecords;
+    }
+
+    /**
+     * @param sessionInfo {@link SessionInfo}
+     * @return the time that the session expires at, {@link Long#MAX_VALUE} if it never expires
+     */
+    static long getExpiration(SessionInfo sessionInfo) {
+        int maxInactiveInterval = sessionInfo.getMaxInactiveInterval();
+        return maxInactiveInterval <= 0 ? Long.MAX_VALUE :
+                sessionInfo.getLastAccessedTime() + maxInactiveInterval * 1000L;
+    }
+
+    /**
+     * @param sessionInfo {@link SessionInfo}
+     * @return the bucket of expiration, {@link #NO_EXPIRY_BUCKET} if the session never expires
+     */
+    static long getExpiryBucket(SessionInfo sessionInfo) {
+        long expiration = getExpiration(sessionInfo);
+        return expiration == Long.MAX_VALUE ? NO_EXPIRY_BUCKET : getBucket(expiration);
+    }
+
+    private static long getBucket(long timeMillis) {
+        return timeMillis / EXPIRY_BUCKET_DURATION;
+    }
+
+    private static String getShardKey(long bucket, String nodeId) {
+        return bucket + ":" + nodeId;
+    }
+
+    protected final Cache<String, SessionRecord> getCache() {
+        return cache;
+    }
+
+    private static <K, V> Cache<K, V> getOrCreateCache(CacheManager cacheManager, String cacheName,
+                                                       Class<K> keyType, Class<V> valueType) {
+        MutableConfiguration<K, V> configuration = new MutableConfiguration<K, V>().setTypes(keyType, valueType);
+        try {
+            return cacheManager.createCache(cacheName, configuration);
+        } catch (CacheException e) {
+            // created by another store or concurrently
+            Cache<K, V> cache = cacheManager.getCache(cacheName, keyType, valueType);
+            if (cache == null) {
+                throw e;
+            }
+            return cache;
+        }
+    }
+
+    /**
+     * The result of {@link SessionRecordUpdater}
+     */
+    static class SaveResult implements Serializable {
+
+        private final long version;
+
+        private final boolean expiryBucketChanged;
+
+        SaveResult(long version, boolean expiryBucketChanged) {
+            this.version = version;
+            this.expiryBucketChanged = expiryBucketChanged;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * @return <code>true</code> if the session is not indexed by its current bucket of expiration
+         */
+        public boolean isExpiryBucketChanged() {
+            return expiryBucketChanged;
+        }
+    }
+
+    /**
+     * The {@link EntryProcessor} that applies the changes of session to its record
+     */
+    static class SessionRecordUpdater implements EntryProcessor<String, SessionRecord, SaveResult>, Serializable {
+
+        private final SessionInfo sessionInfo;
+
+        private final HashMap<String, Object> changedAttributes;
+
+        private final HashSet<String> removedAttributeNames;
+
+        SessionRecordUpdater(SessionInfo sessionInfo, Map<String, Object> changedAttributes,
+                             Set<String> removedAttributeNames) {
+            this.sessionInfo = sessionInfo;
+            this.changedAttributes = new HashMap<>(changedAttributes);
+            this.removedAttributeNames = new HashSet<>(removedAttributeNames);
+        }
+
+        @Override
+        public SaveResult process(MutableEntry<String, SessionRecord> entry, Object... arguments) {
+            // the stored record may be shared with the concurrent loads, thus it's copied rather than mutated
+            SessionRecord record = new SessionRecord(sessionInfo);
+            long previousExpiryBucket = NO_EXPIRY_BUCKET;
+            if (entry.exists()) {
+                SessionRecord storedRecord = entry.getValue();
+                record.getAttributes().putAll(storedRecord.getAttributes());
+                record.setVersion(storedRecord.getVersion());
+                previousExpiryBucket = storedRecord.getExpiryBucket();
+            }
+            record.getAttributes().putAll(changedAttributes);
+            record.getAttributes().keySet().removeAll(removedAttributeNames);
+            record.setVersion(record.getVersion() + 1);
+            record.setExpiryBucket(getExpiryBucket(sessionInfo));
+            entry.setValue(record);
+            return new SaveResult(record.getVersion(), record.getExpiryBucket() != previousExpiryBucket);
+        }
+    }
+
+    /**
+     * The ids of sessions that expire in the same bucket
+     */
+    static class ExpiryBucket implements Serializable {
+
+        private final HashSet<String> sessionIds;
+
+        ExpiryBucket(Set<String> sessionIds) {
+            this.sessionIds = new HashSet<>(sessionIds);
+        }
+
+        public Set<String> getSessionIds() {
+            return sessionIds;
+        }
+    }
+
+    /**
+     * The {@link EntryProcessor} that adds the sessions into the expiry bucket
+     */
+    static class ExpiryBucketAppender implements EntryProcessor<String, ExpiryBucket, Void>, Serializable {
+
+        private final HashSet<String> sessionIds;
+
+        ExpiryBucketAppender(Set<String> sessionIds) {
+            this.sessionIds = new HashSet<>(sessionIds);
+        }
+
+        @Override
+        public Void process(MutableEntry<String, ExpiryBucket> entry, Object... arguments) {
+            if (entry.exists() && entry.getValue().getSessionIds().containsAll(sessionIds)) {
+                return null;
+            }
+            ExpiryBucket bucket = new ExpiryBucket(entry.exists() ? entry.getValue().getSessionIds() : emptySet());
+            bucket.getSessionIds().addAll(sessionIds);
+            entry.setValue(bucket);
+            return null;
+        }
+    }
+
+    /**
+     * The {@link EntryProcessor} that removes the swept sessions from the expiry bucket, the empty bucket is removed
+     */
+    static class ExpiryBucketRemover implements EntryProcessor<String, ExpiryBucket, Void>, Serializable {
+
+        private final HashSet<String> sessionIds;
+
+        ExpiryBucketRemover(Set<String> sessionIds) {
+            this.sessionIds = new HashSet<>(sessionIds);
+        }
+
+        @Override
+        public Void process(MutableEntry<String, ExpiryBucket> entry, Object... arguments) {
+            if (entry.exists()) {
+                ExpiryBucket bucket = new ExpiryBucket(entry.getValue().getSessionIds());
+                bucket.getSessionIds().removeAll(sessionIds);
+                if (bucket.getSessionIds().isEmpty()) {
+                    entry.remove();
+                } else {
+                    entry.setValue(bucket);
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * The {@link EntryProcessor} that registers or unregisters the node of expiry index
+     */
+    static class NodesUpdater implements EntryProcessor<String, String, Void>, Serializable {
+
+        private final String nodeId;
+
+        private final boolean registered;
+
+        NodesUpdater(String nodeId, boolean registered) {
+            this.nodeId = nodeId;
+            this.registered = registered;
+        }
+
+        @Override
+        public Void process(MutableEntry<String, String> entry, Object... arguments) {
+            Set<String> nodeIds = parseNodeIds(entry.exists() ? entry.getValue() : null);
+            if (registered ? nodeIds.add(nodeId) : nodeIds.remove(nodeId)) {
+                if (nodeIds.isEmpty()) {
+                    entry.remove();
+                } else {
+                    entry.setValue(String.join(NODE_SEPARATOR, nodeIds));
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * The {@link EntryProcessor} that removes the record if its session expired, which is checked atomically against
+     * the concurrent access
+     */
+    static class ExpiredRecordRemover implements EntryProcessor<String, SessionRecord, SessionRecord>, Serializable {
+
+        private final long currentTimeMillis;
+
+        ExpiredRecordRemover(long currentTimeMillis) {
+            this.currentTimeMillis = currentTimeMillis;
+        }
+
+        @Override
+        public SessionRecord process(MutableEntry<String, SessionRecord> entry, Object... arguments) {
+            if (!entry.exists()) {
+                return null;
+            }
+            SessionRecord record = entry.getValue();
+            SessionInfo sessionInfo = record.getSessionInfo();
+            if (sessionInfo == null || getExpiration(sessionInfo) > currentTimeMillis) {
+                return null;
+            }
+            entry.remove();
+            return record;
+        }
+    }
+}
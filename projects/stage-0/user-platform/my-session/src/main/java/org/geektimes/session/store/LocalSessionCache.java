@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.session.store;
+
+import org.geektimes.cache.BoundedInMemoryCache;
+
+import javax.cache.Cache;
+import javax.cache.CacheException;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.configuration.MutableConfiguration;
+import javax.cache.spi.CachingProvider;
+import java.net.URI;
+import java.util.Properties;
+
+import static org.geektimes.cache.configuration.CacheProperties.PROPERTY_NAME_PREFIX;
+import static org.geektimes.session.store.SessionStore.NO_VERSION;
+
+/**
+ * The node-local cache of the versions of sessions that are held by the local {@link javax.servlet.http.HttpSession
+ * HttpSessions}, if the version of {@link SessionStore} is same as the local one, the local session is up to date,
+ * thus the sticky requests don't load the {@link SessionRecord} remotely. The versions are kept in the bounded
+ * in-memory {@link Cache} keyed by session id.
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @since 1.0.0
+ */
+public class LocalSessionCache {
+
+    /**
+     * The property name of the maximum count of local sessions
+     */
+    public static final String MAX_ENTRIES_PROPERTY_NAME = "javax.servlet.http.HttpSession.local-cache.max-entries";
+
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+    public static final String CACHE_NAME = "local-session-versions";
+
+    private static final URI CACHE_MANAGER_URI = URI.create("in-memory://localhost/session");
+
+    private final Cache<String, Long> versions;
+
+    public LocalSessionCache(ClassLoader classLoader, int maxEntries) {
+        this.versions = createCache(classLoader, maxEntries);
+    }
+
+    /**
+     * @param sessionId the id of session
+     * @return {@link SessionStore#NO_VERSION} if the local session is not synchronized with the {@link SessionStore}
+     */
+    public long getVersion(String sessionId) {
+        Long version = versions.get(sessionId);
+        return version == null ? NO_VERSION : version;
+    }
+
+    public void setVersion(String sessionId, long version) {
+        versions.put(sessionId, version);
+    }
+
+    public void remove(String sessionId) {
+        versions.remove(sessionId);
+    }
+
+    private static Cache<String, Long> createCache(ClassLoader classLoader, int maxEntries) {
+        CachingProvider cachingProvider = Caching.getCachingProvider(classLoader);
+        Properties properties = new Properties();
+        properties.putAll(cachingProvider.getDefaultProperties());
+        properties.setProperty(PROPERTY_NAME_PREFIX + CACHE_NAME + "." + BoundedInMemoryCache.MAX_ENTRIES_PROPERTY_NAME,
+                String.valueOf(maxEntries));
+        CacheManager cacheManager = cachingProvider.getCacheManager(CACHE_MANAGER_URI, classLoader, properties);
+        try {
+            return cacheManager.createCache(CACHE_NAME, new MutableConfiguration<String, Long>()
+                    .setTypes(String.class, Long.class));
+        } catch (CacheException e) {
+            // created by another filter or concurrently
+            Cache<String, Long> cache = cacheManager.getCache(CACHE_NAME, String.class, Long.class);
+            if (cache == null) {
+                throw e;
+            }
+            return cache;
+        }
+    }
+}
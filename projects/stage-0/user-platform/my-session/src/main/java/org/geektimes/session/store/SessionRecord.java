@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.session.store;
+
+import org.geektimes.session.servlet.http.SessionInfo;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The compact record of a distributed session, which holds the {@link SessionInfo metadata} and the attributes
+ * under the same key of {@link SessionStore}
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @since 1.0.0
+ */
+public class SessionRecord implements Serializable {
+
+    private SessionInfo sessionInfo;
+
+    private Map<String, Object> attributes = new HashMap<>();
+
+    /**
+     * The version that is increased once the record is updated
+     */
+    private long version;
+
+    /**
+     * The bucket of expiration that the session is indexed by, which is maintained by the {@link SessionStore}
+     */
+    private long expiryBucket;
+
+    /**
+     * Default Constructor (for Serialization)
+     */
+    public SessionRecord() {
+    }
+
+    public SessionRecord(SessionInfo sessionInfo) {
+        this.sessionInfo = sessionInfo;
+    }
+
+    public SessionInfo getSessionInfo() {
+        return sessionInfo;
+    }
+
+    public void setSessionInfo(SessionInfo sessionInfo) {
+        this.sessionInfo = sessionInfo;
+    }
+
+    public Map<String, Object> getAttributes() {
+        return attributes;
+    }
+
+    public void setAttributes(Map<String, Object> attributes) {
+        this.attributes = attributes;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public long getExpiryBucket() {
+        return expiryBucket;
+    }
+
+    public void setExpiryBucket(long expiryBucket) {
+        this.expiryBucket = expiryBucket;
+    }
+}
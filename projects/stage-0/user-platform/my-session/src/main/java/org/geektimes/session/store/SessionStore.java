@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.session.store;
+
+import org.geektimes.session.servlet.http.SessionInfo;
+
+import javax.cache.CacheManager;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+
+/**
+ * The store of {@link SessionRecord session records}, which is instantiated by {@link ServiceLoader Java SPI}, the one
+ * of the highest priority is used.
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @see CacheSessionStore
+ * @since 1.0.0
+ */
+public interface SessionStore {
+
+    /**
+     * The version of the absent record
+     */
+    long NO_VERSION = -1L;
+
+    Comparator<SessionStore> PRIORITY_COMPARATOR = Comparator.comparingInt(SessionStore::getPriority);
+
+    /**
+     * Get the priority of current {@link SessionStore}.
+     *
+     * @return the less value , the more priority.
+     */
+    int getPriority();
+
+    /**
+     * Initialize current {@link SessionStore} before it's used
+     *
+     * @param cacheManager the {@link CacheManager} of the distributed cache
+     */
+    void initialize(CacheManager cacheManager);
+
+    /**
+     * Load the record of session in one read
+     *
+     * @param sessionId the id of session
+     * @return <code>null</code> if absent
+     */
+    SessionRecord load(String sessionId);
+
+    /**
+     * Get the version of record, which is much cheaper than {@link #load(String) loading} the record, thus the
+     * node that caches the session locally could check whether the session was changed by other nodes.
+     *
+     * @param sessionId the id of session
+     * @return {@link #NO_VERSION} if absent
+     */
+    long getVersion(String sessionId);
+
+    /**
+     * Save the metadata of session and apply the changed attributes to the record, the record is created if absent
+     *
+     * @param sessionInfo           the {@link SessionInfo}
+     * @param changedAttributes     the added or replaced attributes
+     * @param removedAttributeNames the names of removed attributes
+     * @return the increased version of record
+     */
+    long save(SessionInfo sessionInfo, Map<String, Object> changedAttributes, Set<String> removedAttributeNames);
+
+    /**
+     * Write the changes that are buffered by {@link #save(SessionInfo, Map, Set)}, e.g. the index of expirations, which
+     * is invoked periodically and before current node is shut down.
+     */
+    default void flush() {
+    }
+
+    /**
+     * Remove the record of session
+     *
+     * @param sessionId the id of session
+     */
+    void remove(String sessionId);
+
+    /**
+     * Whether the expiration of session is postponed by the current access, the store keeps the expirations in a
+     * coarse granularity, thus the session that is not changed is saved only if its expiration is moved.
+     *
+     * @param sessionInfo      the {@link SessionInfo} of the previous access
+     * @param lastAccessedTime the time of the current access
+     * @return <code>true</code> if the session should be saved even if it's not changed
+     */
+    boolean isExpirationChanged(SessionInfo sessionInfo, long lastAccessedTime);
+
+    /**
+     * Try to acquire or renew the lease of expiring sessions, only the holder of lease removes the expired sessions,
+     * thus the sessions are expired once in the cluster. The lease may be best-effort if the store can't update it
+     * by compare-and-set, thus {@link #removeExpired(long, int, int)} must be safe to run on two nodes at once.
+     *
+     * @param owner         the unique owner of lease
+     * @param leaseDuration the duration of lease in milliseconds
+     * @return <code>true</code> if the lease is held by the owner
+     */
+    boolean acquireExpiryLease(String owner, long leaseDuration);
+
+    /**
+     * Remove the records of sessions that expired before the specified time in batches, the sessions that are
+     * accessed meanwhile are kept.
+     *
+     * @param currentTimeMillis the current time
+     * @param batchSize         the max count of records removed in one batch
+     * @param maxSessions       the max count of records removed in total, the rest are removed in next time
+     * @return the removed records
+     */
+    List<SessionRecord> removeExpired(long currentTimeMillis, int batchSize, int maxSessions);
+
+    /**
+     * Load the {@link SessionStore} of the highest priority, which is initialized
+     *
+     * @param cacheManager the {@link CacheManager} of the distributed cache
+     * @param classLoader  the {@link ClassLoader} to load the {@link SessionStore SessionStores}
+     * @return non-null
+     * @throws IllegalStateException if no {@link SessionStore} is found
+     */
+    static SessionStore load(CacheManager cacheManager, ClassLoader classLoader) {
+        SessionStore sessionStore = null;
+        for (SessionStore candidate : ServiceLoader.load(SessionStore.class, classLoader)) {
+            if (sessionStore == null || PRIORITY_COMPARATOR.compare(candidate, sessionStore) < 0) {
+                sessionStore = candidate;
+            }
+        }
+        if (sessionStore == null) {
+            throw new IllegalStateException("No SessionStore is found by Java SPI!");
+        }
+        sessionStore.initialize(cacheManager);
+        return sessionStore;
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.session.servlet.http;
+
+import org.geektimes.session.store.CacheSessionStore;
+import org.geektimes.session.store.CountingSessionStore;
+import org.geektimes.session.store.LocalSessionCache;
+import org.geektimes.session.store.SessionRecord;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.util.UUID;
+
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singletonMap;
+import static org.geektimes.session.store.SessionStore.NO_VERSION;
+import static org.junit.Assert.*;
+
+/**
+ * {@link DistributedHttpSession} and {@link DistributedServletRequestWrapper} Test
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @since 1.0.0
+ */
+public class DistributedHttpSessionTest {
+
+    private CacheManager cacheManager;
+
+    private CountingSessionStore sessionStore;
+
+    private LocalSessionCache localSessionCache;
+
+    /**
+     * The local session of servlet container that is shared by the sticky requests
+     */
+    private MockHttpSession localSession;
+
+    @Before
+    public void init() {
+        cacheManager = Caching.getCachingProvider().getCacheManager(URI.create("in-memory://localhost/http-session"),
+                null);
+        CacheSessionStore cacheSessionStore = new CacheSessionStore();
+        cacheSessionStore.initialize(cacheManager);
+        sessionStore = new CountingSessionStore(cacheSessionStore);
+        localSessionCache = new LocalSessionCache(getClass().getClassLoader(), 100);
+        localSession = new MockHttpSession();
+    }
+
+    @After
+    public void destroy() {
+        for (String cacheName : cacheManager.getCacheNames()) {
+            cacheManager.destroyCache(cacheName);
+        }
+    }
+
+    @Test
+    public void testFlushOncePerRequest() {
+        DistributedServletRequestWrapper request = newRequest(false);
+        HttpSession session = request.getSession();
+        for (int i = 0; i < 10; i++) {
+            session.setAttribute("a-" + i, i);
+        }
+        session.removeAttribute("a-0");
+        session.setAttribute("a-1", null);
+        assertEquals(0, sessionStore.getSaves());
+        request.flushSessions();
+        assertEquals(1, sessionStore.getSaves());
+        SessionRecord record = sessionStore.load(localSession.getId());
+        assertEquals(8, record.getAttributes().size());
+        assertEquals(9, record.getAttributes().get("a-9"));
+
+        // the session that is not changed is not saved
+        localSession.setNew(false);
+        request = newRequest(false);
+        assertEquals(9, request.getSession().getAttribute("a-9"));
+        request.flushSessions();
+        assertEquals(1, sessionStore.getSaves());
+
+        // the read attribute is regarded as dirty by the policy
+        request = newRequest(true);
+        assertEquals(9, request.getSession().getAttribute("a-9"));
+        request.flushSessions();
+        assertEquals(2, sessionStore.getSaves());
+    }
+
+    @Test
+    public void testVersionReuse() {
+        DistributedServletRequestWrapper request = newRequest(false);
+        request.getSession().setAttribute("a", 1);
+        request.flushSessions();
+        String sessionId = localSession.getId();
+        assertEquals(1L, localSessionCache.getVersion(sessionId));
+
+        // the sticky request only reads the version
+        localSession.setNew(false);
+        sessionStore.reset();
+        request = newRequest(false);
+        assertEquals(1, request.getSession().getAttribute("a"));
+        request.flushSessions();
+        assertEquals(1, sessionStore.getVersionReads());
+        assertEquals(0, sessionStore.getLoads());
+
+        // the record is loaded once it was changed by another server
+        sessionStore.save(storedSessionInfo(sessionId), singletonMap("a", 2), emptySet());
+        sessionStore.reset();
+        request = newRequest(false);
+        assertEquals(2, request.getSession().getAttribute("a"));
+        assertEquals(2, request.getSession().getAttribute("a"));
+        request.flushSessions();
+        assertEquals(1, sessionStore.getLoads());
+        assertEquals(2L, localSessionCache.getVersion(sessionId));
+    }
+
+    @Test
+    public void testVersionInvalidation() {
+        DistributedServletRequestWrapper request = newRequest(false);
+        request.getSession().setAttribute("a", 1);
+        request.flushSessions();
+        String sessionId = localSession.getId();
+
+        // another server saves the record after the local session was synchronized
+        localSession.setNew(false);
+        request = newRequest(false);
+        HttpSession session = request.getSession();
+        assertEquals(1, session.getAttribute("a"));
+        sessionStore.save(storedSessionInfo(sessionId), singletonMap("b", 2), emptySet());
+        session.setAttribute("c", 3);
+        request.flushSessions();
+        // the local session misses the change of another server, thus its version is not trusted
+        assertEquals(NO_VERSION, localSessionCache.getVersion(sessionId));
+
+        sessionStore.reset();
+        request = newRequest(false);
+        assertEquals(2, request.getSession().getAttribute("b"));
+        assertEquals(3, request.getSession().getAttribute("c"));
+        request.flushSessions();
+        assertEquals(1, sessionStore.getLoads());
+        assertEquals(3L, localSessionCache.getVersion(sessionId));
+
+        // the invalidated session is removed from the store and the local cache
+        request = newRequest(false);
+        request.getSession().invalidate();
+        request.flushSessions();
+        assertNull(sessionStore.load(sessionId));
+        assertEquals(NO_VERSION, localSessionCache.getVersion(sessionId));
+    }
+
+    @Test
+    public void testRequestScopedSession() {
+        localSession.setNew(false);
+        DistributedServletRequestWrapper request = newRequest(false);
+        HttpSession session = request.getSession();
+        // the id is resolved without the remote read
+        assertNotNull(session.getId());
+        assertSame(session, request.getSession());
+        assertSame(session, request.getSession(false));
+        assertEquals(0, sessionStore.getVersionReads() + sessionStore.getLoads());
+
+        // the id is changed in the same session
+        String sessionId = request.changeSessionId();
+        assertSame(session, request.getSession());
+        assertEquals(sessionId, session.getId());
+
+        // the invalidated session is rebuilt
+        session.invalidate();
+        assertTrue(localSession.isInvalidated());
+        localSession = new MockHttpSession();
+        HttpSession newSession = request.getSession();
+        assertNotSame(session, newSession);
+        assertEquals(localSession.getId(), newSession.getId());
+    }
+
+    private DistributedServletRequestWrapper newRequest(boolean dirtyOnRead) {
+        // the requested id is the one of the local session unless it's new
+        String requestedSessionId = localSession.isNew() ? null : localSession.getId();
+        HttpServletRequest request = (HttpServletRequest) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{HttpServletRequest.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getSession":
+                            return localSession.isInvalidated() ? null : localSession;
+                        case "getRequestedSessionId":
+                            return requestedSessionId;
+                        case "isRequestedSessionIdValid":
+                            return requestedSessionId != null;
+                        case "changeSessionId":
+                            String sessionId = UUID.randomUUID().toString();
+                            localSession.setId(sessionId);
+                            return sessionId;
+                        default:
+                            return null;
+                    }
+                });
+        return new DistributedServletRequestWrapper(request, sessionStore, localSessionCache, dirtyOnRead);
+    }
+
+    private SessionInfo storedSessionInfo(String sessionId) {
+        return sessionStore.load(sessionId).getSessionInfo();
+    }
+}
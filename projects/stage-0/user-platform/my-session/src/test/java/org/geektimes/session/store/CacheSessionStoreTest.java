@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.session.store;
+
+import org.geektimes.session.servlet.http.SessionInfo;
+import org.geektimes.session.store.CacheSessionStore.ExpiryBucket;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonMap;
+import static org.geektimes.session.store.CacheSessionStore.EXPIRY_BUCKET_DURATION;
+import static org.geektimes.session.store.CacheSessionStore.EXPIRY_INDEX_CACHE_NAME;
+import static org.geektimes.session.store.SessionStore.NO_VERSION;
+import static org.junit.Assert.*;
+
+/**
+ * {@link CacheSessionStore} Test
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @since 1.0.0
+ */
+public class CacheSessionStoreTest {
+
+    private CacheManager cacheManager;
+
+    private CacheSessionStore sessionStore;
+
+    @Before
+    public void init() {
+        cacheManager = Caching.getCachingProvider().getCacheManager(URI.create("in-memory://localhost/session-store"),
+                null);
+        sessionStore = newSessionStore();
+    }
+
+    @After
+    public void destroy() {
+        for (String cacheName : cacheManager.getCacheNames()) {
+            cacheManager.destroyCache(cacheName);
+        }
+    }
+
+    @Test
+    public void testSaveAndLoad() {
+        SessionInfo sessionInfo = newSessionInfo("s-1", 0);
+        assertEquals(NO_VERSION, sessionStore.getVersion("s-1"));
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("a", 1);
+        attributes.put("b", 2);
+        assertEquals(1L, sessionStore.save(sessionInfo, attributes, emptySet()));
+        SessionRecord record = sessionStore.load("s-1");
+        assertEquals(attributes, record.getAttributes());
+
+        // only the changes are applied to the record
+        assertEquals(2L, sessionStore.save(sessionInfo, singletonMap("c", 3), singleton("a")));
+        assertEquals(2L, sessionStore.getVersion("s-1"));
+        SessionRecord updatedRecord = sessionStore.load("s-1");
+        assertEquals(2, updatedRecord.getAttributes().size());
+        assertEquals(2, updatedRecord.getAttributes().get("b"));
+        assertEquals(3, updatedRecord.getAttributes().get("c"));
+        // the loaded record is not mutated by the later save
+        assertEquals(attributes, record.getAttributes());
+        assertEquals(1L, record.getVersion());
+
+        sessionStore.remove("s-1");
+        assertNull(sessionStore.load("s-1"));
+        assertEquals(NO_VERSION, sessionStore.getVersion("s-1"));
+    }
+
+    @Test
+    public void testExpirationChanged() {
+        SessionInfo sessionInfo = newSessionInfo("s-1", 1800);
+        long lastAccessedTime = sessionInfo.getLastAccessedTime();
+        assertTrue(sessionStore.isExpirationChanged(sessionInfo, lastAccessedTime + EXPIRY_BUCKET_DURATION));
+        // the session that never expires is not saved for the expiration
+        sessionInfo.setMaxInactiveInterval(0);
+        assertFalse(sessionStore.isExpirationChanged(sessionInfo, lastAccessedTime + EXPIRY_BUCKET_DURATION));
+    }
+
+    @Test
+    public void testRemoveExpired() {
+        long currentTimeMillis = System.currentTimeMillis();
+        // the sessions of another node are indexed by its own shards
+        CacheSessionStore anotherSessionStore = newSessionStore();
+        for (int i = 0; i < 5; i++) {
+            SessionStore store = i % 2 == 0 ? sessionStore : anotherSessionStore;
+            store.save(newSessionInfo("s-" + i, 1), singletonMap("i", i), emptySet());
+        }
+        // the session that is accessed after being indexed is kept
+        SessionInfo accessedSessionInfo = newSessionInfo("s-4", 3600);
+        sessionStore.save(accessedSessionInfo, emptyMap(), emptySet());
+        // the session that never expires is not indexed
+        sessionStore.save(newSessionInfo("s-5", 0), emptyMap(), emptySet());
+        sessionStore.flush();
+        anotherSessionStore.flush();
+
+        long expiredTimeMillis = currentTimeMillis + 5 * EXPIRY_BUCKET_DURATION;
+        // the work of sweep is bounded
+        List<SessionRecord> removedRecords = sessionStore.removeExpired(expiredTimeMillis, 2, 3);
+        assertTrue(removedRecords.size() < 4);
+        // any node that holds the lease sweeps the shards of all nodes
+        removedRecords.addAll(anotherSessionStore.removeExpired(expiredTimeMillis, 2, 3));
+        removedRecords.addAll(anotherSessionStore.removeExpired(expiredTimeMillis, 2, 3));
+        assertEquals(4, removedRecords.size());
+        Set<String> removedSessionIds = new HashSet<>();
+        for (SessionRecord record : removedRecords) {
+            removedSessionIds.add(record.getSessionInfo().getId());
+            assertEquals(NO_VERSION, sessionStore.getVersion(record.getSessionInfo().getId()));
+        }
+        assertEquals(new HashSet<>(asList("s-0", "s-1", "s-2", "s-3")), removedSessionIds);
+        assertNotNull(sessionStore.load("s-4"));
+        assertNotNull(sessionStore.load("s-5"));
+        assertTrue(sessionStore.removeExpired(expiredTimeMillis, 2, 3).isEmpty());
+
+        // the node whose shards were all swept registers itself again once it indexes a session
+        anotherSessionStore.save(newSessionInfo("s-6", 600), emptyMap(), emptySet());
+        anotherSessionStore.flush();
+        removedRecords = sessionStore.removeExpired(expiredTimeMillis + 10 * EXPIRY_BUCKET_DURATION, 2, 100);
+        assertEquals(1, removedRecords.size());
+        assertEquals("s-6", removedRecords.get(0).getSessionInfo().getId());
+    }
+
+    @Test
+    public void testExpiryIndex() {
+        Cache<String, ExpiryBucket> expiryIndexCache = cacheManager.getCache(EXPIRY_INDEX_CACHE_NAME, String.class,
+                ExpiryBucket.class);
+        // the first save flushes the index, the later ones are buffered until the flush interval passed
+        for (int i = 0; i < 3; i++) {
+            sessionStore.save(newSessionInfo("s-" + i, 600), emptyMap(), emptySet());
+        }
+        assertEquals(singleton("s-0"), getIndexedSessionIds(expiryIndexCache));
+        sessionStore.flush();
+        assertEquals(new HashSet<>(asList("s-0", "s-1", "s-2")), getIndexedSessionIds(expiryIndexCache));
+
+        // the session is not indexed again unless its bucket is changed
+        expiryIndexCache.clear();
+        SessionInfo sessionInfo = newSessionInfo("s-1", 600);
+        sessionStore.save(sessionInfo, singletonMap("a", 1), emptySet());
+        sessionStore.flush();
+        assertTrue(getIndexedSessionIds(expiryIndexCache).isEmpty());
+        sessionInfo.setMaxInactiveInterval(3600);
+        sessionStore.save(sessionInfo, emptyMap(), emptySet());
+        sessionStore.flush();
+        assertEquals(singleton("s-1"), getIndexedSessionIds(expiryIndexCache));
+    }
+
+    @Test
+    public void testExpiryLease() throws InterruptedException {
+        assertTrue(sessionStore.acquireExpiryLease("a", 100));
+        assertFalse(sessionStore.acquireExpiryLease("b", 100));
+        // renewed by the holder
+        assertTrue(sessionStore.acquireExpiryLease("a", 100));
+        assertFalse(newSessionStore().acquireExpiryLease("b", 100));
+        // taken over once it expired
+        Thread.sleep(200);
+        assertTrue(sessionStore.acquireExpiryLease("b", 100));
+        assertFalse(sessionStore.acquireExpiryLease("a", 100));
+    }
+
+    private CacheSessionStore newSessionStore() {
+        CacheSessionStore sessionStore = new CacheSessionStore();
+        sessionStore.initialize(cacheManager);
+        return sessionStore;
+    }
+
+    private static SessionInfo newSessionInfo(String id, int maxInactiveInterval) {
+        SessionInfo sessionInfo = new SessionInfo();
+        sessionInfo.setId(id);
+        sessionInfo.setCreationTime(System.currentTimeMillis());
+        sessionInfo.setLastAccessedTime(sessionInfo.getCreationTime());
+        sessionInfo.setMaxInactiveInterval(maxInactiveInterval);
+        return sessionInfo;
+    }
+
+    private static Set<String> getIndexedSessionIds(Cache<String, ExpiryBucket> expiryIndexCache) {
+        Set<String> sessionIds = new HashSet<>();
+        for (Cache.Entry<String, ExpiryBucket> entry : expiryIndexCache) {
+            sessionIds.addAll(entry.getValue().getSessionIds());
+        }
+        return sessionIds;
+    }
+}
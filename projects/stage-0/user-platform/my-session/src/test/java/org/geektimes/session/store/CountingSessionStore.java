@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.geektimes.session.store;
+
+import org.geektimes.session.servlet.http.SessionInfo;
+
+import javax.cache.CacheManager;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@link SessionStore} that counts the remote operations of the delegate for testing
+ *
+ * @author <a href="mailto:mercyblitz@gmail.com">Mercy</a>
+ * @since 1.0.0
+ */
+public class CountingSessionStore implements SessionStore {
+
+    private final SessionStore delegate;
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final AtomicInteger versionReads = new AtomicInteger();
+
+    private final AtomicInteger saves = new AtomicInteger();
+
+    public CountingSessionStore(SessionStore delegate) {
+        this.delegate = delegate;
+    }
+
+    public int getLoads() {
+        return loads.get();
+    }
+
+    public int getVersionReads() {
+        return versionReads.get();
+    }
+
+    public int getSaves() {
+        return saves.get();
+    }
+
+    public void reset() {
+        loads.set(0);
+        versionReads.set(0);
+        saves.set(0);
+    }
+
+    @Override
+    public int getPriority() {
+        return delegate.getPriority();
+    }
+
+    @Override
+    public void initialize(CacheManager cacheManager) {
+        delegate.initialize(cacheManager);
+    }
+
+    @Override
+    public SessionRecord load(String sessionId) {
+        loads.incrementAndGet();
+        return delegate.load(sessionId);
+    }
+
+    @Override
+    public long getVersion(String sessionId) {
+        versionReads.incrementAndGet();
+        return delegate.getVersion(sessionId);
+    }
+
+    @Override
+    public long save(SessionInfo sessionInfo, Map<String, Object> changedAttributes, Set<String> removedAttributeNames) {
+        saves.incrementAndGet();
+        return delegate.save(sessionInfo, changedAttributes, removedAttributeNames);
+    }
+
+    @Override
+    public void remove(String sessionId) {
+        delegate.remove(sessionId);
+    }
+
+    @Override
+    public boolean isExpirationChanged(SessionInfo sessionInfo, long lastAccessedTime) {
+        return delegate.isExpirationChanged(sessionInfo, lastAccessedTime);
+    }
+
+    @Override
+    public boolean acquireExpiryLease(String owner, long leaseDuration) {
+        return delegate.acquireExpiryLease(owner, leaseDuration);
+    }
+
+    @Override
+    public List<SessionRecord> removeExpired(long currentTimeMillis, int batchSize, int maxSessions) {
+        return delegate.removeExpired(currentTimeMillis, batchSize, maxSessions);
+    }
+}
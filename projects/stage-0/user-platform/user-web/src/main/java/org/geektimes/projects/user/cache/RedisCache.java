@@ -16,11 +16,13 @@
  */
 package org.geektimes.projects.user.cache;
 
+import org.geektimes.cache.io.Codec;
+import org.geektimes.cache.io.CodecRegistry;
 import org.springframework.cache.Cache;
 import redis.clients.jedis.Jedis;
 
 import javax.cache.CacheException;
-import java.io.*;
+import java.io.IOException;
 import java.util.Objects;
 import java.util.concurrent.Callable;
 
@@ -37,11 +39,19 @@ public class RedisCache implements Cache {
 
     private final Jedis jedis;
 
+    private final Codec codec;
+
     public RedisCache(String name, Jedis jedis) {
+        this(name, jedis, CodecRegistry.getInstance().getDefaultCodec());
+    }
+
+    public RedisCache(String name, Jedis jedis, Codec codec) {
         Objects.requireNonNull(name, "The 'name' argument must not be null.");
         Objects.requireNonNull(jedis, "The 'jedis' argument must not be null.");
+        Objects.requireNonNull(codec, "The 'codec' argument must not be null.");
         this.name = name;
         this.jedis = jedis;
+        this.codec = codec;
     }
 
 
@@ -92,34 +102,19 @@ public class RedisCache implements Cache {
         // String 类型的 key :
     }
 
-    // 是否可以抽象出一套序列化和反序列化的 API
     private byte[] serialize(Object value) throws CacheException {
-        byte[] bytes = null;
-        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-             ObjectOutputStream objectOutputStream = new ObjectOutputStream(outputStream)
-        ) {
-            // Key -> byte[]
-            objectOutputStream.writeObject(value);
-            bytes = outputStream.toByteArray();
+        try {
+            return codec.serialize(value);
         } catch (IOException e) {
             throw new CacheException(e);
         }
-        return bytes;
     }
 
     private <T> T deserialize(byte[] bytes) throws CacheException {
-        if (bytes == null) {
-            return null;
-        }
-        T value = null;
-        try (ByteArrayInputStream inputStream = new ByteArrayInputStream(bytes);
-             ObjectInputStream objectInputStream = new ObjectInputStream(inputStream)
-        ) {
-            // byte[] -> Value
-            value = (T) objectInputStream.readObject();
-        } catch (Exception e) {
+        try {
+            return (T) codec.deserialize(bytes);
+        } catch (IOException e) {
             throw new CacheException(e);
         }
-        return value;
     }
 }